@@ -0,0 +1,160 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous repository.  The asynchronous repository mirrors the
+ * repository, but each method returns immediately with the future result
+ * of the call so that independent calls can run concurrently.
+ *
+ * @author  Ron Rickard
+ */
+public interface AsyncRepository {
+
+    /**
+     * Count the entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future number of entities that match the criteria.
+     */
+    <T> Future<Long> count(Class<T> entityClass, Criteria<T> criteria);
+
+    /**
+     * Check if any entity exists.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future result, true if an entity matches the criteria, otherwise false.
+     */
+    <T> Future<Boolean> exists(Class<T> entityClass, Criteria<T> criteria);
+
+    /**
+     * Find the entity.
+     *
+     * @param  entityClass  the entity class.
+     * @param  id           the ID.
+     *
+     * @return  the future entity.
+     */
+    <T,U> Future<T> find(Class<T> entityClass, U id);
+
+    /**
+     * Find the entity.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future entity.
+     */
+    <T> Future<T> find(Class<T> entityClass, Criteria<T> criteria);
+
+    /**
+     * Find the entities by the IDs.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     *
+     * @return  the future ID-entity map in the order of the IDs.  IDs of entities that do not exist are not in the map.
+     */
+    <T,U> Future<Map<U,T>> findByIds(Class<T> entityClass, Collection<U> ids);
+
+    /**
+     * Find the list of entities.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the future list of entities.
+     */
+    <T> Future<List<T>> findList(Class<T> entityClass);
+
+    /**
+     * Find the list of entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future list of entities.
+     */
+    <T> Future<List<T>> findList(Class<T> entityClass, Criteria<T> criteria);
+
+    /**
+     * Find the list of projections.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria with at least one projection.
+     *
+     * @return  the future list of property name-property value maps, each in the order of the projections.
+     */
+    <T> Future<List<Map<String,Object>>> findProjectionList(Class<T> entityClass, Criteria<T> criteria);
+
+    /**
+     * Get the criteria.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the criteria.
+     */
+    <T> Criteria<T> getCriteria(Class<T> entityClass);
+
+    /**
+     * Persist the entity.
+     *
+     * @param  entity  the entity.
+     *
+     * @return  the future persisted entity.
+     */
+    <T> Future<T> persist(T entity);
+
+    /**
+     * Persist the list of entities.
+     *
+     * @param  entities  the entities.
+     *
+     * @return  the future persisted list of entities.
+     */
+    <T> Future<List<T>> persistList(List<T> entities);
+
+    /**
+     * Remove the entity.
+     *
+     * @param  entityClass  the entity class.
+     * @param  id           the ID.
+     *
+     * @return  the future completion of the removal.
+     */
+    <T,U> Future<Void> remove(Class<T> entityClass, U id);
+
+    /**
+     * Remove the entities by the list of IDs.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     *
+     * @return  the future completion of the removal.
+     */
+    <T,U> Future<Void> removeList(Class<T> entityClass, List<U> ids);
+}
@@ -64,6 +64,33 @@ public interface Criteria<T> {
      */
     Criteria<T> addOrders(List<Criterion> criterions);
 
+    /**
+     * Add a projection.  A projection selects the value of a property path,
+     * instead of the whole entity, when the projection list is found.
+     *
+     * @param  propertyName  the property path.
+     *
+     * @return  the criteria.
+     */
+    Criteria<T> addProjection(String propertyName);
+
+    /**
+     * Add projections.
+     *
+     * @param  propertyNames  the property paths.
+     *
+     * @return  the criteria.
+     */
+    Criteria<T> addProjections(List<String> propertyNames);
+
+    /**
+     * Get the cache key.  Criteria for the same entity class with equal cache
+     * keys find the same entities.
+     *
+     * @return  the cache key.
+     */
+    Object getCacheKey();
+
     /**
      * Check if an order criterion exists.
      *
@@ -71,10 +98,50 @@ public interface Criteria<T> {
      */
     boolean orderExists();
 
+    /**
+     * Check if a projection exists.
+     *
+     * @return  true if a projection exists, otherwise false.
+     */
+    boolean projectionExists();
+
     /**
      * Check if a restriction criterion exists.
      *
      * @return  true if a restriction criterion exists, otherwise false.
      */
     boolean restrictionExists();
+
+    /**
+     * Seek after the order values of the last seen entity.  Only entities
+     * ordered after the last seen entity are found, so a page deep in the
+     * result set costs the same as the first page.  The order values must
+     * be in the same order as the order criterions, and the last order
+     * criterion must be on the ID, so the order is unique and no entity is
+     * skipped or repeated between pages.  The seek does not apply to counting
+     * the entities.
+     *
+     * @param  orderValues  the order values of the last seen entity.
+     *
+     * @return  the criteria.
+     */
+    Criteria<T> seekAfter(Object... orderValues);
+
+    /**
+     * Set the position of the first result.
+     *
+     * @param  firstResult  the position of the first result, numbered from 0.
+     *
+     * @return  the criteria.
+     */
+    Criteria<T> setFirstResult(int firstResult);
+
+    /**
+     * Set the maximum number of results.
+     *
+     * @param  maxResults  the maximum number of results.
+     *
+     * @return  the criteria.
+     */
+    Criteria<T> setMaxResults(int maxResults);
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Criteria template.  A criteria template is compiled once from criterions
+ * with named parameters and is safe to use from many threads.  Each use binds
+ * the parameters to values, which produces a new criteria.
+ *
+ * @author  Ron Rickard
+ * @see  org.lazydog.repository.criterion.Parameter
+ */
+public interface CriteriaTemplate<T> {
+
+    /**
+     * Bind the parameters to the values.
+     *
+     * @param  parameterValues  the parameter name-value map.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if a parameter is not bound to a value.
+     */
+    Criteria<T> bind(Map<String, ?> parameterValues);
+
+    /**
+     * Get the parameter names.
+     *
+     * @return  the parameter names.
+     */
+    Set<String> getParameterNames();
+}
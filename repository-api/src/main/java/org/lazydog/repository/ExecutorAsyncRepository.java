@@ -0,0 +1,389 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous repository backed by an executor service.  Each call is
+ * submitted to the executor service as a task that calls the repository.
+ * The repository must be safe to call from the threads of the executor
+ * service; subclasses override {@link #call(Task)} to give each task the
+ * resources it needs on its thread.  The executor service is owned by the
+ * caller and is not shut down by the asynchronous repository.
+ *
+ * @author  Ron Rickard
+ */
+public class ExecutorAsyncRepository implements AsyncRepository {
+
+    private final ExecutorService executorService;
+    private final Repository repository;
+
+    /**
+     * Repository task.
+     *
+     * @param  <V>  the result type.
+     */
+    public interface Task<V> {
+
+        /**
+         * Call the repository.
+         *
+         * @param  repository  the repository.
+         *
+         * @return  the result.
+         */
+        V call(Repository repository);
+    }
+
+    /**
+     * Create an asynchronous repository.
+     *
+     * @param  repository       the repository.
+     * @param  executorService  the executor service.
+     *
+     * @throws  IllegalArgumentException  if the repository or executor service is invalid.
+     */
+    protected ExecutorAsyncRepository(final Repository repository, final ExecutorService executorService) {
+
+        // Check if the repository is null.
+        if (repository == null) {
+            throw new IllegalArgumentException("The repository is invalid.");
+        }
+
+        // Check if the executor service is null.
+        if (executorService == null) {
+            throw new IllegalArgumentException("The executor service is invalid.");
+        }
+
+        this.executorService = executorService;
+        this.repository = repository;
+    }
+
+    /**
+     * Call the task on the current thread of the executor service.
+     *
+     * @param  task  the task.
+     *
+     * @return  the result.
+     *
+     * @throws  Exception  if the task fails.
+     */
+    protected <V> V call(final Task<V> task) throws Exception {
+        return task.call(this.repository);
+    }
+
+    /**
+     * Count the entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future number of entities that match the criteria.
+     */
+    @Override
+    public <T> Future<Long> count(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.submit(new Task<Long>() {
+            @Override
+            public Long call(final Repository repository) {
+                return repository.count(entityClass, criteria);
+            }
+        });
+    }
+
+    /**
+     * Check if any entity exists.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future result, true if an entity matches the criteria, otherwise false.
+     */
+    @Override
+    public <T> Future<Boolean> exists(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.submit(new Task<Boolean>() {
+            @Override
+            public Boolean call(final Repository repository) {
+                return repository.exists(entityClass, criteria);
+            }
+        });
+    }
+
+    /**
+     * Find the entity.
+     *
+     * @param  entityClass  the entity class.
+     * @param  id           the ID.
+     *
+     * @return  the future entity.
+     */
+    @Override
+    public <T,U> Future<T> find(final Class<T> entityClass, final U id) {
+        return this.submit(new Task<T>() {
+            @Override
+            public T call(final Repository repository) {
+                return repository.find(entityClass, id);
+            }
+        });
+    }
+
+    /**
+     * Find the entity.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future entity.
+     */
+    @Override
+    public <T> Future<T> find(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.submit(new Task<T>() {
+            @Override
+            public T call(final Repository repository) {
+                return repository.find(entityClass, criteria);
+            }
+        });
+    }
+
+    /**
+     * Find the entities by the IDs.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     *
+     * @return  the future ID-entity map in the order of the IDs.  IDs of entities that do not exist are not in the map.
+     */
+    @Override
+    public <T,U> Future<Map<U,T>> findByIds(final Class<T> entityClass, final Collection<U> ids) {
+        return this.submit(new Task<Map<U,T>>() {
+            @Override
+            public Map<U,T> call(final Repository repository) {
+                return repository.findByIds(entityClass, ids);
+            }
+        });
+    }
+
+    /**
+     * Find the list of entities.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the future list of entities.
+     */
+    @Override
+    public <T> Future<List<T>> findList(final Class<T> entityClass) {
+        return this.submit(new Task<List<T>>() {
+            @Override
+            public List<T> call(final Repository repository) {
+                return repository.findList(entityClass);
+            }
+        });
+    }
+
+    /**
+     * Find the list of entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the future list of entities.
+     */
+    @Override
+    public <T> Future<List<T>> findList(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.submit(new Task<List<T>>() {
+            @Override
+            public List<T> call(final Repository repository) {
+                return repository.findList(entityClass, criteria);
+            }
+        });
+    }
+
+    /**
+     * Find the list of projections.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria with at least one projection.
+     *
+     * @return  the future list of property name-property value maps, each in the order of the projections.
+     */
+    @Override
+    public <T> Future<List<Map<String,Object>>> findProjectionList(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.submit(new Task<List<Map<String,Object>>>() {
+            @Override
+            public List<Map<String,Object>> call(final Repository repository) {
+                return repository.findProjectionList(entityClass, criteria);
+            }
+        });
+    }
+
+    /**
+     * Get the criteria.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the criteria.
+     */
+    @Override
+    public <T> Criteria<T> getCriteria(final Class<T> entityClass) {
+        return this.repository.getCriteria(entityClass);
+    }
+
+    /**
+     * Get the repository.
+     *
+     * @return  the repository.
+     */
+    protected Repository getRepository() {
+        return this.repository;
+    }
+
+    /**
+     * Create a new executor service suitable for an asynchronous repository.
+     * Each task runs on a new virtual thread if the Java runtime supports
+     * virtual threads, otherwise the tasks run on a fixed pool of one thread
+     * per available processor.
+     *
+     * @return  a new executor service.
+     */
+    public static ExecutorService newExecutorService() {
+
+        ExecutorService executorService;
+
+        try {
+
+            // Use virtual threads if they are available.
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            executorService = (ExecutorService)method.invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+
+        return executorService;
+    }
+
+    /**
+     * Create a new instance of the ExecutorAsyncRepository class.
+     *
+     * @param  repository       the repository.
+     * @param  executorService  the executor service.
+     *
+     * @return  a new instance of the ExecutorAsyncRepository class.
+     *
+     * @throws  IllegalArgumentException  if the repository or executor service is invalid.
+     */
+    public static ExecutorAsyncRepository newInstance(final Repository repository, final ExecutorService executorService) {
+        return new ExecutorAsyncRepository(repository, executorService);
+    }
+
+    /**
+     * Persist the entity.
+     *
+     * @param  entity  the entity.
+     *
+     * @return  the future persisted entity.
+     */
+    @Override
+    public <T> Future<T> persist(final T entity) {
+        return this.submit(new Task<T>() {
+            @Override
+            public T call(final Repository repository) {
+                return repository.persist(entity);
+            }
+        });
+    }
+
+    /**
+     * Persist the list of entities.
+     *
+     * @param  entities  the entities.
+     *
+     * @return  the future persisted list of entities.
+     */
+    @Override
+    public <T> Future<List<T>> persistList(final List<T> entities) {
+        return this.submit(new Task<List<T>>() {
+            @Override
+            public List<T> call(final Repository repository) {
+                return repository.persistList(entities);
+            }
+        });
+    }
+
+    /**
+     * Remove the entity.
+     *
+     * @param  entityClass  the entity class.
+     * @param  id           the ID.
+     *
+     * @return  the future completion of the removal.
+     */
+    @Override
+    public <T,U> Future<Void> remove(final Class<T> entityClass, final U id) {
+        return this.submit(new Task<Void>() {
+            @Override
+            public Void call(final Repository repository) {
+                repository.remove(entityClass, id);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Remove the entities by the list of IDs.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     *
+     * @return  the future completion of the removal.
+     */
+    @Override
+    public <T,U> Future<Void> removeList(final Class<T> entityClass, final List<U> ids) {
+        return this.submit(new Task<Void>() {
+            @Override
+            public Void call(final Repository repository) {
+                repository.removeList(entityClass, ids);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Submit the task to the executor service.
+     *
+     * @param  task  the task.
+     *
+     * @return  the future result.
+     */
+    private <V> Future<V> submit(final Task<V> task) {
+        return this.executorService.submit(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                return ExecutorAsyncRepository.this.call(task);
+            }
+        });
+    }
+}
@@ -18,7 +18,10 @@
  */
 package org.lazydog.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import org.lazydog.repository.criterion.Criterion;
 
 /**
  * Repository.
@@ -27,6 +30,26 @@ import java.util.List;
  */
 public interface Repository {
 
+    /**
+     * Count the entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the number of entities that match the criteria.
+     */
+    <T> long count(Class<T> entityClass, Criteria<T> criteria);
+
+    /**
+     * Check if any entity exists.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  true if an entity matches the criteria, otherwise false.
+     */
+    <T> boolean exists(Class<T> entityClass, Criteria<T> criteria);
+
     /**
      * Find the entity.
      *
@@ -47,6 +70,35 @@ public interface Repository {
      */
    <T> T find(Class<T> entityClass, Criteria<T> criteria);
 
+    /**
+     * Find the entities by the IDs.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     *
+     * @return  the ID-entity map in the order of the IDs.  IDs of entities that do not exist are not in the map.
+     */
+    <T,U> Map<U,T> findByIds(Class<T> entityClass, Collection<U> ids);
+
+    /**
+     * Find the cursor of entities.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the cursor of entities.
+     */
+    <T> Cursor<T> findCursor(Class<T> entityClass);
+
+    /**
+     * Find the cursor of entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the cursor of entities.
+     */
+    <T> Cursor<T> findCursor(Class<T> entityClass, Criteria<T> criteria);
+
     /**
      * Find the list of entities.
      *
@@ -66,6 +118,19 @@ public interface Repository {
      */
     <T> List<T> findList(Class<T> entityClass, Criteria<T> criteria);
 
+    /**
+     * Find the list of projections.  Only the projected property values are
+     * retrieved, so the entities are neither created nor managed.  Projections
+     * are not made distinct, so entities with equal projected values each have
+     * a projection.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria with at least one projection.
+     *
+     * @return  the list of property name-property value maps, each in the order of the projections.
+     */
+    <T> List<Map<String,Object>> findProjectionList(Class<T> entityClass, Criteria<T> criteria);
+
     /**
      * Get the criteria.
      * 
@@ -75,6 +140,17 @@ public interface Repository {
      */
     <T> Criteria<T> getCriteria(Class<T> entityClass);
 
+    /**
+     * Get the criteria template.
+     * 
+     * @param  entityClass   the entity class.
+     * @param  restrictions  the restriction criterions, which may use named parameters as values.
+     * @param  orders        the order criterions.
+     * 
+     * @return  the criteria template.
+     */
+    <T> CriteriaTemplate<T> getCriteriaTemplate(Class<T> entityClass, List<Criterion> restrictions, List<Criterion> orders);
+
     /**
      * Persist the entity.
      *
@@ -84,6 +160,16 @@ public interface Repository {
      */
     <T> T persist(T entity);
 
+    /**
+     * Persist the list of entities in batches.  The persisted entities are
+     * not returned, so the repository need not hold them in memory.
+     *
+     * @param  entities  the entities.
+     *
+     * @return  the IDs of the persisted entities.
+     */
+    <T,U> List<U> persistBatch(List<T> entities);
+
     /**
      * Persist the list of entities.
      *
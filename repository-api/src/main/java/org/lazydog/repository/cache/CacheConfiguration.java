@@ -0,0 +1,121 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache configuration.
+ *
+ * @author  Ron Rickard
+ */
+public final class CacheConfiguration implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+    private final long timeToLive;
+
+    /**
+     * Hide the constructor.
+     *
+     * @param  maxSize     the maximum number of cached entries.
+     * @param  timeToLive  the time to live in nanoseconds.
+     */
+    private CacheConfiguration(final int maxSize, final long timeToLive) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Get the maximum number of cached entries.
+     *
+     * @return  the maximum number of cached entries, or 0 if caching is disabled.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Get the time to live.
+     *
+     * @param  unit  the time unit.
+     *
+     * @return  the time to live in the time unit, or 0 if cached entries do not expire.
+     */
+    public long getTimeToLive(final TimeUnit unit) {
+        return unit.convert(this.timeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Check if caching is enabled.
+     *
+     * @return  true if caching is enabled, otherwise false.
+     */
+    public boolean isEnabled() {
+        return this.maxSize > 0;
+    }
+
+    /**
+     * Create a new instance of the CacheConfiguration class.
+     *
+     * @param  maxSize     the maximum number of cached entries, or 0 to disable caching.
+     * @param  timeToLive  the time to live, or 0 if cached entries do not expire.
+     * @param  unit        the time unit of the time to live.
+     *
+     * @return  a new instance of the CacheConfiguration class.
+     *
+     * @throws  IllegalArgumentException  if the maximum number of cached entries, time to live, or time unit is invalid.
+     */
+    public static CacheConfiguration newInstance(final int maxSize, final long timeToLive, final TimeUnit unit) {
+
+        // Check if the maximum number of cached entries is negative.
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The max size is invalid.");
+        }
+
+        // Check if the time to live is negative.
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("The time to live is invalid.");
+        }
+
+        // Check if the time unit is null.
+        if (unit == null) {
+            throw new IllegalArgumentException("The time unit is invalid.");
+        }
+
+        return new CacheConfiguration(maxSize, unit.toNanos(timeToLive));
+    }
+
+    /**
+     * Get this object as a string.
+     *
+     * @return  this object as a string.
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder()
+                .append("CacheConfiguration [")
+                .append("maxSize = ").append(this.maxSize)
+                .append(", timeToLive = ").append(TimeUnit.NANOSECONDS.toMillis(this.timeToLive)).append(" ms")
+                .append("]")
+                .toString();
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.cache;
+
+import java.io.Serializable;
+
+/**
+ * Cache statistics.  The cache statistics are a snapshot taken when they are requested.
+ *
+ * @author  Ron Rickard
+ */
+public final class CacheStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long evictionCount;
+    private final long hitCount;
+    private final long missCount;
+    private final int size;
+
+    /**
+     * Hide the constructor.
+     *
+     * @param  hitCount       the number of cache hits.
+     * @param  missCount      the number of cache misses.
+     * @param  evictionCount  the number of evicted entries.
+     * @param  size           the number of cached entries.
+     */
+    private CacheStatistics(final long hitCount, final long missCount, final long evictionCount, final int size) {
+        this.evictionCount = evictionCount;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.size = size;
+    }
+
+    /**
+     * Add the cache statistics to these cache statistics.
+     *
+     * @param  statistics  the cache statistics.
+     *
+     * @return  the sum of the cache statistics.
+     */
+    public CacheStatistics add(final CacheStatistics statistics) {
+        return new CacheStatistics(
+                this.hitCount + statistics.hitCount,
+                this.missCount + statistics.missCount,
+                this.evictionCount + statistics.evictionCount,
+                this.size + statistics.size);
+    }
+
+    /**
+     * Get the number of evicted entries.  An entry is evicted when the cache
+     * is full or the entry has expired, but not when it is invalidated.
+     *
+     * @return  the number of evicted entries.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    /**
+     * Get the number of cache hits.
+     *
+     * @return  the number of cache hits.
+     */
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * Get the number of cache misses.
+     *
+     * @return  the number of cache misses.
+     */
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * Get the number of cached entries.
+     *
+     * @return  the number of cached entries.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Create a new instance of the CacheStatistics class.
+     *
+     * @param  hitCount       the number of cache hits.
+     * @param  missCount      the number of cache misses.
+     * @param  evictionCount  the number of evicted entries.
+     * @param  size           the number of cached entries.
+     *
+     * @return  a new instance of the CacheStatistics class.
+     */
+    public static CacheStatistics newInstance(final long hitCount, final long missCount, final long evictionCount, final int size) {
+        return new CacheStatistics(hitCount, missCount, evictionCount, size);
+    }
+
+    /**
+     * Get this object as a string.
+     *
+     * @return  this object as a string.
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder()
+                .append("CacheStatistics [")
+                .append("hitCount = ").append(this.hitCount)
+                .append(", missCount = ").append(this.missCount)
+                .append(", evictionCount = ").append(this.evictionCount)
+                .append(", size = ").append(this.size)
+                .append("]")
+                .toString();
+    }
+}
@@ -0,0 +1,911 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.Cursor;
+import org.lazydog.repository.Entity;
+import org.lazydog.repository.Repository;
+import org.lazydog.repository.criterion.Criterion;
+
+/**
+ * Caching repository.  The caching repository wraps a repository and caches
+ * the entities found by ID.  Entities are cached per entity class, each with
+ * its own cache configuration, and are invalidated when they are persisted or
+ * removed through the caching repository.  Caching by ID is disabled by
+ * default and enabled per entity class with a cache configuration, or for
+ * all entity classes with a default cache configuration.
+ * <p>
+ * Query results found by criteria can also be cached for read-mostly entity
+ * classes.  Query caching is disabled by default and enabled per entity class
+ * with a query cache configuration.  Query results are keyed by the cache key
+ * of the criteria and all query results of an entity class are invalidated
+ * when any entity of the entity class, or of a superclass or subclass, is
+ * persisted or removed through the caching repository.
+ * <p>
+ * Changes made directly to the wrapped repository or to the underlying store,
+ * including changes to other entity classes that the criteria refer to, are
+ * only seen once the cached entities expire.
+ * <p>
+ * Cached entities are shared by all callers and should not be modified
+ * without being persisted.
+ *
+ * @author  Ron Rickard
+ */
+public class CachingRepository implements Repository {
+
+    private static final CacheConfiguration DISABLED_CONFIGURATION = CacheConfiguration.newInstance(0, 0, TimeUnit.MINUTES);
+
+    private final ConcurrentMap<Class<?>,EntityCache> caches;
+    private final ConcurrentMap<Class<?>,CacheConfiguration> configurations;
+    private final CacheConfiguration defaultConfiguration;
+    private final ConcurrentMap<Class<?>,EntityCache> queryCaches;
+    private final ConcurrentMap<Class<?>,CacheConfiguration> queryConfigurations;
+    private final Repository repository;
+
+    /**
+     * Query result.  The query result holds an unmodifiable copy of the
+     * entities found so that callers cannot change the cached query result.
+     */
+    private static final class QueryResult {
+
+        private final List<Object> entities;
+
+        /**
+         * Create a query result.
+         *
+         * @param  entities  the entities.
+         */
+        QueryResult(final List<?> entities) {
+            this.entities = (entities == null) ? null : Collections.unmodifiableList(new ArrayList<Object>(entities));
+        }
+
+        /**
+         * Get the entities.
+         *
+         * @return  the entities.
+         */
+        List<Object> getEntities() {
+            return this.entities;
+        }
+
+        /**
+         * Get a modifiable copy of the entities.
+         *
+         * @param  entityClass  the entity class.
+         *
+         * @return  a modifiable copy of the entities.
+         */
+        <T> List<T> getEntities(final Class<T> entityClass) {
+
+            // Check if the entities are null.
+            if (this.entities == null) {
+                return null;
+            }
+
+            List<T> entityList = new ArrayList<T>(this.entities.size());
+
+            // Loop through the entities.
+            for (Object entity : this.entities) {
+                entityList.add(entityClass.cast(entity));
+            }
+
+            return entityList;
+        }
+    }
+
+    /**
+     * Create a caching repository.
+     *
+     * @param  repository            the repository.
+     * @param  defaultConfiguration  the default cache configuration.
+     *
+     * @throws  IllegalArgumentException  if the repository or default cache configuration is invalid.
+     */
+    protected CachingRepository(final Repository repository, final CacheConfiguration defaultConfiguration) {
+
+        // Check if the repository is null.
+        if (repository == null) {
+            throw new IllegalArgumentException("The repository is invalid.");
+        }
+
+        // Check if the default cache configuration is null.
+        if (defaultConfiguration == null) {
+            throw new IllegalArgumentException("The default cache configuration is invalid.");
+        }
+
+        this.caches = new ConcurrentHashMap<Class<?>,EntityCache>();
+        this.configurations = new ConcurrentHashMap<Class<?>,CacheConfiguration>();
+        this.defaultConfiguration = defaultConfiguration;
+        this.queryCaches = new ConcurrentHashMap<Class<?>,EntityCache>();
+        this.queryConfigurations = new ConcurrentHashMap<Class<?>,CacheConfiguration>();
+        this.repository = repository;
+    }
+
+    /**
+     * Clear the cached entities and query results.
+     */
+    public void clear() {
+        for (EntityCache cache : this.caches.values()) {
+            cache.clear();
+        }
+        for (EntityCache cache : this.queryCaches.values()) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Count the entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the number of entities that match the criteria.
+     */
+    @Override
+    public <T> long count(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.repository.count(entityClass, criteria);
+    }
+
+    /**
+     * Check if any entity exists.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  true if an entity matches the criteria, otherwise false.
+     */
+    @Override
+    public <T> boolean exists(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.repository.exists(entityClass, criteria);
+    }
+
+    /**
+     * Find the entity.  The entity is returned from the cache if it is cached,
+     * otherwise it is found in the repository and cached.  An entity that is
+     * not found is not cached.
+     *
+     * @param  entityClass  the entity class.
+     * @param  id           the ID.
+     *
+     * @return  the entity.
+     */
+    @Override
+    public <T,U> T find(final Class<T> entityClass, final U id) {
+
+        EntityCache cache = (id == null) ? null : getCache(this.caches, entityClass, this.getCacheConfiguration(entityClass));
+
+        // Check if the entity class is not cached.
+        if (cache == null) {
+            return this.repository.find(entityClass, id);
+        }
+
+        T entity = entityClass.cast(cache.get(id));
+
+        // Check if the entity is not cached.
+        if (entity == null) {
+
+            // Read the generation before finding the entity so an entity
+            // invalidated in the meantime is not cached.
+            long generation = cache.getGeneration();
+
+            entity = this.repository.find(entityClass, id);
+
+            // Check if the entity was found.
+            if (entity != null) {
+                cache.put(id, entity, generation);
+            }
+        }
+
+        return entity;
+    }
+
+    /**
+     * Find the entity.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the entity.
+     */
+    @Override
+    public <T> T find(final Class<T> entityClass, final Criteria<T> criteria) {
+
+        EntityCache cache = (criteria == null) ? null : getCache(this.queryCaches, entityClass, this.getQueryCacheConfiguration(entityClass));
+
+        // Check if the query results of the entity class are not cached.
+        if (cache == null) {
+            return this.repository.find(entityClass, criteria);
+        }
+
+        List<Object> key = Arrays.asList("find", criteria.getCacheKey());
+        QueryResult queryResult = (QueryResult)cache.get(key);
+
+        // Check if the query result is not cached.
+        if (queryResult == null) {
+
+            // Read the generation before finding the entity so a query
+            // result invalidated in the meantime is not cached.
+            long generation = cache.getGeneration();
+
+            queryResult = new QueryResult(Collections.singletonList(this.repository.find(entityClass, criteria)));
+            cache.put(key, queryResult, generation);
+        }
+
+        return entityClass.cast(queryResult.getEntities().get(0));
+    }
+
+    /**
+     * Find the entities by the IDs.  The cached entities are returned from the
+     * cache and the remaining entities are found in the repository with one
+     * call and cached.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     *
+     * @return  the ID-entity map in the order of the IDs.  IDs of entities that do not exist are not in the map.
+     */
+    @Override
+    public <T,U> Map<U,T> findByIds(final Class<T> entityClass, final Collection<U> ids) {
+
+        EntityCache cache = (ids == null) ? null : getCache(this.caches, entityClass, this.getCacheConfiguration(entityClass));
+
+        // Check if the entity class is not cached.
+        if (cache == null) {
+            return this.repository.findByIds(entityClass, ids);
+        }
+
+        // Read the generation before finding the entities so an entity
+        // invalidated in the meantime is not cached.
+        long generation = cache.getGeneration();
+
+        Map<U,T> cachedEntities = new HashMap<U,T>();
+        List<U> missingIds = new ArrayList<U>();
+
+        // Loop through the IDs.
+        for (U id : ids) {
+
+            T entity = entityClass.cast(cache.get(id));
+
+            // Check if the entity is cached.
+            if (entity != null) {
+                cachedEntities.put(id, entity);
+            }
+            else {
+                missingIds.add(id);
+            }
+        }
+
+        Map<U,T> foundEntities = Collections.emptyMap();
+
+        // Check if any entity is not cached.
+        if (!missingIds.isEmpty()) {
+
+            foundEntities = this.repository.findByIds(entityClass, missingIds);
+
+            // Loop through the found entities.
+            for (Map.Entry<U,T> foundEntity : foundEntities.entrySet()) {
+                cache.put(foundEntity.getKey(), foundEntity.getValue(), generation);
+            }
+        }
+
+        Map<U,T> entities = new LinkedHashMap<U,T>();
+
+        // Loop through the IDs.
+        for (U id : ids) {
+
+            T entity = cachedEntities.containsKey(id) ? cachedEntities.get(id) : foundEntities.get(id);
+
+            // Check if the entity exists.
+            if (entity != null) {
+                entities.put(id, entity);
+            }
+        }
+
+        return entities;
+    }
+
+    /**
+     * Find the cursor of entities.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the cursor of entities.
+     */
+    @Override
+    public <T> Cursor<T> findCursor(final Class<T> entityClass) {
+        return this.repository.findCursor(entityClass);
+    }
+
+    /**
+     * Find the cursor of entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the cursor of entities.
+     */
+    @Override
+    public <T> Cursor<T> findCursor(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.repository.findCursor(entityClass, criteria);
+    }
+
+    /**
+     * Find the list of entities.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the list of entities.
+     */
+    @Override
+    public <T> List<T> findList(final Class<T> entityClass) {
+
+        EntityCache cache = getCache(this.queryCaches, entityClass, this.getQueryCacheConfiguration(entityClass));
+
+        // Check if the query results of the entity class are not cached.
+        if (cache == null) {
+            return this.repository.findList(entityClass);
+        }
+
+        List<Object> key = Arrays.<Object>asList("findList");
+        QueryResult queryResult = (QueryResult)cache.get(key);
+
+        // Check if the query result is not cached.
+        if (queryResult == null) {
+
+            // Read the generation before finding the entities so a query
+            // result invalidated in the meantime is not cached.
+            long generation = cache.getGeneration();
+
+            queryResult = new QueryResult(this.repository.findList(entityClass));
+            cache.put(key, queryResult, generation);
+        }
+
+        return queryResult.getEntities(entityClass);
+    }
+
+    /**
+     * Find the list of entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the list of entities.
+     */
+    @Override
+    public <T> List<T> findList(final Class<T> entityClass, final Criteria<T> criteria) {
+
+        EntityCache cache = (criteria == null) ? null : getCache(this.queryCaches, entityClass, this.getQueryCacheConfiguration(entityClass));
+
+        // Check if the query results of the entity class are not cached.
+        if (cache == null) {
+            return this.repository.findList(entityClass, criteria);
+        }
+
+        List<Object> key = Arrays.asList("findList", criteria.getCacheKey());
+        QueryResult queryResult = (QueryResult)cache.get(key);
+
+        // Check if the query result is not cached.
+        if (queryResult == null) {
+
+            // Read the generation before finding the entities so a query
+            // result invalidated in the meantime is not cached.
+            long generation = cache.getGeneration();
+
+            queryResult = new QueryResult(this.repository.findList(entityClass, criteria));
+            cache.put(key, queryResult, generation);
+        }
+
+        return queryResult.getEntities(entityClass);
+    }
+
+    /**
+     * Find the list of projections.  Projections are not cached.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria with at least one projection.
+     *
+     * @return  the list of property name-property value maps, each in the order of the projections.
+     */
+    @Override
+    public <T> List<Map<String,Object>> findProjectionList(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.repository.findProjectionList(entityClass, criteria);
+    }
+
+    /**
+     * Get the entity cache for the entity class.
+     *
+     * @param  caches         the entity caches.
+     * @param  entityClass    the entity class.
+     * @param  configuration  the cache configuration for the entity class.
+     *
+     * @return  the entity cache, or null if the entity class is not cached.
+     */
+    private static EntityCache getCache(final ConcurrentMap<Class<?>,EntityCache> caches, final Class<?> entityClass, final CacheConfiguration configuration) {
+
+        EntityCache cache = caches.get(entityClass);
+
+        // Check if the entity cache does not exist.
+        if (cache == null) {
+
+            // Check if the entity class is cached.
+            if (configuration.isEnabled()) {
+                EntityCache newCache = new EntityCache(configuration);
+                cache = caches.putIfAbsent(entityClass, newCache);
+                if (cache == null) {
+                    cache = newCache;
+                }
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Get the cache configuration for the entity class.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the cache configuration for the entity class, or the default cache configuration.
+     */
+    public CacheConfiguration getCacheConfiguration(final Class<?> entityClass) {
+
+        CacheConfiguration configuration = this.configurations.get(entityClass);
+
+        return (configuration == null) ? this.defaultConfiguration : configuration;
+    }
+
+    /**
+     * Get the criteria.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the criteria.
+     */
+    @Override
+    public <T> Criteria<T> getCriteria(final Class<T> entityClass) {
+        return this.repository.getCriteria(entityClass);
+    }
+
+    /**
+     * Get the criteria template.
+     *
+     * @param  entityClass   the entity class.
+     * @param  restrictions  the restriction criterions, which may use named parameters as values.
+     * @param  orders        the order criterions.
+     *
+     * @return  the criteria template.
+     */
+    @Override
+    public <T> CriteriaTemplate<T> getCriteriaTemplate(final Class<T> entityClass, final List<Criterion> restrictions, final List<Criterion> orders) {
+        return this.repository.getCriteriaTemplate(entityClass, restrictions, orders);
+    }
+
+    /**
+     * Get the query cache configuration for the entity class.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the query cache configuration for the entity class, which disables query caching by default.
+     */
+    public CacheConfiguration getQueryCacheConfiguration(final Class<?> entityClass) {
+
+        CacheConfiguration configuration = this.queryConfigurations.get(entityClass);
+
+        return (configuration == null) ? DISABLED_CONFIGURATION : configuration;
+    }
+
+    /**
+     * Get the query cache statistics for all entity classes.
+     *
+     * @return  the query cache statistics.
+     */
+    public CacheStatistics getQueryStatistics() {
+        return getStatistics(this.queryCaches);
+    }
+
+    /**
+     * Get the query cache statistics for the entity class.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the query cache statistics.
+     */
+    public CacheStatistics getQueryStatistics(final Class<?> entityClass) {
+        return getStatistics(this.queryCaches, entityClass);
+    }
+
+    /**
+     * Get the related entity caches.  An entity cache is related to the entity
+     * class if its entity class is a superclass or subclass of the entity class.
+     *
+     * @param  caches       the entity caches.
+     * @param  entityClass  the entity class.
+     *
+     * @return  the related entity caches.
+     */
+    private static List<EntityCache> getRelatedCaches(final ConcurrentMap<Class<?>,EntityCache> caches, final Class<?> entityClass) {
+
+        List<EntityCache> relatedCaches = new ArrayList<EntityCache>();
+
+        // Loop through the entity caches.
+        for (Map.Entry<Class<?>,EntityCache> entry : caches.entrySet()) {
+
+            // Check if the entity cache is related to the entity class.
+            if (entry.getKey().isAssignableFrom(entityClass) || entityClass.isAssignableFrom(entry.getKey())) {
+                relatedCaches.add(entry.getValue());
+            }
+        }
+
+        return relatedCaches;
+    }
+
+    /**
+     * Get the cache statistics for all entity classes.
+     *
+     * @return  the cache statistics.
+     */
+    public CacheStatistics getStatistics() {
+        return getStatistics(this.caches);
+    }
+
+    /**
+     * Get the cache statistics for the entity class.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the cache statistics.
+     */
+    public CacheStatistics getStatistics(final Class<?> entityClass) {
+        return getStatistics(this.caches, entityClass);
+    }
+
+    /**
+     * Get the cache statistics for all entity classes.
+     *
+     * @param  caches  the entity caches.
+     *
+     * @return  the cache statistics.
+     */
+    private static CacheStatistics getStatistics(final ConcurrentMap<Class<?>,EntityCache> caches) {
+
+        CacheStatistics statistics = CacheStatistics.newInstance(0, 0, 0, 0);
+
+        // Loop through the entity caches.
+        for (EntityCache cache : caches.values()) {
+            statistics = statistics.add(cache.getStatistics());
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Get the cache statistics for the entity class.
+     *
+     * @param  caches       the entity caches.
+     * @param  entityClass  the entity class.
+     *
+     * @return  the cache statistics.
+     */
+    private static CacheStatistics getStatistics(final ConcurrentMap<Class<?>,EntityCache> caches, final Class<?> entityClass) {
+
+        EntityCache cache = caches.get(entityClass);
+
+        return (cache == null) ? CacheStatistics.newInstance(0, 0, 0, 0) : cache.getStatistics();
+    }
+
+    /**
+     * Invalidate the cached entity and the cached query results.
+     *
+     * @param  entity  the entity.
+     */
+    private void invalidate(final Object entity) {
+
+        // Check if the entity exists.
+        if (entity != null) {
+
+            Object id = (entity instanceof Entity) ? ((Entity<?,?>)entity).getId() : null;
+
+            this.invalidateQueries(entity.getClass());
+
+            // Loop through the related entity caches.
+            for (EntityCache cache : getRelatedCaches(this.caches, entity.getClass())) {
+
+                // Check if the ID is known.
+                if (id != null) {
+                    cache.remove(id);
+                }
+                else if (!(entity instanceof Entity)) {
+                    cache.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidate the cached entities and the cached query results.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     */
+    private void invalidate(final Class<?> entityClass, final List<?> ids) {
+
+        this.invalidateQueries(entityClass);
+
+        // Loop through the related entity caches.
+        for (EntityCache cache : getRelatedCaches(this.caches, entityClass)) {
+
+            // Loop through the IDs.
+            for (Object id : ids) {
+                cache.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Invalidate the cached query results.
+     *
+     * @param  entityClass  the entity class.
+     */
+    private void invalidateQueries(final Class<?> entityClass) {
+
+        // Loop through the related query caches.
+        for (EntityCache cache : getRelatedCaches(this.queryCaches, entityClass)) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Create a new instance of the CachingRepository class.  Caching is
+     * disabled by default, so set the cache configuration or query cache
+     * configuration of the entity classes to cache.
+     *
+     * @param  repository  the repository.
+     *
+     * @return  a new instance of the CachingRepository class.
+     *
+     * @throws  IllegalArgumentException  if the repository is invalid.
+     */
+    public static CachingRepository newInstance(final Repository repository) {
+        return new CachingRepository(repository, DISABLED_CONFIGURATION);
+    }
+
+    /**
+     * Create a new instance of the CachingRepository class.
+     *
+     * @param  repository            the repository.
+     * @param  defaultConfiguration  the default cache configuration.
+     *
+     * @return  a new instance of the CachingRepository class.
+     *
+     * @throws  IllegalArgumentException  if the repository or default cache configuration is invalid.
+     */
+    public static CachingRepository newInstance(final Repository repository, final CacheConfiguration defaultConfiguration) {
+        return new CachingRepository(repository, defaultConfiguration);
+    }
+
+    /**
+     * Persist the entity.  The cached entity is invalidated.
+     *
+     * @param  entity  the entity.
+     *
+     * @return  the persisted entity.
+     */
+    @Override
+    public <T> T persist(final T entity) {
+
+        T persistedEntity = null;
+
+        try {
+            persistedEntity = this.repository.persist(entity);
+        }
+        finally {
+            this.invalidate(entity);
+            this.invalidate(persistedEntity);
+        }
+
+        return persistedEntity;
+    }
+
+    /**
+     * Persist the list of entities in batches.  The cached entities are
+     * invalidated.
+     *
+     * @param  entities  the entities.
+     *
+     * @return  the IDs of the persisted entities.
+     */
+    @Override
+    public <T,U> List<U> persistBatch(final List<T> entities) {
+
+        List<U> ids = null;
+
+        try {
+            ids = this.repository.persistBatch(entities);
+        }
+        finally {
+
+            // Check if the entities exist.
+            if (entities != null) {
+                for (int index = 0; index < entities.size(); index++) {
+                    T entity = entities.get(index);
+                    this.invalidate(entity);
+
+                    // Check if the ID of the persisted entity exists.
+                    if (entity != null && ids != null && index < ids.size()) {
+                        this.invalidate(entity.getClass(), Collections.singletonList(ids.get(index)));
+                    }
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Persist the list of entities.  The cached entities are invalidated.
+     *
+     * @param  entities  the entities.
+     *
+     * @return  the persisted list of entities.
+     */
+    @Override
+    public <T> List<T> persistList(final List<T> entities) {
+
+        List<T> persistedEntities = null;
+
+        try {
+            persistedEntities = this.repository.persistList(entities);
+        }
+        finally {
+
+            // Check if the entities exist.
+            if (entities != null) {
+                for (T entity : entities) {
+                    this.invalidate(entity);
+                }
+            }
+
+            // Check if the persisted entities exist.
+            if (persistedEntities != null) {
+                for (T persistedEntity : persistedEntities) {
+                    this.invalidate(persistedEntity);
+                }
+            }
+        }
+
+        return persistedEntities;
+    }
+
+    /**
+     * Remove the entity.  The cached entity is invalidated.
+     *
+     * @param  entityClass  the entity class.
+     * @param  id           the ID.
+     */
+    @Override
+    public <T,U> void remove(final Class<T> entityClass, final U id) {
+
+        try {
+            this.repository.remove(entityClass, id);
+        }
+        finally {
+
+            // Check if the ID exists.
+            if (entityClass != null && id != null) {
+                this.invalidate(entityClass, Collections.singletonList(id));
+            }
+        }
+    }
+
+    /**
+     * Remove the entities by the list of IDs.  The cached entities are invalidated.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     */
+    @Override
+    public <T,U> void removeList(final Class<T> entityClass, final List<U> ids) {
+
+        try {
+            this.repository.removeList(entityClass, ids);
+        }
+        finally {
+
+            // Check if the IDs exist.
+            if (entityClass != null && ids != null) {
+                this.invalidate(entityClass, ids);
+            }
+        }
+    }
+
+    /**
+     * Set the cache configuration for the entity class.  The entities already
+     * cached for the entity class are discarded.
+     *
+     * @param  entityClass    the entity class.
+     * @param  configuration  the cache configuration.
+     *
+     * @throws  IllegalArgumentException  if the entity class or cache configuration is invalid.
+     */
+    public void setCacheConfiguration(final Class<?> entityClass, final CacheConfiguration configuration) {
+
+        // Check if the entity class is null.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class is invalid.");
+        }
+
+        // Check if the cache configuration is null.
+        if (configuration == null) {
+            throw new IllegalArgumentException("The cache configuration is invalid.");
+        }
+
+        this.configurations.put(entityClass, configuration);
+
+        EntityCache cache = this.caches.remove(entityClass);
+
+        // Check if an entity cache existed.
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Set the query cache configuration for the entity class.  The query
+     * results already cached for the entity class are discarded.
+     *
+     * @param  entityClass    the entity class.
+     * @param  configuration  the query cache configuration.
+     *
+     * @throws  IllegalArgumentException  if the entity class or query cache configuration is invalid.
+     */
+    public void setQueryCacheConfiguration(final Class<?> entityClass, final CacheConfiguration configuration) {
+
+        // Check if the entity class is null.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class is invalid.");
+        }
+
+        // Check if the query cache configuration is null.
+        if (configuration == null) {
+            throw new IllegalArgumentException("The query cache configuration is invalid.");
+        }
+
+        this.queryConfigurations.put(entityClass, configuration);
+
+        EntityCache cache = this.queryCaches.remove(entityClass);
+
+        // Check if a query cache existed.
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
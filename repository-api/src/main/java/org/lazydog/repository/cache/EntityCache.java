@@ -0,0 +1,195 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity cache.  The entity cache holds the entities of one entity class, either
+ * by ID or as query results by criteria, in least-recently-used order, evicting
+ * the eldest entry when the cache is full and any entry that has outlived its
+ * time to live.
+ *
+ * @author  Ron Rickard
+ */
+final class EntityCache {
+
+    private final CacheConfiguration configuration;
+    private final Map<Object,Entry> entries;
+    private long evictionCount;
+    private long generation;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Cache entry.
+     */
+    private static final class Entry {
+
+        private final long expiration;
+        private final Object value;
+
+        /**
+         * Create a cache entry.
+         *
+         * @param  value       the value.
+         * @param  expiration  the expiration in nanoseconds, or 0 if the entry does not expire.
+         */
+        Entry(final Object value, final long expiration) {
+            this.expiration = expiration;
+            this.value = value;
+        }
+
+        /**
+         * Check if the entry has expired.
+         *
+         * @param  now  the current time in nanoseconds.
+         *
+         * @return  true if the entry has expired, otherwise false.
+         */
+        boolean isExpired(final long now) {
+            return this.expiration != 0 && now - this.expiration >= 0;
+        }
+    }
+
+    /**
+     * Create an entity cache.
+     *
+     * @param  configuration  the cache configuration.
+     */
+    EntityCache(final CacheConfiguration configuration) {
+
+        this.configuration = configuration;
+        this.entries = new LinkedHashMap<Object,Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object,Entry> eldest) {
+
+                boolean remove = this.size() > EntityCache.this.configuration.getMaxSize();
+
+                // Check if the eldest entry is removed.
+                if (remove) {
+                    EntityCache.this.evictionCount++;
+                }
+
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Clear the entity cache.
+     */
+    synchronized void clear() {
+        this.entries.clear();
+        this.generation++;
+    }
+
+    /**
+     * Get the cached value.
+     *
+     * @param  key  the key.
+     *
+     * @return  the cached value, or null if the value is not cached.
+     */
+    synchronized Object get(final Object key) {
+
+        Entry entry = this.entries.get(key);
+
+        // Check if the entry has expired.
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            this.entries.remove(key);
+            this.evictionCount++;
+            entry = null;
+        }
+
+        // Count the lookup.
+        if (entry == null) {
+            this.missCount++;
+        }
+        else {
+            this.hitCount++;
+        }
+
+        return (entry == null) ? null : entry.value;
+    }
+
+    /**
+     * Get the generation.  The generation changes whenever the entity cache is
+     * invalidated so that a value read before the invalidation is not cached.
+     *
+     * @return  the generation.
+     */
+    synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Get the cache statistics.
+     *
+     * @return  the cache statistics.
+     */
+    synchronized CacheStatistics getStatistics() {
+        return CacheStatistics.newInstance(this.hitCount, this.missCount, this.evictionCount, this.entries.size());
+    }
+
+    /**
+     * Put the value in the entity cache.  The value is not cached if the
+     * entity cache was invalidated after the generation was read.
+     *
+     * @param  key         the key.
+     * @param  value       the value.
+     * @param  generation  the generation read before the value was found.
+     */
+    synchronized void put(final Object key, final Object value, final long generation) {
+
+        // Check if the entity cache was not invalidated.
+        if (this.generation == generation) {
+
+            long timeToLive = this.configuration.getTimeToLive(TimeUnit.NANOSECONDS);
+            long expiration = 0;
+
+            // Check if the entry expires.
+            if (timeToLive > 0) {
+                expiration = System.nanoTime() + timeToLive;
+
+                // Zero means the entry does not expire.
+                if (expiration == 0) {
+                    expiration = 1;
+                }
+            }
+
+            this.entries.put(key, new Entry(value, expiration));
+        }
+    }
+
+    /**
+     * Remove the cached value.
+     *
+     * @param  key  the key.
+     */
+    synchronized void remove(final Object key) {
+        this.entries.remove(key);
+        this.generation++;
+    }
+}
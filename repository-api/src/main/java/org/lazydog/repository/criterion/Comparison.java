@@ -19,6 +19,9 @@
 package org.lazydog.repository.criterion;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -164,40 +167,26 @@ public final class Comparison {
      * @param  operand  the operand.
      * @param  values   the values.
      * 
-     * @return  the resulting criterions.
+     * @return  the resulting criterion.
+     * 
+     * @throws  IllegalArgumentException  if the values are invalid.
      */
-    public static List<Criterion> in(final String operand, final Object... values) {
-        
-        // Initialize.
-        List<Criterion> criterions = new ArrayList<Criterion>();
-        
-        // Check if there is exactly one value.
-        if (values.length == 1) {
-            criterions.add(Comparison.eq(operand, values[0]));
-        }
-        
-        // Check if there is more than one value.
-        if (values.length > 1) {
-            
-            criterions.add(Enclosure.begin());
-            boolean firstValue = true;
-            
-            // Loop through the values.
-            for (Object value : values) {
-                
-                // Check if this is the first value.
-                if (firstValue) {
-                    criterions.add(Comparison.eq(operand, value));
-                    firstValue = false;
-                } else {
-                    criterions.add(Logical.or(Comparison.eq(operand, value)));
-                }
-            }
-            
-            criterions.add(Enclosure.end());
-        }
-        
-        return criterions;
+    public static Criterion in(final String operand, final Collection<?> values) {
+        return Comparison.operation(Comparison.Operator.IN, operand, Comparison.toList(values));
+    }
+    
+    /**
+     * In comparison operation.
+     * 
+     * @param  operand  the operand.
+     * @param  values   the values.
+     * 
+     * @return  the resulting criterion.
+     * 
+     * @throws  IllegalArgumentException  if the values are invalid.
+     */
+    public static Criterion in(final String operand, final Object... values) {
+        return Comparison.in(operand, (values == null) ? null : Arrays.asList(values));
     }
     
     /**
@@ -287,40 +276,26 @@ public final class Comparison {
      * @param  operand  the operand.
      * @param  values   the values.
      * 
-     * @return  the resulting criterions.
+     * @return  the resulting criterion.
+     * 
+     * @throws  IllegalArgumentException  if the values are invalid.
      */
-    public static List<Criterion> notIn(final String operand, final Object... values) {
-        
-        // Initialize.
-        List<Criterion> criterions = new ArrayList<Criterion>();
-        
-        // Check if there is exactly one value.
-        if (values.length == 1) {
-            criterions.add(Comparison.ne(operand, values[0]));
-        }
-        
-        // Check if there is more than one value.
-        if (values.length > 1) {
-            
-            criterions.add(Enclosure.begin());
-            boolean firstValue = true;
-            
-            // Loop through the values.
-            for (Object value : values) {
-                
-                // Check if this is the first value.
-                if (firstValue) {
-                    criterions.add(Comparison.ne(operand, value));
-                    firstValue = false;
-                } else {
-                    criterions.add(Logical.and(Comparison.ne(operand, value)));
-                }
-            }
-            
-            criterions.add(Enclosure.end());
-        }
-        
-        return criterions;
+    public static Criterion notIn(final String operand, final Collection<?> values) {
+        return Comparison.operation(Comparison.Operator.NOT_IN, operand, Comparison.toList(values));
+    }
+     
+    /**
+     * Not in comparison operation.
+     * 
+     * @param  operand  the operand.
+     * @param  values   the values.
+     * 
+     * @return  the resulting criterion.
+     * 
+     * @throws  IllegalArgumentException  if the values are invalid.
+     */
+    public static Criterion notIn(final String operand, final Object... values) {
+        return Comparison.notIn(operand, (values == null) ? null : Arrays.asList(values));
     }
     
     /**
@@ -370,12 +345,29 @@ public final class Comparison {
      */
     private static Criterion operation(final Comparison.Operator comparisonOperator, final String operand, final Object value) {
  
-        // Set the criterion.
-        Criterion criterion = Criterion.newInstance();
-        criterion.setComparisonOperator(comparisonOperator);
-        criterion.setOperand(operand);
-        criterion.setValue(value);
-        
-        return criterion;
+        // Create the criterion.
+        return Criterion.newInstance()
+                .withComparisonOperator(comparisonOperator)
+                .withOperand(operand)
+                .withValue(value);
+    }
+
+    /**
+     * Copy the values to an unmodifiable list.
+     * 
+     * @param  values  the values.
+     * 
+     * @return  the unmodifiable list of values.
+     * 
+     * @throws  IllegalArgumentException  if the values are invalid.
+     */
+    private static List<Object> toList(final Collection<?> values) {
+
+        // Check if the values are null or empty.
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("The values are invalid.");
+        }
+
+        return Collections.unmodifiableList(new ArrayList<Object>(values));
     }
 }
@@ -19,12 +19,11 @@
 package org.lazydog.repository.criterion;
 
 import java.io.Serializable;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 /**
- * A criterion.
+ * A criterion.  A criterion is an immutable value, so it can be shared and
+ * used as a key.
  * 
  * @author  Ron Rickard
  */
@@ -32,18 +31,34 @@ public final class Criterion implements Serializable {
 
     private static final long serialVersionUID = 1L;
     
-    private Comparison.Operator comparisonOperator = Comparison.Operator.UNDEFINED;
-    private Enclosure.Operator enclosureOperator = Enclosure.Operator.UNDEFINED;
-    private Join.Operator joinOperator = Join.Operator.UNDEFINED;
-    private Logical.Operator logicalOperator = Logical.Operator.UNDEFINED;
-    private String operand;
-    private Order.Direction orderDirection = Order.Direction.UNDEFINED;
-    private Object value;
+    private final Comparison.Operator comparisonOperator;
+    private final Enclosure.Operator enclosureOperator;
+    private transient int hashCode;
+    private final Join.Operator joinOperator;
+    private final Logical.Operator logicalOperator;
+    private final String operand;
+    private final Order.Direction orderDirection;
+    private final Object value;
     
     /**
      * Hide the constructor.
+     * 
+     * @param  comparisonOperator  the comparison operator.
+     * @param  enclosureOperator   the enclosure operator.
+     * @param  joinOperator        the join operator.
+     * @param  logicalOperator     the logical operator.
+     * @param  operand             the operand.
+     * @param  orderDirection      the order direction.
+     * @param  value               the value.
      */
-    private Criterion() {     
+    private Criterion(final Comparison.Operator comparisonOperator, final Enclosure.Operator enclosureOperator, final Join.Operator joinOperator, final Logical.Operator logicalOperator, final String operand, final Order.Direction orderDirection, final Object value) {
+        this.comparisonOperator = replaceNull(comparisonOperator, Comparison.Operator.UNDEFINED);
+        this.enclosureOperator = replaceNull(enclosureOperator, Enclosure.Operator.UNDEFINED);
+        this.joinOperator = replaceNull(joinOperator, Join.Operator.UNDEFINED);
+        this.logicalOperator = replaceNull(logicalOperator, Logical.Operator.UNDEFINED);
+        this.operand = operand;
+        this.orderDirection = replaceNull(orderDirection, Order.Direction.UNDEFINED);
+        this.value = value;
     }
      
     /**
@@ -55,7 +70,39 @@ public final class Criterion implements Serializable {
      */
     @Override
     public boolean equals(Object object) {
-        return EqualsBuilder.reflectionEquals(this, object);
+
+        // Check if the objects are identical.
+        if (this == object) {
+            return true;
+        }
+
+        // Check if the object is not a criterion.
+        if (!(object instanceof Criterion)) {
+            return false;
+        }
+
+        Criterion criterion = (Criterion)object;
+
+        return this.hashCode() == criterion.hashCode()
+                && this.comparisonOperator == criterion.comparisonOperator
+                && this.enclosureOperator == criterion.enclosureOperator
+                && this.joinOperator == criterion.joinOperator
+                && this.logicalOperator == criterion.logicalOperator
+                && this.orderDirection == criterion.orderDirection
+                && equals(this.operand, criterion.operand)
+                && equals(this.value, criterion.value);
+    }
+
+    /**
+     * Compare the objects.
+     *
+     * @param  object1  the first object.
+     * @param  object2  the second object.
+     *
+     * @return  true if the objects are both null or equal; false otherwise.
+     */
+    private static boolean equals(final Object object1, final Object object2) {
+        return (object1 == null) ? object2 == null : object1.equals(object2);
     }
     
     /**
@@ -122,22 +169,40 @@ public final class Criterion implements Serializable {
     }
 
     /**
-     * Returns a hash code for this object.
+     * Returns a hash code for this object.  The hash code is computed once.
+     * The enum names, rather than the enums, are hashed so the hash code is
+     * the same in every virtual machine.
      * 
      * @return  a hash code for this object.
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this);
+
+        // Check if the hash code is not computed.
+        if (this.hashCode == 0) {
+
+            int hashCode = 17;
+            hashCode = 31 * hashCode + this.comparisonOperator.name().hashCode();
+            hashCode = 31 * hashCode + this.enclosureOperator.name().hashCode();
+            hashCode = 31 * hashCode + this.joinOperator.name().hashCode();
+            hashCode = 31 * hashCode + this.logicalOperator.name().hashCode();
+            hashCode = 31 * hashCode + ((this.operand == null) ? 0 : this.operand.hashCode());
+            hashCode = 31 * hashCode + this.orderDirection.name().hashCode();
+            hashCode = 31 * hashCode + ((this.value == null) ? 0 : this.value.hashCode());
+            this.hashCode = hashCode;
+        }
+
+        return this.hashCode;
     }
     
     /**
-     * Create a new instance of the Criterion class.
+     * Create a new instance of the Criterion class.  All of the operators of
+     * the new instance are undefined.
      * 
      * @return  a new instance of the Criterion class.
      */
     public static Criterion newInstance() {
-        return new Criterion();
+        return new Criterion(null, null, null, null, null, null, null);
     }
     
     /**
@@ -162,75 +227,97 @@ public final class Criterion implements Serializable {
     }
 
     /**
-     * Set the comparison operator.
+     * Get this object as a string.
+     *
+     * @return  this object as a string.
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("comparisonOperator", this.comparisonOperator)
+                .append("enclosureOperator", this.enclosureOperator)
+                .append("joinOperator", this.joinOperator)
+                .append("logicalOperator", this.logicalOperator)
+                .append("operand", this.operand)
+                .append("orderDirection", this.orderDirection)
+                .append("value", this.value)
+                .toString();
+    }
+
+    /**
+     * Copy this criterion with the comparison operator.
      * 
      * @param  comparisonOperator  the comparison operator.
+     * 
+     * @return  the copy of this criterion.
      */
-    void setComparisonOperator(final Comparison.Operator comparisonOperator) {
-        this.comparisonOperator = replaceNull(comparisonOperator, Comparison.Operator.UNDEFINED);
+    Criterion withComparisonOperator(final Comparison.Operator comparisonOperator) {
+        return new Criterion(comparisonOperator, this.enclosureOperator, this.joinOperator, this.logicalOperator, this.operand, this.orderDirection, this.value);
     }
 
     /**
-     * Set the enclosure operator.
+     * Copy this criterion with the enclosure operator.
      * 
      * @param  enclosureOperator  the enclosure operator.
+     * 
+     * @return  the copy of this criterion.
      */
-    void setEnclosureOperator(final Enclosure.Operator enclosureOperator) {
-        this.enclosureOperator = replaceNull(enclosureOperator, Enclosure.Operator.UNDEFINED);
+    Criterion withEnclosureOperator(final Enclosure.Operator enclosureOperator) {
+        return new Criterion(this.comparisonOperator, enclosureOperator, this.joinOperator, this.logicalOperator, this.operand, this.orderDirection, this.value);
     }
 
     /**
-     * Set the join operator.
+     * Copy this criterion with the join operator.
      * 
      * @param  joinOperator  the join operator.
+     * 
+     * @return  the copy of this criterion.
      */
-    void setJoinOperator(final Join.Operator joinOperator) {
-        this.joinOperator = replaceNull(joinOperator, Join.Operator.UNDEFINED);
+    Criterion withJoinOperator(final Join.Operator joinOperator) {
+        return new Criterion(this.comparisonOperator, this.enclosureOperator, joinOperator, this.logicalOperator, this.operand, this.orderDirection, this.value);
     }
 
     /**
-     * Set the logical operator.
+     * Copy this criterion with the logical operator.
      * 
      * @param  logicalOperator  the logical operator.
+     * 
+     * @return  the copy of this criterion.
      */
-    void setLogicalOperator(final Logical.Operator logicalOperator) {
-        this.logicalOperator = replaceNull(logicalOperator, Logical.Operator.UNDEFINED);
+    Criterion withLogicalOperator(final Logical.Operator logicalOperator) {
+        return new Criterion(this.comparisonOperator, this.enclosureOperator, this.joinOperator, logicalOperator, this.operand, this.orderDirection, this.value);
     }
-      
+
     /**
-     * Set the operand.
+     * Copy this criterion with the operand.
      * 
      * @param  operand  the operand.
+     * 
+     * @return  the copy of this criterion.
      */
-    void setOperand(final String operand) {
-        this.operand = operand;
+    Criterion withOperand(final String operand) {
+        return new Criterion(this.comparisonOperator, this.enclosureOperator, this.joinOperator, this.logicalOperator, operand, this.orderDirection, this.value);
     }
-          
+
     /**
-     * Set the order direction.
+     * Copy this criterion with the order direction.
      * 
      * @param  orderDirection  the order direction.
-     */
-    void setOrderDirection(final Order.Direction orderDirection) {
-        this.orderDirection = replaceNull(orderDirection, Order.Direction.UNDEFINED);
-    }
-    
-    /**
-     * Set the value.
      * 
-     * @param  value  the value.
+     * @return  the copy of this criterion.
      */
-    void setValue(final Object value) {
-        this.value = value;
+    Criterion withOrderDirection(final Order.Direction orderDirection) {
+        return new Criterion(this.comparisonOperator, this.enclosureOperator, this.joinOperator, this.logicalOperator, this.operand, orderDirection, this.value);
     }
 
     /**
-     * Get this object as a string.
-     *
-     * @return  this object as a string.
+     * Copy this criterion with the value.
+     * 
+     * @param  value  the value.
+     * 
+     * @return  the copy of this criterion.
      */
-    @Override
-    public String toString() {
-        return ToStringBuilder.reflectionToString(this);
+    Criterion withValue(final Object value) {
+        return new Criterion(this.comparisonOperator, this.enclosureOperator, this.joinOperator, this.logicalOperator, this.operand, this.orderDirection, value);
     }
 }
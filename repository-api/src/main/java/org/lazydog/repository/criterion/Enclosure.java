@@ -67,10 +67,8 @@ public final class Enclosure {
      */
     private static Criterion operation(final Enclosure.Operator enclosureOperator) {
         
-        // Set the criterion.
-        Criterion criterion = Criterion.newInstance();
-        criterion.setEnclosureOperator(enclosureOperator);
-
-        return criterion;
+        // Create the criterion.
+        return Criterion.newInstance()
+                .withEnclosureOperator(enclosureOperator);
     }
 }
@@ -96,11 +96,9 @@ public final class Join {
      */
     private static Criterion operation(final Join.Operator joinOperator, final String operand) {
         
-        // Set the criterion.
-        Criterion criterion = Criterion.newInstance();
-        criterion.setJoinOperator(joinOperator);
-        criterion.setOperand(operand);
-        
-        return criterion;
+        // Create the criterion.
+        return Criterion.newInstance()
+                .withJoinOperator(joinOperator)
+                .withOperand(operand);
     }
 }
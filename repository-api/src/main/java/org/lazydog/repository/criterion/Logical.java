@@ -18,6 +18,7 @@
  */
 package org.lazydog.repository.criterion;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -74,10 +75,8 @@ public final class Logical {
      */
     private static Criterion operation(final Logical.Operator logicalOperator, final Criterion criterion) {
         
-        // Set the criterion logical operator.
-        criterion.setLogicalOperator(logicalOperator);
-
-        return criterion;
+        // Copy the criterion with the logical operator.
+        return criterion.withLogicalOperator(logicalOperator);
     }
         
     /**
@@ -90,10 +89,11 @@ public final class Logical {
      */
     private static List<Criterion> operation(final Logical.Operator logicalOperator, final List<Criterion> criterions) {
         
-        // Set the criterion logical operator.
-        criterions.get(0).setLogicalOperator(logicalOperator);
+        // Copy the criterions with the logical operator set on the first criterion.
+        List<Criterion> resultingCriterions = new ArrayList<Criterion>(criterions);
+        resultingCriterions.set(0, resultingCriterions.get(0).withLogicalOperator(logicalOperator));
 
-        return criterions;
+        return resultingCriterions;
     }
     
     /**
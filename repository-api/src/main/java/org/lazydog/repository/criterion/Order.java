@@ -72,11 +72,9 @@ public final class Order {
      */
     private static Criterion order(final Order.Direction orderDirection, final String operand) {
 
-        // Set the criterion.
-        Criterion criterion = Criterion.newInstance();
-        criterion.setOrderDirection(orderDirection);
-        criterion.setOperand(operand);
-        
-        return criterion;
+        // Create the criterion.
+        return Criterion.newInstance()
+                .withOrderDirection(orderDirection)
+                .withOperand(operand);
     }
 }
@@ -0,0 +1,256 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.criterion;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A named parameter.  A parameter is used as the value of a criterion, or as
+ * one of the values of an in comparison, in place of a value that is bound later.
+ * 
+ * @author  Ron Rickard
+ */
+public final class Parameter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    /**
+     * Hide the constructor.
+     * 
+     * @param  name  the name.
+     */
+    private Parameter(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Bind the parameters of the criterions to the values.  A parameter that is
+     * one of the values of an in comparison may be bound to a collection of values.
+     * 
+     * @param  criterions       the criterions.
+     * @param  parameterValues  the parameter name-value map.
+     * 
+     * @return  the criterions with the parameters replaced by the values.
+     * 
+     * @throws  IllegalArgumentException  if a parameter is not bound to a value.
+     */
+    public static List<Criterion> bind(final List<Criterion> criterions, final Map<String, ?> parameterValues) {
+
+        // Initialize the bound criterions.
+        List<Criterion> boundCriterions = new ArrayList<Criterion>(criterions.size());
+
+        // Loop through the criterions.
+        for (Criterion criterion : criterions) {
+
+            // Check if the value is a parameter.
+            if (criterion.getValue() instanceof Parameter) {
+
+                // Bind the parameter.
+                criterion = criterion.withValue(((Parameter)criterion.getValue()).getValue(parameterValues));
+            } else if (criterion.getValue() instanceof List && containsParameter((List<?>)criterion.getValue())) {
+
+                // Initialize the bound values.
+                List<Object> boundValues = new ArrayList<Object>();
+
+                // Loop through the values.
+                for (Object value : (List<?>)criterion.getValue()) {
+
+                    // Check if the value is a parameter.
+                    if (value instanceof Parameter) {
+
+                        // Get the parameter value.
+                        Object parameterValue = ((Parameter)value).getValue(parameterValues);
+
+                        // Check if the parameter value is a collection of values.
+                        if (parameterValue instanceof Collection) {
+                            boundValues.addAll((Collection<?>)parameterValue);
+                        } else {
+                            boundValues.add(parameterValue);
+                        }
+                    } else {
+                        boundValues.add(value);
+                    }
+                }
+
+                // Check if there are no bound values.
+                if (boundValues.isEmpty()) {
+                    throw new IllegalArgumentException("The values are invalid.");
+                }
+
+                // Bind the parameters.
+                criterion = criterion.withValue(Collections.unmodifiableList(boundValues));
+            }
+
+            // Add the criterion to the bound criterions.
+            boundCriterions.add(criterion);
+        }
+
+        return boundCriterions;
+    }
+
+    /**
+     * Check if the values contain a parameter.
+     * 
+     * @param  values  the values.
+     * 
+     * @return  true if the values contain a parameter, otherwise false.
+     */
+    private static boolean containsParameter(final List<?> values) {
+
+        // Initialize.
+        boolean containsParameter = false;
+
+        // Loop through the values.
+        for (Object value : values) {
+
+            // Check if the value is a parameter.
+            if (value instanceof Parameter) {
+                containsParameter = true;
+                break;
+            }
+        }
+
+        return containsParameter;
+    }
+
+    /**
+     * Compare this object to the specified object.
+     *
+     * @param  object  the object to compare this object against.
+     *
+     * @return  true if the objects are equal; false otherwise.
+     */
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Parameter && this.name.equals(((Parameter)object).name);
+    }
+
+    /**
+     * Get the name.
+     * 
+     * @return  the name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the parameter names of the criterions.
+     * 
+     * @param  criterions  the criterions.
+     * 
+     * @return  the parameter names.
+     */
+    public static Set<String> getNames(final List<Criterion> criterions) {
+
+        // Initialize the parameter names.
+        Set<String> names = new LinkedHashSet<String>();
+
+        // Loop through the criterions.
+        for (Criterion criterion : criterions) {
+
+            // Check if the value is a parameter.
+            if (criterion.getValue() instanceof Parameter) {
+                names.add(((Parameter)criterion.getValue()).getName());
+            } else if (criterion.getValue() instanceof List) {
+
+                // Loop through the values.
+                for (Object value : (List<?>)criterion.getValue()) {
+
+                    // Check if the value is a parameter.
+                    if (value instanceof Parameter) {
+                        names.add(((Parameter)value).getName());
+                    }
+                }
+            }
+        }
+
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Get the parameter value.
+     * 
+     * @param  parameterValues  the parameter name-value map.
+     * 
+     * @return  the parameter value.
+     * 
+     * @throws  IllegalArgumentException  if the parameter is not bound to a value.
+     */
+    private Object getValue(final Map<String, ?> parameterValues) {
+
+        // Get the parameter value.
+        Object value = (parameterValues == null) ? null : parameterValues.get(this.name);
+
+        // Check if the parameter value is null.
+        if (value == null) {
+            throw new IllegalArgumentException("The parameter '" + this.name + "' is not bound to a value.");
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns a hash code for this object.
+     * 
+     * @return  a hash code for this object.
+     */
+    @Override
+    public int hashCode() {
+        return this.name.hashCode();
+    }
+
+    /**
+     * Create a named parameter.
+     * 
+     * @param  name  the name.
+     * 
+     * @return  the named parameter.
+     * 
+     * @throws  IllegalArgumentException  if the name is invalid.
+     */
+    public static Parameter named(final String name) {
+
+        // Check if the name is invalid.
+        if (name == null || "".equals(name)) {
+            throw new IllegalArgumentException("The name is invalid.");
+        }
+
+        return new Parameter(name);
+    }
+
+    /**
+     * Get this object as a string.
+     *
+     * @return  this object as a string.
+     */
+    @Override
+    public String toString() {
+        return ":" + this.name;
+    }
+}
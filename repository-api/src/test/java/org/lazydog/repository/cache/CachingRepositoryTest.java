@@ -0,0 +1,463 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Test;
+import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.Cursor;
+import org.lazydog.repository.Entity;
+import org.lazydog.repository.Repository;
+import org.lazydog.repository.criterion.Criterion;
+
+/**
+ * Caching repository test.
+ *
+ * @author  Ron Rickard
+ */
+public class CachingRepositoryTest {
+
+    private CachingRepository cachingRepository;
+    private MapRepository repository;
+
+    public static class Item extends Entity<Item,Integer> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static class SpecialItem extends Item {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static class KeyCriteria<T> implements Criteria<T> {
+
+        private final Object cacheKey;
+
+        public KeyCriteria(Object cacheKey) {
+            this.cacheKey = cacheKey;
+        }
+
+        @Override
+        public Criteria<T> add(Criterion criterion) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Criteria<T> add(List<Criterion> criterions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Criteria<T> addOrder(Criterion criterion) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Criteria<T> addOrders(List<Criterion> criterions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Criteria<T> addProjection(String propertyName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Criteria<T> addProjections(List<String> propertyNames) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object getCacheKey() {
+            return this.cacheKey;
+        }
+
+        @Override
+        public boolean orderExists() {
+            return false;
+        }
+
+        @Override
+        public boolean projectionExists() {
+            return false;
+        }
+
+        @Override
+        public boolean restrictionExists() {
+            return false;
+        }
+
+        @Override
+        public Criteria<T> seekAfter(Object... orderValues) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Criteria<T> setFirstResult(int firstResult) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Criteria<T> setMaxResults(int maxResults) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static class MapRepository implements Repository {
+
+        private final Map<Integer,Item> items = new HashMap<Integer,Item>();
+        private int findCount;
+        private int findListCount;
+
+        @Override
+        public <T> long count(Class<T> entityClass, Criteria<T> criteria) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> boolean exists(Class<T> entityClass, Criteria<T> criteria) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T,U> T find(Class<T> entityClass, U id) {
+            this.findCount++;
+            Item item = this.items.get(id);
+            return entityClass.isInstance(item) ? entityClass.cast(item) : null;
+        }
+
+        @Override
+        public <T> T find(Class<T> entityClass, Criteria<T> criteria) {
+            this.findCount++;
+            Item item = this.items.get(criteria.getCacheKey());
+            return entityClass.isInstance(item) ? entityClass.cast(item) : null;
+        }
+
+        @Override
+        public <T,U> Map<U,T> findByIds(Class<T> entityClass, Collection<U> ids) {
+            this.findCount++;
+            Map<U,T> entities = new LinkedHashMap<U,T>();
+            for (U id : ids) {
+                Item item = this.items.get(id);
+                if (entityClass.isInstance(item)) {
+                    entities.put(id, entityClass.cast(item));
+                }
+            }
+            return entities;
+        }
+
+        @Override
+        public <T> Cursor<T> findCursor(Class<T> entityClass) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> Cursor<T> findCursor(Class<T> entityClass, Criteria<T> criteria) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> List<T> findList(Class<T> entityClass) {
+            return this.findList(entityClass, new KeyCriteria<T>(null));
+        }
+
+        @Override
+        public <T> List<T> findList(Class<T> entityClass, Criteria<T> criteria) {
+            this.findListCount++;
+            List<T> entities = new ArrayList<T>();
+            for (Item item : this.items.values()) {
+                if (entityClass.isInstance(item) && !item.getId().equals(criteria.getCacheKey())) {
+                    entities.add(entityClass.cast(item));
+                }
+            }
+            return entities;
+        }
+
+        @Override
+        public <T> List<Map<String,Object>> findProjectionList(Class<T> entityClass, Criteria<T> criteria) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> Criteria<T> getCriteria(Class<T> entityClass) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> CriteriaTemplate<T> getCriteriaTemplate(Class<T> entityClass, List<Criterion> restrictions, List<Criterion> orders) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T persist(T entity) {
+            Item item = (Item)entity;
+            if (item.getId() == null) {
+                item.setId(this.items.size() + 1);
+            }
+            this.items.put(item.getId(), item);
+            return entity;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T,U> List<U> persistBatch(List<T> entities) {
+            List<U> ids = new ArrayList<U>();
+            for (T entity : entities) {
+                ids.add((U)((Item)this.persist(entity)).getId());
+            }
+            return ids;
+        }
+
+        @Override
+        public <T> List<T> persistList(List<T> entities) {
+            List<T> persistedEntities = new ArrayList<T>();
+            for (T entity : entities) {
+                persistedEntities.add(this.persist(entity));
+            }
+            return persistedEntities;
+        }
+
+        @Override
+        public <T,U> void remove(Class<T> entityClass, U id) {
+            this.items.remove(id);
+        }
+
+        @Override
+        public <T,U> void removeList(Class<T> entityClass, List<U> ids) {
+            for (U id : ids) {
+                this.remove(entityClass, id);
+            }
+        }
+    }
+
+    @Before
+    public void beforeTest() {
+        this.repository = new MapRepository();
+        this.repository.persist(new Item());
+        this.repository.persist(new Item());
+        this.repository.persist(new SpecialItem());
+        this.cachingRepository = CachingRepository.newInstance(this.repository);
+        this.cachingRepository.setCacheConfiguration(Item.class, CacheConfiguration.newInstance(1000, 5, TimeUnit.MINUTES));
+        this.cachingRepository.setCacheConfiguration(SpecialItem.class, CacheConfiguration.newInstance(1000, 5, TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void testFind() {
+        Item item = this.cachingRepository.find(Item.class, 1);
+        assertSame(item, this.cachingRepository.find(Item.class, 1));
+        assertEquals(1, this.repository.findCount);
+        assertEquals(1, this.cachingRepository.getStatistics(Item.class).getHitCount());
+        assertEquals(1, this.cachingRepository.getStatistics(Item.class).getMissCount());
+        assertEquals(1, this.cachingRepository.getStatistics(Item.class).getSize());
+    }
+
+    @Test
+    public void testFindDefault() {
+        this.cachingRepository = CachingRepository.newInstance(this.repository);
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 1);
+        assertEquals(2, this.repository.findCount);
+        assertEquals(0, this.cachingRepository.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void testFindDefaultConfiguration() {
+        this.cachingRepository = CachingRepository.newInstance(this.repository, CacheConfiguration.newInstance(10, 0, TimeUnit.SECONDS));
+        Item item = this.cachingRepository.find(Item.class, 1);
+        assertSame(item, this.cachingRepository.find(Item.class, 1));
+        assertEquals(1, this.repository.findCount);
+    }
+
+    @Test
+    public void testFindDisabled() {
+        this.cachingRepository.setCacheConfiguration(Item.class, CacheConfiguration.newInstance(0, 0, TimeUnit.SECONDS));
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 1);
+        assertEquals(2, this.repository.findCount);
+        assertEquals(0, this.cachingRepository.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void testFindExpired() throws Exception {
+        this.cachingRepository.setCacheConfiguration(Item.class, CacheConfiguration.newInstance(10, 1, TimeUnit.MILLISECONDS));
+        this.cachingRepository.find(Item.class, 1);
+        Thread.sleep(10);
+        this.cachingRepository.find(Item.class, 1);
+        assertEquals(2, this.repository.findCount);
+        assertEquals(1, this.cachingRepository.getStatistics(Item.class).getEvictionCount());
+    }
+
+    @Test
+    public void testFindFull() {
+        this.cachingRepository.setCacheConfiguration(Item.class, CacheConfiguration.newInstance(2, 0, TimeUnit.SECONDS));
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 2);
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 3);
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 2);
+        assertEquals(4, this.repository.findCount);
+        assertEquals(2, this.cachingRepository.getStatistics(Item.class).getEvictionCount());
+        assertEquals(2, this.cachingRepository.getStatistics(Item.class).getSize());
+    }
+
+    @Test
+    public void testFindNotFound() {
+        assertNull(this.cachingRepository.find(Item.class, 99));
+        assertNull(this.cachingRepository.find(Item.class, 99));
+        assertEquals(2, this.repository.findCount);
+        assertEquals(0, this.cachingRepository.getStatistics(Item.class).getSize());
+    }
+
+    @Test
+    public void testFindByIds() {
+        Item item1 = this.cachingRepository.find(Item.class, 1);
+        Map<Integer,Item> items = this.cachingRepository.findByIds(Item.class, Arrays.asList(2, 99, 1));
+        assertEquals(Arrays.asList(2, 1), new ArrayList<Integer>(items.keySet()));
+        assertSame(item1, items.get(1));
+        assertSame(items.get(2), this.cachingRepository.find(Item.class, 2));
+        assertEquals(2, this.repository.findCount);
+    }
+
+    @Test
+    public void testFindCriteria() {
+        this.cachingRepository.setQueryCacheConfiguration(Item.class, CacheConfiguration.newInstance(10, 0, TimeUnit.SECONDS));
+        Item item = this.cachingRepository.find(Item.class, new KeyCriteria<Item>(1));
+        assertSame(item, this.cachingRepository.find(Item.class, new KeyCriteria<Item>(1)));
+        assertNull(this.cachingRepository.find(Item.class, new KeyCriteria<Item>(99)));
+        assertNull(this.cachingRepository.find(Item.class, new KeyCriteria<Item>(99)));
+        assertEquals(2, this.repository.findCount);
+        assertEquals(2, this.cachingRepository.getQueryStatistics(Item.class).getHitCount());
+        assertEquals(2, this.cachingRepository.getQueryStatistics(Item.class).getSize());
+    }
+
+    @Test
+    public void testFindList() {
+        this.cachingRepository.setQueryCacheConfiguration(Item.class, CacheConfiguration.newInstance(10, 0, TimeUnit.SECONDS));
+        List<Item> items = this.cachingRepository.findList(Item.class);
+        items.clear();
+        assertEquals(3, this.cachingRepository.findList(Item.class).size());
+        assertEquals(2, this.cachingRepository.findList(Item.class, new KeyCriteria<Item>(1)).size());
+        assertEquals(2, this.cachingRepository.findList(Item.class, new KeyCriteria<Item>(1)).size());
+        assertEquals(2, this.cachingRepository.findList(Item.class, new KeyCriteria<Item>(2)).size());
+        assertEquals(3, this.repository.findListCount);
+    }
+
+    @Test
+    public void testFindListDisabled() {
+        this.cachingRepository.findList(Item.class);
+        this.cachingRepository.findList(Item.class);
+        assertEquals(2, this.repository.findListCount);
+        assertEquals(0, this.cachingRepository.getQueryStatistics().getMissCount());
+    }
+
+    @Test
+    public void testFindListFull() {
+        this.cachingRepository.setQueryCacheConfiguration(Item.class, CacheConfiguration.newInstance(1, 0, TimeUnit.SECONDS));
+        this.cachingRepository.findList(Item.class, new KeyCriteria<Item>(1));
+        this.cachingRepository.findList(Item.class, new KeyCriteria<Item>(2));
+        this.cachingRepository.findList(Item.class, new KeyCriteria<Item>(1));
+        assertEquals(3, this.repository.findListCount);
+        assertEquals(2, this.cachingRepository.getQueryStatistics(Item.class).getEvictionCount());
+    }
+
+    @Test
+    public void testFindListInvalidated() {
+        this.cachingRepository.setQueryCacheConfiguration(Item.class, CacheConfiguration.newInstance(10, 0, TimeUnit.SECONDS));
+        this.cachingRepository.findList(Item.class);
+        this.cachingRepository.persist(new SpecialItem());
+        assertEquals(4, this.cachingRepository.findList(Item.class).size());
+        this.cachingRepository.remove(Item.class, 1);
+        assertEquals(3, this.cachingRepository.findList(Item.class).size());
+        assertEquals(3, this.repository.findListCount);
+    }
+
+    @Test
+    public void testPersist() {
+        Item item = this.cachingRepository.find(Item.class, 1);
+        Item changedItem = new Item();
+        changedItem.setId(1);
+        this.cachingRepository.persist(changedItem);
+        assertNotSame(item, this.cachingRepository.find(Item.class, 1));
+        assertSame(changedItem, this.cachingRepository.find(Item.class, 1));
+        assertEquals(2, this.repository.findCount);
+    }
+
+    @Test
+    public void testPersistBatch() {
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 2);
+        Item changedItem1 = new Item();
+        changedItem1.setId(1);
+        Item newItem = new Item();
+        List<Integer> ids = this.cachingRepository.persistBatch(Arrays.asList(changedItem1, newItem));
+        assertEquals(Arrays.asList(1, 4), ids);
+        assertEquals(1, this.cachingRepository.getStatistics(Item.class).getSize());
+    }
+
+    @Test
+    public void testPersistList() {
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 2);
+        Item changedItem1 = new Item();
+        changedItem1.setId(1);
+        Item changedItem2 = new Item();
+        changedItem2.setId(2);
+        this.cachingRepository.persistList(Arrays.asList(changedItem1, changedItem2));
+        assertEquals(0, this.cachingRepository.getStatistics(Item.class).getSize());
+    }
+
+    @Test
+    public void testRemove() {
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.remove(Item.class, 1);
+        assertNull(this.cachingRepository.find(Item.class, 1));
+    }
+
+    @Test
+    public void testRemoveList() {
+        this.cachingRepository.find(Item.class, 1);
+        this.cachingRepository.find(Item.class, 2);
+        this.cachingRepository.removeList(Item.class, Arrays.asList(1, 2));
+        assertNull(this.cachingRepository.find(Item.class, 1));
+        assertNull(this.cachingRepository.find(Item.class, 2));
+    }
+
+    @Test
+    public void testRemoveSubclass() {
+        this.cachingRepository.find(Item.class, 3);
+        this.cachingRepository.find(SpecialItem.class, 3);
+        this.cachingRepository.remove(SpecialItem.class, 3);
+        assertNull(this.cachingRepository.find(Item.class, 3));
+        assertNull(this.cachingRepository.find(SpecialItem.class, 3));
+        assertEquals(0, this.cachingRepository.getStatistics().getHitCount());
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.criterion;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import org.junit.Test;
+
+/**
+ * Criterion test.
+ *
+ * @author  Ron Rickard
+ */
+public class CriterionTest {
+
+    @Test
+    public void testEquals() {
+        assertEquals(Comparison.eq("operand", "value"), Comparison.eq("operand", "value"));
+        assertEquals(Comparison.eq("operand", "value").hashCode(), Comparison.eq("operand", "value").hashCode());
+        assertFalse(Comparison.eq("operand", "value").equals(Comparison.eq("operand", "value2")));
+        assertFalse(Comparison.eq("operand", "value").equals(Comparison.ne("operand", "value")));
+    }
+
+    @Test
+    public void testImmutable() {
+        Criterion criterion = Comparison.eq("operand", "value");
+        Criterion expectedCriterion = Comparison.eq("operand", "value");
+        assertNotSame(criterion, Logical.and(criterion));
+        assertEquals(expectedCriterion, criterion);
+    }
+
+    @Test
+    public void testSerializable() throws Exception {
+        Criterion expectedCriterion = Logical.or(Comparison.in("operand", "value1", "value2"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(expectedCriterion);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Criterion actualCriterion = (Criterion)input.readObject();
+            assertEquals(expectedCriterion, actualCriterion);
+            assertEquals(expectedCriterion.hashCode(), actualCriterion.hashCode());
+        }
+    }
+}
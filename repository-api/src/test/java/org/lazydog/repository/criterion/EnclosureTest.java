@@ -31,14 +31,14 @@ public class EnclosureTest {
     @Test
     public void testBegin() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setEnclosureOperator(Enclosure.Operator.BEGIN);
+        expectedCriterion = expectedCriterion.withEnclosureOperator(Enclosure.Operator.BEGIN);
         assertEquals(expectedCriterion, Enclosure.begin());
     }
     
     @Test
     public void testEnd() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setEnclosureOperator(Enclosure.Operator.END);
+        expectedCriterion = expectedCriterion.withEnclosureOperator(Enclosure.Operator.END);
         assertEquals(expectedCriterion, Enclosure.end());
     }
 }
@@ -31,32 +31,32 @@ public class JoinTest {
     @Test
     public void testJoin() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setJoinOperator(Join.Operator.JOIN);
-        expectedCriterion.setOperand("operand");
+        expectedCriterion = expectedCriterion.withJoinOperator(Join.Operator.JOIN);
+        expectedCriterion = expectedCriterion.withOperand("operand");
         assertEquals(expectedCriterion, Join.join(expectedCriterion.getOperand()));
     }
     
     @Test
     public void testJoinFetch() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setJoinOperator(Join.Operator.JOIN_FETCH);
-        expectedCriterion.setOperand("operand");
+        expectedCriterion = expectedCriterion.withJoinOperator(Join.Operator.JOIN_FETCH);
+        expectedCriterion = expectedCriterion.withOperand("operand");
         assertEquals(expectedCriterion, Join.joinFetch(expectedCriterion.getOperand()));
     }
     
     @Test
     public void testLeftJoin() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setJoinOperator(Join.Operator.LEFT_JOIN);
-        expectedCriterion.setOperand("operand");
+        expectedCriterion = expectedCriterion.withJoinOperator(Join.Operator.LEFT_JOIN);
+        expectedCriterion = expectedCriterion.withOperand("operand");
         assertEquals(expectedCriterion, Join.leftJoin(expectedCriterion.getOperand()));
     }
         
     @Test
     public void testLeftJoinFetch() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setJoinOperator(Join.Operator.LEFT_JOIN_FETCH);
-        expectedCriterion.setOperand("operand");
+        expectedCriterion = expectedCriterion.withJoinOperator(Join.Operator.LEFT_JOIN_FETCH);
+        expectedCriterion = expectedCriterion.withOperand("operand");
         assertEquals(expectedCriterion, Join.leftJoinFetch(expectedCriterion.getOperand()));
     }
 }
@@ -33,10 +33,10 @@ public class LogicalTest {
     @Test
     public void testAndOne() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setComparisonOperator(Comparison.Operator.EQUAL);
-        expectedCriterion.setLogicalOperator(Logical.Operator.AND);
-        expectedCriterion.setOperand("operand");
-        expectedCriterion.setValue("value");
+        expectedCriterion = expectedCriterion.withComparisonOperator(Comparison.Operator.EQUAL);
+        expectedCriterion = expectedCriterion.withLogicalOperator(Logical.Operator.AND);
+        expectedCriterion = expectedCriterion.withOperand("operand");
+        expectedCriterion = expectedCriterion.withValue("value");
         assertEquals(expectedCriterion, Logical.and(Comparison.eq(expectedCriterion.getOperand(), expectedCriterion.getValue())));
     }
     
@@ -44,39 +44,45 @@ public class LogicalTest {
     public void testAndMany() {
         List<Criterion> expectedCriterions = new ArrayList<Criterion>();
         Criterion criterionBegin = Criterion.newInstance();
-        criterionBegin.setEnclosureOperator(Enclosure.Operator.BEGIN);
-        criterionBegin.setLogicalOperator(Logical.Operator.AND);
+        criterionBegin = criterionBegin.withEnclosureOperator(Enclosure.Operator.BEGIN);
+        criterionBegin = criterionBegin.withLogicalOperator(Logical.Operator.AND);
         expectedCriterions.add(criterionBegin);
         Criterion criterion1 = Criterion.newInstance();
-        criterion1.setComparisonOperator(Comparison.Operator.EQUAL);
-        criterion1.setOperand("operand");
-        criterion1.setValue("value1");
+        criterion1 = criterion1.withComparisonOperator(Comparison.Operator.EQUAL);
+        criterion1 = criterion1.withOperand("operand");
+        criterion1 = criterion1.withValue("value1");
         expectedCriterions.add(criterion1);
         Criterion criterion2 = Criterion.newInstance();
-        criterion2.setComparisonOperator(Comparison.Operator.EQUAL);
-        criterion2.setLogicalOperator(Logical.Operator.OR);
-        criterion2.setOperand("operand");
-        criterion2.setValue("value2");
+        criterion2 = criterion2.withComparisonOperator(Comparison.Operator.EQUAL);
+        criterion2 = criterion2.withLogicalOperator(Logical.Operator.OR);
+        criterion2 = criterion2.withOperand("operand");
+        criterion2 = criterion2.withValue("value2");
         expectedCriterions.add(criterion2);
         Criterion criterion3 = Criterion.newInstance();
-        criterion3.setComparisonOperator(Comparison.Operator.EQUAL);
-        criterion3.setLogicalOperator(Logical.Operator.OR);
-        criterion3.setOperand("operand");
-        criterion3.setValue("value3");
+        criterion3 = criterion3.withComparisonOperator(Comparison.Operator.EQUAL);
+        criterion3 = criterion3.withLogicalOperator(Logical.Operator.OR);
+        criterion3 = criterion3.withOperand("operand");
+        criterion3 = criterion3.withValue("value3");
         expectedCriterions.add(criterion3);
         Criterion criterionEnd = Criterion.newInstance();
-        criterionEnd.setEnclosureOperator(Enclosure.Operator.END);
+        criterionEnd = criterionEnd.withEnclosureOperator(Enclosure.Operator.END);
         expectedCriterions.add(criterionEnd);
-        assertEquals(expectedCriterions, Logical.and(Comparison.in(criterion1.getOperand(), criterion1.getValue(), criterion2.getValue(), criterion3.getValue())));
+        List<Criterion> criterions = new ArrayList<Criterion>();
+        criterions.add(Enclosure.begin());
+        criterions.add(Comparison.eq(criterion1.getOperand(), criterion1.getValue()));
+        criterions.add(Logical.or(Comparison.eq(criterion2.getOperand(), criterion2.getValue())));
+        criterions.add(Logical.or(Comparison.eq(criterion3.getOperand(), criterion3.getValue())));
+        criterions.add(Enclosure.end());
+        assertEquals(expectedCriterions, Logical.and(criterions));
     }
         
     @Test
     public void testOrOne() {
         Criterion expectedCriterion = Criterion.newInstance();
-        expectedCriterion.setComparisonOperator(Comparison.Operator.EQUAL);
-        expectedCriterion.setLogicalOperator(Logical.Operator.OR);
-        expectedCriterion.setOperand("operand");
-        expectedCriterion.setValue("value");
+        expectedCriterion = expectedCriterion.withComparisonOperator(Comparison.Operator.EQUAL);
+        expectedCriterion = expectedCriterion.withLogicalOperator(Logical.Operator.OR);
+        expectedCriterion = expectedCriterion.withOperand("operand");
+        expectedCriterion = expectedCriterion.withValue("value");
         assertEquals(expectedCriterion, Logical.or(Comparison.eq(expectedCriterion.getOperand(), expectedCriterion.getValue())));
     }
     
@@ -84,30 +90,36 @@ public class LogicalTest {
     public void testOrMany() {
         List<Criterion> expectedCriterions = new ArrayList<Criterion>();
         Criterion criterionBegin = Criterion.newInstance();
-        criterionBegin.setEnclosureOperator(Enclosure.Operator.BEGIN);
-        criterionBegin.setLogicalOperator(Logical.Operator.OR);
+        criterionBegin = criterionBegin.withEnclosureOperator(Enclosure.Operator.BEGIN);
+        criterionBegin = criterionBegin.withLogicalOperator(Logical.Operator.OR);
         expectedCriterions.add(criterionBegin);
         Criterion criterion1 = Criterion.newInstance();
-        criterion1.setComparisonOperator(Comparison.Operator.EQUAL);
-        criterion1.setOperand("operand");
-        criterion1.setValue("value1");
+        criterion1 = criterion1.withComparisonOperator(Comparison.Operator.EQUAL);
+        criterion1 = criterion1.withOperand("operand");
+        criterion1 = criterion1.withValue("value1");
         expectedCriterions.add(criterion1);
         Criterion criterion2 = Criterion.newInstance();
-        criterion2.setComparisonOperator(Comparison.Operator.EQUAL);
-        criterion2.setLogicalOperator(Logical.Operator.OR);
-        criterion2.setOperand("operand");
-        criterion2.setValue("value2");
+        criterion2 = criterion2.withComparisonOperator(Comparison.Operator.EQUAL);
+        criterion2 = criterion2.withLogicalOperator(Logical.Operator.OR);
+        criterion2 = criterion2.withOperand("operand");
+        criterion2 = criterion2.withValue("value2");
         expectedCriterions.add(criterion2);
         Criterion criterion3 = Criterion.newInstance();
-        criterion3.setComparisonOperator(Comparison.Operator.EQUAL);
-        criterion3.setLogicalOperator(Logical.Operator.OR);
-        criterion3.setOperand("operand");
-        criterion3.setValue("value3");
+        criterion3 = criterion3.withComparisonOperator(Comparison.Operator.EQUAL);
+        criterion3 = criterion3.withLogicalOperator(Logical.Operator.OR);
+        criterion3 = criterion3.withOperand("operand");
+        criterion3 = criterion3.withValue("value3");
         expectedCriterions.add(criterion3);
         Criterion criterionEnd = Criterion.newInstance();
-        criterionEnd.setEnclosureOperator(Enclosure.Operator.END);
+        criterionEnd = criterionEnd.withEnclosureOperator(Enclosure.Operator.END);
         expectedCriterions.add(criterionEnd);
-        assertEquals(expectedCriterions, Logical.or(Comparison.in(criterion1.getOperand(), criterion1.getValue(), criterion2.getValue(), criterion3.getValue())));
+        List<Criterion> criterions = new ArrayList<Criterion>();
+        criterions.add(Enclosure.begin());
+        criterions.add(Comparison.eq(criterion1.getOperand(), criterion1.getValue()));
+        criterions.add(Logical.or(Comparison.eq(criterion2.getOperand(), criterion2.getValue())));
+        criterions.add(Logical.or(Comparison.eq(criterion3.getOperand(), criterion3.getValue())));
+        criterions.add(Enclosure.end());
+        assertEquals(expectedCriterions, Logical.or(criterions));
     }
 }
 
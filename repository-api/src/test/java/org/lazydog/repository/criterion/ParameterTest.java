@@ -0,0 +1,68 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.criterion;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Parameter test.
+ *
+ * @author  Ron Rickard
+ */
+public class ParameterTest {
+
+    @Test
+    public void testBind() {
+        List<Criterion> criterions = Arrays.asList(
+                Comparison.eq("operand1", Parameter.named("value1")),
+                Logical.and(Comparison.in("operand2", "value2", Parameter.named("values"))));
+        List<Criterion> expectedCriterions = Arrays.asList(
+                Comparison.eq("operand1", "value1"),
+                Logical.and(Comparison.in("operand2", "value2", "value3", "value4")));
+        Map<String, Object> parameterValues = new HashMap<String, Object>();
+        parameterValues.put("value1", "value1");
+        parameterValues.put("values", Arrays.asList("value3", "value4"));
+        assertEquals(expectedCriterions, Parameter.bind(criterions, parameterValues));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBindUnbound() {
+        Parameter.bind(Arrays.asList(Comparison.eq("operand", Parameter.named("value"))), Collections.<String, Object>emptyMap());
+    }
+
+    @Test
+    public void testGetNames() {
+        List<Criterion> criterions = Arrays.asList(
+                Comparison.eq("operand1", Parameter.named("value1")),
+                Logical.and(Comparison.in("operand2", "value2", Parameter.named("values"))));
+        assertEquals(new LinkedHashSet<String>(Arrays.asList("value1", "values")), Parameter.getNames(criterions));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNamedInvalid() {
+        Parameter.named("");
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark runner.
+ * 
+ * Runs the benchmarks selected by the JMH command line options, all benchmarks
+ * by default, and writes the results as JSON to target/jmh-result.json unless
+ * a result format or file is specified on the command line.
+ * 
+ * @author  Ron Rickard
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULT_FILE = "target/jmh-result.json";
+
+    /**
+     * Private constructor.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Run the benchmarks.
+     * 
+     * @param  args  the JMH command line options.
+     * 
+     * @throws  CommandLineOptionException  if the command line options are invalid.
+     * @throws  RunnerException             if unable to run the benchmarks.
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+
+        // Get the command line options.
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        // Default the result format and file to JSON.
+        OptionsBuilder optionsBuilder = new OptionsBuilder();
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            optionsBuilder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            optionsBuilder.result(RESULT_FILE);
+        }
+        Options options = optionsBuilder.parent(commandLineOptions).build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.criterion.Criterion;
+import org.lazydog.repository.criterion.Logical;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Criterion construction benchmark.
+ * 
+ * @author  Ron Rickard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+public class CriterionBenchmark {
+
+    private Criterion criterion1;
+    private Criterion criterion2;
+    private Object[] values;
+
+    @Setup
+    public void setup() {
+
+        // Initialize the IN values.
+        this.values = new Object[10];
+        for (int index = 0; index < this.values.length; index++) {
+            this.values[index] = "value" + index;
+        }
+
+        // Initialize two equal, but not identical, criterions.
+        this.criterion1 = Comparison.eq("name", "value");
+        this.criterion2 = Comparison.eq("name", "value");
+    }
+
+    @Benchmark
+    public Criterion comparisonEq() {
+        return Comparison.eq("name", "value");
+    }
+
+    @Benchmark
+    public Criterion comparisonIn() {
+        return Comparison.in("name", this.values);
+    }
+
+    @Benchmark
+    public boolean criterionEquals() {
+        return this.criterion1.equals(this.criterion2);
+    }
+
+    @Benchmark
+    public int criterionHashCode() {
+        return this.criterion1.hashCode();
+    }
+
+    @Benchmark
+    public Criterion logicalAnd() {
+        return Logical.and(Comparison.in("name", this.values));
+    }
+
+    @Benchmark
+    public Criterion logicalOr() {
+        return Logical.or(Comparison.eq("name", "value"));
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import java.io.File;
+import java.util.Hashtable;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import org.apache.directory.server.core.DirectoryService;
+import org.apache.directory.server.core.integ.IntegrationUtils;
+import org.apache.directory.server.integ.LdapServerFactory;
+import org.apache.directory.server.ldap.LdapServer;
+import org.apache.directory.server.protocol.shared.transport.TcpTransport;
+import org.apache.directory.server.protocol.shared.transport.Transport;
+
+/**
+ * Embedded ApacheDS LDAP server.
+ * 
+ * @author  Ron Rickard
+ */
+final class EmbeddedDirectory {
+
+    private static final String PROVIDER_URL = "ldap://localhost:";
+    private static final String SECURITY_CREDENTIALS = "secret";
+    private static final String SECURITY_PRINCIPAL = "uid=admin,ou=system";
+
+    private LdapServer ldapServer;
+    private int port;
+
+    /**
+     * Private constructor.
+     * 
+     * @param  port  the LDAP port.
+     */
+    private EmbeddedDirectory(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Add an entry.
+     * 
+     * @param  dn            the distinguished name.
+     * @param  attributeId   the RDN attribute ID.
+     * @param  value         the RDN attribute value.
+     * @param  objectClasses the object classes.
+     * 
+     * @throws  NamingException  if unable to add the entry.
+     */
+    public void addEntry(final String dn, final String attributeId, final String value, final String... objectClasses) throws NamingException {
+
+        // Initialize the attributes.
+        Attributes attributes = new BasicAttributes(true);
+        attributes.put(attributeId, value);
+        Attribute objectClass = new BasicAttribute("objectClass");
+        for (String objectClassValue : objectClasses) {
+            objectClass.add(objectClassValue);
+        }
+        attributes.put(objectClass);
+
+        // Get the context.
+        Hashtable<String,String> environment = new Hashtable<String,String>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+        environment.put(Context.PROVIDER_URL, PROVIDER_URL + this.port);
+        environment.put(Context.SECURITY_AUTHENTICATION, "simple");
+        environment.put(Context.SECURITY_PRINCIPAL, SECURITY_PRINCIPAL);
+        environment.put(Context.SECURITY_CREDENTIALS, SECURITY_CREDENTIALS);
+        DirContext context = new InitialDirContext(environment);
+
+        try {
+
+            // Add the entry.
+            context.createSubcontext(dn, attributes).close();
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Create a new instance of this class.
+     * 
+     * @param  port  the LDAP port.
+     * 
+     * @return  a new instance of this class.
+     */
+    public static EmbeddedDirectory newInstance(final int port) {
+        return new EmbeddedDirectory(port);
+    }
+
+    /**
+     * Start the LDAP server.
+     * 
+     * @param  workingDirectory  the working directory.
+     * 
+     * @throws  Exception  if unable to start the LDAP server.
+     */
+    public void start(final File workingDirectory) throws Exception {
+
+        // Create the LDAP server.
+        this.ldapServer = LdapServerFactory.DEFAULT.newInstance();
+        this.ldapServer.setTransports(new Transport[] {new TcpTransport(this.port)});
+
+        // Start the directory service in a clean working directory.
+        DirectoryService directoryService = this.ldapServer.getDirectoryService();
+        IntegrationUtils.doDelete(workingDirectory);
+        directoryService.setWorkingDirectory(workingDirectory);
+        directoryService.startup();
+
+        // Start the LDAP server.
+        this.ldapServer.start();
+    }
+
+    /**
+     * Stop the LDAP server.
+     * 
+     * @throws  Exception  if unable to stop the LDAP server.
+     */
+    public void stop() throws Exception {
+
+        // Check if the LDAP server exists.
+        if (this.ldapServer != null) {
+
+            // Stop the LDAP server and directory service.
+            this.ldapServer.stop();
+            this.ldapServer.getDirectoryService().shutdown();
+            this.ldapServer = null;
+        }
+    }
+}
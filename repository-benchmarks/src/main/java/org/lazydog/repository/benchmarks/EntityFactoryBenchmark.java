@@ -0,0 +1,101 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.lazydog.repository.Entity;
+import org.lazydog.repository.benchmarks.model.Account;
+import org.lazydog.repository.benchmarks.model.Group;
+import org.lazydog.repository.ldap.internal.EntityFactory;
+import org.lazydog.repository.ldap.internal.EntityFactoryException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LDAP entity factory benchmark.
+ * 
+ * @author  Ron Rickard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+public class EntityFactoryBenchmark {
+
+    private EntityFactory<Group> entityFactory;
+    private Group group;
+    private Map<String,Object> propertyMap;
+    private Set<String> propertyNames;
+
+    @Setup
+    public void setup() throws EntityFactoryException {
+
+        // Initialize the entity factory with the supported types.
+        List<Class<?>> supportedTypes = new ArrayList<Class<?>>();
+        supportedTypes.add(Entity.class);
+        supportedTypes.add(Integer.class);
+        supportedTypes.add(String.class);
+        this.entityFactory = EntityFactory.newInstance(Group.class, supportedTypes);
+
+        // Initialize the accounts.
+        Set<Account> accounts = new HashSet<Account>();
+        for (int index = 0; index < 10; index++) {
+            Account account = new Account();
+            account.setId("uid=account" + index + ",ou=accounts,o=bench,ou=system");
+            account.setName("account" + index);
+            accounts.add(account);
+        }
+
+        // Initialize the property map.
+        this.propertyMap = new HashMap<String,Object>();
+        this.propertyMap.put("accounts", accounts);
+        this.propertyMap.put("description", "Benchmark Group");
+        this.propertyMap.put("id", "cn=group,ou=groups,o=bench,ou=system");
+        this.propertyMap.put("name", "group");
+        this.propertyNames = new HashSet<String>(this.propertyMap.keySet());
+
+        this.group = this.entityFactory.createEntity(this.propertyMap);
+    }
+
+    @Benchmark
+    public Group createEntity() throws EntityFactoryException {
+        return this.entityFactory.createEntity(this.propertyMap);
+    }
+
+    @Benchmark
+    public Map<String,Object> getPropertyMap() throws EntityFactoryException {
+        return this.entityFactory.getPropertyMap(this.group, this.propertyNames);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.lazydog.repository.benchmarks.model.Contact;
+import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.criterion.Logical;
+import org.lazydog.repository.criterion.Order;
+import org.lazydog.repository.jpa.internal.CriteriaImpl;
+import org.lazydog.repository.jpa.internal.QueryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JPA criteria benchmark.
+ * 
+ * @author  Ron Rickard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+public class JpaCriteriaBenchmark {
+
+    private CriteriaImpl<Contact> criteria;
+    private QueryCache queryCache;
+
+    @Setup
+    public void setup() {
+        this.queryCache = new QueryCache(1000);
+        this.criteria = this.newCriteria();
+    }
+
+    /**
+     * Create a new criteria with restrictions and orders.
+     * 
+     * @return  a new criteria.
+     */
+    private CriteriaImpl<Contact> newCriteria() {
+
+        CriteriaImpl<Contact> criteria = new CriteriaImpl<Contact>(Contact.class, this.queryCache);
+        criteria.add(Comparison.eq("city", "Los Angeles"))
+                .add(Logical.and(Comparison.like("name", "A%")))
+                .add(Logical.or(Comparison.in("name", "Alice", "Bob", "Carol", "Dave")))
+                .addOrder(Order.asc("name"))
+                .addOrder(Order.desc("id"));
+
+        return criteria;
+    }
+
+    @Benchmark
+    public String buildAndGetQueryLanguageString() {
+        return this.newCriteria().getQueryLanguageString();
+    }
+
+    @Benchmark
+    public String getQueryLanguageString() {
+        return this.criteria.getQueryLanguageString();
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import java.sql.DriverManager;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jboss.weld.environment.se.Weld;
+import org.lazydog.repository.Criteria;
+import org.lazydog.repository.Cursor;
+import org.lazydog.repository.benchmarks.model.Contact;
+import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.jpa.bootstrap.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JPA repository end-to-end benchmark against an embedded Derby database.
+ * 
+ * @author  Ron Rickard
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations=5, time=2, timeUnit=TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations=3, time=2, timeUnit=TimeUnit.SECONDS)
+public class JpaRepositoryBenchmark {
+
+    private static final String DATABASE_URL = "jdbc:derby:memory:benchmark";
+    private static final String PERSISTENCE_UNIT_NAME = "Benchmark";
+    private static final int BATCH_CONTACT_COUNT = 1000;
+    private static final int CITY_COUNT = 10;
+
+    @Param({"1000"})
+    private int contactCount;
+    private List<Integer> ids;
+    private int index;
+    private ContactRepository repository;
+    private Weld weld;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        // Ensure the derby.log file is in the target directory.
+        System.setProperty("derby.system.home", "./target");
+
+        // Create the database.
+        DriverManager.getConnection(DATABASE_URL + ";create=true").close();
+
+        // Initialize the entity manager and get the repository.
+        this.weld = new Weld();
+        Configuration.createEntityManager(PERSISTENCE_UNIT_NAME);
+        this.repository = this.weld.initialize().instance().select(ContactRepository.class).get();
+
+        // Persist the contacts.
+        List<Contact> contacts = new ArrayList<Contact>();
+        for (int count = 0; count < this.contactCount; count++) {
+            Contact contact = new Contact();
+            contact.setCity("city" + (count % CITY_COUNT));
+            contact.setName("contact" + count);
+            contacts.add(contact);
+        }
+        this.ids = this.repository.persistBatch(contacts);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+
+        // Shutdown the weld container.
+        this.weld.shutdown();
+
+        // Drop the database.
+        try {
+            DriverManager.getConnection(DATABASE_URL + ";drop=true");
+        } catch (SQLNonTransientConnectionException e) {
+            // Ignore.
+        }
+    }
+
+    @Benchmark
+    public Contact find() {
+        this.index = (this.index + 1) % this.ids.size();
+        return this.repository.find(Contact.class, this.ids.get(this.index));
+    }
+
+    @Benchmark
+    public void findCursor(final Blackhole blackhole) {
+        Cursor<Contact> cursor = this.repository.findCursor(Contact.class);
+        try {
+            while (cursor.hasNext()) {
+                blackhole.consume(cursor.next());
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Benchmark
+    public List<Integer> persistBatch() {
+        List<Contact> contacts = new ArrayList<Contact>();
+        for (int count = 0; count < BATCH_CONTACT_COUNT; count++) {
+            Contact contact = new Contact();
+            contact.setCity("batch");
+            contact.setName("batch" + count);
+            contacts.add(contact);
+        }
+        return this.repository.persistBatch(contacts);
+    }
+
+    @Benchmark
+    public List<Contact> findList() {
+        Criteria<Contact> criteria = this.repository.getCriteria(Contact.class);
+        criteria.add(Comparison.eq("city", "city" + (this.index++ % CITY_COUNT)));
+        return this.repository.findList(Contact.class, criteria);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.lazydog.repository.benchmarks.model.Group;
+import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.criterion.Logical;
+import org.lazydog.repository.ldap.internal.CriteriaImpl;
+import org.lazydog.repository.ldap.internal.SearchScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LDAP criteria benchmark.
+ * 
+ * @author  Ron Rickard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+public class LdapCriteriaBenchmark {
+
+    private CriteriaImpl<Group> criteria;
+    private Set<String> objectClassValues;
+    private Map<String,String> propertyAttributeMap;
+
+    @Setup
+    public void setup() {
+
+        this.objectClassValues = new HashSet<String>();
+        this.objectClassValues.add("top");
+        this.objectClassValues.add("groupOfUniqueNames");
+
+        this.propertyAttributeMap = new HashMap<String,String>();
+        this.propertyAttributeMap.put("accounts", "uniqueMember");
+        this.propertyAttributeMap.put("description", "description");
+        this.propertyAttributeMap.put("name", "cn");
+
+        this.criteria = this.newCriteria();
+    }
+
+    /**
+     * Create a new criteria with restrictions.
+     * 
+     * @return  a new criteria.
+     */
+    private CriteriaImpl<Group> newCriteria() {
+
+        CriteriaImpl<Group> criteria = new CriteriaImpl<Group>(this.objectClassValues, this.propertyAttributeMap, "o=bench,ou=system", SearchScope.SUBTREE);
+        criteria.add(Comparison.eq("name", "group*"))
+                .add(Logical.and(Comparison.ne("description", "none")))
+                .add(Logical.or(Comparison.in("name", "group1", "group2", "group3", "group4")));
+
+        return criteria;
+    }
+
+    @Benchmark
+    public String buildAndGetFilter() {
+        return this.newCriteria().getFilter();
+    }
+
+    @Benchmark
+    public String getFilter() {
+        return this.criteria.getFilter();
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.lazydog.repository.Criteria;
+import org.lazydog.repository.benchmarks.model.Account;
+import org.lazydog.repository.benchmarks.model.Group;
+import org.lazydog.repository.criterion.Comparison;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LDAP repository end-to-end benchmark against an embedded ApacheDS server.
+ * 
+ * @author  Ron Rickard
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations=5, time=2, timeUnit=TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations=3, time=2, timeUnit=TimeUnit.SECONDS)
+public class LdapRepositoryBenchmark {
+
+    private static final int PORT = 10389;
+    private static final String SEARCH_BASE = "o=bench,ou=system";
+
+    @Param({"100"})
+    private int accountCount;
+    @Param({"10"})
+    private int groupCount;
+    private EmbeddedDirectory directory;
+    private List<String> groupIds;
+    private int index;
+    private GroupRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        // Start the LDAP server.
+        this.directory = EmbeddedDirectory.newInstance(PORT);
+        this.directory.start(new File("target/apacheds"));
+
+        // Add the organization and organizational units.
+        this.directory.addEntry(SEARCH_BASE, "o", "bench", "top", "organization");
+        this.directory.addEntry("ou=accounts," + SEARCH_BASE, "ou", "accounts", "top", "organizationalUnit");
+        this.directory.addEntry("ou=groups," + SEARCH_BASE, "ou", "groups", "top", "organizationalUnit");
+
+        // Get the repository.
+        this.repository = new GroupRepository();
+
+        // Persist the accounts.
+        List<Account> accounts = new ArrayList<Account>();
+        for (int count = 0; count < this.accountCount; count++) {
+            Account account = new Account();
+            account.setId("uid=account" + count + ",ou=accounts," + SEARCH_BASE);
+            account.setName("account" + count);
+            accounts.add(account);
+        }
+        accounts = this.repository.persistList(accounts);
+
+        // Persist the groups, each with every account as a member.
+        List<Group> groups = new ArrayList<Group>();
+        this.groupIds = new ArrayList<String>();
+        for (int count = 0; count < this.groupCount; count++) {
+            Set<Account> members = new HashSet<Account>(accounts);
+            Group group = new Group();
+            group.setAccounts(members);
+            group.setDescription("Benchmark Group" + count);
+            group.setId("cn=group" + count + ",ou=groups," + SEARCH_BASE);
+            group.setName("group" + count);
+            groups.add(group);
+            this.groupIds.add(group.getId());
+        }
+        this.repository.persistList(groups);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.directory.stop();
+    }
+
+    @Benchmark
+    public Account findAccount() {
+        Criteria<Account> criteria = this.repository.getCriteria(Account.class);
+        criteria.add(Comparison.eq("name", "account" + (this.index++ % this.accountCount)));
+        return this.repository.find(Account.class, criteria);
+    }
+
+    @Benchmark
+    public Group findGroup() {
+        this.index = (this.index + 1) % this.groupIds.size();
+        return this.repository.find(Group.class, this.groupIds.get(this.index));
+    }
+
+    @Benchmark
+    public List<Group> findGroupList() {
+        return this.repository.findList(Group.class);
+    }
+}
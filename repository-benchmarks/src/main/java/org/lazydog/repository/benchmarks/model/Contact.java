@@ -0,0 +1,98 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks.model;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+
+/**
+ * Contact.
+ *
+ * @author  Ron Rickard
+ */
+@Entity
+public class Contact implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    @Column(nullable=false)
+    private String city;
+    @Id
+    @GeneratedValue(strategy=GenerationType.IDENTITY)
+    private Integer id;
+    @Column(nullable=false)
+    private String name;
+
+    /**
+     * Get the city.
+     *
+     * @return  the city.
+     */
+    public String getCity() {
+        return this.city;
+    }
+
+    /**
+     * Get the ID.
+     *
+     * @return  the ID.
+     */
+    public Integer getId() {
+        return this.id;
+    }
+
+    /**
+     * Get the name.
+     *
+     * @return  the name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Set the city.
+     *
+     * @param  city  the city.
+     */
+    public void setCity(final String city) {
+        this.city = city;
+    }
+
+    /**
+     * Set the ID.
+     *
+     * @param  id  the ID.
+     */
+    public void setId(final Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Set the name.
+     *
+     * @param  name  the name.
+     */
+    public void setName(final String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.benchmarks.model;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import org.lazydog.repository.Entity;
+
+/**
+ * Group.
+ * 
+ * @author  Ron Rickard
+ */
+public class Group extends Entity<Group,String> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private Set<Account> accounts = new HashSet<Account>();
+    private String description;
+    private String name;
+
+    /**
+     * Get the accounts.
+     * 
+     * @return  the accounts.
+     */
+    public Set<Account> getAccounts() {
+        return this.accounts;
+    }
+
+    /**
+     * Get the description.
+     * 
+     * @return  the description.
+     */
+    public String getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Get the name.
+     * 
+     * @return  the name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Set the accounts.
+     * 
+     * @param  accounts  the accounts.
+     */
+    public void setAccounts(final Set<Account> accounts) {
+        this.accounts = accounts;
+    }
+
+    /**
+     * Set the description.
+     * 
+     * @param  description  the description.
+     */
+    public void setDescription(final String description) {
+        this.description = description;
+    }
+
+    /**
+     * Set the name.
+     * 
+     * @param  name  the name.
+     */
+    public void setName(final String name) {
+        this.name = name;
+    }
+}
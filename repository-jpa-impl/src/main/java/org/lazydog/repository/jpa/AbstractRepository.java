@@ -20,18 +20,38 @@ package org.lazydog.repository.jpa;
 
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
 import javax.persistence.NoResultException;
+import javax.persistence.PersistenceUnitUtil;
 import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.EntityType;
 import org.apache.deltaspike.jpa.api.transaction.Transactional;
+import org.lazydog.repository.AsyncRepository;
 import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.Cursor;
+import org.lazydog.repository.ExecutorAsyncRepository;
 import org.lazydog.repository.Repository;
+import org.lazydog.repository.criterion.Criterion;
 import org.lazydog.repository.jpa.internal.ConnectionFactory;
 import org.lazydog.repository.jpa.internal.CriteriaImpl;
+import org.lazydog.repository.jpa.internal.CriteriaTemplateImpl;
+import org.lazydog.repository.jpa.internal.PersistenceProviders;
+import org.lazydog.repository.jpa.internal.QueryCache;
+import org.lazydog.repository.jpa.internal.ScrollableQueryCursor;
 
 /**
  * Abstract repository implemented using the Java Persistence API.
@@ -42,9 +62,129 @@ import org.lazydog.repository.jpa.internal.CriteriaImpl;
 @ApplicationScoped
 public abstract class AbstractRepository implements Repository {
 
+    private static final int BATCH_SIZE = 100;
+    private static final int CURSOR_PAGE_SIZE = 500;
+    private static final int MAX_IN_PARAMETERS = 1000;
+    private static final int MAX_QUERY_PARAMETERS = 2100;
+    private static final int QUERY_CACHE_SIZE = 1000;
+
+    private final ThreadLocal<EntityManager> boundEntityManager = new ThreadLocal<EntityManager>();
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_SIZE);
     @Inject
     private EntityManager entityManager;
 
+    /**
+     * Bind the entity manager to the current thread.  The repository uses the
+     * bound entity manager on the current thread until it is unbound.
+     *
+     * @param  threadEntityManager  the entity manager, or null to unbind the entity manager.
+     */
+    void bindEntityManager(final EntityManager threadEntityManager) {
+
+        // Check if the entity manager is unbound.
+        if (threadEntityManager == null) {
+            this.boundEntityManager.remove();
+        }
+        else {
+            this.boundEntityManager.set(threadEntityManager);
+        }
+    }
+
+    /**
+     * Count the entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the number of entities that match the criteria.
+     *
+     * @throws  IllegalArgumentException  if the entity class or criteria are invalid.
+     */
+    @Override
+    public <T> long count(final Class<T> entityClass, final Criteria<T> criteria) {
+
+        // Check if the entity class is null.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class is invalid.");
+        }
+
+        // Check if the criteria is null.
+        if (criteria == null) {
+            throw new IllegalArgumentException("The criteria is invalid.");
+        }
+
+        CriteriaImpl<T> criteriaImpl = (CriteriaImpl<T>)criteria;
+
+        // Count the entities using the count query language string.
+        return this.createQuery(Long.class, criteriaImpl.getCountQueryLanguageString(),
+                criteriaImpl.getCountQueryParameters(), Collections.<Object, String>emptyMap()).getSingleResult();
+    }
+
+    /**
+     * Create the query.  The position of the first result and the maximum
+     * number of results of the criteria are applied to the query.
+     *
+     * @param  resultClass  the result class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the query.
+     *
+     * @throws  IllegalArgumentException  if the result class or criteria are invalid.
+     */
+    private <R> TypedQuery<R> createQuery(final Class<R> resultClass, final Criteria<?> criteria) {
+        return this.createQuery(resultClass, criteria, false);
+    }
+
+    /**
+     * Create the query.  The position of the first result and the maximum
+     * number of results of the criteria are applied to the query.  A seek
+     * requires the entities to be ordered by the ID last, so the order is
+     * unique and no entity is skipped or repeated between pages.
+     *
+     * @param  resultClass  the result class.
+     * @param  criteria     the criteria.
+     * @param  orderById    true if the query is ordered by the ID of the result class after the orders, otherwise false.
+     *
+     * @return  the query.
+     *
+     * @throws  IllegalArgumentException  if the result class or criteria are invalid.
+     */
+    private <R> TypedQuery<R> createQuery(final Class<R> resultClass, final Criteria<?> criteria, final boolean orderById) {
+
+        // Check if the criteria is null.
+        if (criteria == null) {
+            throw new IllegalArgumentException("The criteria is invalid.");
+        }
+
+        CriteriaImpl<?> criteriaImpl = (CriteriaImpl<?>)criteria;
+
+        // Check if a seek exists and the entities are not ordered by the ID last.
+        if (criteriaImpl.seekExists() && !criteriaImpl.isOrderedLastBy(this.getIdName(criteriaImpl.getEntityClass()))) {
+            throw new IllegalArgumentException("The criteria is invalid.");
+        }
+
+        // Create the query using the query language string.
+        TypedQuery<R> query = this.createQuery(resultClass,
+                (orderById) ? criteriaImpl.getQueryLanguageString(this.getIdName(resultClass)) : criteriaImpl.getQueryLanguageString(),
+                criteriaImpl.getQueryParameters(), criteriaImpl.getQueryHints());
+
+        // Check if the position of the first result is not the first position.
+        if (criteriaImpl.getFirstResult() > 0) {
+
+            // Set the position of the first result.
+            query.setFirstResult(criteriaImpl.getFirstResult());
+        }
+
+        // Check if the maximum number of results is bounded.
+        if (criteriaImpl.getMaxResults() != null) {
+
+            // Set the maximum number of results.
+            query.setMaxResults(criteriaImpl.getMaxResults());
+        }
+
+        return query;
+    }
+
     /**
      * Create the query.
      *
@@ -70,7 +210,7 @@ public abstract class AbstractRepository implements Repository {
         }
 
         // Create the query using the query language string.
-        TypedQuery<T> query = this.entityManager.createQuery(queryLanguageString, entityClass);
+        TypedQuery<T> query = this.getEntityManager().createQuery(queryLanguageString, entityClass);
 
         // Loop through the hints.
         for (Object key : queryHints.keySet()) {
@@ -89,6 +229,73 @@ public abstract class AbstractRepository implements Repository {
         return query;
     }
 
+    /**
+     * Detach the entities of the IDs managed by the entity manager.  If the
+     * entities managed by the entity manager cannot be found, since the
+     * persistence provider is neither EclipseLink nor Hibernate, the entity
+     * manager is cleared instead.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     */
+    private <U> void detachEntities(final Class<?> entityClass, final Set<U> ids) {
+
+        // Get the managed entities.
+        Set<Object> managedEntities = PersistenceProviders.getManagedEntities(this.getEntityManager());
+
+        // Check if the managed entities cannot be found.
+        if (managedEntities == null) {
+            this.getEntityManager().clear();
+        } else {
+
+            // Loop through the managed entities.
+            PersistenceUnitUtil persistenceUnitUtil = this.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+            for (Object entity : managedEntities) {
+
+                // Check if the entity is an entity of the IDs.
+                if (entityClass.isInstance(entity) && ids.contains(persistenceUnitUtil.getIdentifier(entity))) {
+                    this.getEntityManager().detach(entity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if any entity exists.  The ID of at most one entity that matches
+     * the criteria is selected, so the entities are not loaded.  As with the
+     * count, the query hints of the criteria are not applied, since they are
+     * meant for the query of the entities, not for a scalar projection.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  true if an entity matches the criteria, otherwise false.
+     *
+     * @throws  IllegalArgumentException  if the entity class or criteria are invalid.
+     */
+    @Override
+    public <T> boolean exists(final Class<T> entityClass, final Criteria<T> criteria) {
+
+        // Check if the entity class is null.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class is invalid.");
+        }
+
+        // Check if the criteria is null.
+        if (criteria == null) {
+            throw new IllegalArgumentException("The criteria is invalid.");
+        }
+
+        CriteriaImpl<T> criteriaImpl = (CriteriaImpl<T>)criteria;
+
+        // Check if the query returns at least one ID.
+        return !this.createQuery(Object.class, criteriaImpl.getExistsQueryLanguageString(this.getIdName(entityClass)),
+                criteriaImpl.getCountQueryParameters(), Collections.<Object, String>emptyMap())
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
     /**
      * Find the entity.
      *
@@ -106,7 +313,7 @@ public abstract class AbstractRepository implements Repository {
             throw new IllegalArgumentException("The entity class cannot be null.");
         }
         
-        return this.entityManager.find(entityClass, id);
+        return this.getEntityManager().find(entityClass, id);
     }
       
     /**
@@ -119,8 +326,19 @@ public abstract class AbstractRepository implements Repository {
      */
     @Override
     public <T> T find(final Class<T> entityClass, final Criteria<T> criteria) {
-        return this.find(entityClass, ((CriteriaImpl<T>)criteria).getQueryLanguageString(), 
-                ((CriteriaImpl<T>)criteria).getQueryParameters(), ((CriteriaImpl<T>)criteria).getQueryHints());
+        
+        // Initialize.
+        T entity = null;
+        
+        try {
+
+            // Get the entity.
+            entity = this.createQuery(entityClass, criteria).getSingleResult();
+        } catch(NoResultException e) {
+            // Ignore.
+        }
+
+        return entity;
     }
 
     /**
@@ -149,6 +367,109 @@ public abstract class AbstractRepository implements Repository {
         return entity;
     }
     
+    /**
+     * Find the entities by the IDs.  The entities are found with one query
+     * per chunk of the maximum number of parameters in an IN expression.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     * 
+     * @return  the ID-entity map in the order of the IDs.  IDs of entities that do not exist are not in the map.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or IDs are invalid.
+     */
+    @Override
+    public <T,U> Map<U,T> findByIds(final Class<T> entityClass, final Collection<U> ids) {
+
+        // Check if the entity class does not exist.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class cannot be null.");
+        }
+
+        // Check if the IDs do not exist.
+        if (ids == null || ids.contains(null)) {
+            throw new IllegalArgumentException("The IDs are invalid.");
+        }
+
+        // Get the entity type.
+        EntityType<T> entityType = this.getEntityManager().getMetamodel().entity(entityClass);
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        String queryLanguageString = "SELECT e FROM " + entityType.getName() + " e WHERE e." + idName + " IN :ids";
+        PersistenceUnitUtil persistenceUnitUtil = this.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+
+        // Initialize the found entities.
+        List<U> distinctIds = new ArrayList<U>(new LinkedHashSet<U>(ids));
+        Map<Object,T> foundEntities = new HashMap<Object,T>();
+
+        // Loop through the chunks of IDs.
+        int chunkSize = this.getMaxInParameters();
+        for (int fromIndex = 0; fromIndex < distinctIds.size(); fromIndex += chunkSize) {
+
+            // Find the entities for the chunk of IDs.
+            List<T> entities = this.getEntityManager().createQuery(queryLanguageString, entityClass)
+                    .setParameter("ids", distinctIds.subList(fromIndex, Math.min(fromIndex + chunkSize, distinctIds.size())))
+                    .getResultList();
+
+            // Loop through the entities.
+            for (T entity : entities) {
+                foundEntities.put(persistenceUnitUtil.getIdentifier(entity), entity);
+            }
+        }
+
+        // Initialize the ID-entity map.
+        Map<U,T> entityMap = new LinkedHashMap<U,T>();
+
+        // Loop through the IDs.
+        for (U id : distinctIds) {
+
+            // Check if the entity was found.
+            T entity = foundEntities.get(id);
+            if (entity != null) {
+                entityMap.put(id, entity);
+            }
+        }
+
+        return entityMap;
+    }
+
+    /**
+     * Find the cursor of entities.
+     *
+     * @param  entityClass  the entity class.
+     * 
+     * @return  the cursor of entities.
+     */
+    @Override
+    public <T> Cursor<T> findCursor(final Class<T> entityClass) {
+        return this.findCursor(entityClass, this.getCriteria(entityClass));
+    }
+
+    /**
+     * Find the cursor of entities.  The query is ordered by the ID after the
+     * orders of the criteria and streamed using the scrollable results of the
+     * persistence provider, with the cursor page size as the JDBC fetch size,
+     * and the entities returned by the cursor are detached every cursor page
+     * size entities, unless they were already managed.  The rows of an entity
+     * repeated by a join are consecutive, since the query is ordered by the ID,
+     * and the entity is returned once.  Criteria with fetch joins and a first
+     * result or a maximum number of results are not streamed, and all of their
+     * entities are loaded at once.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the cursor of entities.
+     */
+    @Override
+    public <T> Cursor<T> findCursor(final Class<T> entityClass, final Criteria<T> criteria) {
+
+        // Create the query ordered by the ID.
+        TypedQuery<T> query = this.createQuery(entityClass, criteria, true);
+
+        return ScrollableQueryCursor.newInstance(query, this.getEntityManager(), this.getCursorPageSize(),
+                ((CriteriaImpl<T>)criteria).fetchJoinExists());
+    }
+
     /**
      * Find the list of entities.
      *
@@ -171,8 +492,7 @@ public abstract class AbstractRepository implements Repository {
      */
     @Override
     public <T> List<T> findList(final Class<T> entityClass, final Criteria<T> criteria) {
-        return this.findList(entityClass, ((CriteriaImpl<T>)criteria).getQueryLanguageString(), 
-                ((CriteriaImpl<T>)criteria).getQueryParameters(), ((CriteriaImpl<T>)criteria).getQueryHints());
+        return this.createQuery(entityClass, criteria).getResultList();
     }
 
     /**
@@ -188,6 +508,98 @@ public abstract class AbstractRepository implements Repository {
     protected <T> List<T> findList(final Class<T> entityClass, final String queryLanguageString, final Map<String, Object> queryParameters, final Map<Object, String> queryHints) {
         return this.createQuery(entityClass, queryLanguageString, queryParameters, queryHints).getResultList();
     }
+
+    /**
+     * Find the list of projections.  Only the projected columns are selected,
+     * so the entities are neither created nor added to the persistence context.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria with at least one projection.
+     *
+     * @return  the list of property name-property value maps, each in the order of the projections.
+     *
+     * @throws  IllegalArgumentException  if the entity class or criteria are invalid.
+     */
+    @Override
+    public <T> List<Map<String,Object>> findProjectionList(final Class<T> entityClass, final Criteria<T> criteria) {
+
+        // Check if the entity class is null.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class is invalid.");
+        }
+
+        // Check if the criteria is null or has no projections.
+        if (criteria == null || !criteria.projectionExists()) {
+            throw new IllegalArgumentException("The criteria is invalid.");
+        }
+
+        // Get the projections.
+        List<String> projections = ((CriteriaImpl<T>)criteria).getProjections();
+
+        // Initialize the list of projections.
+        List<Map<String,Object>> projectionList = new ArrayList<Map<String,Object>>();
+
+        // Check if there is only one projection.
+        if (projections.size() == 1) {
+
+            // Loop through the results.
+            for (Object result : this.createQuery(Object.class, criteria).getResultList()) {
+
+                // Add the property value to the list of projections.
+                Map<String,Object> projection = new LinkedHashMap<String,Object>(2);
+                projection.put(projections.get(0), result);
+                projectionList.add(projection);
+            }
+        }
+        else {
+
+            // Loop through the results.
+            for (Object[] result : this.createQuery(Object[].class, criteria).getResultList()) {
+
+                // Add the property values to the list of projections.
+                Map<String,Object> projection = new LinkedHashMap<String,Object>(projections.size() * 2);
+                for (int index = 0; index < projections.size(); index++) {
+                    projection.put(projections.get(index), result[index]);
+                }
+                projectionList.add(projection);
+            }
+        }
+
+        return projectionList;
+    }
+    
+    /**
+     * Flush the batch of persisted entities, add their IDs to the list of IDs,
+     * and clear the batch and the persistence context.
+     *
+     * @param  batch                the batch of persisted entities.
+     * @param  ids                  the IDs.
+     * @param  persistenceUnitUtil  the persistence unit utility.
+     */
+    @SuppressWarnings("unchecked")
+    private <T,U> void flushBatch(final List<T> batch, final List<U> ids, final PersistenceUnitUtil persistenceUnitUtil) {
+
+        // Flush the batch.
+        this.getEntityManager().flush();
+
+        // Add the IDs of the batch.
+        for (T entity : batch) {
+            ids.add((U)persistenceUnitUtil.getIdentifier(entity));
+        }
+
+        // Clear the batch and the persistence context.
+        batch.clear();
+        this.getEntityManager().clear();
+    }
+
+    /**
+     * Get the batch size.
+     * 
+     * @return  the number of entities persisted by a batch persist between flushes.
+     */
+    protected int getBatchSize() {
+        return BATCH_SIZE;
+    }
     
     /**
      * Get the connection.
@@ -195,28 +607,160 @@ public abstract class AbstractRepository implements Repository {
      * @return  the connection.
      */
     public Connection getConnection() {
-        return ConnectionFactory.newInstance(this.entityManager).getConnection();
+        return ConnectionFactory.newInstance(this.getEntityManager()).getConnection();
+    }
+
+    /**
+     * Get the cursor page size.
+     * 
+     * @return  the number of entities fetched and managed by a cursor at a time.
+     */
+    protected int getCursorPageSize() {
+        return CURSOR_PAGE_SIZE;
     }
     
     /**
-     * Get the criteria.
+     * Get the criteria.  The generated query is cached in the query cache of
+     * the repository.  The values of an in comparison are bound in chunks of
+     * at most the maximum number of parameters in an IN expression, and the
+     * values bound to a query are bounded by the maximum number of query
+     * parameters.
      *
      * @param  entityClass  the entity class.
      *
      * @return  the criteria.
+     *
+     * @see  #getMaxInParameters()
+     * @see  #getMaxQueryParameters()
      */
     @Override
     public <T> Criteria<T> getCriteria(final Class<T> entityClass) {
-        return new CriteriaImpl<T>(entityClass);
+        return new CriteriaImpl<T>(entityClass, this.getQueryCache(), this.getMaxInParameters(), this.getMaxQueryParameters());
+    }
+
+    /**
+     * Get the criteria template.
+     *
+     * @param  entityClass   the entity class.
+     * @param  restrictions  the restriction criterions, which may use named parameters as values.
+     * @param  orders        the order criterions.
+     *
+     * @return  the criteria template.
+     *
+     * @throws  IllegalArgumentException  if the entity class, restrictions, or orders are invalid.
+     */
+    @Override
+    public <T> CriteriaTemplate<T> getCriteriaTemplate(final Class<T> entityClass, final List<Criterion> restrictions, final List<Criterion> orders) {
+        return new CriteriaTemplateImpl<T>(entityClass, this.getQueryCache(), this.getMaxInParameters(), this.getMaxQueryParameters(), restrictions, orders);
+    }
+
+    /**
+     * Get the asynchronous repository.  Each call of the asynchronous
+     * repository runs on a thread of the executor service with its own entity
+     * manager, created from the entity manager factory of the injected entity
+     * manager, and in its own resource-local transaction that is committed
+     * when the call succeeds and rolled back when it fails.  The injected
+     * entity manager is never used by the threads of the executor service.
+     * The entity manager of a call is closed when the call completes, so the
+     * entities found are detached and lazy relationships must be fetched by
+     * the call.  Persistence units that use JTA transactions are rejected.
+     *
+     * @param  executorService  the executor service.
+     *
+     * @return  the asynchronous repository.
+     *
+     * @throws  IllegalArgumentException  if the executor service is invalid.
+     * @throws  IllegalStateException     if the persistence unit uses JTA transactions.
+     *
+     * @see  ExecutorAsyncRepository#newExecutorService()
+     */
+    public AsyncRepository getAsyncRepository(final ExecutorService executorService) {
+        return new EntityManagerAsyncRepository(this, this.entityManager.getEntityManagerFactory(), executorService);
     }
 
     /**
-     * Get the entity manager.
+     * Get the entity manager.  The entity manager bound to the current thread
+     * is returned if one is bound, otherwise the injected entity manager.
      * 
      * @return  the entity manager.
      */
     public EntityManager getEntityManager() {
-        return this.entityManager;
+
+        EntityManager threadEntityManager = this.boundEntityManager.get();
+
+        return (threadEntityManager == null) ? this.entityManager : threadEntityManager;
+    }
+
+    /**
+     * Get the name of the ID property of the entity class.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the name of the ID property.
+     *
+     * @throws  IllegalArgumentException  if the entity class is invalid.
+     */
+    private String getIdName(final Class<?> entityClass) {
+
+        // Check if the entity class is null.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class is invalid.");
+        }
+
+        // Get the entity type.
+        EntityType<?> entityType = this.getEntityManager().getMetamodel().entity(entityClass);
+
+        return entityType.getId(entityType.getIdType().getJavaType()).getName();
+    }
+
+    /**
+     * Get the maximum number of parameters in an IN expression.  This is
+     * the number of IDs removed by a bulk remove statement.
+     * 
+     * @return  the maximum number of parameters in an IN expression.
+     */
+    protected int getMaxInParameters() {
+        return MAX_IN_PARAMETERS;
+    }
+
+    /**
+     * Get the maximum number of parameters bound to a query.  Each value of an
+     * IN expression is a separate parameter to the database, so a criteria
+     * binding more values is rejected.  The default is the lowest limit of the
+     * common databases.
+     * 
+     * @return  the maximum number of parameters bound to a query.
+     */
+    protected int getMaxQueryParameters() {
+        return MAX_QUERY_PARAMETERS;
+    }
+
+    /**
+     * Get the query cache.  The queries generated for the criteria of this
+     * repository are cached by the shape of the criteria, evicting the least
+     * recently used query once the cache is full.
+     * 
+     * @return  the query cache.
+     */
+    protected QueryCache getQueryCache() {
+        return this.queryCache;
+    }
+
+    /**
+     * Is the entity class safe to bulk remove?  A bulk remove bypasses the
+     * persistence context, so it skips remove cascades, orphan removal, join
+     * table and element collection rows, remove callbacks, entity listeners,
+     * and version checks, whether they are mapped by annotations or in XML.
+     * No entity class is bulk removed by default, so override this method to
+     * return true for the entity classes with a single ID attribute that are
+     * known to be safe to bulk remove.
+     * 
+     * @param  entityClass  the entity class.
+     * 
+     * @return  true if the entity class is safe to bulk remove, otherwise false.
+     */
+    protected boolean isBulkRemovable(final Class<?> entityClass) {
+        return false;
     }
 
     /**
@@ -237,12 +781,85 @@ public abstract class AbstractRepository implements Repository {
         }
         
         // Persist the entity.
-        T persistedEntity = this.entityManager.merge(entity);
-        this.entityManager.flush();
+        T persistedEntity = this.getEntityManager().merge(entity);
+        this.getEntityManager().flush();
 
         return persistedEntity;
     }
 
+    /**
+     * Persist the list of entities in batches of the batch size.
+     *
+     * @param  entities  the entities.
+     *
+     * @return  the IDs of the persisted entities.
+     *
+     * @see  #persistBatch(List, int)
+     */
+    @Transactional
+    @Override
+    public <T,U> List<U> persistBatch(final List<T> entities) {
+        return this.persistBatch(entities, this.getBatchSize());
+    }
+
+    /**
+     * Persist the list of entities in batches.  The entities of a batch are
+     * merged, the same way a single entity is persisted, and flushed once,
+     * then the persistence context is cleared so the persisted entities are
+     * not held in memory.  The JDBC statements of a flush are only batched if JDBC
+     * batching is enabled for the persistence unit, for example with the
+     * eclipselink.jdbc.batch-writing or hibernate.jdbc.batch_size property.
+     *
+     * @param  entities   the entities.
+     * @param  batchSize  the number of entities persisted between flushes.
+     *
+     * @return  the IDs of the persisted entities.
+     *
+     * @throws  IllegalArgumentException  if the entities or batch size are invalid.
+     */
+    @Transactional
+    public <T,U> List<U> persistBatch(final List<T> entities, final int batchSize) {
+
+        // Check if the entities are invalid.
+        if (entities == null) {
+            throw new IllegalArgumentException("The entities are invalid.");
+        }
+
+        // Check if the batch size is invalid.
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size is invalid.");
+        }
+
+        // Initialize.
+        PersistenceUnitUtil persistenceUnitUtil = this.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+        List<U> ids = new ArrayList<U>(entities.size());
+        List<T> batch = new ArrayList<T>(Math.min(batchSize, entities.size()));
+
+        // Loop through the entities.
+        for (T entity : entities) {
+
+            // Check if the entity is invalid.
+            if (entity == null) {
+                throw new IllegalArgumentException("The entity cannot be null.");
+            }
+
+            // Persist the entity.
+            batch.add(this.getEntityManager().merge(entity));
+
+            // Check if the batch is full.
+            if (batch.size() == batchSize) {
+                this.flushBatch(batch, ids, persistenceUnitUtil);
+            }
+        }
+
+        // Flush the remaining batch.
+        if (!batch.isEmpty()) {
+            this.flushBatch(batch, ids, persistenceUnitUtil);
+        }
+
+        return ids;
+    }
+
     /**
      * Persist the list of entities.
      *
@@ -268,7 +885,7 @@ public abstract class AbstractRepository implements Repository {
         }
 
         // Clear the entity manager.
-        this.entityManager.clear();
+        this.getEntityManager().clear();
         
         return persistedEntities;
     }
@@ -296,31 +913,101 @@ public abstract class AbstractRepository implements Repository {
         }
 
         // Get the entity.
-        T entity = this.entityManager.getReference(entityClass, id);
+        T entity = this.getEntityManager().getReference(entityClass, id);
 
         // Remove the entity.
-        this.entityManager.remove(entity);
-        this.entityManager.flush();
+        this.getEntityManager().remove(entity);
+        this.getEntityManager().flush();
     }
 
     /**
-     * Remove the entities by the list of IDs.
+     * Remove the entities by the list of IDs.  If the entity class is safe to
+     * bulk remove, the entities are removed with one bulk delete statement per
+     * chunk of IDs, otherwise the entities are removed one at a time.  Only the
+     * removed entities are detached from the entity manager.
      *
      * @param  entityClass  the entity class.
      * @param  ids          the IDs.
+     *
+     * @throws  EntityNotFoundException  if the entity of an ID does not exist.
+     *
+     * @see  #isBulkRemovable(Class)
+     * @see  #getMaxInParameters()
      */
     @Transactional
     @Override
     public <T,U> void removeList(final Class<T> entityClass, final List<U> ids) {
 
-        // Loop through the IDs.
-        for (U id: ids) {
+        // Check if the entity class does not exist.
+        if (entityClass == null) {
+            throw new IllegalArgumentException("The entity class cannot be null.");
+        }
 
-            // Remove the entity.
-            this.remove(entityClass, id);
+        // Check if the IDs do not exist.
+        if (ids == null || ids.contains(null)) {
+            throw new IllegalArgumentException("The IDs are invalid.");
+        }
+
+        // Check if the entity class is safe to bulk remove.
+        if (this.isBulkRemovable(entityClass)) {
+
+            // Get the entity type.
+            EntityType<T> entityType = this.getEntityManager().getMetamodel().entity(entityClass);
+            String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+            String queryLanguageString = "DELETE FROM " + entityType.getName() + " e WHERE e." + idName + " IN :ids";
+
+            // Synchronize the managed entities, since a bulk remove bypasses the persistence context.
+            this.getEntityManager().flush();
+
+            // Loop through the chunks of IDs.
+            Set<U> uniqueIds = new HashSet<U>(ids);
+            int chunkSize = this.getMaxInParameters();
+            int removedCount = 0;
+            for (int fromIndex = 0; fromIndex < ids.size(); fromIndex += chunkSize) {
+
+                // Remove the entities for the chunk of IDs.
+                removedCount += this.getEntityManager().createQuery(queryLanguageString)
+                        .setParameter("ids", ids.subList(fromIndex, Math.min(fromIndex + chunkSize, ids.size())))
+                        .executeUpdate();
+            }
+
+            // Detach the removed entities managed by the entity manager.
+            this.detachEntities(entityClass, uniqueIds);
+
+            // Loop through the IDs.
+            for (U id : uniqueIds) {
+
+                // Evict the removed entity from the second-level cache.
+                this.getEntityManager().getEntityManagerFactory().getCache().evict(entityClass, id);
+            }
+
+            // Check if the entities of some IDs do not exist.
+            if (removedCount != uniqueIds.size()) {
+                throw new EntityNotFoundException("Unable to find all the entities " + entityClass.getName() + " with the IDs " + ids + ".");
+            }
+        } else {
+
+            // Loop through the IDs.
+            List<T> entities = new ArrayList<T>();
+            for (U id: ids) {
+
+                // Remove the entity.
+                T entity = this.getEntityManager().getReference(entityClass, id);
+                this.getEntityManager().remove(entity);
+                entities.add(entity);
+            }
+
+            // Synchronize the removed entities.
+            this.getEntityManager().flush();
+
+            // Loop through the removed entities.
+            for (T entity : entities) {
+
+                // Check if the removed entity is still managed.
+                if (this.getEntityManager().contains(entity)) {
+                    this.getEntityManager().detach(entity);
+                }
+            }
         }
-        
-        // Clear the entity manager.
-        this.entityManager.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa;
+
+import java.util.concurrent.ExecutorService;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import org.lazydog.repository.ExecutorAsyncRepository;
+
+/**
+ * Asynchronous repository that gives each task its own entity manager.
+ * The repository is called directly rather than through its container
+ * proxy, so the transaction of each task is managed here instead of by
+ * the transactional interceptor.  The transactions are resource-local, so
+ * persistence units that use JTA transactions are not supported.
+ *
+ * @author  Ron Rickard
+ */
+final class EntityManagerAsyncRepository extends ExecutorAsyncRepository {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Create an asynchronous repository.
+     *
+     * @param  repository            the repository.
+     * @param  entityManagerFactory  the entity manager factory.
+     * @param  executorService       the executor service.
+     *
+     * @throws  IllegalArgumentException  if the repository or executor service is invalid.
+     * @throws  IllegalStateException     if the persistence unit uses JTA transactions.
+     */
+    EntityManagerAsyncRepository(final AbstractRepository repository, final EntityManagerFactory entityManagerFactory, final ExecutorService executorService) {
+        super(repository, executorService);
+        this.entityManagerFactory = entityManagerFactory;
+
+        // Check if the persistence unit uses JTA transactions.
+        if (isJta(entityManagerFactory)) {
+            throw new IllegalStateException("The persistence unit uses JTA transactions, but the asynchronous repository requires resource-local transactions.");
+        }
+    }
+
+    /**
+     * Call the task with a new entity manager bound to the current thread
+     * in a new transaction.
+     *
+     * @param  task  the task.
+     *
+     * @return  the result.
+     *
+     * @throws  Exception  if the task fails.
+     */
+    @Override
+    protected <V> V call(final Task<V> task) throws Exception {
+
+        AbstractRepository repository = (AbstractRepository)this.getRepository();
+        EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+
+        try {
+
+            // Bind the entity manager to the current thread.
+            repository.bindEntityManager(entityManager);
+
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+
+            try {
+                V result = task.call(repository);
+                transaction.commit();
+                return result;
+            }
+            finally {
+
+                // Roll back the transaction if it was not committed.
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        }
+        finally {
+            repository.bindEntityManager(null);
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Does the persistence unit of the entity manager factory use JTA
+     * transactions?  The entity managers of a persistence unit that uses JTA
+     * transactions do not have resource-local transactions.
+     *
+     * @param  entityManagerFactory  the entity manager factory.
+     *
+     * @return  true if the persistence unit uses JTA transactions, otherwise false.
+     */
+    private static boolean isJta(final EntityManagerFactory entityManagerFactory) {
+
+        // Initialize.
+        boolean jta = false;
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+        try {
+
+            // Get the resource-local transaction.
+            entityManager.getTransaction();
+        } catch (IllegalStateException e) {
+            jta = true;
+        } finally {
+            entityManager.close();
+        }
+
+        return jta;
+    }
+}
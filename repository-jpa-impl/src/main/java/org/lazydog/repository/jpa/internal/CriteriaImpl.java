@@ -19,16 +19,21 @@
 package org.lazydog.repository.jpa.internal;
 
 import java.io.Serializable;
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.lazydog.repository.Criteria;
+import org.lazydog.repository.criterion.Comparison;
 import org.lazydog.repository.criterion.Criterion;
 import org.lazydog.repository.criterion.Enclosure;
 import org.lazydog.repository.criterion.Join;
+import org.lazydog.repository.criterion.Order;
 
 
 /**
@@ -39,55 +44,116 @@ import org.lazydog.repository.criterion.Join;
 public class CriteriaImpl<T> implements Criteria<T>, Serializable {
 
     private static final long serialVersionUID = 1L;
+    private static final int MAX_IN_PARAMETERS = 1000;
+    private static final int MAX_QUERY_PARAMETERS = 2100;
     
     private String entityAlias;
     private Class<T> entityClass;
-    private List<Criterion> joins;
-    private StringBuilder joinsStringBuilder;
+    private int firstResult;
+    private Set<Criterion> joins;
+    private int maxInParameters;
+    private int maxQueryParameters;
+    private Integer maxResults;
     private List<Criterion> orders;
-    private StringBuilder ordersStringBuilder;
+    private List<String> projections;
+    private transient GeneratedQuery query;
+    private transient QueryCache queryCache;
     private Map<Object, String> queryHints;
-    private Map<String, Object> queryParameters;
     private List<Criterion> restrictions;
-    private StringBuilder restrictionsStringBuilder;
+    private List<Object> seekValues;
 
     /**
-     * Constructor.
+     * Constructor.  The generated query is not cached, at most 1000 values are
+     * bound to a query parameter of an in comparison, and at most 2100 values
+     * are bound to the query.
      *
      * @param  entityClass  the entity class.
      *
      * @throws  IllegalArgumentException  if the entity class is invalid.
      */
     public CriteriaImpl(final Class<T> entityClass) {
+        this(entityClass, null);
+    }
+
+    /**
+     * Constructor.  At most 1000 values are bound to a query parameter of an
+     * in comparison, and at most 2100 values are bound to the query.
+     *
+     * @param  entityClass  the entity class.
+     * @param  queryCache   the query cache, or null if the generated query is not cached.
+     *
+     * @throws  IllegalArgumentException  if the entity class is invalid.
+     */
+    public CriteriaImpl(final Class<T> entityClass, final QueryCache queryCache) {
+        this(entityClass, queryCache, MAX_IN_PARAMETERS, MAX_QUERY_PARAMETERS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param  entityClass         the entity class.
+     * @param  queryCache          the query cache, or null if the generated query is not cached.
+     * @param  maxInParameters     the maximum number of values bound to a query parameter of an in comparison.
+     * @param  maxQueryParameters  the maximum number of values bound to the query.
+     *
+     * @throws  IllegalArgumentException  if the entity class or maximum numbers of values are invalid.
+     */
+    public CriteriaImpl(final Class<T> entityClass, final QueryCache queryCache, final int maxInParameters, final int maxQueryParameters) {
 
         // Check if the entity class is null.
         if (entityClass == null) {
             throw new IllegalArgumentException("The entity class is invalid.");
         }
 
+        // Check if the maximum numbers of values are invalid.
+        if (maxInParameters < 1 || maxQueryParameters < 1) {
+            throw new IllegalArgumentException("The maximum number of parameters is invalid.");
+        }
+
         // Set the entity class.
         this.entityClass = entityClass;
 
+        // Set the query cache and the maximum numbers of values.
+        this.queryCache = queryCache;
+        this.maxInParameters = maxInParameters;
+        this.maxQueryParameters = maxQueryParameters;
+
         // Set the entity alias.
         this.entityAlias = this.entityClass.getSimpleName().toLowerCase();
 
         // Initialize the query hints.
         this.queryHints = new LinkedHashMap<Object, String>();
-        
-        // Initialize the query parameters.
-        this.queryParameters = new LinkedHashMap<String, Object>();
-
-        // Initialize the joins, orders, and restrictions string builders.
-        this.joinsStringBuilder = new StringBuilder();
-        this.ordersStringBuilder = new StringBuilder();
-        this.restrictionsStringBuilder = new StringBuilder();
 
-        // Initialize the orders and restrictions.
-        this.joins = new ArrayList<Criterion>();
+        // Initialize the joins, orders, projections, and restrictions.
+        this.joins = new LinkedHashSet<Criterion>();
         this.orders = new ArrayList<Criterion>();
+        this.projections = new ArrayList<String>();
         this.restrictions = new ArrayList<Criterion>();
     }
 
+    /**
+     * Constructor.
+     *
+     * @param  entityClass         the entity class.
+     * @param  queryCache          the query cache, or null if the generated query is not cached.
+     * @param  maxInParameters     the maximum number of values bound to a query parameter of an in comparison.
+     * @param  maxQueryParameters  the maximum number of values bound to the query.
+     * @param  restrictions        the restriction criterions.
+     * @param  orders              the order criterions.
+     * @param  query               the generated query for the criterions, or null if it is not known.
+     *
+     * @throws  IllegalArgumentException  if the entity class or maximum numbers of values are invalid.
+     */
+    CriteriaImpl(final Class<T> entityClass, final QueryCache queryCache, final int maxInParameters, final int maxQueryParameters, final List<Criterion> restrictions, final List<Criterion> orders, final GeneratedQuery query) {
+
+        this(entityClass, queryCache, maxInParameters, maxQueryParameters);
+
+        // Set the restrictions, orders, and generated query.
+        this.restrictions.addAll(restrictions);
+        this.orders.addAll(orders);
+        this.query = query;
+    }
+
     /**
      * Add a restriction criterion.
      *
@@ -98,130 +164,359 @@ public class CriteriaImpl<T> implements Criteria<T>, Serializable {
     @Override
     public Criteria<T> add(final Criterion criterion) {
 
-        try {
+        // Add the criterion to the restrictions.
+        this.restrictions.add(criterion);
+        this.query = null;
+
+        return this;
+    }
+
+    /**
+     * Add restriction criterions.
+     *
+     * @param  criterions  the restriction criterions.
+     *
+     * @return  the criteria.
+     */
+    @Override
+    public Criteria<T> add(final List<Criterion> criterions) {
+
+        // Loop through the restriction criterions.
+        for (Criterion criterion : criterions) {
+
+            // Add the restriction criterion.
+            this.add(criterion);
+        }
+
+        return this;
+    }
+
+    /**
+     * Add a join criterion.
+     * 
+     * @param  criterion  the join criterion.
+     * 
+     * @return  the criteria.
+     */
+    public Criteria<T> addJoin(final Criterion criterion) {
+
+        // Add the criterion to the joins unless it is already added.
+        if (this.joins.add(criterion)) {
+            this.query = null;
+        }
+
+        return this;
+    }
+    
+    /**
+     * Add join criterions.
+     *
+     * @param  criterions  the join criterions.
+     *
+     * @return  the criteria.
+     */
+    public Criteria<T> addJoins(final List<Criterion> criterions) {
+
+        // Loop through the join criterions.
+        for (Criterion criterion : criterions) {
+
+            // Add the join criterion.
+            this.addJoin(criterion);
+        }
+
+        return this;
+    }
+
+    /**
+     * Add a order criterion.
+     *
+     * @param  criterion  the order criterion.
+     *
+     * @return  the criteria.
+     */
+    @Override
+    public Criteria<T> addOrder(final Criterion criterion) {
+
+        // Add the criterion to the orders.
+        this.orders.add(criterion);
+        this.query = null;
+
+        return this;
+    }
+
+    /**
+     * Add order criterions.
+     *
+     * @param  criterions  the order criterions.
+     *
+     * @return  the criteria.
+     */
+    @Override
+    public Criteria<T> addOrders(final List<Criterion> criterions) {
+
+        // Loop through the order criterions.
+        for (Criterion criterion : criterions) {
+
+            // Add the order criterion.
+            this.addOrder(criterion);
+        }
+
+        return this;
+    }
+
+    /**
+     * Add a projection.  Collection-valued relationships in the property path
+     * are joined automatically, as they are for restrictions.
+     *
+     * @param  propertyName  the property path.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if the property path is invalid.
+     */
+    @Override
+    public Criteria<T> addProjection(final String propertyName) {
+
+        // Check if the property path is null.
+        if (propertyName == null) {
+            throw new IllegalArgumentException("The property name is invalid.");
+        }
+
+        // Add the property path to the projections.
+        this.projections.add(propertyName);
+        this.query = null;
+
+        return this;
+    }
+
+    /**
+     * Add projections.
+     *
+     * @param  propertyNames  the property paths.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if a property path is invalid.
+     */
+    @Override
+    public Criteria<T> addProjections(final List<String> propertyNames) {
+
+        // Loop through the property paths.
+        for (String propertyName : propertyNames) {
+
+            // Add the projection.
+            this.addProjection(propertyName);
+        }
+
+        return this;
+    }
+
+    /**
+     * Append the in comparison to the restrictions string builder.  The values
+     * are bound in chunks of at most the maximum number of values of an in
+     * comparison, each chunk to its own query parameter, so the database limit
+     * of an in list is not exceeded.
+     *
+     * @param  restrictionsStringBuilder  the restrictions string builder.
+     * @param  qualifiedOperand           the qualified operand.
+     * @param  comparisonOperator         the comparison operator, including the parameter prefix.
+     * @param  logicalOperator            the logical operator used between chunks.
+     * @param  chunkCount                 the number of chunks.
+     * @param  parameterNames             the query parameter names.
+     */
+    private static void appendInComparison(final StringBuilder restrictionsStringBuilder, final String qualifiedOperand, final String comparisonOperator, final String logicalOperator, final int chunkCount, final List<String> parameterNames) {
+
+        // Check if there is more than one chunk.
+        if (chunkCount > 1) {
+            restrictionsStringBuilder.append("(");
+        }
+
+        // Loop through the chunks.
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+
+            // Check if this is not the first chunk.
+            if (chunk > 0) {
+                restrictionsStringBuilder.append(logicalOperator);
+            }
+
+            // Get the query parameter name of the chunk.
+            String parameterName = queryParameterName(parameterNames.size());
+            parameterNames.add(parameterName);
+
+            // Add the comparison of the chunk to the restrictions string builder.
+            restrictionsStringBuilder
+                    .append(qualifiedOperand)
+                    .append(comparisonOperator)
+                    .append(parameterName);
+        }
+
+        // Check if there is more than one chunk.
+        if (chunkCount > 1) {
+            restrictionsStringBuilder.append(")");
+        }
+    }
+
+    /**
+     * Check if a fetch join criterion exists.  Fetch joins of projections are
+     * applied as plain joins, so they are not fetch joins.
+     *
+     * @return  true if a fetch join criterion exists, otherwise false.
+     */
+    public boolean fetchJoinExists() {
+        return this.getQuery().fetchJoinExists();
+    }
+
+    /**
+     * Generate the query.  The query language strings are generated from the
+     * restrictions, joins, orders, and seek, and the query parameter names are
+     * listed in the order the restriction values are bound.
+     *
+     * @return  the generated query.
+     */
+    private GeneratedQuery generateQuery() {
+
+        // Initialize the joins, orders, and restrictions string builders.
+        StringBuilder joinsStringBuilder = new StringBuilder();
+        StringBuilder ordersStringBuilder = new StringBuilder();
+        StringBuilder restrictionsStringBuilder = new StringBuilder();
+
+        // Initialize the joins and query parameter names.
+        Set<Criterion> joins = new LinkedHashSet<Criterion>(this.joins);
+        List<String> parameterNames = new ArrayList<String>();
+        boolean fetchJoinExists = false;
+
+        // Loop through the restrictions.
+        for (Criterion criterion : this.restrictions) {
 
             // Check if a restriction has not already been processed.
-            if (this.restrictions.isEmpty()) {
+            if (restrictionsStringBuilder.length() == 0) {
 
                 // Add the WHERE-clause to the restrictions string builder.
-                this.restrictionsStringBuilder.append(" WHERE ");
+                restrictionsStringBuilder.append(" WHERE ");
             } else {
 
                 // Add the logical operator to the restrictions string builder.
                 switch (criterion.getLogicalOperator()) {
 
                     case AND:
-                        this.restrictionsStringBuilder.append(" AND ");
+                        restrictionsStringBuilder.append(" AND ");
                         break;
                     case OR:
-                        this.restrictionsStringBuilder.append(" OR ");
+                        restrictionsStringBuilder.append(" OR ");
                         break;
                 }
             }
 
             // Check if the begin enclosure operator needs to be added.
             if (criterion.getEnclosureOperator() == Enclosure.Operator.BEGIN) {
-                this.restrictionsStringBuilder.append("(");
+                restrictionsStringBuilder.append("(");
             }
  
-            // Get the qualified operand.
-            String qualifiedOperand = this.qualifyOperand(criterion.getOperand());
-            
-            // Get the join criterions.
-            List<Criterion> joinCriterions = getJoinCriterions(this.entityClass, qualifiedOperand);
-            
-            // Check if there are join criterions.
-            if (!joinCriterions.isEmpty()) {
-                
-                // Add the joins.
-                this.addJoins(joinCriterions);
-                
-                // Determine the qualified operand.
-                String lastJoinOperand = joinCriterions.get(joinCriterions.size() - 1).getOperand();
-                String qualifier = lastJoinOperand.substring(lastJoinOperand.indexOf(".") + 1);
-                qualifiedOperand = qualifiedOperand.substring(qualifiedOperand.indexOf(qualifier));
+            // Get the join path of the operand.
+            JoinPath joinPath = JoinPath.getInstance(this.entityClass, this.entityAlias, criterion.getOperand());
+
+            // Loop through the join operands.
+            for (String joinOperand : joinPath.getJoinOperands()) {
+
+                // Add the join criterion unless it is already added.
+                joins.add(Join.join(joinOperand));
             }
+
+            // Get the qualified operand.
+            String qualifiedOperand = joinPath.getQualifiedOperand();
+
+            // Get the bound query parameter name.
+            String parameterName = queryParameterName(parameterNames.size());
+            String boundParameterName = new StringBuilder().append(":").append(parameterName).toString();
             
             // Add the comparison operator to the restrictions string builder.
             switch (criterion.getComparisonOperator()) {
 
                 case EQUAL:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" = ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
                     break;
                 case GREATER_THAN:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" > ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
                     break;
                 case GREATER_THAN_OR_EQUAL:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" >= ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
+                    break;
+                case IN:
+                    appendInComparison(restrictionsStringBuilder, qualifiedOperand, " IN :", " OR ",
+                            this.parameterCount(criterion), parameterNames);
                     break;
                 case IS_EMPTY:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" IS EMPTY");
                     break;
                 case IS_NOT_EMPTY:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" IS NOT EMPTY");
                     break;
                 case IS_NULL:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" IS NULL");
                     break;
                 case IS_NOT_NULL:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" IS NOT NULL");
                     break;
                 case LESS_THAN:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" < ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
                     break;
                 case LESS_THAN_OR_EQUAL:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" <= ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
                     break;
                 case LIKE:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" LIKE ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
                     break;
                 case MEMBER_OF:
-                    this.restrictionsStringBuilder
-                            .append(this.boundNextQueryParameterName())
+                    restrictionsStringBuilder
+                            .append(boundParameterName)
                             .append(" MEMBER OF ")
                             .append(qualifiedOperand);
                     break;
                 case NOT_EQUAL:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" <> ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
+                    break;
+                case NOT_IN:
+                    appendInComparison(restrictionsStringBuilder, qualifiedOperand, " NOT IN :", " AND ",
+                            this.parameterCount(criterion), parameterNames);
                     break;
                 case NOT_LIKE:
-                    this.restrictionsStringBuilder
+                    restrictionsStringBuilder
                             .append(qualifiedOperand)
                             .append(" NOT LIKE ")
-                            .append(this.boundNextQueryParameterName());
+                            .append(boundParameterName);
                     break;
                 case NOT_MEMBER_OF:
-                    this.restrictionsStringBuilder
-                            .append(this.boundNextQueryParameterName())
+                    restrictionsStringBuilder
+                            .append(boundParameterName)
                             .append(" NOT MEMBER OF ")
                             .append(qualifiedOperand);
                     break;
@@ -229,244 +524,288 @@ public class CriteriaImpl<T> implements Criteria<T>, Serializable {
 
             // Check if the end enclosure operator needs to be added.
             if (criterion.getEnclosureOperator() == Enclosure.Operator.END) {
-                this.restrictionsStringBuilder.append(")");
+                restrictionsStringBuilder.append(")");
             }
  
-            // Check if there is a value.
-            if (criterion.getValue() != null) {
+            // Check if there is a single value.
+            if (criterion.getValue() != null && !isInComparison(criterion)) {
 
-                // Add the query parameter.
-                this.queryParameters.put(
-                    this.nextQueryParameterName(),
-                    criterion.getValue());
+                // Add the query parameter name.
+                parameterNames.add(parameterName);
             }
-
-            // Add the criterion to the restrictions.
-            this.restrictions.add(criterion);
-        } catch (Exception e) {
-            // TODO: handle this.
         }
 
-        return this;
-    }
+        // Initialize the select string builder.
+        StringBuilder selectStringBuilder = new StringBuilder();
 
-    /**
-     * Add restriction criterions.
-     *
-     * @param  criterions  the restriction criterions.
-     *
-     * @return  the criteria.
-     */
-    @Override
-    public Criteria<T> add(final List<Criterion> criterions) {
+        // Loop through the projections.
+        for (String projection : this.projections) {
 
-        // Loop through the restriction criterions.
-        for (Criterion criterion : criterions) {
+            // Check if a projection has already been processed.
+            if (selectStringBuilder.length() != 0) {
 
-            // Add the restriction criterion.
-            this.add(criterion);
-        }
+                // Add a comma to the select string builder.
+                selectStringBuilder.append(", ");
+            }
 
-        return this;
-    }
+            // Get the join path of the projection.
+            JoinPath joinPath = JoinPath.getInstance(this.entityClass, this.entityAlias, projection);
 
-    /**
-     * Add a join criterion.
-     * 
-     * @param  criterion  the join criterion.
-     * 
-     * @return  the criteria.
-     */
-    public Criteria<T> addJoin(final Criterion criterion) {
-        
-        try {
+            // Loop through the join operands.
+            for (String joinOperand : joinPath.getJoinOperands()) {
 
-            // Check if the join criterion is not already added.
-            if (!this.joins.contains(criterion)) {
-                
-                // Add the join operator to the joins string builder.
-                switch (criterion.getJoinOperator()) {
+                // Add the join criterion unless it is already added.
+                joins.add(Join.join(joinOperand));
+            }
 
-                    case JOIN:
-                        joinsStringBuilder.append(" JOIN ");
-                        break;
-                    case JOIN_FETCH:
-                        joinsStringBuilder.append(" JOIN FETCH ");
-                        break;
-                    case LEFT_JOIN:
-                        joinsStringBuilder.append(" LEFT JOIN ");
-                        break;
-                    case LEFT_JOIN_FETCH:
-                        joinsStringBuilder.append(" LEFT JOIN FETCH ");
-                        break;
-                }
+            // Add the qualified projection to the select string builder.
+            selectStringBuilder.append(joinPath.getQualifiedOperand());
+        }
 
-                // Add the operand and alias to the orders string builder.
-                this.joinsStringBuilder
-                        .append(criterion.getOperand())
-                        .append(" ")
-                        .append(criterion.getOperand().substring(criterion.getOperand().indexOf(".") + 1));
+        // Check if there are no projections.
+        if (selectStringBuilder.length() == 0) {
 
-                // Add the criterion to the joins.
-                this.joins.add(criterion);
-            }
-        } catch (Exception e) {
-            // TODO: handle this.
+            // Select the entity.
+            selectStringBuilder.append(this.entityAlias);
         }
-        
-        return this;
-    }
-    
-    /**
-     * Add join criterions.
-     *
-     * @param  criterions  the join criterions.
-     *
-     * @return  the criteria.
-     */
-    public Criteria<T> addJoins(final List<Criterion> criterions) {
 
-        // Loop through the join criterions.
-        for (Criterion criterion : criterions) {
+        // Loop through the joins.
+        for (Criterion criterion : joins) {
 
-            // Add the join criterion.
-            this.addJoin(criterion);
-        }
+            // Add the join operator to the joins string builder.
+            switch (criterion.getJoinOperator()) {
 
-        return this;
-    }
+                case JOIN:
+                    joinsStringBuilder.append(" JOIN ");
+                    break;
+                case JOIN_FETCH:
+                    joinsStringBuilder.append(" JOIN FETCH ");
+                    fetchJoinExists = true;
+                    break;
+                case LEFT_JOIN:
+                    joinsStringBuilder.append(" LEFT JOIN ");
+                    break;
+                case LEFT_JOIN_FETCH:
+                    joinsStringBuilder.append(" LEFT JOIN FETCH ");
+                    fetchJoinExists = true;
+                    break;
+            }
 
-    /**
-     * Add a order criterion.
-     *
-     * @param  criterion  the order criterion.
-     *
-     * @return  the criteria.
-     */
-    @Override
-    public Criteria<T> addOrder(final Criterion criterion) {
+            // Add the operand and alias to the joins string builder.
+            joinsStringBuilder
+                    .append(criterion.getOperand())
+                    .append(" ")
+                    .append(criterion.getOperand().substring(criterion.getOperand().indexOf(".") + 1));
+        }
 
-        try {
+        // Loop through the orders.
+        for (Criterion criterion : this.orders) {
 
             // Check if an order has not already been processed.
-            if (this.orders.isEmpty()) {
+            if (ordersStringBuilder.length() == 0) {
 
                 // Add the ORDER BY-clause to the orders string builder.
-                this.ordersStringBuilder.append(" ORDER BY ");
+                ordersStringBuilder.append(" ORDER BY ");
             } else {
 
                 // Add a comma to the orders string builder.
-                this.ordersStringBuilder.append(", ");
+                ordersStringBuilder.append(", ");
             }
 
             // Add the operand to the orders string builder.
-            this.ordersStringBuilder
+            ordersStringBuilder
                     .append(this.qualifyOperand(criterion.getOperand()));
 
             // Add the order direction to the orders string builder.
             switch (criterion.getOrderDirection()) {
 
                 case ASC:
-                    this.ordersStringBuilder.append(" ASC");
+                    ordersStringBuilder.append(" ASC");
                     break;
                 case DESC:
-                    this.ordersStringBuilder.append(" DESC");
+                    ordersStringBuilder.append(" DESC");
                     break;
             }
-
-            // Add the criterion to the orders.
-            this.orders.add(criterion);
-        } catch (Exception e) {
-            // TODO: handle this.
         }
 
-        return this;
+        // Get the restrictions string.
+        String restrictionsString = this.getRestrictionsString(restrictionsStringBuilder.toString());
+
+        // Get the query language string.  Fetch joins are applied as plain joins for projections,
+        // since the entities are not selected.  Projections are not distinct, since equal projected
+        // values of different entities are different rows.
+        String queryLanguageString = new StringBuilder()
+                .append("SELECT ")
+                .append((!joins.isEmpty() && this.projections.isEmpty()) ? "DISTINCT " : "")
+                .append(selectStringBuilder)
+                .append(" FROM ")
+                .append(this.entityClass.getSimpleName())
+                .append(" ")
+                .append(this.entityAlias)
+                .append((this.projections.isEmpty()) ? joinsStringBuilder.toString() : joinsStringBuilder.toString().replace(" JOIN FETCH ", " JOIN "))
+                .append(restrictionsString)
+                .append(ordersStringBuilder)
+                .toString();
+
+        // Get the count query language string.
+        String countQueryLanguageString = new StringBuilder()
+                .append("SELECT COUNT(")
+                .append((!joins.isEmpty()) ? "DISTINCT " : "")
+                .append(this.entityAlias)
+                .append(") FROM ")
+                .append(this.entityClass.getSimpleName())
+                .append(" ")
+                .append(this.entityAlias)
+                .append(joinsStringBuilder.toString().replace(" JOIN FETCH ", " JOIN "))
+                .append(restrictionsStringBuilder)
+                .toString();
+
+        return new GeneratedQuery(queryLanguageString, countQueryLanguageString, parameterNames, !joins.isEmpty(), fetchJoinExists && this.projections.isEmpty());
     }
 
     /**
-     * Add order criterions.
-     *
-     * @param  criterions  the order criterions.
+     * Get the cache key.  The cache key is made of the query language string,
+     * query parameters, query hints, position of the first result, and maximum
+     * number of results.
      *
-     * @return  the criteria.
+     * @return  the cache key.
      */
     @Override
-    public Criteria<T> addOrders(final List<Criterion> criterions) {
+    public Object getCacheKey() {
+        return Arrays.<Object>asList(
+                this.getQueryLanguageString(),
+                this.getQueryParameters(),
+                new LinkedHashMap<Object, String>(this.queryHints),
+                this.firstResult,
+                this.maxResults);
+    }
 
-        // Loop through the order criterions.
-        for (Criterion criterion : criterions) {
+    /**
+     * Get the count query language string.  The orders and seek are not applied
+     * and fetch joins are applied as plain joins, since a count query does not
+     * select the entities and counts all the entities matching the restrictions.
+     * 
+     * @return  the count query language string.
+     */
+    public String getCountQueryLanguageString() {
+        return this.getQuery().getCountQueryLanguageString();
+    }
 
-            // Add the order criterion.
-            this.addOrder(criterion);
-        }
+    /**
+     * Get the count query parameters.  The seek parameters are not included,
+     * since the seek is not applied to the count query language string.
+     * 
+     * @return  the count query parameters.
+     */
+    public Map<String, Object> getCountQueryParameters() {
+        return this.getQueryParameters(false);
+    }
 
-        return this;
+    /**
+     * Get the entity class.
+     *
+     * @return  the entity class.
+     */
+    public Class<T> getEntityClass() {
+        return this.entityClass;
     }
 
     /**
-     * Get the bound next query parameter name.
-     * 
-     * @return  the bound next query parameter name.
+     * Get the exists query language string.  The ID of the entities is selected
+     * instead of the entities, with the joins and restrictions of the count
+     * query language string, so checking if an entity exists does not load the
+     * entities.  The exists query language string is bound to the count query
+     * parameters.
+     *
+     * @param  idName  the name of the ID property.
+     *
+     * @return  the exists query language string.
      */
-    private String boundNextQueryParameterName() {
-        return new StringBuilder().append(":").append(this.nextQueryParameterName()).toString();
+    public String getExistsQueryLanguageString(final String idName) {
+
+        // Get the count query language string.
+        String countQueryLanguageString = this.getQuery().getCountQueryLanguageString();
+
+        // Replace the count with the ID.
+        return new StringBuilder()
+                .append("SELECT ")
+                .append(this.entityAlias)
+                .append(".")
+                .append(idName)
+                .append(countQueryLanguageString.substring(countQueryLanguageString.indexOf(" FROM ")))
+                .toString();
     }
 
     /**
-     * Get the join criterions.  This method is used to handle collection association fields.
-     * 
-     * @param  entityClass  the entity class.
-     * @param  operand      the operand.
-     * 
-     * @return  the join criterions.
-     * 
-     * @throws  Exception  if unable to get the join criterions.
+     * Get the position of the first result.
+     *
+     * @return  the position of the first result.
      */
-    private static <U> List<Criterion> getJoinCriterions(final Class<U> entityClass, final String operand) throws Exception {
+    public int getFirstResult() {
+        return this.firstResult;
+    }
 
-        // Initialize the join criterions.
-        List<Criterion> joinCriterions = new ArrayList<Criterion>();
-        
-        try {
-            
-            // Get the property, previous property, and new operand.
-            String previousProperty = operand.substring(0, operand.indexOf("."));
-            String newOperand = operand.substring(operand.indexOf(".") + 1);
-            String property = newOperand.substring(0, newOperand.indexOf("."));
+    /**
+     * Get the maximum number of results.
+     *
+     * @return  the maximum number of results, or null if the results are unbounded.
+     */
+    public Integer getMaxResults() {
+        return this.maxResults;
+    }
 
-            // Get the field.
-            Field field = entityClass.getDeclaredField(property);
-            
-            // Set the new entity class to the field type.
-            Class<?> newEntityClass = field.getType();
-            
-            // The join condition was not found.
-            boolean joinConditionFound = false;
-            
-            // Check if the new entity class is a List class.
-            if (newEntityClass == List.class) {
-                
-                // Set the new entity class to the type of List class.
-                newEntityClass = (Class<?>)((ParameterizedType)field.getGenericType()).getActualTypeArguments()[0];
-                
-                // The join condition was found.
-                joinConditionFound = true;
+    /**
+     * Get the projections.
+     *
+     * @return  the property paths of the projections.
+     */
+    public List<String> getProjections() {
+        return Collections.unmodifiableList(this.projections);
+    }
+
+    /**
+     * Get the generated query.  The generated query is looked up in the query
+     * cache by the shape of this criteria and only generated on a cache miss.
+     * Without a query cache, the generated query is always generated.
+     *
+     * @return  the generated query.
+     *
+     * @throws  IllegalArgumentException  if the seek values do not match the order criterions.
+     */
+    GeneratedQuery getQuery() {
+
+        // Check if the generated query is not already known.
+        if (this.query == null) {
+
+            // Check if the seek values do not match the order criterions, since
+            // order criterions may be added after the seek.
+            if (this.seekExists() && this.seekValues.size() != this.orders.size()) {
+                throw new IllegalArgumentException("The order values are invalid.");
             }
-            
-            // Get the join criterions for the new entity class and new operand.
-            joinCriterions = getJoinCriterions(newEntityClass, newOperand);
-            
-            // Check if the join condition was found or there are join criterions.
-            if (joinConditionFound || !joinCriterions.isEmpty()) {
-                
-                // Add a join criterion to the join criterions.
-                joinCriterions.add(0, Join.join(qualifyOperand(property, previousProperty)));
+
+            // Check if there is no query cache.
+            if (this.queryCache == null) {
+
+                // Generate the query.
+                this.query = this.generateQuery();
+            } else {
+
+                // Get the query shape.
+                List<Object> queryShape = this.getQueryShape();
+
+                // Get the cached generated query.
+                this.query = this.queryCache.get(queryShape);
+
+                // Check if the generated query is not cached.
+                if (this.query == null) {
+
+                    // Generate and cache the query.
+                    this.query = this.queryCache.put(queryShape, this.generateQuery());
+                }
             }
-        } catch (IndexOutOfBoundsException e) {
-            // Reached the end of the operand.
         }
-         
-        return joinCriterions;
+
+        return this.query;
     }
 
     /**
@@ -484,45 +823,268 @@ public class CriteriaImpl<T> implements Criteria<T>, Serializable {
      * @return  the query language string.
      */
     public String getQueryLanguageString() {
-        return new StringBuilder()
-                .append("SELECT ")
-                .append((this.joinExists()) ? "DISTINCT " : "")
-                .append(this.entityAlias)
-                .append(" FROM ")
-                .append(this.entityClass.getSimpleName())
-                .append(" ")
-                .append(this.entityAlias)
-                .append(this.joinsStringBuilder)
-                .append(this.restrictionsStringBuilder)
-                .append(this.ordersStringBuilder)
-                .toString();
+        return this.getQuery().getQueryLanguageString();
+    }
+
+    /**
+     * Get the query language string ordered by the ID after the orders.  The
+     * order of the entities is then stable between executions of the query,
+     * and the rows of an entity repeated by a join are consecutive.
+     * 
+     * @param  idName  the name of the ID property.
+     * 
+     * @return  the query language string ordered by the ID.
+     */
+    public String getQueryLanguageString(final String idName) {
+
+        // Get the query language string.
+        String queryLanguageString = this.getQuery().getQueryLanguageString();
+
+        // Check if the entities are not already ordered by the ID last.
+        if (!this.isOrderedLastBy(idName)) {
+
+            // Add the ID to the orders.
+            queryLanguageString = new StringBuilder()
+                    .append(queryLanguageString)
+                    .append((this.orders.isEmpty()) ? " ORDER BY " : ", ")
+                    .append(this.entityAlias)
+                    .append(".")
+                    .append(idName)
+                    .append(" ASC")
+                    .toString();
+        }
+
+        return queryLanguageString;
     }
 
     /**
      * Get the query parameters.
      * 
      * @return  the query parameters.
+     *
+     * @throws  IllegalArgumentException  if the values exceed the maximum number of values bound to the query.
      */
     public Map<String, Object> getQueryParameters() {
-        return this.queryParameters;
+        return this.getQueryParameters(true);
     }
 
     /**
-     * Check if a join criterion exists.
+     * Get the query parameters.  Each value of an in comparison is bound
+     * separately by the database, so it counts towards the maximum number of
+     * values bound to the query.
+     * 
+     * @param  seekIncluded  true if the seek parameters are included, otherwise false.
+     * 
+     * @return  the query parameters.
      *
-     * @return  true if a join criterion exists, otherwise false.
+     * @throws  IllegalArgumentException  if the values exceed the maximum number of values bound to the query.
      */
-    public boolean joinExists() {
-        return !this.joins.isEmpty();
+    private Map<String, Object> getQueryParameters(final boolean seekIncluded) {
+
+        // Initialize the query parameters and the number of bound values.
+        Map<String, Object> queryParameters = new LinkedHashMap<String, Object>();
+        int valueCount = 0;
+
+        // Get the query parameter names.
+        Iterator<String> parameterNames = this.getQuery().getParameterNames().iterator();
+
+        // Loop through the restrictions.
+        for (Criterion restriction : this.restrictions) {
+
+            // Check if there are values for an in comparison.
+            if (isInComparison(restriction)) {
+
+                // Bind each chunk of values to the next query parameter name.
+                List<?> values = (List<?>)restriction.getValue();
+                for (int fromIndex = 0; fromIndex < values.size(); fromIndex += this.maxInParameters) {
+                    queryParameters.put(parameterNames.next(), new ArrayList<Object>(
+                            values.subList(fromIndex, Math.min(fromIndex + this.maxInParameters, values.size()))));
+                }
+                valueCount += values.size();
+            } else if (restriction.getValue() != null) {
+
+                // Bind the value to the next query parameter name.
+                queryParameters.put(parameterNames.next(), restriction.getValue());
+                valueCount++;
+            }
+        }
+
+        // Check if a seek exists and the seek parameters are included.
+        if (this.seekExists() && seekIncluded) {
+
+            // Add the seek parameters to the query parameters.
+            for (int index = 0; index < this.seekValues.size(); index++) {
+                queryParameters.put(seekParameterName(index), this.seekValues.get(index));
+            }
+            valueCount += this.seekValues.size();
+        }
+
+        // Check if the values exceed the maximum number of values bound to the query.
+        if (valueCount > this.maxQueryParameters) {
+            throw new IllegalArgumentException(
+                    "The " + valueCount + " values exceed the maximum of " + this.maxQueryParameters + " values bound to a query.");
+        }
+
+        return queryParameters;
     }
 
     /**
-     * Get the next query parameter name.
-     * 
-     * @return  the next query parameter name.
+     * Get the query shape.  The query shape consists of everything the
+     * generated query depends on, which excludes the values.
+     *
+     * @return  the query shape.
      */
-    private String nextQueryParameterName() {
-        return new StringBuilder().append("param").append(this.queryParameters.size() + 1).toString();
+    private List<Object> getQueryShape() {
+
+        // Initialize the query shape.
+        List<Object> queryShape = new ArrayList<Object>(
+                8 + this.restrictions.size() * 5 + this.joins.size() * 2 + this.orders.size() * 2 + this.projections.size());
+        queryShape.add(this.entityClass);
+        queryShape.add(this.maxInParameters);
+        queryShape.add(this.seekExists());
+
+        // Add the restrictions to the query shape.
+        queryShape.add(this.restrictions.size());
+        for (Criterion criterion : this.restrictions) {
+            queryShape.add(criterion.getLogicalOperator());
+            queryShape.add(criterion.getEnclosureOperator());
+            queryShape.add(criterion.getComparisonOperator());
+            queryShape.add(criterion.getOperand());
+            queryShape.add(this.parameterCount(criterion));
+        }
+
+        // Add the joins to the query shape.
+        queryShape.add(this.joins.size());
+        for (Criterion criterion : this.joins) {
+            queryShape.add(criterion.getJoinOperator());
+            queryShape.add(criterion.getOperand());
+        }
+
+        // Add the orders to the query shape.
+        queryShape.add(this.orders.size());
+        for (Criterion criterion : this.orders) {
+            queryShape.add(criterion.getOrderDirection());
+            queryShape.add(criterion.getOperand());
+        }
+
+        // Add the projections to the query shape.
+        queryShape.add(this.projections.size());
+        queryShape.addAll(this.projections);
+
+        return queryShape;
+    }
+
+    /**
+     * Get the restrictions string.  The seek predicate is appended to the
+     * restrictions if a seek exists.
+     *
+     * @param  restrictions  the restrictions without the seek predicate.
+     *
+     * @return  the restrictions string.
+     */
+    private String getRestrictionsString(final String restrictions) {
+
+        // Initialize the restrictions string builder.
+        StringBuilder restrictionsStringBuilder = new StringBuilder().append(restrictions);
+
+        // Check if a seek exists.
+        if (this.seekExists()) {
+
+            restrictionsStringBuilder = new StringBuilder().append(" WHERE ");
+
+            // Check if a restriction exists.
+            if (this.restrictionExists()) {
+
+                // Enclose the restrictions so the seek predicate applies to all of them.
+                restrictionsStringBuilder
+                        .append("(")
+                        .append(restrictions.substring(" WHERE ".length()))
+                        .append(") AND ");
+            }
+
+            restrictionsStringBuilder.append(this.getSeekString());
+        }
+
+        return restrictionsStringBuilder.toString();
+    }
+
+    /**
+     * Get the seek string.  For orders o1, o2, ..., on and seek values v1, v2, ..., vn,
+     * the seek string is (o1 > v1 OR (o1 = v1 AND o2 > v2) OR ...) where the
+     * greater than comparison is replaced by less than for descending orders.
+     *
+     * @return  the seek string.
+     */
+    private String getSeekString() {
+
+        // Initialize the seek string builder.
+        StringBuilder seekStringBuilder = new StringBuilder().append("(");
+
+        // Loop through the orders.
+        for (int index = 0; index < this.orders.size(); index++) {
+
+            // Check if this is not the first order.
+            if (index > 0) {
+                seekStringBuilder.append(" OR (");
+            }
+
+            // Loop through the previous orders.
+            for (int previousIndex = 0; previousIndex < index; previousIndex++) {
+
+                // Add the equality of the previous order to the seek string builder.
+                seekStringBuilder
+                        .append(this.qualifyOperand(this.orders.get(previousIndex).getOperand()))
+                        .append(" = :")
+                        .append(seekParameterName(previousIndex))
+                        .append(" AND ");
+            }
+
+            // Add the order comparison to the seek string builder.
+            seekStringBuilder
+                    .append(this.qualifyOperand(this.orders.get(index).getOperand()))
+                    .append((this.orders.get(index).getOrderDirection() == Order.Direction.DESC) ? " < :" : " > :")
+                    .append(seekParameterName(index));
+
+            // Check if this is not the first order.
+            if (index > 0) {
+                seekStringBuilder.append(")");
+            }
+        }
+
+        return seekStringBuilder.append(")").toString();
+    }
+
+    /**
+     * Check if the criterion is an in comparison.
+     *
+     * @param  criterion  the criterion.
+     *
+     * @return  true if the criterion is an in or not in comparison, otherwise false.
+     */
+    private static boolean isInComparison(final Criterion criterion) {
+        return (criterion.getComparisonOperator() == Comparison.Operator.IN
+                || criterion.getComparisonOperator() == Comparison.Operator.NOT_IN)
+                && criterion.getValue() instanceof List;
+    }
+
+    /**
+     * Check if the entities are ordered by the property last.
+     *
+     * @param  propertyName  the property name.
+     *
+     * @return  true if the last order criterion is on the property, otherwise false.
+     */
+    public boolean isOrderedLastBy(final String propertyName) {
+        return !this.orders.isEmpty() && propertyName.equals(this.orders.get(this.orders.size() - 1).getOperand());
+    }
+
+    /**
+     * Check if a join criterion exists.
+     *
+     * @return  true if a join criterion exists, otherwise false.
+     */
+    public boolean joinExists() {
+        return this.getQuery().joinExists();
     }
 
     /**
@@ -535,6 +1097,39 @@ public class CriteriaImpl<T> implements Criteria<T>, Serializable {
         return !this.orders.isEmpty();
     }
 
+    /**
+     * Get the number of query parameters of the criterion.
+     *
+     * @param  criterion  the criterion.
+     *
+     * @return  the number of query parameters of the criterion.
+     */
+    private int parameterCount(final Criterion criterion) {
+
+        // Initialize the number of query parameters.
+        int parameterCount = (criterion.getValue() != null) ? 1 : 0;
+
+        // Check if the criterion is an in comparison.
+        if (isInComparison(criterion)) {
+
+            // Each chunk of values is bound to its own query parameter.
+            int valueCount = ((List<?>)criterion.getValue()).size();
+            parameterCount = (valueCount + this.maxInParameters - 1) / this.maxInParameters;
+        }
+
+        return parameterCount;
+    }
+
+    /**
+     * Check if a projection exists.
+     *
+     * @return  true if a projection exists, otherwise false.
+     */
+    @Override
+    public boolean projectionExists() {
+        return !this.projections.isEmpty();
+    }
+
     /**
      * Qualify the operand.
      * 
@@ -558,6 +1153,17 @@ public class CriteriaImpl<T> implements Criteria<T>, Serializable {
         return new StringBuilder().append(qualifier).append(".").append(operand).toString();
     }
     
+    /**
+     * Get the query parameter name.
+     *
+     * @param  index  the index of the restriction value.
+     *
+     * @return  the query parameter name.
+     */
+    private static String queryParameterName(final int index) {
+        return new StringBuilder().append("param").append(index + 1).toString();
+    }
+
     /**
      * Check if a restriction criterion exists.
      *
@@ -567,4 +1173,100 @@ public class CriteriaImpl<T> implements Criteria<T>, Serializable {
     public boolean restrictionExists() {
         return !this.restrictions.isEmpty();
     }
+
+    /**
+     * Seek after the order values of the last seen entity.  The order values
+     * are checked against the order criterions again when the query is built.
+     *
+     * @param  orderValues  the order values of the last seen entity.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if the order values are invalid.
+     */
+    @Override
+    public Criteria<T> seekAfter(final Object... orderValues) {
+
+        // Check if the order values do not match the order criterions.
+        if (orderValues == null || orderValues.length == 0 || orderValues.length != this.orders.size()) {
+            throw new IllegalArgumentException("The order values are invalid.");
+        }
+
+        // Check if an order value is null.
+        for (Object orderValue : orderValues) {
+            if (orderValue == null) {
+                throw new IllegalArgumentException("The order values are invalid.");
+            }
+        }
+
+        // Set the seek values.
+        this.seekValues = new ArrayList<Object>(Arrays.asList(orderValues));
+        this.query = null;
+
+        return this;
+    }
+
+    /**
+     * Check if a seek exists.
+     *
+     * @return  true if a seek exists, otherwise false.
+     */
+    public boolean seekExists() {
+        return this.seekValues != null;
+    }
+
+    /**
+     * Get the seek parameter name.
+     *
+     * @param  index  the index of the order.
+     *
+     * @return  the seek parameter name.
+     */
+    private static String seekParameterName(final int index) {
+        return new StringBuilder().append("seek").append(index + 1).toString();
+    }
+
+    /**
+     * Set the position of the first result.
+     *
+     * @param  firstResult  the position of the first result, numbered from 0.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if the position of the first result is invalid.
+     */
+    @Override
+    public Criteria<T> setFirstResult(final int firstResult) {
+
+        // Check if the position of the first result is negative.
+        if (firstResult < 0) {
+            throw new IllegalArgumentException("The first result is invalid.");
+        }
+
+        this.firstResult = firstResult;
+
+        return this;
+    }
+
+    /**
+     * Set the maximum number of results.
+     *
+     * @param  maxResults  the maximum number of results.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if the maximum number of results is invalid.
+     */
+    @Override
+    public Criteria<T> setMaxResults(final int maxResults) {
+
+        // Check if the maximum number of results is not positive.
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("The max results is invalid.");
+        }
+
+        this.maxResults = maxResults;
+
+        return this;
+    }
 }
\ No newline at end of file
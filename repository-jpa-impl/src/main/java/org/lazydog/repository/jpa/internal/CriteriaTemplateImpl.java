@@ -0,0 +1,147 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.criterion.Criterion;
+import org.lazydog.repository.criterion.Parameter;
+
+/**
+ * Criteria template implemented using the Java Persistence API.  The query
+ * is generated once when the template is compiled, and each bound criteria
+ * reuses it.  If a parameter is one of the values of an in comparison, the
+ * number of values, and so the query, is only known once the parameter is
+ * bound, so the query is looked up in the query cache instead.
+ *
+ * @author  Ron Rickard
+ */
+public class CriteriaTemplateImpl<T> implements CriteriaTemplate<T> {
+
+    private Class<T> entityClass;
+    private int maxInParameters;
+    private int maxQueryParameters;
+    private List<Criterion> orders;
+    private Set<String> parameterNames;
+    private GeneratedQuery query;
+    private QueryCache queryCache;
+    private List<Criterion> restrictions;
+
+    /**
+     * Constructor.
+     *
+     * @param  entityClass         the entity class.
+     * @param  queryCache          the query cache, or null if the generated queries are not cached.
+     * @param  maxInParameters     the maximum number of values bound to a query parameter of an in comparison.
+     * @param  maxQueryParameters  the maximum number of values bound to the query.
+     * @param  restrictions        the restriction criterions.
+     * @param  orders              the order criterions.
+     *
+     * @throws  IllegalArgumentException  if the entity class, maximum numbers of values, restrictions, or orders are invalid.
+     */
+    public CriteriaTemplateImpl(final Class<T> entityClass, final QueryCache queryCache, final int maxInParameters, final int maxQueryParameters, final List<Criterion> restrictions, final List<Criterion> orders) {
+
+        // Check if the restrictions are null.
+        if (restrictions == null) {
+            throw new IllegalArgumentException("The restrictions are invalid.");
+        }
+
+        // Check if the orders are null.
+        if (orders == null) {
+            throw new IllegalArgumentException("The orders are invalid.");
+        }
+
+        // Compile the criterions to a criteria.
+        CriteriaImpl<T> criteriaImpl = new CriteriaImpl<T>(entityClass, queryCache, maxInParameters, maxQueryParameters);
+        criteriaImpl.add(restrictions);
+        criteriaImpl.addOrders(orders);
+
+        this.entityClass = entityClass;
+        this.maxInParameters = maxInParameters;
+        this.maxQueryParameters = maxQueryParameters;
+        this.queryCache = queryCache;
+        this.orders = Collections.unmodifiableList(new ArrayList<Criterion>(orders));
+        this.parameterNames = Parameter.getNames(restrictions);
+        this.restrictions = Collections.unmodifiableList(new ArrayList<Criterion>(restrictions));
+
+        // Check if the generated query does not depend on the bound values.
+        if (!containsInParameter(restrictions)) {
+            this.query = criteriaImpl.getQuery();
+        }
+    }
+
+    /**
+     * Bind the parameters to the values.
+     *
+     * @param  parameterValues  the parameter name-value map.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if a parameter is not bound to a value.
+     */
+    @Override
+    public Criteria<T> bind(final Map<String, ?> parameterValues) {
+        return new CriteriaImpl<T>(this.entityClass, this.queryCache, this.maxInParameters, this.maxQueryParameters,
+                Parameter.bind(this.restrictions, parameterValues), this.orders, this.query);
+    }
+
+    /**
+     * Check if a parameter is one of the values of an in comparison.
+     *
+     * @param  restrictions  the restriction criterions.
+     *
+     * @return  true if a parameter is one of the values of an in comparison, otherwise false.
+     */
+    private static boolean containsInParameter(final List<Criterion> restrictions) {
+
+        // Initialize.
+        boolean containsInParameter = false;
+
+        // Loop through the restrictions.
+        for (Criterion restriction : restrictions) {
+
+            // Check if the restriction is an in comparison with a parameter.
+            if ((restriction.getComparisonOperator() == Comparison.Operator.IN
+                    || restriction.getComparisonOperator() == Comparison.Operator.NOT_IN)
+                    && restriction.getValue() instanceof List
+                    && !Parameter.getNames(Collections.singletonList(restriction)).isEmpty()) {
+                containsInParameter = true;
+                break;
+            }
+        }
+
+        return containsInParameter;
+    }
+
+    /**
+     * Get the parameter names.
+     *
+     * @return  the parameter names.
+     */
+    @Override
+    public Set<String> getParameterNames() {
+        return this.parameterNames;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa.internal;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Query generated from the shape of a criteria.  The query language strings
+ * contain only query parameter names, so the generated query is shared by all
+ * criteria of the same shape regardless of their values.
+ *
+ * @author  Ron Rickard
+ */
+public final class GeneratedQuery {
+
+    private String countQueryLanguageString;
+    private boolean fetchJoinExists;
+    private boolean joinExists;
+    private List<String> parameterNames;
+    private String queryLanguageString;
+
+    /**
+     * Constructor.
+     *
+     * @param  queryLanguageString       the query language string.
+     * @param  countQueryLanguageString  the count query language string.
+     * @param  parameterNames            the query parameter names in the order the values are bound.
+     * @param  joinExists                true if a join exists, otherwise false.
+     * @param  fetchJoinExists           true if a fetch join exists, otherwise false.
+     */
+    GeneratedQuery(final String queryLanguageString, final String countQueryLanguageString, final List<String> parameterNames, final boolean joinExists, final boolean fetchJoinExists) {
+        this.countQueryLanguageString = countQueryLanguageString;
+        this.fetchJoinExists = fetchJoinExists;
+        this.joinExists = joinExists;
+        this.parameterNames = Collections.unmodifiableList(parameterNames);
+        this.queryLanguageString = queryLanguageString;
+    }
+
+    /**
+     * Check if a fetch join exists.
+     *
+     * @return  true if a fetch join exists, otherwise false.
+     */
+    public boolean fetchJoinExists() {
+        return this.fetchJoinExists;
+    }
+
+    /**
+     * Get the count query language string.
+     *
+     * @return  the count query language string.
+     */
+    public String getCountQueryLanguageString() {
+        return this.countQueryLanguageString;
+    }
+
+    /**
+     * Get the query parameter names.
+     *
+     * @return  the query parameter names in the order the values are bound.
+     */
+    public List<String> getParameterNames() {
+        return this.parameterNames;
+    }
+
+    /**
+     * Get the query language string.
+     *
+     * @return  the query language string.
+     */
+    public String getQueryLanguageString() {
+        return this.queryLanguageString;
+    }
+
+    /**
+     * Check if a join exists.
+     *
+     * @return  true if a join exists, otherwise false.
+     */
+    public boolean joinExists() {
+        return this.joinExists;
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa.internal;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Join path of an operand.  The join path is resolved from the entity fields
+ * once per entity class and operand and shared by all criteria.
+ *
+ * @author  Ron Rickard
+ */
+final class JoinPath {
+
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, JoinPath>> JOIN_PATHS = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, JoinPath>>();
+
+    private List<String> joinOperands;
+    private String qualifiedOperand;
+
+    /**
+     * Hide the constructor.
+     *
+     * @param  joinOperands      the join operands.
+     * @param  qualifiedOperand  the qualified operand.
+     */
+    private JoinPath(final List<String> joinOperands, final String qualifiedOperand) {
+        this.joinOperands = Collections.unmodifiableList(joinOperands);
+        this.qualifiedOperand = qualifiedOperand;
+    }
+
+    /**
+     * Get the collection element type.
+     *
+     * @param  field  the field.
+     *
+     * @return  the collection element type, or null if the field is not a collection
+     *          or the element type is unknown.
+     */
+    private static Class<?> getElementType(final Field field) {
+
+        // Initialize the element type.
+        Class<?> elementType = null;
+
+        // Check if the field is a parameterized collection.
+        if (Collection.class.isAssignableFrom(field.getType()) && field.getGenericType() instanceof ParameterizedType) {
+
+            // Get the type argument of the collection.
+            Type typeArgument = ((ParameterizedType)field.getGenericType()).getActualTypeArguments()[0];
+
+            // Check if the type argument is a class.
+            if (typeArgument instanceof Class) {
+                elementType = (Class<?>)typeArgument;
+            }
+        }
+
+        return elementType;
+    }
+
+    /**
+     * Get the field.  The superclasses of the class are searched if the class
+     * does not declare the field.
+     *
+     * @param  type  the class.
+     * @param  name  the field name.
+     *
+     * @return  the field, or null if the field does not exist.
+     */
+    private static Field getField(final Class<?> type, final String name) {
+
+        // Initialize the field.
+        Field field = null;
+
+        // Loop through the class and its superclasses.
+        for (Class<?> currentType = type; field == null && currentType != null; currentType = currentType.getSuperclass()) {
+
+            // Loop through the declared fields.
+            for (Field declaredField : currentType.getDeclaredFields()) {
+
+                // Check if the declared field has the name.
+                if (declaredField.getName().equals(name)) {
+                    field = declaredField;
+                    break;
+                }
+            }
+        }
+
+        return field;
+    }
+
+    /**
+     * Get the join path.
+     *
+     * @param  entityClass  the entity class.
+     * @param  entityAlias  the entity alias.
+     * @param  operand      the operand.
+     *
+     * @return  the join path.
+     */
+    public static JoinPath getInstance(final Class<?> entityClass, final String entityAlias, final String operand) {
+
+        // Get the join paths for the entity class.
+        ConcurrentMap<String, JoinPath> joinPaths = JOIN_PATHS.get(entityClass);
+
+        // Check if the join paths for the entity class do not exist.
+        if (joinPaths == null) {
+
+            // Add the join paths for the entity class unless another thread already did.
+            ConcurrentMap<String, JoinPath> newJoinPaths = new ConcurrentHashMap<String, JoinPath>();
+            joinPaths = JOIN_PATHS.putIfAbsent(entityClass, newJoinPaths);
+            joinPaths = (joinPaths != null) ? joinPaths : newJoinPaths;
+        }
+
+        // Get the join path for the operand.
+        JoinPath joinPath = joinPaths.get(operand);
+
+        // Check if the join path for the operand does not exist.
+        if (joinPath == null) {
+
+            // Resolve and add the join path for the operand.
+            joinPath = resolve(entityClass, entityAlias, operand);
+            joinPaths.putIfAbsent(operand, joinPath);
+        }
+
+        return joinPath;
+    }
+
+    /**
+     * Get the join operands.  Each join operand is a property qualified by the
+     * alias of the previous join, or the entity alias for the first join.
+     *
+     * @return  the join operands.
+     */
+    public List<String> getJoinOperands() {
+        return this.joinOperands;
+    }
+
+    /**
+     * Get the qualified operand.
+     *
+     * @return  the operand qualified by the alias of the last join, or the entity alias if there are no joins.
+     */
+    public String getQualifiedOperand() {
+        return this.qualifiedOperand;
+    }
+
+    /**
+     * Resolve the join path.  A join is required for each collection association
+     * field of the operand and for each field leading to such a field.  If a field
+     * of the operand cannot be resolved, no joins are used.
+     *
+     * @param  entityClass  the entity class.
+     * @param  entityAlias  the entity alias.
+     * @param  operand      the operand.
+     *
+     * @return  the join path.
+     */
+    private static JoinPath resolve(final Class<?> entityClass, final String entityAlias, final String operand) {
+
+        // Get the properties of the operand.
+        String[] properties = operand.split("\\.");
+
+        // Initialize the index of the last collection property.
+        int lastCollectionIndex = -1;
+
+        // Loop through the properties, excluding the last one.
+        Class<?> type = entityClass;
+        for (int index = 0; type != null && index < properties.length - 1; index++) {
+
+            // Get the field.
+            Field field = getField(type, properties[index]);
+
+            // Check if the field does not exist.
+            if (field == null) {
+                type = null;
+                break;
+            }
+
+            // Get the collection element type.
+            Class<?> elementType = getElementType(field);
+
+            // Check if the field is a collection.
+            if (elementType != null) {
+
+                // Set the new type to the collection element type.
+                type = elementType;
+                lastCollectionIndex = index;
+            } else {
+
+                // Set the new type to the field type.
+                type = field.getType();
+            }
+        }
+
+        // Check if the operand cannot be resolved.
+        if (type == null) {
+            lastCollectionIndex = -1;
+        }
+
+        // Initialize the join operands.
+        List<String> joinOperands = new ArrayList<String>();
+
+        // Loop through the properties up to the last collection property.
+        String qualifier = entityAlias;
+        for (int index = 0; index <= lastCollectionIndex; index++) {
+
+            // Add the join operand.
+            joinOperands.add(new StringBuilder().append(qualifier).append(".").append(properties[index]).toString());
+
+            // The property is the alias of the join.
+            qualifier = properties[index];
+        }
+
+        // Get the operand qualified by the alias of the last join.
+        StringBuilder qualifiedOperand = new StringBuilder().append(qualifier);
+        for (int index = lastCollectionIndex + 1; index < properties.length; index++) {
+            qualifiedOperand.append(".").append(properties[index]);
+        }
+
+        return new JoinPath(joinOperands, qualifiedOperand.toString());
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+/**
+ * Persistence providers.  The features of EclipseLink and Hibernate that the
+ * Java Persistence API does not offer are reached by reflection, so neither
+ * persistence provider is needed to compile the repository.
+ *
+ * @author  Ron Rickard
+ */
+public final class PersistenceProviders {
+
+    private static final String ECLIPSE_LINK_ENTITY_MANAGER_CLASS_NAME = "org.eclipse.persistence.jpa.JpaEntityManager";
+    private static final String ECLIPSE_LINK_UNIT_OF_WORK_CLASS_NAME = "org.eclipse.persistence.sessions.UnitOfWork";
+    private static final String HIBERNATE_SESSION_IMPLEMENTOR_CLASS_NAME = "org.hibernate.engine.spi.SessionImplementor";
+
+    /**
+     * Hide the constructor.
+     */
+    private PersistenceProviders() {
+    }
+
+    /**
+     * Get the class for the class name if it is visible to the class of the object.
+     *
+     * @param  object     the object.
+     * @param  className  the class name.
+     *
+     * @return  the class, or null if the class is not visible.
+     */
+    static Class<?> getClass(final Object object, final String className) {
+
+        Class<?> foundClass;
+
+        try {
+            foundClass = Class.forName(className, false, object.getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            foundClass = null;
+        }
+
+        return foundClass;
+    }
+
+    /**
+     * Get the entities managed by the entity manager.  The entities are found
+     * in the persistence context of EclipseLink or Hibernate.  The entities are
+     * compared by identity.
+     *
+     * @param  entityManager  the entity manager.
+     *
+     * @return  the entities managed by the entity manager, or null if the
+     *          persistence provider is neither EclipseLink nor Hibernate.
+     */
+    public static Set<Object> getManagedEntities(final EntityManager entityManager) {
+
+        // Get the classes of the persistence contexts of the persistence providers.
+        Object delegate = entityManager.getDelegate();
+        Class<?> eclipseLinkEntityManagerClass = getClass(delegate, ECLIPSE_LINK_ENTITY_MANAGER_CLASS_NAME);
+        Class<?> hibernateSessionImplementorClass = getClass(delegate, HIBERNATE_SESSION_IMPLEMENTOR_CLASS_NAME);
+
+        // Get the entities of the persistence context determined by the persistence provider.
+        Collection<?> entities = null;
+        if (eclipseLinkEntityManagerClass != null && eclipseLinkEntityManagerClass.isInstance(delegate)) {
+            Object unitOfWork = entityManager.unwrap(getClass(delegate, ECLIPSE_LINK_UNIT_OF_WORK_CLASS_NAME));
+            entities = ((Map<?, ?>)invoke(getMethod(unitOfWork, "getCloneMapping"), unitOfWork)).keySet();
+        } else if (hibernateSessionImplementorClass != null && hibernateSessionImplementorClass.isInstance(delegate)) {
+            Object persistenceContext = invoke(getMethod(delegate, "getPersistenceContext"), delegate);
+            entities = ((Map<?, ?>)invoke(getMethod(persistenceContext, "getEntitiesByKey"), persistenceContext)).values();
+        }
+
+        // Check if the entities were found.
+        Set<Object> managedEntities = null;
+        if (entities != null) {
+            managedEntities = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            managedEntities.addAll(entities);
+        }
+
+        return managedEntities;
+    }
+
+    /**
+     * Get the public method of the target.
+     *
+     * @param  target          the target of the method.
+     * @param  methodName      the method name.
+     * @param  parameterTypes  the parameter types.
+     *
+     * @return  the method.
+     *
+     * @throws  PersistenceException  if the method does not exist.
+     */
+    static Method getMethod(final Object target, final String methodName, final Class<?>... parameterTypes) {
+
+        try {
+            return target.getClass().getMethod(methodName, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new PersistenceException("Unable to find " + methodName + " on " + target.getClass() + ".", e);
+        }
+    }
+
+    /**
+     * Invoke the method.  Runtime exceptions thrown by the method are rethrown
+     * as is.
+     *
+     * @param  method     the method.
+     * @param  target     the target of the method.
+     * @param  arguments  the arguments.
+     *
+     * @return  the return value of the method.
+     *
+     * @throws  PersistenceException  if unable to invoke the method.
+     */
+    static Object invoke(final Method method, final Object target, final Object... arguments) {
+
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new PersistenceException("Unable to invoke " + method.getName() + " on " + target.getClass() + ".", e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new PersistenceException("Unable to invoke " + method.getName() + " on " + target.getClass() + ".", e);
+        }
+    }
+}
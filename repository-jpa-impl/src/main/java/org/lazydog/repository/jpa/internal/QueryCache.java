@@ -0,0 +1,151 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa.internal;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of generated queries keyed by criteria shape.  The shape of a criteria
+ * is its entity class, restriction operators and operands, joins, orders, and
+ * whether a seek exists, but not its values.  Once the cache is full, the least
+ * recently used query is evicted to cache a newly generated query.  The cache
+ * is owned by a repository, so the cached entity classes are released with it.
+ *
+ * @author  Ron Rickard
+ */
+public final class QueryCache {
+
+    private long hitCount;
+    private final int maxSize;
+    private long missCount;
+    private final Map<List<Object>, GeneratedQuery> queries;
+
+    /**
+     * Constructor.
+     *
+     * @param  maxSize  the maximum number of cached queries.
+     *
+     * @throws  IllegalArgumentException  if the maximum number of cached queries is invalid.
+     */
+    public QueryCache(final int maxSize) {
+
+        // Check if the maximum number of cached queries is not positive.
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The max size is invalid.");
+        }
+
+        this.maxSize = maxSize;
+
+        // Initialize the queries in access order, so the eldest query is the least recently used.
+        this.queries = new LinkedHashMap<List<Object>, GeneratedQuery>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<List<Object>, GeneratedQuery> eldest) {
+                return this.size() > QueryCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Clear the cache and reset the hit and miss counts.
+     */
+    public synchronized void clear() {
+        this.queries.clear();
+        this.hitCount = 0;
+        this.missCount = 0;
+    }
+
+    /**
+     * Get the generated query.
+     *
+     * @param  shape  the criteria shape.
+     *
+     * @return  the generated query, or null if the criteria shape is not cached.
+     */
+    synchronized GeneratedQuery get(final List<Object> shape) {
+
+        // Get the generated query.
+        GeneratedQuery query = this.queries.get(shape);
+
+        // Count the hit or miss.
+        if (query != null) {
+            this.hitCount++;
+        } else {
+            this.missCount++;
+        }
+
+        return query;
+    }
+
+    /**
+     * Get the number of cache hits.
+     *
+     * @return  the number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * Get the number of cache misses.
+     *
+     * @return  the number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * Get the number of cached queries.
+     *
+     * @return  the number of cached queries.
+     */
+    public synchronized int getSize() {
+        return this.queries.size();
+    }
+
+    /**
+     * Put the generated query.  The least recently used query is evicted if
+     * the cache is full.
+     *
+     * @param  shape  the criteria shape.
+     * @param  query  the generated query.
+     *
+     * @return  the cached generated query for the criteria shape.
+     */
+    synchronized GeneratedQuery put(final List<Object> shape, final GeneratedQuery query) {
+
+        // Get the generated query cached by another thread.
+        GeneratedQuery cachedQuery = this.queries.get(shape);
+
+        // Check if the generated query is not cached.
+        if (cachedQuery == null) {
+
+            // Cache the generated query.
+            this.queries.put(shape, query);
+            cachedQuery = query;
+        }
+
+        return cachedQuery;
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa.internal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.lazydog.repository.Cursor;
+
+/**
+ * Cursor implemented using the Java Persistence API.  The query is paged
+ * one page at a time and the entities of a page are detached before the next
+ * page is fetched, so only a single page of entities returned by the cursor is
+ * ever managed.  Entities that were already managed by the entity manager
+ * when the cursor was created are not detached, and other entities managed by
+ * the entity manager are left alone.
+ * The query must be ordered by a unique order, such as the ID, so the pages
+ * neither skip nor repeat entities.  The position of the first result and the
+ * maximum number of results of the query are honored.
+ *
+ * @author  Ron Rickard
+ */
+public class QueryCursor<T> implements Cursor<T> {
+
+    private boolean closed;
+    private EntityManager entityManager;
+    private boolean lastPage;
+    private int nextFirstResult;
+    private Iterator<T> page;
+    private List<T> pageEntities;
+    private int pageSize;
+    private Set<Object> previouslyManagedEntities;
+    private TypedQuery<T> query;
+    private int remainingResults;
+
+    /**
+     * Constructor.
+     *
+     * @param  query                      the query.
+     * @param  entityManager              the entity manager.
+     * @param  pageSize                   the page size.
+     * @param  previouslyManagedEntities  the entities managed by the entity manager before the query was executed.
+     *
+     * @throws  IllegalArgumentException  if the query, entity manager, page size, or previously managed entities are invalid.
+     */
+    public QueryCursor(final TypedQuery<T> query, final EntityManager entityManager, final int pageSize, final Set<Object> previouslyManagedEntities) {
+
+        // Check if the query is null.
+        if (query == null) {
+            throw new IllegalArgumentException("The query is invalid.");
+        }
+
+        // Check if the entity manager is null.
+        if (entityManager == null) {
+            throw new IllegalArgumentException("The entity manager is invalid.");
+        }
+
+        // Check if the page size is not positive.
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size is invalid.");
+        }
+
+        // Check if the previously managed entities are null.
+        if (previouslyManagedEntities == null) {
+            throw new IllegalArgumentException("The previously managed entities are invalid.");
+        }
+
+        this.entityManager = entityManager;
+        this.nextFirstResult = query.getFirstResult();
+        this.page = Collections.<T>emptyList().iterator();
+        this.pageEntities = Collections.<T>emptyList();
+        this.pageSize = pageSize;
+        this.previouslyManagedEntities = previouslyManagedEntities;
+        this.query = query;
+        this.remainingResults = query.getMaxResults();
+    }
+
+    /**
+     * Close the cursor.
+     */
+    @Override
+    public void close() {
+
+        // Check if the cursor is not already closed.
+        if (!this.closed) {
+
+            // Detach the entities of the last page.
+            this.detachPage();
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Detach the entities of the page.
+     */
+    private void detachPage() {
+
+        // Loop through the entities of the page.
+        for (T entity : this.pageEntities) {
+
+            // Check if the entity was not already managed when the cursor was created.
+            if (!this.previouslyManagedEntities.contains(entity)) {
+                this.entityManager.detach(entity);
+            }
+        }
+
+        this.pageEntities = Collections.<T>emptyList();
+    }
+
+    /**
+     * Fetch the next page.
+     */
+    private void fetchNextPage() {
+
+        // Detach the entities of the previous page.
+        this.detachPage();
+
+        // Get the next page, bounded by the remaining results.
+        int maxResults = Math.min(this.pageSize, this.remainingResults);
+        List<T> entities = this.query
+                .setFirstResult(this.nextFirstResult)
+                .setMaxResults(maxResults)
+                .getResultList();
+
+        // A short page or a page that exhausts the remaining results is the last page.
+        this.nextFirstResult += entities.size();
+        this.remainingResults -= entities.size();
+        this.lastPage = entities.size() < maxResults || this.remainingResults == 0;
+        this.page = entities.iterator();
+        this.pageEntities = entities;
+    }
+
+    /**
+     * Check if there is a next entity.
+     *
+     * @return  true if there is a next entity, otherwise false.
+     */
+    @Override
+    public boolean hasNext() {
+
+        // Check if the current page is exhausted and there may be another page.
+        if (!this.closed && !this.page.hasNext() && !this.lastPage) {
+            this.fetchNextPage();
+        }
+
+        return !this.closed && this.page.hasNext();
+    }
+
+    /**
+     * Get the next entity.
+     *
+     * @return  the next entity.
+     *
+     * @throws  NoSuchElementException  if there is no next entity.
+     */
+    @Override
+    public T next() {
+
+        // Check if there is no next entity.
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return this.page.next();
+    }
+
+    /**
+     * Remove is not supported.
+     *
+     * @throws  UnsupportedOperationException  always.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Remove is not supported by the cursor.");
+    }
+}
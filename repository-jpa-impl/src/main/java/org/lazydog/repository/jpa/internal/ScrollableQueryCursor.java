@@ -0,0 +1,413 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import org.lazydog.repository.Cursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cursor implemented using the scrollable results of the persistence provider.
+ * The query is executed once, the rows are streamed from the JDBC result set
+ * using the fetch size, and the entities returned by the cursor are detached
+ * every fetch size entities, so only that many of them are ever managed.
+ * Entities that were already managed by the entity manager when the cursor
+ * was created are not detached, and other entities managed by the entity
+ * manager are left alone.  The query must
+ * be ordered by the ID, so the rows of an entity repeated by a join are
+ * consecutive, and consecutive rows of the same entity are returned once.
+ * The position of the first result and the maximum number of results of the
+ * query are honored.  Hibernate scrolls the rows of queries with fetch joins
+ * insensitive, so the JDBC driver may buffer all the rows of such queries on
+ * the client instead of streaming them.
+ *
+ * @author  Ron Rickard
+ */
+public final class ScrollableQueryCursor<T> implements Cursor<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScrollableQueryCursor.class);
+
+    private static final String ECLIPSE_LINK_CURSOR = "eclipselink.cursor";
+    private static final String ECLIPSE_LINK_CURSOR_PAGE_SIZE = "eclipselink.cursor.page-size";
+    private static final String ECLIPSE_LINK_FETCH_SIZE = "eclipselink.jdbc.fetch-size";
+    private static final String ECLIPSE_LINK_QUERY_CLASS_NAME = "org.eclipse.persistence.jpa.JpaQuery";
+    private static final String HIBERNATE_QUERY_CLASS_NAME = "org.hibernate.jpa.HibernateQuery";
+    private static final String HIBERNATE_SCROLL_MODE_CLASS_NAME = "org.hibernate.ScrollMode";
+
+    private boolean closed;
+    private int entityCount;
+    private EntityManager entityManager;
+    private int fetchSize;
+    private Object lastId;
+    private List<Object> managedEntities;
+    private T nextEntity;
+    private PersistenceUnitUtil persistenceUnitUtil;
+    private Set<Object> previouslyManagedEntities;
+    private Scroll scroll;
+
+    /**
+     * Scroll over the results of the persistence provider.
+     */
+    private interface Scroll extends Closeable {
+
+        /**
+         * Advance to the next row.
+         *
+         * @return  true if there is a next row, otherwise false.
+         */
+        boolean next();
+
+        /**
+         * Get the entity of the current row.
+         *
+         * @return  the entity of the current row.
+         */
+        Object get();
+
+        /**
+         * Release the entities of the previous rows held by the scroll.
+         */
+        void release();
+    }
+
+    /**
+     * Hide the constructor.
+     *
+     * @param  scroll                     the scroll.
+     * @param  entityManager              the entity manager.
+     * @param  fetchSize                  the fetch size.
+     * @param  previouslyManagedEntities  the entities managed by the entity manager before the query was executed.
+     */
+    private ScrollableQueryCursor(final Scroll scroll, final EntityManager entityManager, final int fetchSize, final Set<Object> previouslyManagedEntities) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+        this.managedEntities = new ArrayList<Object>();
+        this.persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        this.previouslyManagedEntities = previouslyManagedEntities;
+        this.scroll = scroll;
+    }
+
+    /**
+     * Close the cursor.
+     */
+    @Override
+    public void close() {
+
+        // Check if the cursor is not already closed.
+        if (!this.closed) {
+
+            this.closed = true;
+            this.nextEntity = null;
+
+            try {
+
+                // Release the result set.
+                this.scroll.close();
+            } catch (IOException e) {
+                throw new PersistenceException("Unable to close the scrollable results.", e);
+            } finally {
+
+                // Detach the remaining entities.
+                this.detachEntities();
+            }
+        }
+    }
+
+    /**
+     * Detach the entities of the rows scrolled since the entities were last detached.
+     */
+    private void detachEntities() {
+
+        // Loop through the managed entities.
+        for (Object entity : this.managedEntities) {
+            this.entityManager.detach(entity);
+        }
+
+        this.managedEntities.clear();
+    }
+
+    /**
+     * Check if there is a next entity.
+     *
+     * @return  true if there is a next entity, otherwise false.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+
+        // Check if the next entity needs to be fetched.
+        if (!this.closed && this.nextEntity == null) {
+
+            // Detach the entities once a fetch size of entities has been returned.
+            if (this.entityCount > 0 && this.entityCount % this.fetchSize == 0 && !this.managedEntities.isEmpty()) {
+                this.scroll.release();
+                this.detachEntities();
+            }
+
+            // Loop through the rows until the entity of the row is not the last entity.
+            while (this.nextEntity == null && this.scroll.next()) {
+
+                // Get the entity of the row.
+                Object entity = this.scroll.get();
+                Object id = this.persistenceUnitUtil.getIdentifier(entity);
+
+                // Check if the entity was not already managed when the cursor was created.
+                if (!this.previouslyManagedEntities.contains(entity)) {
+                    this.managedEntities.add(entity);
+                }
+
+                // Check if the row is not another row of the last entity.
+                if (!id.equals(this.lastId)) {
+                    this.lastId = id;
+                    this.nextEntity = (T)entity;
+                    this.entityCount++;
+                }
+            }
+        }
+
+        return this.nextEntity != null;
+    }
+
+    /**
+     * Create a new instance of the cursor.  The query is scrolled using the
+     * scrollable results of EclipseLink or Hibernate.  For other persistence
+     * providers, and for queries with fetch joins and a position of the first
+     * result or a maximum number of results, the query is paged by a query
+     * cursor instead.  A query with fetch joins is paged in a single page,
+     * since the maximum number of results of a page would cut the fetched
+     * collections, so all the results of such a query are loaded and managed
+     * at once.
+     *
+     * @param  query            the query ordered by the ID.
+     * @param  entityManager    the entity manager.
+     * @param  fetchSize        the fetch size.
+     * @param  fetchJoinExists  true if the query has fetch joins, otherwise false.
+     *
+     * @return  a new instance of the cursor.
+     *
+     * @throws  IllegalArgumentException  if the query, entity manager, or fetch size is invalid.
+     */
+    public static <T> Cursor<T> newInstance(final TypedQuery<T> query, final EntityManager entityManager, final int fetchSize, final boolean fetchJoinExists) {
+
+        // Check if the query is null.
+        if (query == null) {
+            throw new IllegalArgumentException("The query is invalid.");
+        }
+
+        // Check if the entity manager is null.
+        if (entityManager == null) {
+            throw new IllegalArgumentException("The entity manager is invalid.");
+        }
+
+        // Check if the fetch size is not positive.
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("The fetch size is invalid.");
+        }
+
+        // Get the classes of the queries of the persistence providers.
+        Class<?> eclipseLinkQueryClass = PersistenceProviders.getClass(query, ECLIPSE_LINK_QUERY_CLASS_NAME);
+        Class<?> hibernateQueryClass = PersistenceProviders.getClass(query, HIBERNATE_QUERY_CLASS_NAME);
+
+        // Get the entities managed before the query is executed.
+        Set<Object> previouslyManagedEntities = PersistenceProviders.getManagedEntities(entityManager);
+        if (previouslyManagedEntities == null) {
+            previouslyManagedEntities = Collections.emptySet();
+        }
+
+        // Initialize the scroll.
+        Scroll scroll = null;
+
+        // Check if the query is not a query with fetch joins and bounded results,
+        // which the persistence providers do not scroll.
+        if (!fetchJoinExists || (query.getFirstResult() == 0 && query.getMaxResults() == Integer.MAX_VALUE)) {
+
+            // Get the scroll determined by the persistence provider of the query.
+            if (eclipseLinkQueryClass != null && eclipseLinkQueryClass.isInstance(query)) {
+                scroll = scrollEclipseLink(query, fetchSize);
+            } else if (hibernateQueryClass != null && hibernateQueryClass.isInstance(query)) {
+                scroll = scrollHibernate(query, fetchSize, fetchJoinExists);
+            }
+        }
+
+        // Check if the query cannot be scrolled and has fetch joins.
+        if (scroll == null && fetchJoinExists) {
+            logger.warn("Unable to scroll the query {} with fetch joins, so all the results are loaded in a single page.", query);
+            return new QueryCursor<T>(query, entityManager, Integer.MAX_VALUE, previouslyManagedEntities);
+        }
+
+        // Check if the query cannot be scrolled.
+        if (scroll == null) {
+            logger.debug("Unable to scroll the query {}, so the query is paged.", query);
+            return new QueryCursor<T>(query, entityManager, fetchSize, previouslyManagedEntities);
+        }
+
+        return new ScrollableQueryCursor<T>(scroll, entityManager, fetchSize, previouslyManagedEntities);
+    }
+
+    /**
+     * Get the next entity.
+     *
+     * @return  the next entity.
+     *
+     * @throws  NoSuchElementException  if there is no next entity.
+     */
+    @Override
+    public T next() {
+
+        // Check if there is no next entity.
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T entity = this.nextEntity;
+        this.nextEntity = null;
+
+        return entity;
+    }
+
+    /**
+     * Remove is not supported.
+     *
+     * @throws  UnsupportedOperationException  always.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Remove is not supported by the cursor.");
+    }
+
+    /**
+     * Scroll the query using an EclipseLink cursored stream.  The cursored
+     * stream reads the forward-only result set a page at a time.
+     *
+     * @param  query      the query.
+     * @param  fetchSize  the fetch size.
+     *
+     * @return  the scroll.
+     */
+    private static Scroll scrollEclipseLink(final Query query, final int fetchSize) {
+
+        // Execute the query as a cursored stream.
+        final Object cursor = query
+                .setHint(ECLIPSE_LINK_CURSOR, Boolean.TRUE)
+                .setHint(ECLIPSE_LINK_CURSOR_PAGE_SIZE, fetchSize)
+                .setHint(ECLIPSE_LINK_FETCH_SIZE, fetchSize)
+                .getSingleResult();
+        final Iterator<?> iterator = (Iterator<?>)cursor;
+
+        // Get the methods of the cursored stream.
+        final Method closeMethod = PersistenceProviders.getMethod(cursor, "close");
+        final Method releasePreviousMethod = PersistenceProviders.getMethod(cursor, "releasePrevious");
+
+        return new Scroll() {
+
+            private Object entity;
+
+            @Override
+            public void close() {
+                PersistenceProviders.invoke(closeMethod, cursor);
+            }
+
+            @Override
+            public Object get() {
+                return this.entity;
+            }
+
+            @Override
+            public boolean next() {
+                this.entity = iterator.hasNext() ? iterator.next() : null;
+                return this.entity != null;
+            }
+
+            @Override
+            public void release() {
+                PersistenceProviders.invoke(releasePreviousMethod, cursor);
+            }
+        };
+    }
+
+    /**
+     * Scroll the query using Hibernate forward-only scrollable results.  The
+     * scrollable results of queries with fetch joins are scroll insensitive
+     * instead, since Hibernate looks ahead and back over the rows of an entity
+     * to assemble the fetched collections, so the JDBC driver may buffer all
+     * the rows of such queries on the client.
+     *
+     * @param  query            the query.
+     * @param  fetchSize        the fetch size.
+     * @param  fetchJoinExists  true if the query has fetch joins, otherwise false.
+     *
+     * @return  the scroll, or null if the Hibernate scroll mode is not visible.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Scroll scrollHibernate(final Query query, final int fetchSize, final boolean fetchJoinExists) {
+
+        // Get the scroll mode.
+        Class scrollModeClass = PersistenceProviders.getClass(query, HIBERNATE_SCROLL_MODE_CLASS_NAME);
+        if (scrollModeClass == null) {
+            return null;
+        }
+        Object scrollMode = Enum.valueOf(scrollModeClass, (fetchJoinExists) ? "SCROLL_INSENSITIVE" : "FORWARD_ONLY");
+
+        // Execute the Hibernate query as scrollable results.
+        Object hibernateQuery = PersistenceProviders.invoke(PersistenceProviders.getMethod(query, "getHibernateQuery"), query);
+        PersistenceProviders.invoke(PersistenceProviders.getMethod(hibernateQuery, "setFetchSize", int.class), hibernateQuery, fetchSize);
+        final Object results = PersistenceProviders.invoke(PersistenceProviders.getMethod(hibernateQuery, "scroll", scrollModeClass), hibernateQuery, scrollMode);
+
+        // Get the methods of the scrollable results.
+        final Method getMethod = PersistenceProviders.getMethod(results, "get", int.class);
+        final Method nextMethod = PersistenceProviders.getMethod(results, "next");
+
+        return new Scroll() {
+
+            @Override
+            public void close() throws IOException {
+                ((Closeable)results).close();
+            }
+
+            @Override
+            public Object get() {
+                return PersistenceProviders.invoke(getMethod, results, 0);
+            }
+
+            @Override
+            public boolean next() {
+                return (Boolean)PersistenceProviders.invoke(nextMethod, results);
+            }
+
+            @Override
+            public void release() {
+                // Hibernate scrollable results do not hold the previous rows.
+            }
+        };
+    }
+}
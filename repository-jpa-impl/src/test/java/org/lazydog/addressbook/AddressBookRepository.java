@@ -19,6 +19,7 @@
 package org.lazydog.addressbook;
 
 import javax.enterprise.context.ApplicationScoped;
+import org.lazydog.addressbook.model.Address;
 import org.lazydog.repository.jpa.AbstractRepository;
 
 /**
@@ -29,4 +30,16 @@ import org.lazydog.repository.jpa.AbstractRepository;
 @ApplicationScoped
 public class AddressBookRepository extends AbstractRepository {
 
+    /**
+     * Is the entity class safe to bulk remove?  Addresses do not cascade the
+     * remove, so they are safe to bulk remove.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  true if the entity class is safe to bulk remove, otherwise false.
+     */
+    @Override
+    protected boolean isBulkRemovable(final Class<?> entityClass) {
+        return Address.class.equals(entityClass);
+    }
 }
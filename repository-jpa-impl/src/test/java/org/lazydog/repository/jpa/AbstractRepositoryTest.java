@@ -18,12 +18,20 @@
  */
 package org.lazydog.repository.jpa;
 
+import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLNonTransientConnectionException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.persistence.EntityNotFoundException;
 import org.dbunit.database.DatabaseConnection;
 import org.dbunit.database.IDatabaseConnection;
@@ -32,7 +40,11 @@ import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
 import org.dbunit.operation.DatabaseOperation;
 import org.jboss.weld.environment.se.Weld;
 import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -41,12 +53,23 @@ import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.lazydog.addressbook.AddressBookRepository;
 import org.lazydog.addressbook.model.Address;
+import org.lazydog.addressbook.model.Company;
 import org.lazydog.addressbook.model.NonEntityAddress;
+import org.lazydog.addressbook.model.Phone;
+import org.lazydog.repository.AsyncRepository;
 import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.Cursor;
 import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.criterion.Criterion;
+import org.lazydog.repository.criterion.Join;
+import org.lazydog.repository.criterion.Order;
+import org.lazydog.repository.criterion.Parameter;
 import org.lazydog.repository.jpa.bootstrap.Configuration;
 import org.lazydog.repository.jpa.internal.ConnectionFactory;
+import org.lazydog.repository.jpa.internal.CriteriaImpl;
 import static org.unitils.reflectionassert.ReflectionAssert.assertReflectionEquals;
+import org.unitils.reflectionassert.ReflectionComparatorMode;
 
 /**
  * Abstract repository test.
@@ -170,6 +193,59 @@ public class AbstractRepositoryTest {
         addressBookRepository.getEntityManager().getEntityManagerFactory().getCache().evictAll();
     }
 
+    @Test
+    public void testCount() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        assertEquals(2, addressBookRepository.count(Address.class, criteria));
+        criteria.add(Comparison.eq("city", "Phoenix"));
+        assertEquals(1, addressBookRepository.count(Address.class, criteria));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCountNullCriteria() {
+        addressBookRepository.count(Address.class, null);
+    }
+
+    @Test
+    public void testCountSeekAfter() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.addOrder(Order.asc("id")).seekAfter(expectedAddress1.getId());
+        assertEquals(2, addressBookRepository.count(Address.class, criteria));
+    }
+
+    @Test
+    public void testExists() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.add(Comparison.eq("city", "Phoenix"));
+        assertEquals(true, addressBookRepository.exists(Address.class, criteria));
+        criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.add(Comparison.eq("city", "Denver"));
+        assertEquals(false, addressBookRepository.exists(Address.class, criteria));
+    }
+
+    @Test
+    public void testExistsJoin() {
+        Company company = new Company();
+        company.setName("Test Company");
+        company.setAddresses(new ArrayList<Address>(Arrays.asList(addressBookRepository.find(Address.class, expectedAddress1.getId()), addressBookRepository.find(Address.class, expectedAddress2.getId()))));
+        company = addressBookRepository.persist(company);
+        try {
+            Criteria<Company> criteria = addressBookRepository.getCriteria(Company.class);
+            criteria.add(Comparison.ne("addresses.city", "Denver"));
+            assertEquals(true, addressBookRepository.exists(Company.class, criteria));
+            criteria = addressBookRepository.getCriteria(Company.class);
+            criteria.add(Comparison.eq("addresses.city", "Denver"));
+            assertEquals(false, addressBookRepository.exists(Company.class, criteria));
+        } finally {
+            addressBookRepository.removeList(Company.class, Arrays.asList(company.getId()));
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testExistsNullClass() {
+        addressBookRepository.exists(null, addressBookRepository.getCriteria(Address.class));
+    }
+
     @Test
     public void testFind() {
         assertReflectionEquals(expectedAddress1, addressBookRepository.find(Address.class, expectedAddress1.getId()));
@@ -211,11 +287,260 @@ public class AbstractRepositoryTest {
         addressBookRepository.find(null, criteria);
     }
 
+    @Test
+    public void testFindByIds() {
+        Map<Integer,Address> actualAddresses = addressBookRepository.findByIds(Address.class, Arrays.asList(expectedAddress2.getId(), 99, expectedAddress1.getId()));
+        assertEquals(Arrays.asList(expectedAddress2.getId(), expectedAddress1.getId()), new ArrayList<Integer>(actualAddresses.keySet()));
+        assertReflectionEquals(expectedAddress1, actualAddresses.get(expectedAddress1.getId()));
+        assertReflectionEquals(expectedAddress2, actualAddresses.get(expectedAddress2.getId()));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFindByIdsNullIds() {
+        addressBookRepository.findByIds(Address.class, null);
+    }
+
+    @Test
+    public void testFindCursor() {
+        List<Address> actualAddresses = new ArrayList<Address>();
+        try (Cursor<Address> cursor = addressBookRepository.findCursor(Address.class)) {
+            while (cursor.hasNext()) {
+                actualAddresses.add(cursor.next());
+            }
+        }
+        assertReflectionEquals(Arrays.asList(expectedAddress1, expectedAddress2), actualAddresses, ReflectionComparatorMode.LENIENT_ORDER);
+    }
+
+    @Test
+    public void testFindCursorFirstResult() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.add(Comparison.ne("zipcode", "00000")).addOrder(Order.asc("id")).setFirstResult(1).setMaxResults(1);
+        List<Address> actualAddresses = new ArrayList<Address>();
+        try (Cursor<Address> cursor = addressBookRepository.findCursor(Address.class, criteria)) {
+            while (cursor.hasNext()) {
+                actualAddresses.add(cursor.next());
+            }
+        }
+        assertReflectionEquals(Arrays.asList(expectedAddress2), actualAddresses);
+        assertFalse(addressBookRepository.getEntityManager().contains(actualAddresses.get(0)));
+    }
+
+    @Test
+    public void testFindCursorJoinFetch() {
+        Company company = new Company();
+        company.setName("Test Company");
+        company.setAddresses(new ArrayList<Address>(Arrays.asList(addressBookRepository.find(Address.class, expectedAddress1.getId()), addressBookRepository.find(Address.class, expectedAddress2.getId()))));
+        company = addressBookRepository.persist(company);
+        try {
+            Criteria<Company> criteria = addressBookRepository.getCriteria(Company.class);
+            ((CriteriaImpl<Company>)criteria).addJoin(Join.leftJoinFetch("company.addresses"));
+            List<Company> actualCompanies = new ArrayList<Company>();
+            try (Cursor<Company> cursor = addressBookRepository.findCursor(Company.class, criteria)) {
+                while (cursor.hasNext()) {
+                    actualCompanies.add(cursor.next());
+                }
+            }
+            assertEquals(1, actualCompanies.size());
+            assertEquals(2, actualCompanies.get(0).getAddresses().size());
+        } finally {
+            addressBookRepository.removeList(Company.class, Arrays.asList(company.getId()));
+        }
+    }
+
+    @Test
+    public void testFindCursorManagedEntities() {
+        Company company = new Company();
+        company.setName("Test Company");
+        company.setAddresses(new ArrayList<Address>(Arrays.asList(addressBookRepository.find(Address.class, expectedAddress1.getId()))));
+        company = addressBookRepository.persist(company);
+        addressBookRepository.getEntityManager().detach(company);
+        try {
+            Address address = addressBookRepository.find(Address.class, expectedAddress2.getId());
+            address.setCity("Tucson");
+            Criteria<Company> criteria = addressBookRepository.getCriteria(Company.class);
+            criteria.add(Comparison.ne("addresses.city", "Denver"));
+            List<Company> actualCompanies = new ArrayList<Company>();
+            try (Cursor<Company> cursor = addressBookRepository.findCursor(Company.class, criteria)) {
+                while (cursor.hasNext()) {
+                    actualCompanies.add(cursor.next());
+                }
+            }
+            assertEquals(1, actualCompanies.size());
+            assertFalse(addressBookRepository.getEntityManager().contains(actualCompanies.get(0)));
+            assertTrue(addressBookRepository.getEntityManager().contains(address));
+            assertEquals("Tucson", address.getCity());
+        } finally {
+            addressBookRepository.removeList(Company.class, Arrays.asList(company.getId()));
+        }
+    }
+
+    @Test
+    public void testFindCursorPreviouslyManagedEntities() {
+        Address address = addressBookRepository.find(Address.class, expectedAddress1.getId());
+        List<Address> actualAddresses = new ArrayList<Address>();
+        try (Cursor<Address> cursor = addressBookRepository.findCursor(Address.class)) {
+            while (cursor.hasNext()) {
+                actualAddresses.add(cursor.next());
+            }
+        }
+        assertEquals(2, actualAddresses.size());
+        assertSame(address, actualAddresses.get(0));
+        assertTrue(addressBookRepository.getEntityManager().contains(address));
+        assertFalse(addressBookRepository.getEntityManager().contains(actualAddresses.get(1)));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFindCursorNullClass() {
+        addressBookRepository.findCursor(null);
+    }
+
+    @Test
+    public void testFindListFirstResult() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.addOrder(Order.asc("id")).setFirstResult(1).setMaxResults(1);
+        assertReflectionEquals(Arrays.asList(expectedAddress2), addressBookRepository.findList(Address.class, criteria));
+    }
+
+    @Test
+    public void testFindListIn() {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int id = -1500; id < 0; id++) {
+            ids.add(id);
+        }
+        ids.add(expectedAddress2.getId());
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.add(Comparison.in("id", ids));
+        assertReflectionEquals(Arrays.asList(expectedAddress2), addressBookRepository.findList(Address.class, criteria));
+    }
+
+    @Test
+    public void testFindListNotIn() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.add(Comparison.notIn("id", expectedAddress2.getId(), -1));
+        assertReflectionEquals(Arrays.asList(expectedAddress1), addressBookRepository.findList(Address.class, criteria));
+    }
+
+    @Test
+    public void testFindListSeekAfter() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.addOrder(Order.asc("id")).seekAfter(expectedAddress1.getId());
+        assertReflectionEquals(Arrays.asList(expectedAddress2), addressBookRepository.findList(Address.class, criteria));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFindListSeekAfterNotOrderedById() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.addOrder(Order.asc("city")).seekAfter(expectedAddress1.getCity());
+        addressBookRepository.findList(Address.class, criteria);
+    }
+
+    @Test
+    public void testFindProjectionList() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.addProjections(Arrays.asList("city", "state")).addOrder(Order.asc("id"));
+        List<Map<String,Object>> actualProjections = addressBookRepository.findProjectionList(Address.class, criteria);
+        assertEquals(2, actualProjections.size());
+        assertEquals(Arrays.asList("city", "state"), new ArrayList<String>(actualProjections.get(0).keySet()));
+        assertEquals(expectedAddress1.getCity(), actualProjections.get(0).get("city"));
+        assertEquals(expectedAddress1.getState(), actualProjections.get(0).get("state"));
+        assertEquals(expectedAddress2.getCity(), actualProjections.get(1).get("city"));
+    }
+
+    @Test
+    public void testFindProjectionListJoin() {
+        Company company1 = new Company();
+        company1.setName("Test Company");
+        company1.setAddresses(new ArrayList<Address>(Arrays.asList(addressBookRepository.find(Address.class, expectedAddress1.getId()))));
+        company1 = addressBookRepository.persist(company1);
+        Company company2 = new Company();
+        company2.setName("Test Company");
+        company2.setAddresses(new ArrayList<Address>(Arrays.asList(addressBookRepository.find(Address.class, expectedAddress2.getId()))));
+        company2 = addressBookRepository.persist(company2);
+        try {
+            Criteria<Company> criteria = addressBookRepository.getCriteria(Company.class);
+            criteria.addProjection("name").add(Comparison.ne("addresses.city", "Denver")).addOrder(Order.asc("id"));
+            List<Map<String,Object>> actualProjections = addressBookRepository.findProjectionList(Company.class, criteria);
+            assertEquals(2, addressBookRepository.count(Company.class, criteria));
+            assertEquals(2, actualProjections.size());
+            assertEquals("Test Company", actualProjections.get(0).get("name"));
+            assertEquals("Test Company", actualProjections.get(1).get("name"));
+        } finally {
+            addressBookRepository.removeList(Company.class, Arrays.asList(company1.getId(), company2.getId()));
+        }
+    }
+
+    @Test
+    public void testFindProjectionListSingle() {
+        Criteria<Address> criteria = addressBookRepository.getCriteria(Address.class);
+        criteria.addProjection("zipcode").add(Comparison.eq("id", expectedAddress1.getId()));
+        List<Map<String,Object>> actualProjections = addressBookRepository.findProjectionList(Address.class, criteria);
+        assertEquals(1, actualProjections.size());
+        assertEquals(expectedAddress1.getZipcode(), actualProjections.get(0).get("zipcode"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFindProjectionListNoProjections() {
+        addressBookRepository.findProjectionList(Address.class, addressBookRepository.getCriteria(Address.class));
+    }
+
+    @Test
+    public void testGetAsyncRepository() throws Exception {
+
+        // Commit the dataset so the entity managers of the asynchronous repository can read it.
+        Connection connection = this.getDatabaseConnection().getConnection();
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            AsyncRepository asyncRepository = addressBookRepository.getAsyncRepository(executorService);
+            Future<Address> actualAddress1 = asyncRepository.find(Address.class, expectedAddress1.getId());
+            Future<Address> actualAddress2 = asyncRepository.find(Address.class, expectedAddress2.getId());
+            assertReflectionEquals(expectedAddress1, actualAddress1.get());
+            assertReflectionEquals(expectedAddress2, actualAddress2.get());
+            Future<List<Address>> actualAddresses = asyncRepository.findList(Address.class);
+            Future<Long> count = asyncRepository.count(Address.class, asyncRepository.getCriteria(Address.class));
+            assertEquals(2, actualAddresses.get().size());
+            assertEquals(Long.valueOf(2), count.get());
+            Address actualAddress3 = asyncRepository.persist(expectedAddress3).get();
+            expectedAddress3.setId(actualAddress3.getId());
+            assertReflectionEquals(expectedAddress3, asyncRepository.find(Address.class, actualAddress3.getId()).get());
+        }
+        finally {
+            executorService.shutdown();
+        }
+    }
+
     @Test
     public void testGetCriteria() {
         addressBookRepository.getCriteria(Address.class);
     }
 
+    @Test
+    public void testGetCriteriaTemplate() {
+        CriteriaTemplate<Address> criteriaTemplate = addressBookRepository.getCriteriaTemplate(Address.class,
+                Arrays.asList(Comparison.eq("id", Parameter.named("id"))), Arrays.asList(Order.asc("id")));
+        assertEquals(Collections.singleton("id"), criteriaTemplate.getParameterNames());
+        assertReflectionEquals(expectedAddress1, addressBookRepository.find(Address.class, criteriaTemplate.bind(Collections.singletonMap("id", expectedAddress1.getId()))));
+        assertReflectionEquals(expectedAddress2, addressBookRepository.find(Address.class, criteriaTemplate.bind(Collections.singletonMap("id", expectedAddress2.getId()))));
+    }
+
+    @Test
+    public void testGetCriteriaTemplateIn() {
+        CriteriaTemplate<Address> criteriaTemplate = addressBookRepository.getCriteriaTemplate(Address.class,
+                Arrays.asList(Comparison.in("id", Parameter.named("ids"))), Arrays.asList(Order.asc("id")));
+        Criteria<Address> criteria = criteriaTemplate.bind(Collections.singletonMap("ids", Arrays.asList(expectedAddress1.getId(), expectedAddress2.getId())));
+        assertReflectionEquals(Arrays.asList(expectedAddress1, expectedAddress2), addressBookRepository.findList(Address.class, criteria));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetCriteriaTemplateUnbound() {
+        addressBookRepository.getCriteriaTemplate(Address.class,
+                Arrays.asList(Comparison.eq("id", Parameter.named("id"))), Collections.<Criterion>emptyList())
+                .bind(Collections.<String, Object>emptyMap());
+    }
+
     @Test(expected=IllegalArgumentException.class)
     public void testGetCriteriaNull() {
         addressBookRepository.getCriteria(null);
@@ -238,6 +563,43 @@ public class AbstractRepositoryTest {
         addressBookRepository.persist(expectedAddress4);
     }
 
+    @Test
+    public void testPersistBatch() {
+        Address newAddress1 = new Address();
+        newAddress1.setCity("Denver");
+        newAddress1.setState("Colorado");
+        newAddress1.setStreetAddress("333 Street Avenue");
+        newAddress1.setZipcode("33333");
+        Address newAddress2 = new Address();
+        newAddress2.setCity("Boston");
+        newAddress2.setState("Massachusetts");
+        newAddress2.setStreetAddress("555 Street Avenue");
+        newAddress2.setZipcode("55555");
+        Address newAddress3 = new Address();
+        newAddress3.setCity("Seattle");
+        newAddress3.setState("Washington");
+        newAddress3.setStreetAddress("666 Street Avenue");
+        newAddress3.setZipcode("66666");
+        List<Integer> ids = addressBookRepository.persistBatch(Arrays.asList(expectedAddress1, newAddress1, newAddress2, newAddress3), 2);
+        assertEquals(4, ids.size());
+        assertEquals(expectedAddress1.getId(), ids.get(0));
+        newAddress3.setId(ids.get(3));
+        assertReflectionEquals(newAddress3, addressBookRepository.find(Address.class, ids.get(3)));
+        assertEquals(5, addressBookRepository.findList(Address.class).size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPersistBatchInvalidBatchSize() {
+        addressBookRepository.persistBatch(Arrays.asList(expectedAddress3), 0);
+    }
+
+    @Test
+    public void testIsBulkRemovable() {
+        assertTrue(((AbstractRepository)addressBookRepository).isBulkRemovable(Address.class));
+        assertFalse(((AbstractRepository)addressBookRepository).isBulkRemovable(Company.class));
+        assertFalse(((AbstractRepository)addressBookRepository).isBulkRemovable(Phone.class));
+    }
+
     @Test
     public void testRemove() {
         addressBookRepository.remove(Address.class, expectedAddress1.getId());
@@ -266,6 +628,47 @@ public class AbstractRepositoryTest {
         addressBookRepository.remove(NonEntityAddress.class, expectedAddress1.getId());
     }
 
+    @Test
+    public void testRemoveList() {
+        addressBookRepository.removeList(Address.class, Arrays.asList(expectedAddress1.getId(), expectedAddress2.getId()));
+        assertEquals(0, addressBookRepository.findList(Address.class).size());
+    }
+
+    @Test(expected=EntityNotFoundException.class)
+    public void testRemoveListBulkNot() {
+        addressBookRepository.removeList(Address.class, Arrays.asList(expectedAddress1.getId(), 3));
+    }
+
+    @Test
+    public void testRemoveListManagedEntities() {
+        Address address1 = addressBookRepository.find(Address.class, expectedAddress1.getId());
+        Address address2 = addressBookRepository.find(Address.class, expectedAddress2.getId());
+        addressBookRepository.removeList(Address.class, Arrays.asList(expectedAddress1.getId()));
+        assertFalse(addressBookRepository.getEntityManager().contains(address1));
+        assertTrue(addressBookRepository.getEntityManager().contains(address2));
+    }
+
+    @Test
+    public void testRemoveListJoinTable() {
+        Company company = new Company();
+        company.setName("Test Company");
+        company.setAddresses(new ArrayList<Address>(Arrays.asList(addressBookRepository.find(Address.class, expectedAddress1.getId()))));
+        company = addressBookRepository.persist(company);
+        addressBookRepository.removeList(Company.class, Arrays.asList(company.getId()));
+        assertNull(addressBookRepository.find(Company.class, company.getId()));
+        assertEquals(2, addressBookRepository.findList(Address.class).size());
+    }
+
+    @Test(expected=EntityNotFoundException.class)
+    public void testRemoveListNot() {
+        addressBookRepository.removeList(Company.class, Arrays.asList(-1));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRemoveListNullIds() {
+        addressBookRepository.removeList(Address.class, null);
+    }
+
     private IDatabaseConnection getDatabaseConnection() throws Exception {
         
         ConnectionFactory.Type type = null;
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.jpa;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.lazydog.addressbook.AddressBookRepository;
+
+/**
+ * Entity manager asynchronous repository test.
+ *
+ * @author  Ron Rickard
+ */
+public class EntityManagerAsyncRepositoryTest {
+
+    /**
+     * Create an entity manager factory whose entity managers use JTA transactions.
+     *
+     * @param  closed  the closed flag set when the entity manager is closed.
+     *
+     * @return  the entity manager factory.
+     */
+    private static EntityManagerFactory newJtaEntityManagerFactory(final boolean[] closed) {
+
+        final EntityManager entityManager = (EntityManager)Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(), new Class<?>[] {EntityManager.class}, new InvocationHandler() {
+
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] arguments) {
+                if (method.getName().equals("getTransaction")) {
+                    throw new IllegalStateException("JTA entity manager.");
+                }
+                if (method.getName().equals("close")) {
+                    closed[0] = true;
+                }
+                return null;
+            }
+        });
+
+        return (EntityManagerFactory)Proxy.newProxyInstance(
+                EntityManagerFactory.class.getClassLoader(), new Class<?>[] {EntityManagerFactory.class}, new InvocationHandler() {
+
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] arguments) {
+                return (method.getName().equals("createEntityManager")) ? entityManager : null;
+            }
+        });
+    }
+
+    @Test
+    public void testJta() {
+        boolean[] closed = new boolean[1];
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            new EntityManagerAsyncRepository(new AddressBookRepository(), newJtaEntityManagerFactory(closed), executorService);
+            fail("The JTA persistence unit was not rejected.");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("JTA"));
+        } finally {
+            executorService.shutdown();
+        }
+        assertTrue(closed[0]);
+    }
+}
@@ -18,12 +18,23 @@
  */
 package org.lazydog.repository.jpa.internal;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.lazydog.addressbook.model.Address;
 import org.lazydog.addressbook.model.Company;
+import org.lazydog.addressbook.model.Employee;
 import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.criterion.Criterion;
+import org.lazydog.repository.criterion.Join;
 import org.lazydog.repository.criterion.Logical;
+import org.lazydog.repository.criterion.Order;
 
 /**
  * Criteria implemented using the Java Persistence API test.
@@ -40,6 +51,110 @@ public class CriteriaImplTest {
         assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
     }
    
+    @Test
+    public void testAutoJoinNested() {
+        String expectedQueryLanguageString = "SELECT DISTINCT company FROM Company company JOIN company.departments departments JOIN departments.employees employees WHERE employees.lastName = :param1";
+        CriteriaImpl<Company> criteriaImpl = new CriteriaImpl<Company>(Company.class);
+        criteriaImpl.add(Comparison.eq("departments.employees.lastName", "Smith"));
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+    }
+
+    @Test
+    public void testAutoJoinSingleValued() {
+        String expectedQueryLanguageString = "SELECT employee FROM Employee employee WHERE employee.department.company.name = :param1";
+        CriteriaImpl<Employee> criteriaImpl = new CriteriaImpl<Employee>(Employee.class);
+        criteriaImpl.add(Comparison.eq("department.company.name", "Name 1"));
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+    }
+   
+    @Test
+    public void testCacheKey() {
+        CriteriaImpl<Address> criteriaImpl1 = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl1.add(Comparison.eq("state", "AZ"));
+        CriteriaImpl<Address> criteriaImpl2 = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl2.add(Comparison.eq("state", "AZ"));
+        CriteriaImpl<Address> criteriaImpl3 = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl3.add(Comparison.eq("state", "CA"));
+        assertEquals(criteriaImpl1.getCacheKey(), criteriaImpl2.getCacheKey());
+        assertFalse(criteriaImpl1.getCacheKey().equals(criteriaImpl3.getCacheKey()));
+        criteriaImpl2.setMaxResults(10);
+        assertFalse(criteriaImpl1.getCacheKey().equals(criteriaImpl2.getCacheKey()));
+    }
+
+    @Test
+    public void testCountQueryLanguageString() {
+        String expectedQueryLanguageString = "SELECT COUNT(DISTINCT company) FROM Company company JOIN company.departments departments WHERE departments.name LIKE :param1";
+        CriteriaImpl<Company> criteriaImpl = new CriteriaImpl<Company>(Company.class);
+        criteriaImpl.add(Comparison.like("departments.name", "%Name 10%"));
+        criteriaImpl.addOrder(Order.asc("name"));
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getCountQueryLanguageString());
+    }
+   
+    @Test
+    public void testExistsQueryLanguageString() {
+        String expectedQueryLanguageString = "SELECT company.id FROM Company company JOIN company.departments departments WHERE departments.name LIKE :param1";
+        CriteriaImpl<Company> criteriaImpl = new CriteriaImpl<Company>(Company.class);
+        criteriaImpl.add(Comparison.like("departments.name", "%Name 10%"));
+        criteriaImpl.addOrder(Order.asc("name"));
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getExistsQueryLanguageString("id"));
+    }
+
+    @Test
+    public void testFetchJoinExists() {
+        CriteriaImpl<Company> criteriaImpl = new CriteriaImpl<Company>(Company.class);
+        criteriaImpl.addJoin(Join.leftJoin("departments"));
+        assertFalse(criteriaImpl.fetchJoinExists());
+        criteriaImpl = new CriteriaImpl<Company>(Company.class);
+        criteriaImpl.addJoin(Join.leftJoinFetch("departments"));
+        assertTrue(criteriaImpl.fetchJoinExists());
+        criteriaImpl.addProjection("name");
+        assertFalse(criteriaImpl.fetchJoinExists());
+    }
+
+    @Test
+    public void testIn() {
+        String expectedQueryLanguageString = "SELECT address FROM Address address WHERE address.state = :param1 AND address.city IN :param2";
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.add(Comparison.eq("state", "AZ"));
+        criteriaImpl.add(Logical.and(Comparison.in("city", "Phoenix", "Tucson")));
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+        assertEquals(Arrays.asList("Phoenix", "Tucson"), criteriaImpl.getQueryParameters().get("param2"));
+    }
+
+    @Test
+    public void testInChunked() {
+        String expectedQueryLanguageString = "SELECT address FROM Address address WHERE (address.id NOT IN :param1 AND address.id NOT IN :param2 AND address.id NOT IN :param3)";
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int id = 0; id < 2500; id++) {
+            ids.add(id);
+        }
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class, null, 1000, 3000);
+        criteriaImpl.add(Comparison.notIn("id", ids));
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+        assertEquals(ids.subList(2000, 2500), criteriaImpl.getQueryParameters().get("param3"));
+    }
+
+    @Test
+    public void testInChunkedMaxInParameters() {
+        String expectedQueryLanguageString = "SELECT address FROM Address address WHERE (address.id IN :param1 OR address.id IN :param2)";
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class, null, 2, 10);
+        criteriaImpl.add(Comparison.in("id", 1, 2, 3));
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+        assertEquals(Arrays.asList(3), criteriaImpl.getQueryParameters().get("param2"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInMaxQueryParameters() {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int id = 0; id < 1500; id++) {
+            ids.add(id);
+        }
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.add(Comparison.in("id", ids));
+        criteriaImpl.add(Logical.and(Comparison.notIn("id", ids)));
+        criteriaImpl.getQueryParameters();
+    }
+   
     @Test
     public void testLogical() {
         String expectedQueryLanguageString = "SELECT address FROM Address address WHERE address.city = :param1 AND address.state = :param2";
@@ -57,4 +172,113 @@ public class CriteriaImplTest {
         criteriaImpl.add(Comparison.like("name", "%Name 10%"));
         assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
     }
+
+    @Test
+    public void testOrderById() {
+        String queryLanguageString = "SELECT address FROM Address address WHERE address.state = :param1";
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.add(Comparison.eq("state", "AZ"));
+        assertEquals(queryLanguageString + " ORDER BY address.id ASC", criteriaImpl.getQueryLanguageString("id"));
+        criteriaImpl.addOrder(Order.desc("city"));
+        assertEquals(queryLanguageString + " ORDER BY address.city DESC, address.id ASC", criteriaImpl.getQueryLanguageString("id"));
+        criteriaImpl.addOrder(Order.desc("id"));
+        assertEquals(queryLanguageString + " ORDER BY address.city DESC, address.id DESC", criteriaImpl.getQueryLanguageString("id"));
+    }
+
+    @Test
+    public void testProjection() {
+        String expectedQueryLanguageString = "SELECT company.name, departments.name FROM Company company JOIN company.departments departments WHERE departments.name LIKE :param1";
+        CriteriaImpl<Company> criteriaImpl = new CriteriaImpl<Company>(Company.class);
+        criteriaImpl.add(Comparison.like("departments.name", "%Name 10%"));
+        criteriaImpl.addProjection("name").addProjection("departments.name");
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+    }
+
+    @Test
+    public void testQueryCache() {
+        QueryCache queryCache = new QueryCache(10);
+        CriteriaImpl<Address> criteriaImpl1 = new CriteriaImpl<Address>(Address.class, queryCache);
+        criteriaImpl1.add(Comparison.eq("city", "Phoenix"));
+        criteriaImpl1.add(Logical.and(Comparison.eq("state", "AZ")));
+        CriteriaImpl<Address> criteriaImpl2 = new CriteriaImpl<Address>(Address.class, queryCache);
+        criteriaImpl2.add(Comparison.eq("city", "Tucson"));
+        criteriaImpl2.add(Logical.and(Comparison.eq("state", "AZ")));
+        String queryLanguageString = criteriaImpl1.getQueryLanguageString();
+        assertSame(queryLanguageString, criteriaImpl2.getQueryLanguageString());
+        assertEquals(1, queryCache.getHitCount());
+        assertEquals("Tucson", criteriaImpl2.getQueryParameters().get("param1"));
+        assertEquals("AZ", criteriaImpl2.getQueryParameters().get("param2"));
+        criteriaImpl2.addOrder(Order.asc("city"));
+        assertEquals(queryLanguageString + " ORDER BY address.city ASC", criteriaImpl2.getQueryLanguageString());
+    }
+
+    @Test
+    public void testQueryCacheEviction() {
+        QueryCache queryCache = new QueryCache(2);
+        getQueryLanguageString(queryCache, Comparison.eq("city", "Phoenix"));
+        getQueryLanguageString(queryCache, Comparison.eq("state", "AZ"));
+        getQueryLanguageString(queryCache, Comparison.eq("city", "Tucson"));
+        getQueryLanguageString(queryCache, Comparison.eq("zipcode", "85001"));
+        assertEquals(2, queryCache.getSize());
+        assertEquals(1, queryCache.getHitCount());
+        getQueryLanguageString(queryCache, Comparison.eq("city", "Mesa"));
+        assertEquals(2, queryCache.getHitCount());
+        getQueryLanguageString(queryCache, Comparison.eq("state", "CA"));
+        assertEquals(2, queryCache.getHitCount());
+    }
+
+    @Test
+    public void testSeekAfter() {
+        String expectedQueryLanguageString = "SELECT address FROM Address address WHERE (address.state = :param1) AND (address.city > :seek1 OR (address.city = :seek1 AND address.id < :seek2)) ORDER BY address.city ASC, address.id DESC";
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.add(Comparison.eq("state", "AZ"));
+        criteriaImpl.addOrder(Order.asc("city"));
+        criteriaImpl.addOrder(Order.desc("id"));
+        criteriaImpl.seekAfter("Phoenix", 2);
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+        assertEquals("Phoenix", criteriaImpl.getQueryParameters().get("seek1"));
+        assertEquals(2, criteriaImpl.getQueryParameters().get("seek2"));
+    }
+
+    @Test
+    public void testSeekAfterNoRestriction() {
+        String expectedQueryLanguageString = "SELECT address FROM Address address WHERE (address.id > :seek1) ORDER BY address.id ASC";
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.addOrder(Order.asc("id"));
+        criteriaImpl.seekAfter(1);
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getQueryLanguageString());
+    }
+
+    @Test
+    public void testSeekAfterCount() {
+        String expectedQueryLanguageString = "SELECT COUNT(address) FROM Address address WHERE address.state = :param1";
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.add(Comparison.eq("state", "AZ"));
+        criteriaImpl.addOrder(Order.asc("id"));
+        criteriaImpl.seekAfter(1);
+        assertEquals(expectedQueryLanguageString, criteriaImpl.getCountQueryLanguageString());
+        assertEquals(Collections.singletonMap("param1", (Object)"AZ"), criteriaImpl.getCountQueryParameters());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSeekAfterAddOrder() {
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.addOrder(Order.asc("id"));
+        criteriaImpl.seekAfter(1);
+        criteriaImpl.addOrder(Order.asc("city"));
+        criteriaImpl.getQueryLanguageString();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSeekAfterInvalid() {
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class);
+        criteriaImpl.addOrder(Order.asc("id"));
+        criteriaImpl.seekAfter(1, 2);
+    }
+
+    private static String getQueryLanguageString(final QueryCache queryCache, final Criterion criterion) {
+        CriteriaImpl<Address> criteriaImpl = new CriteriaImpl<Address>(Address.class, queryCache);
+        criteriaImpl.add(criterion);
+        return criteriaImpl.getQueryLanguageString();
+    }
 }
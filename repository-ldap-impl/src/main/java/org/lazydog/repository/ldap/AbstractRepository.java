@@ -19,20 +19,36 @@
 package org.lazydog.repository.ldap;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.PreDestroy;
+import org.lazydog.repository.AsyncRepository;
 import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.Cursor;
 import org.lazydog.repository.Entity;
+import org.lazydog.repository.ExecutorAsyncRepository;
 import org.lazydog.repository.Repository;
+import org.lazydog.repository.criterion.Criterion;
 import org.lazydog.repository.ldap.internal.Configuration;
 import org.lazydog.repository.ldap.internal.ConfigurationException;
 import org.lazydog.repository.ldap.internal.CriteriaImpl;
+import org.lazydog.repository.ldap.internal.CriteriaTemplateImpl;
 import org.lazydog.repository.ldap.internal.Directory;
+import org.lazydog.repository.ldap.internal.DirectoryCursor;
 import org.lazydog.repository.ldap.internal.DirectoryException;
 import org.lazydog.repository.ldap.internal.EntityFactoryException;
+import org.lazydog.repository.ldap.internal.EntitySnapshots;
 import org.lazydog.repository.ldap.internal.FetchType;
 import static org.lazydog.repository.ldap.internal.Validator.*;
 
@@ -43,8 +59,10 @@ import static org.lazydog.repository.ldap.internal.Validator.*;
  */
 public abstract class AbstractRepository implements Repository {
 
+    private static final int EAGER_FETCH_BATCH_SIZE = 100;
     private Configuration configuration;
     private Directory directory;
+    private EntitySnapshots snapshots;
 
     /**
      * Constructor.
@@ -55,25 +73,36 @@ public abstract class AbstractRepository implements Repository {
 
         try {
 
-            // Initialize the configuration and get the directory.
+            // Initialize the configuration, get the directory, and initialize the entity snapshots.
             this.configuration = Configuration.newInstance();
             this.directory = this.configuration.getDirectory();
+            this.snapshots = EntitySnapshots.newInstance();
         } catch (ConfigurationException e) {
             throw new RepositoryException("Unable to initialize the configuration.", e, null);
         }
     }
+
+    /**
+     * Close the repository.  The directory is closed, so its pooled contexts
+     * and threads are released.  The repository must not be used once closed.
+     */
+    @PreDestroy
+    public void close() {
+        this.directory.close();
+    }
     
     /**
      * Convert the attribute name-attribute value map to a property name-property value map.
      * 
      * @param  entityClass   the entity class.
      * @param  attributeMap  the attribute name-attribute value map.
+     * @param  entityLoader  the entity loader.
      * 
      * @return  a property name-property value map.
      * 
      * @throws  EntityFactoryException  if unable to convert the attribute name-attribute value map to a property name-property value map.
      */
-    private Map<String,Object> convertAttributeMapToPropertyMap(final Class<?> entityClass, final Map<String,Set<String>> attributeMap) throws EntityFactoryException {
+    private Map<String,Object> convertAttributeMapToPropertyMap(final Class<?> entityClass, final Map<String,Set<String>> attributeMap, final EntityLoader entityLoader) throws EntityFactoryException {
 
         // Initialize.
         Map<String, Object> propertyMap = new HashMap<String, Object>();
@@ -87,7 +116,7 @@ public abstract class AbstractRepository implements Repository {
             // Get the attribute values, property name, and property value.
             Set<String> attributeValues = attributeMap.get(attributeName);
             String propertyName = this.configuration.getPropertyName(entityClass, attributeName);
-            Object propertyValue = this.getPropertyValue(entityClass, attributeValues, propertyName);
+            Object propertyValue = this.getPropertyValue(entityClass, attributeValues, propertyName, entityLoader);
 
             // Check if there is a property value.
             if (propertyValue != null) {
@@ -138,39 +167,117 @@ public abstract class AbstractRepository implements Repository {
     }
     
     /**
-     * Create the entity.
+     * Count the entities.  The position of the first result and the maximum
+     * number of results of the criteria are not applied.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  the number of entities that match the criteria.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or criteria is null or invalid.
+     * @throws  RepositoryException       if unable to count the entities.
+     */
+    @Override
+    public <T> long count(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.getEntryCount(entityClass, criteria, 0);
+    }
+
+    /**
+     * Create the entities.  The eagerly fetched entities referenced by the
+     * entities are loaded together before the entities are created.  If the
+     * entities are read from an open directory cursor, the referenced entities
+     * are loaded on the connection of the cursor.
+     * 
+     * @param  entityClass      the entity class.
+     * @param  attributeMaps    the distinguished name-attribute name-attribute value maps.
+     * @param  directoryCursor  the directory cursor the entities are read from, or null.
+     * @param  snapshotTaken    true if snapshots are taken of the entities, otherwise false.
+     * 
+     * @return  the entities in the order of the attribute name-attribute value maps.
+     * 
+     * @throws  DirectoryException      if unable to load the referenced entities.
+     * @throws  EntityFactoryException  if unable to create the entities.
+     */
+    private <T> List<T> createEntities(final Class<T> entityClass, final Map<String,Map<String,Set<String>>> attributeMaps, final DirectoryCursor directoryCursor, final boolean snapshotTaken) throws DirectoryException, EntityFactoryException {
+
+        // Initialize the entities.
+        List<T> entities = new ArrayList<T>();
+
+        // Load the referenced entities.
+        EntityLoader entityLoader = new EntityLoader(directoryCursor, snapshotTaken);
+        entityLoader.load(entityClass, attributeMaps.values());
+
+        // Loop through the attribute name-attribute value maps.
+        for (Map.Entry<String,Map<String,Set<String>>> attributeMap : attributeMaps.entrySet()) {
+
+            // Create the entity.
+            entities.add(this.createEntity(entityClass, attributeMap.getKey(), attributeMap.getValue(), entityLoader));
+        }
+
+        return entities;
+    }
+
+    /**
+     * Create the entity.  A snapshot of the attribute name-attribute value map
+     * is taken, so the entity can later be updated without reading the entry.
+     * No snapshot is taken of the entities streamed by a cursor, since a cursor
+     * is used to read many entities, so they are updated against the entry.
      * 
      * @param  entityClass   the entity class.
      * @param  id            the ID.
      * @param  attributeMap  the attribute name-attribute value map.
+     * @param  entityLoader  the entity loader.
      * 
      * @return  the entity.
      * 
      * @throws  EntityFactoryException  if unable to create the entity.
      */
-    private <T,U> T createEntity(final Class<T> entityClass, final U id, final Map<String,Set<String>> attributeMap) throws EntityFactoryException {
+    private <T,U> T createEntity(final Class<T> entityClass, final U id, final Map<String,Set<String>> attributeMap, final EntityLoader entityLoader) throws EntityFactoryException {
 
         // Convert the attribute name-attribute value map to the property name-property value map.
-        Map<String,Object> propertyMap = this.convertAttributeMapToPropertyMap(entityClass, attributeMap);
+        Map<String,Object> propertyMap = this.convertAttributeMapToPropertyMap(entityClass, attributeMap, entityLoader);
         propertyMap.put("id", id);
 
         // Create the entity class.
-        return this.configuration.getEntityFactory(entityClass).createEntity(propertyMap);
+        T entity = this.configuration.getEntityFactory(entityClass).createEntity(propertyMap);
+
+        // Check if a snapshot is taken of the entity.
+        if (entityLoader.isSnapshotTaken()) {
+
+            // Take a snapshot of the entity.
+            this.snapshots.put((String)id, entity, attributeMap);
+        }
+
+        return entity;
     }
 	
     /**
-     * Create the entity.
+     * Create the entity.  An eagerly fetched entity is taken from the entity
+     * loader if it was loaded, otherwise it is found.
      * 
-     * @param  entityClass  the entity class.
-     * @param  id           the ID.
-     * @param  fetchType    the fetch type.
+     * @param  entityClass   the entity class.
+     * @param  id            the ID.
+     * @param  fetchType     the fetch type.
+     * @param  entityLoader  the entity loader.
      * 
      * @return  the entity.
      * 
      * @throws  EntityFactoryException  if unable to create the entity.
      */
-    private <T,U> T createEntity(final Class<T> entityClass, final U id, final FetchType fetchType) throws EntityFactoryException {
-        return (fetchType == FetchType.EAGER) ? this.find(entityClass, id) : this.createLazyEntity(entityClass, id);
+    private <T> T createEntity(final Class<T> entityClass, final String id, final FetchType fetchType, final EntityLoader entityLoader) throws EntityFactoryException {
+
+        // Initialize the entity.
+        T entity;
+
+        // Check if the entity is fetched eagerly.
+        if (fetchType == FetchType.EAGER) {
+            entity = (entityLoader.isLoaded(entityClass, id)) ? entityLoader.getEntity(entityClass, id) : this.find(entityClass, id);
+        } else {
+            entity = this.createLazyEntity(entityClass, id);
+        }
+
+        return entity;
     }
 	
     /**
@@ -192,6 +299,22 @@ public abstract class AbstractRepository implements Repository {
         return this.configuration.getEntityFactory(entityClass).createEntity(propertyValues);
     }
     
+    /**
+     * Check if any entity exists.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     *
+     * @return  true if an entity matches the criteria, otherwise false.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or criteria is null or invalid.
+     * @throws  RepositoryException       if unable to check if any entity exists.
+     */
+    @Override
+    public <T> boolean exists(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.getEntryCount(entityClass, criteria, 1) > 0;
+    }
+
     /**
      * Find the entity.
      *
@@ -221,7 +344,7 @@ public abstract class AbstractRepository implements Repository {
             if (attributeMap.size() > 0) {
 
                 // Create the entity.
-                entity = this.createEntity(entityClass, id, attributeMap);
+                entity = this.createEntities(entityClass, Collections.singletonMap((String)id, attributeMap), null, true).get(0);
             }
         } catch (DirectoryException e) {
             throw new RepositoryException(
@@ -263,6 +386,136 @@ public abstract class AbstractRepository implements Repository {
         return entities.get(0);
     }
 
+    /**
+     * Find the entities by the IDs.  The entries are retrieved with one-level
+     * searches that each match a chunk of the entries with the same parent,
+     * rather than one lookup per ID.
+     *
+     * @param  entityClass  the entity class.
+     * @param  ids          the IDs.
+     *
+     * @return  the ID-entity map in the order of the IDs.  IDs of entities that do not exist are not in the map.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or IDs are null or invalid.
+     * @throws  RepositoryException       if unable to find the entities.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T,U> Map<U,T> findByIds(final Class<T> entityClass, final Collection<U> ids) {
+
+        validEntityClass(entityClass, this.configuration.getEntityClasses());
+        validIds(ids);
+
+        // Initialize the ID-entity map.
+        Map<U,T> entityMap = new LinkedHashMap<U,T>();
+
+        try {
+
+            // Get the distinguished name-attribute name-attribute value maps for the entities identified by ID.
+            Set<String> dns = new LinkedHashSet<String>((Collection<String>)ids);
+            Map<String,Map<String,Set<String>>> foundAttributeMaps = this.directory.getAttributeMaps(dns, this.configuration.getAttributeNames(entityClass));
+
+            // Order the attribute name-attribute value maps by ID.
+            Map<String,Map<String,Set<String>>> attributeMaps = new LinkedHashMap<String,Map<String,Set<String>>>();
+            for (String dn : dns) {
+                if (foundAttributeMaps.containsKey(dn)) {
+                    attributeMaps.put(dn, foundAttributeMaps.get(dn));
+                }
+            }
+
+            // Create the entities.
+            Iterator<T> entities = this.createEntities(entityClass, attributeMaps, null, true).iterator();
+            for (String dn : attributeMaps.keySet()) {
+                entityMap.put((U)dn, entities.next());
+            }
+        } catch (DirectoryException e) {
+            throw new RepositoryException(
+                    "Unable to find the entities " + entityClass + " identified by ids " + ids + ".", 
+                    e, entityClass);
+        } catch (EntityFactoryException e) {
+            throw new RepositoryException(
+                    "Unable to find the entities " + entityClass + " identified by ids " + ids + ".", 
+                    e, entityClass);
+        }
+
+        return entityMap;
+    }
+
+    /**
+     * Find the cursor of entities.
+     *
+     * @param  entityClass  the entity class.
+     *
+     * @return  the cursor of entities.
+     * 
+     * @throws  IllegalArgumentException  if the entity class is null or invalid.
+     * @throws  RepositoryException       if unable to find the cursor of entities.
+     */
+    @Override
+    public <T> Cursor<T> findCursor(final Class<T> entityClass) {
+        return this.findCursor(entityClass, this.getCriteria(entityClass));
+    }
+
+    /**
+     * Find the cursor of entities.  No snapshots are taken of the entities, so
+     * persisting one of them reads its entry to update it.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     * 
+     * @return  the cursor of entities.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or criteria is null or invalid.
+     * @throws  RepositoryException       if unable to find the cursor of entities.
+     */
+    @Override
+    public <T> Cursor<T> findCursor(final Class<T> entityClass, final Criteria<T> criteria) {
+        return this.findCursor(entityClass, criteria, false);
+    }
+
+    /**
+     * Find the cursor of entities.
+     *
+     * @param  entityClass    the entity class.
+     * @param  criteria       the criteria.
+     * @param  snapshotTaken  true if snapshots are taken of the entities, otherwise false.
+     * 
+     * @return  the cursor of entities.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or criteria is null or invalid.
+     * @throws  RepositoryException       if unable to find the cursor of entities.
+     */
+    private <T> Cursor<T> findCursor(final Class<T> entityClass, final Criteria<T> criteria, final boolean snapshotTaken) {
+		
+        validEntityClass(entityClass, this.configuration.getEntityClasses());
+        validCriteria(criteria);
+
+        try {
+
+            CriteriaImpl<T> criteriaImpl = (CriteriaImpl<T>)criteria;
+
+            // Get the directory cursor for the entities.  The directory has no
+            // server-side offset, so the skipped entries count towards the limit.
+            DirectoryCursor directoryCursor = this.directory.getCursor(
+                    criteriaImpl.getFilter(),
+                    criteriaImpl.getSearchBase(),
+                    criteriaImpl.getSearchScope(),
+                    this.configuration.getAttributeNames(entityClass),
+                    (criteriaImpl.getMaxResults() == 0) ? 0 : (long)criteriaImpl.getFirstResult() + criteriaImpl.getMaxResults());
+
+            // Skip the entries before the first result.
+            for (int index = 0; index < criteriaImpl.getFirstResult() && directoryCursor.hasNext(); index++) {
+                directoryCursor.next();
+            }
+
+            return new EntityCursor<T>(entityClass, criteria, directoryCursor, snapshotTaken);
+        } catch (DirectoryException e) {
+            throw new RepositoryException(
+                    "Unable to find the entities " + entityClass + " with criteria '" + criteria + "'.", 
+                    e, entityClass);
+        }
+    }
+
     /**
      * Find the list of entities.
      *
@@ -279,7 +532,8 @@ public abstract class AbstractRepository implements Repository {
     }
 
     /**
-     * Find the list of entities.
+     * Find the list of entities.  Unlike the cursor of entities, snapshots are
+     * taken of the entities, so persisting one of them does not read its entry.
      *
      * @param  entityClass  the entity class.
      * @param  criteria     the criteria.
@@ -291,52 +545,163 @@ public abstract class AbstractRepository implements Repository {
      */
     @Override
     public <T> List<T> findList(final Class<T> entityClass, final Criteria<T> criteria) {
-		
-        validEntityClass(entityClass, this.configuration.getEntityClasses());
-        validCriteria(criteria);
 
         // Initialize the list of entities.
         List<T> entities = new ArrayList<T>();
 
+        // Get the cursor of entities.
+        Cursor<T> cursor = this.findCursor(entityClass, criteria, true);
+
         try {
 
-            // Get the attribute name-attribute value maps for the entity identified by ID.
-            Map<String,Map<String,Set<String>>> attributeMaps = this.directory.getAttributeMaps(
-                    ((CriteriaImpl<T>)criteria).getFilter(),
-                    ((CriteriaImpl<T>)criteria).getSearchBase(),
-                    ((CriteriaImpl<T>)criteria).getSearchScope(),
-                    this.configuration.getAttributeNames(entityClass));
+            // Loop through the entities.
+            while (cursor.hasNext()) {
 
-            // Check if there are attribute name-attribute value maps.
-            if (attributeMaps.size() > 0) { 
+                // Add the entity to the list of entities.
+                entities.add(cursor.next());
+            }
+        } finally {
+            cursor.close();
+        }
 
-                // Get the IDs.
-                Set<String> ids = attributeMaps.keySet();
+        return entities;
+    }
 
-                // Loop through the IDs.
-                for (String id : ids) {
+    /**
+     * Find the list of projections.  Only the attributes of the projected
+     * properties are retrieved, and entity properties are projected as the
+     * IDs of the entities rather than the entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria with at least one projection.
+     *
+     * @return  the list of property name-property value maps, each in the order of the projections.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or criteria is null or invalid.
+     * @throws  RepositoryException       if unable to find the list of projections.
+     */
+    @Override
+    public <T> List<Map<String,Object>> findProjectionList(final Class<T> entityClass, final Criteria<T> criteria) {
+
+        validEntityClass(entityClass, this.configuration.getEntityClasses());
+        validCriteria(criteria);
 
-                    // Get the attribute map.
-                    Map<String,Set<String>> attributeMap = attributeMaps.get(id);
+        // Check if the criteria has no projections.
+        if (!criteria.projectionExists()) {
+            throw new IllegalArgumentException("The criteria has no projections.");
+        }
+
+        // Initialize the list of projections.
+        List<Map<String,Object>> projectionList = new ArrayList<Map<String,Object>>();
+
+        try {
 
-                    // Create the entity.
-                    T entity = this.createEntity(entityClass, id, attributeMap);
+            CriteriaImpl<T> criteriaImpl = (CriteriaImpl<T>)criteria;
 
-                    // Add the entity to the list of entities.
-                    entities.add(entity);
+            // Get the attribute names of the projected properties.
+            Set<String> attributeNames = new HashSet<String>();
+            for (String propertyName : criteriaImpl.getProjections()) {
+                if (!"id".equals(propertyName)) {
+                    attributeNames.add(this.configuration.getAttributeName(entityClass, propertyName));
                 }
             }
+
+            // Get the directory cursor for the entries.  The directory has no
+            // server-side offset, so the skipped entries count towards the limit.
+            DirectoryCursor directoryCursor = this.directory.getCursor(
+                    criteriaImpl.getFilter(),
+                    criteriaImpl.getSearchBase(),
+                    criteriaImpl.getSearchScope(),
+                    attributeNames,
+                    (criteriaImpl.getMaxResults() == 0) ? 0 : (long)criteriaImpl.getFirstResult() + criteriaImpl.getMaxResults());
+
+            try {
+
+                // Skip the entries before the first result.
+                for (int index = 0; index < criteriaImpl.getFirstResult() && directoryCursor.hasNext(); index++) {
+                    directoryCursor.next();
+                }
+
+                // Loop through the entries.
+                while (directoryCursor.hasNext()) {
+
+                    // Get the entry.
+                    Map.Entry<String,Map<String,Set<String>>> entry = directoryCursor.next();
+
+                    // Initialize the projection.
+                    Map<String,Object> projection = new LinkedHashMap<String,Object>();
+
+                    // Loop through the projected properties.
+                    for (String propertyName : criteriaImpl.getProjections()) {
+
+                        // Check if the property is the ID.
+                        if ("id".equals(propertyName)) {
+
+                            // Put the distinguished name in the projection.
+                            projection.put(propertyName, entry.getKey());
+                            continue;
+                        }
+
+                        // Get the attribute values.
+                        Set<String> attributeValues = entry.getValue().get(this.configuration.getAttributeName(entityClass, propertyName));
+                        Object propertyValue = null;
+
+                        // Check if there are attribute values.
+                        if (attributeValues != null && attributeValues.size() > 0) {
+
+                            // Check if the property is an entity or set of entities.
+                            if (this.configuration.isEntityType(entityClass, propertyName)) {
+
+                                // Set the property value to the ID or set of IDs.
+                                propertyValue = (this.configuration.getEntityFactory(entityClass).getMutatorParameterType(propertyName) == Set.class)
+                                        ? new HashSet<String>(attributeValues)
+                                        : attributeValues.iterator().next();
+                            } else {
+
+                                // Set the property value.
+                                propertyValue = this.getPropertyValue(entityClass, attributeValues, propertyName, null);
+                            }
+                        }
+
+                        // Put the property value in the projection.
+                        projection.put(propertyName, propertyValue);
+                    }
+
+                    // Add the projection to the list of projections.
+                    projectionList.add(projection);
+                }
+            } finally {
+                directoryCursor.close();
+            }
         } catch (DirectoryException e) {
             throw new RepositoryException(
-                    "Unable to find the entities " + entityClass + " with criteria '" + criteria + "'.", 
+                    "Unable to find the projections of entities " + entityClass + " with criteria '" + criteria + "'.", 
                     e, entityClass);
         } catch (EntityFactoryException e) {
             throw new RepositoryException(
-                    "Unable to find the entities " + entityClass + " with criteria '" + criteria + "'.", 
+                    "Unable to find the projections of entities " + entityClass + " with criteria '" + criteria + "'.", 
                     e, entityClass);
         }
 
-        return entities;
+        return projectionList;
+    }
+
+    /**
+     * Get the asynchronous repository.  Each call of the asynchronous
+     * repository runs on a thread of the executor service and borrows its own
+     * LDAP connection from the connection pool, so the number of concurrent
+     * calls is bounded by the maximum size of the connection pool.
+     *
+     * @param  executorService  the executor service.
+     *
+     * @return  the asynchronous repository.
+     *
+     * @throws  IllegalArgumentException  if the executor service is invalid.
+     *
+     * @see  ExecutorAsyncRepository#newExecutorService()
+     */
+    public AsyncRepository getAsyncRepository(final ExecutorService executorService) {
+        return ExecutorAsyncRepository.newInstance(this, executorService);
     }
 
     /**
@@ -421,19 +786,79 @@ public abstract class AbstractRepository implements Repository {
                 this.configuration.getSearchScope(entityClass));
     }
 
+    /**
+     * Get the criteria template.
+     * 
+     * @param  entityClass   the entity class.
+     * @param  restrictions  the restriction criterions, which may use named parameters as values.
+     * @param  orders        the order criterions.
+     * 
+     * @return  the criteria template.
+     * 
+     * @throws  IllegalArgumentException       if the entity class is null or invalid, or the restrictions are invalid.
+     * @throws  UnsupportedOperationException  if there are order criterions.
+     */
+    @Override
+    public <T> CriteriaTemplate<T> getCriteriaTemplate(final Class<T> entityClass, final List<Criterion> restrictions, final List<Criterion> orders) {
+
+        validEntityClass(entityClass, this.configuration.getEntityClasses());
+        return new CriteriaTemplateImpl<T>(
+                this.configuration.getObjectClassValues(entityClass),
+                this.configuration.getPropertyAttributeMap(entityClass),
+                this.configuration.getSearchBase(entityClass),
+                this.configuration.getSearchScope(entityClass),
+                restrictions,
+                orders);
+    }
+
+    /**
+     * Get the number of entries for the entities.
+     *
+     * @param  entityClass  the entity class.
+     * @param  criteria     the criteria.
+     * @param  countLimit   the maximum number of entries to count, or 0 for no limit.
+     *
+     * @return  the number of entries.
+     * 
+     * @throws  IllegalArgumentException  if the entity class or criteria is null or invalid.
+     * @throws  RepositoryException       if unable to get the number of entries.
+     */
+    private <T> long getEntryCount(final Class<T> entityClass, final Criteria<T> criteria, final long countLimit) {
+
+        validEntityClass(entityClass, this.configuration.getEntityClasses());
+        validCriteria(criteria);
+
+        try {
+
+            CriteriaImpl<T> criteriaImpl = (CriteriaImpl<T>)criteria;
+
+            // Get the number of entries without retrieving their attributes.
+            return this.directory.getEntryCount(
+                    criteriaImpl.getFilter(),
+                    criteriaImpl.getSearchBase(),
+                    criteriaImpl.getSearchScope(),
+                    countLimit);
+        } catch (DirectoryException e) {
+            throw new RepositoryException(
+                    "Unable to count the entities " + entityClass + " with criteria '" + criteria + "'.", 
+                    e, entityClass);
+        }
+    }
+
     /**
      * Get the property value from the attribute values.
      * 
      * @param  entityClass      the entity class.
      * @param  attributeValues  the attribute values.
      * @param  propertyName     the property name.
+     * @param  entityLoader     the entity loader.
      * 
      * @return  the property value.
      * 
      * @throws  EntityFactoryException  if unable to get the property value.
      */
     @SuppressWarnings("unchecked")
-    private Object getPropertyValue(final Class<?> entityClass, final Set<String> attributeValues, final String propertyName) throws EntityFactoryException {
+    private Object getPropertyValue(final Class<?> entityClass, final Set<String> attributeValues, final String propertyName, final EntityLoader entityLoader) throws EntityFactoryException {
 		
         // Initialize the property value.
         Object propertyValue = null;
@@ -457,7 +882,7 @@ public abstract class AbstractRepository implements Repository {
                 FetchType fetchType = this.configuration.getFetchType(entityClass, propertyName);
 
                 // Set the property value to the entity.
-                propertyValue = this.createEntity(targetEntityClass, attributeValueList.get(0), fetchType);
+                propertyValue = this.createEntity(targetEntityClass, attributeValueList.get(0), fetchType, entityLoader);
 	
             // Check if the property is an integer.
             } else if (propertyType == Integer.class && !this.configuration.isEntityType(entityClass, propertyName)) {
@@ -487,7 +912,7 @@ public abstract class AbstractRepository implements Repository {
                 for (String attributeValue : attributeValues) {
 
                     // Add the entity to the set of entities.
-                    ((HashSet)propertyValue).add(this.createEntity(targetEntityClass, attributeValue, fetchType));
+                    ((HashSet)propertyValue).add(this.createEntity(targetEntityClass, attributeValue, fetchType, entityLoader));
                 }
 	
             // Check if the property is a set of strings.
@@ -509,7 +934,10 @@ public abstract class AbstractRepository implements Repository {
     }
 
     /**
-     * Persist the entity.
+     * Persist the entity.  An entity that was found or persisted by this
+     * repository is updated against its snapshot with a single modification
+     * request.  Otherwise the entity is added with a single request, and only
+     * if the entry already exists is it read and updated.
      *
      * @param  entity  the entity.
      *
@@ -523,11 +951,19 @@ public abstract class AbstractRepository implements Repository {
     public <T> T persist(final T entity) {
 		
         validEntity(entity, this.configuration.getEntityClasses());
-		
-        try {
 
-            // Get the ID for the entity.
-            String id = (String)((Entity<?,?>)entity).getId();
+        // Get the ID for the entity.
+        String id = (String)((Entity<?,?>)entity).getId();
+
+        // Get the snapshot of the entity.  The snapshot is removed until the
+        // entity is persisted, since a failed update leaves it unknown.
+        Map<String,Set<String>> snapshot = this.snapshots.get(id, entity);
+        this.snapshots.remove(id);
+
+        // Initialize the attribute name-attribute value map.
+        Map<String,Set<String>> attributeMap = null;
+
+        try {
 
             // Get the property names for the entity.
             Set<String> propertyNames = this.configuration.getPropertyNames(entity.getClass());
@@ -536,23 +972,31 @@ public abstract class AbstractRepository implements Repository {
             Map<String,Object> propertyMap = this.configuration.getEntityFactory((Class<T>)entity.getClass()).getPropertyMap(entity, propertyNames);
 
             // Convert the property name-property value map to the attribute name-attribute value map.
-            Map<String,Set<String>> attributeMap = this.convertPropertyMapToAttributeMap(entity.getClass(), propertyMap);
+            attributeMap = this.convertPropertyMapToAttributeMap(entity.getClass(), propertyMap);
 
-            // Check if the entity has already been persisted.
-            if (this.directory.entryExists(id)) {
+            // Check if there is a snapshot of the entity.
+            if (snapshot != null) {
 
-                // Update the entity.
-                this.directory.updateEntry(id, attributeMap, this.configuration.getReferentialIntegrityMap(entity.getClass()));
+                // Update the entity against the snapshot.
+                this.directory.updateEntry(id, attributeMap, snapshot, this.configuration.getReferentialIntegrityMap(entity.getClass()));
 
-            // Otherwise this is a new entity.
+            // Otherwise the entity is optimistically added as a new entity.
             } else {
 
-                // Add the object class to the attribute name-attribute value map.
-                attributeMap.put("objectClass", this.configuration.getObjectClassValues(entity.getClass()));
+                // Add the entity with the object class.
+                Map<String,Set<String>> entryAttributeMap = new HashMap<String,Set<String>>(attributeMap);
+                entryAttributeMap.put("objectClass", this.configuration.getObjectClassValues(entity.getClass()));
+
+                // Check if the entity has already been persisted.
+                if (!this.directory.addEntryIfAbsent(id, entryAttributeMap, this.configuration.getReferentialIntegrityMap(entity.getClass()))) {
 
-                // Add the entity.
-                this.directory.addEntry(id, attributeMap, this.configuration.getReferentialIntegrityMap(entity.getClass()));
+                    // Update the entity.
+                    this.directory.updateEntry(id, attributeMap, this.configuration.getReferentialIntegrityMap(entity.getClass()));
+                }
             }
+
+            // Take a snapshot of the persisted entity.
+            this.snapshots.put(id, entity, attributeMap);
         } catch (DirectoryException e) {
             throw new RepositoryException(
                     "Unable to persist the entity " + entity.getClass() + " identified by id '" + ((Entity)entity).getId() + "'.", 
@@ -561,11 +1005,47 @@ public abstract class AbstractRepository implements Repository {
             throw new RepositoryException(
                     "Unable to persist the entity " + entity.getClass() + " identified by id '" + ((Entity)entity).getId() + "'.", 
                     e, entity.getClass());
+        } finally {
+
+            // Check if there is an attribute name-attribute value map.
+            if (attributeMap != null) {
+
+                // Remove the snapshots of the entries updated to enforce referential integrity.
+                this.removeReferencedSnapshots(attributeMap, this.configuration.getReferentialIntegrityMap(entity.getClass()));
+            }
         }
 
         return entity;
     }
 
+    /**
+     * Persist the list of entities in batches.  The entries are written one at
+     * a time, so the entities are persisted as a single batch.
+     *
+     * @param  entities  the entities.
+     *
+     * @return  the IDs of the persisted entities.
+     * 
+     * @throws  IllegalArgumentException  if the list of entities is null or invalid.
+     * @throws  RepositoryException       if unable to persist the list of entities.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T,U> List<U> persistBatch(final List<T> entities) {
+
+        // Initialize.
+        List<U> ids = new ArrayList<U>();
+
+        // Loop through the persisted entities.
+        for (T persistedEntity : this.persistList(entities)) {
+
+            // Add the ID of the persisted entity.
+            ids.add((U)((Entity<?,?>)persistedEntity).getId());
+        }
+
+        return ids;
+    }
+
     /**
      * Persist the list of entities.
      *
@@ -614,7 +1094,8 @@ public abstract class AbstractRepository implements Repository {
 
         try {
 
-            // Remove the entity.
+            // Remove the entity and its snapshot.
+            this.snapshots.remove((String)id);
             this.directory.removeEntry((String)id);
         } catch (DirectoryException e) {
             throw new RepositoryException(
@@ -644,4 +1125,288 @@ public abstract class AbstractRepository implements Repository {
             this.remove(entityClass, id);
         }
     }
+
+    /**
+     * Remove the snapshots of the entries referenced by the attributes that
+     * require referential integrity, since enforcing referential integrity
+     * updates those entries.
+     *
+     * @param  attributeMap                      the attribute name-attribute value map.
+     * @param  attributeReferentialIntegrityMap  the referential integrity attribute map.
+     */
+    private void removeReferencedSnapshots(final Map<String,Set<String>> attributeMap, final Map<String,String> attributeReferentialIntegrityMap) {
+
+        // Check if there is no referential integrity attribute map.
+        if (attributeReferentialIntegrityMap == null) {
+            return;
+        }
+
+        // Loop through the attribute names that require referential integrity.
+        for (String attributeName : attributeReferentialIntegrityMap.keySet()) {
+
+            // Check if the attribute has values.
+            if (attributeMap.get(attributeName) != null) {
+
+                // Remove the snapshots of the referenced entries.
+                this.snapshots.removeAll(attributeMap.get(attributeName));
+            }
+        }
+    }
+
+    /**
+     * Entity cursor.  The entities are created in batches as the directory cursor
+     * is consumed, so the eagerly fetched entities referenced by a batch are loaded together.
+     */
+    private class EntityCursor<T> implements Cursor<T> {
+
+        private Criteria<T> criteria;
+        private DirectoryCursor directoryCursor;
+        private Class<T> entityClass;
+        private Iterator<T> entities;
+        private boolean snapshotTaken;
+
+        /**
+         * Constructor.
+         *
+         * @param  entityClass      the entity class.
+         * @param  criteria         the criteria.
+         * @param  directoryCursor  the directory cursor.
+         * @param  snapshotTaken    true if snapshots are taken of the entities, otherwise false.
+         */
+        EntityCursor(final Class<T> entityClass, final Criteria<T> criteria, final DirectoryCursor directoryCursor, final boolean snapshotTaken) {
+            this.criteria = criteria;
+            this.directoryCursor = directoryCursor;
+            this.entityClass = entityClass;
+            this.entities = Collections.<T>emptyList().iterator();
+            this.snapshotTaken = snapshotTaken;
+        }
+
+        /**
+         * Close the cursor.
+         */
+        @Override
+        public void close() {
+            this.directoryCursor.close();
+            this.entities = Collections.<T>emptyList().iterator();
+        }
+
+        /**
+         * Check if there is a next entity.
+         *
+         * @return  true if there is a next entity, otherwise false.
+         *
+         * @throws  RepositoryException  if unable to check if there is a next entity.
+         */
+        @Override
+        public boolean hasNext() {
+
+            try {
+
+                // Check if the current batch is exhausted and there is a next entry.
+                if (!this.entities.hasNext() && this.directoryCursor.hasNext()) {
+
+                    // Get the next batch of entries.
+                    Map<String,Map<String,Set<String>>> attributeMaps = new LinkedHashMap<String,Map<String,Set<String>>>();
+                    while (attributeMaps.size() < EAGER_FETCH_BATCH_SIZE && this.directoryCursor.hasNext()) {
+                        Map.Entry<String,Map<String,Set<String>>> entry = this.directoryCursor.next();
+                        attributeMaps.put(entry.getKey(), entry.getValue());
+                    }
+
+                    // Create the next batch of entities.  The referenced entities are loaded on
+                    // the connection of the directory cursor, which is still open between batches.
+                    this.entities = AbstractRepository.this.createEntities(this.entityClass, attributeMaps, this.directoryCursor, this.snapshotTaken).iterator();
+                }
+            } catch (DirectoryException e) {
+                throw new RepositoryException(
+                        "Unable to find the entities " + this.entityClass + " with criteria '" + this.criteria + "'.", 
+                        e, this.entityClass);
+            } catch (EntityFactoryException e) {
+                throw new RepositoryException(
+                        "Unable to find the entities " + this.entityClass + " with criteria '" + this.criteria + "'.", 
+                        e, this.entityClass);
+            }
+
+            return this.entities.hasNext();
+        }
+
+        /**
+         * Get the next entity.
+         *
+         * @return  the next entity.
+         *
+         * @throws  NoSuchElementException  if there is no next entity.
+         * @throws  RepositoryException     if unable to get the next entity.
+         */
+        @Override
+        public T next() {
+
+            // Check if there is no next entity.
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return this.entities.next();
+        }
+
+        /**
+         * Remove is not supported.
+         *
+         * @throws  UnsupportedOperationException  always.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove is not supported by the cursor.");
+        }
+    }
+
+    /**
+     * Entity loader.  The eagerly fetched entities referenced by a batch of entries
+     * are retrieved together with a small number of directory searches, and an entity
+     * referenced more than once is only retrieved once.
+     */
+    private class EntityLoader {
+
+        private DirectoryCursor directoryCursor;
+        private Map<Class<?>,Map<String,Object>> entityMaps = new HashMap<Class<?>,Map<String,Object>>();
+        private boolean snapshotTaken;
+
+        /**
+         * Constructor.
+         *
+         * @param  directoryCursor  the directory cursor whose connection is used, or null.
+         * @param  snapshotTaken    true if snapshots are taken of the entities, otherwise false.
+         */
+        EntityLoader(final DirectoryCursor directoryCursor, final boolean snapshotTaken) {
+            this.directoryCursor = directoryCursor;
+            this.snapshotTaken = snapshotTaken;
+        }
+
+        /**
+         * Get the loaded entity.
+         *
+         * @param  entityClass  the entity class.
+         * @param  id           the ID.
+         *
+         * @return  the loaded entity, or null if the entity does not exist.
+         */
+        <T> T getEntity(final Class<T> entityClass, final String id) {
+            return entityClass.cast(this.entityMaps.get(entityClass).get(id));
+        }
+
+        /**
+         * Is the entity loaded?
+         *
+         * @param  entityClass  the entity class.
+         * @param  id           the ID.
+         *
+         * @return  true if the entity is loaded, otherwise false.
+         */
+        boolean isLoaded(final Class<?> entityClass, final String id) {
+            return this.entityMaps.containsKey(entityClass) && this.entityMaps.get(entityClass).containsKey(id);
+        }
+
+        /**
+         * Is a snapshot taken of the entities?
+         *
+         * @return  true if a snapshot is taken of the entities, otherwise false.
+         */
+        boolean isSnapshotTaken() {
+            return this.snapshotTaken;
+        }
+
+        /**
+         * Load the eagerly fetched entities referenced by the entries.
+         *
+         * @param  entityClass    the entity class of the entries.
+         * @param  attributeMaps  the attribute name-attribute value maps of the entries.
+         *
+         * @throws  DirectoryException      if unable to retrieve the referenced entities.
+         * @throws  EntityFactoryException  if unable to create the referenced entities.
+         */
+        void load(final Class<?> entityClass, final Collection<Map<String,Set<String>>> attributeMaps) throws DirectoryException, EntityFactoryException {
+
+            // Initialize the target entity class-IDs map.
+            Map<Class<?>,Set<String>> targetIdsMap = new LinkedHashMap<Class<?>,Set<String>>();
+
+            // Loop through the attribute name-attribute value maps.
+            for (Map<String,Set<String>> attributeMap : attributeMaps) {
+
+                // Loop through the attributes.
+                for (Map.Entry<String,Set<String>> attribute : attributeMap.entrySet()) {
+
+                    // Get the property name.
+                    String propertyName = AbstractRepository.this.configuration.getPropertyName(entityClass, attribute.getKey());
+
+                    // Check if the property is an eagerly fetched entity.
+                    if (propertyName != null && 
+                        AbstractRepository.this.configuration.isEntityType(entityClass, propertyName) &&
+                        AbstractRepository.this.configuration.getFetchType(entityClass, propertyName) == FetchType.EAGER) {
+
+                        // Get the target entity class.
+                        Class<?> targetEntityClass = AbstractRepository.this.configuration.getTargetEntityClass(entityClass, propertyName);
+                        if (!targetIdsMap.containsKey(targetEntityClass)) {
+                            targetIdsMap.put(targetEntityClass, new LinkedHashSet<String>());
+                        }
+
+                        // Loop through the IDs.
+                        for (String id : attribute.getValue()) {
+
+                            // Check if the entity is not loaded.
+                            if (!this.isLoaded(targetEntityClass, id)) {
+                                targetIdsMap.get(targetEntityClass).add(id);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Loop through the target entity classes.
+            for (Map.Entry<Class<?>,Set<String>> targetIds : targetIdsMap.entrySet()) {
+
+                // Check if there are entities to load.
+                if (!targetIds.getValue().isEmpty()) {
+                    this.loadEntities(targetIds.getKey(), targetIds.getValue());
+                }
+            }
+        }
+
+        /**
+         * Load the entities.
+         *
+         * @param  entityClass  the entity class.
+         * @param  ids          the IDs.
+         *
+         * @throws  DirectoryException      if unable to retrieve the entities.
+         * @throws  EntityFactoryException  if unable to create the entities.
+         */
+        private void loadEntities(final Class<?> entityClass, final Set<String> ids) throws DirectoryException, EntityFactoryException {
+
+            // Get the attribute name-attribute value maps for the IDs.
+            Map<String,Map<String,Set<String>>> attributeMaps = AbstractRepository.this.directory.getAttributeMaps(
+                    ids, AbstractRepository.this.configuration.getAttributeNames(entityClass), this.directoryCursor);
+
+            // Get the entity map.
+            if (!this.entityMaps.containsKey(entityClass)) {
+                this.entityMaps.put(entityClass, new HashMap<String,Object>());
+            }
+            Map<String,Object> entityMap = this.entityMaps.get(entityClass);
+
+            // Mark the entities as loaded before they are created, so circular
+            // references do not retrieve them again.  Missing entities stay null.
+            for (String id : ids) {
+                entityMap.put(id, null);
+            }
+
+            // Load the entities referenced by the entities.
+            this.load(entityClass, attributeMaps.values());
+
+            // Loop through the attribute name-attribute value maps.
+            for (Map.Entry<String,Map<String,Set<String>>> attributeMap : attributeMaps.entrySet()) {
+
+                // Create the entity.
+                entityMap.put(attributeMap.getKey(), AbstractRepository.this.createEntity(
+                        entityClass, attributeMap.getKey(), attributeMap.getValue(), this));
+            }
+        }
+    }
 }
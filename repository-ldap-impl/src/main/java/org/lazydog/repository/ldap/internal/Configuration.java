@@ -21,6 +21,7 @@ package org.lazydog.repository.ldap.internal;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -52,6 +53,8 @@ public final class Configuration {
             add(String.class);
         }
     };
+    private Map<Class<?>,Set<String>> attributeNames;
+    private Map<Class<?>,Map<String,String>> attributePropertyMap;
     private Map<Class<?>,Map<String,String>> attributeReferentialIntegrityMap;
     private Directory directory;
     private Map<Class<?>,EntityFactory<?>> entityFactoryMap;
@@ -92,6 +95,8 @@ public final class Configuration {
         }
 
         // Initialize the maps.
+        this.attributeNames = new HashMap<Class<?>,Set<String>>();
+        this.attributePropertyMap = new HashMap<Class<?>,Map<String,String>>();
         this.attributeReferentialIntegrityMap = new HashMap<Class<?>,Map<String,String>>();
         this.entityFactoryMap = new HashMap<Class<?>,EntityFactory<?>>();
         this.objectClassValues = new HashMap<Class<?>,Set<String>>();
@@ -136,13 +141,18 @@ public final class Configuration {
             // Get the entity factory for the entity class.
             EntityFactory<?> entityFactory = EntityFactory.newInstance(entityClass, SUPPORTED_TYPES);
 
+            // Get the property name-attribute name map.
+            Map<String,String> propertyAttributes = Collections.unmodifiableMap(entityMappingsParser.getPropertyAttributeMap());
+
             // Add entries to the maps for the entity class.
-            this.attributeReferentialIntegrityMap.put(entityClass, entityMappingsParser.getAttributeReferentialIntegrityMap());
+            this.attributeNames.put(entityClass, Collections.unmodifiableSet(new HashSet<String>(propertyAttributes.values())));
+            this.attributePropertyMap.put(entityClass, getAttributePropertyMap(propertyAttributes));
+            this.attributeReferentialIntegrityMap.put(entityClass, Collections.unmodifiableMap(entityMappingsParser.getAttributeReferentialIntegrityMap()));
             this.entityFactoryMap.put(entityClass, entityFactory);
-            this.objectClassValues.put(entityClass, entityMappingsParser.getObjectClassValues());
-            this.propertyAttributeMap.put(entityClass, entityMappingsParser.getPropertyAttributeMap());
+            this.objectClassValues.put(entityClass, Collections.unmodifiableSet(entityMappingsParser.getObjectClassValues()));
+            this.propertyAttributeMap.put(entityClass, propertyAttributes);
             this.propertyTargetEntityClassMap.put(entityClass, getPropertyTargetEntityClasses(entityMappingsParser.getPropertyTargetEntityClassNameMap()));
-            this.propertyFetchTypeMap.put(entityClass, entityMappingsParser.getPropertyFetchTypeMap());
+            this.propertyFetchTypeMap.put(entityClass, Collections.unmodifiableMap(entityMappingsParser.getPropertyFetchTypeMap()));
             this.searchBaseMap.put(entityClass, entityMappingsParser.getSearchBase());
             this.searchScopeMap.put(entityClass, entityMappingsParser.getSearchScope());
         }
@@ -168,7 +178,30 @@ public final class Configuration {
      * @return  the attribute names.
      */
     public Set<String> getAttributeNames(final Class<?> entityClass) {
-        return new HashSet<String>(this.propertyAttributeMap.get(entityClass).values());
+        return this.attributeNames.get(entityClass);
+    }
+
+    /**
+     * Get the attribute name-property name map from the property name-attribute name map.
+     * 
+     * @param  propertyAttributeMap  the property name-attribute name map.
+     * 
+     * @return  the attribute name-property name map.
+     */
+    private static Map<String,String> getAttributePropertyMap(final Map<String,String> propertyAttributeMap) {
+
+        Map<String,String> attributePropertyMap = new HashMap<String,String>();
+
+        // Loop through the property name-attribute name map.
+        for (Map.Entry<String,String> entry : propertyAttributeMap.entrySet()) {
+
+            // Put the attribute name-property name on the map, keeping the first property mapped to the attribute.
+            if (!attributePropertyMap.containsKey(entry.getValue())) {
+                attributePropertyMap.put(entry.getValue(), entry.getKey());
+            }
+        }
+
+        return Collections.unmodifiableMap(attributePropertyMap);
     }
     
     /**
@@ -221,6 +254,14 @@ public final class Configuration {
             environment.setProperty(Directory.SECURITY_PRINCIPAL, persistenceLDAPParser.getSecurityPrincipal());
         }
 
+        // Set the page size and pool settings provided in the configuration file.
+        setProperty(environment, Directory.PAGE_SIZE, persistenceLDAPParser.getPageSize());
+        setProperty(environment, Directory.POOL_MIN_SIZE, persistenceLDAPParser.getPoolMinSize());
+        setProperty(environment, Directory.POOL_MAX_SIZE, persistenceLDAPParser.getPoolMaxSize());
+        setProperty(environment, Directory.POOL_MAX_IDLE_TIME, persistenceLDAPParser.getPoolMaxIdleTime());
+        setProperty(environment, Directory.POOL_MAX_WAIT, persistenceLDAPParser.getPoolMaxWait());
+        setProperty(environment, Directory.POOL_VALIDATE_ON_BORROW, persistenceLDAPParser.getPoolValidateOnBorrow());
+
         return environment;
     }
 	
@@ -288,23 +329,7 @@ public final class Configuration {
      * @return  the property name.
      */
     public String getPropertyName(final Class<?> entityClass, final String attributeName) {
-
-        String foundPropertyName = null;
-
-        // Get the property names.
-        Set<String> propertyNames = this.getPropertyNames(entityClass);
-
-        // Loop through the property names.
-        for (String propertyName : propertyNames) {
-
-            // Check if the attribute name for the property is the desired attribute name.
-            if (this.getAttributeName(entityClass, propertyName).equals(attributeName)) {
-                foundPropertyName = propertyName;
-                break;
-            }
-        }
-
-        return foundPropertyName;
+        return this.attributePropertyMap.get(entityClass).get(attributeName);
     }
 	
     /**
@@ -360,7 +385,7 @@ public final class Configuration {
             }
         }
 		
-        return propertyTargetEntityClasses;
+        return Collections.unmodifiableMap(propertyTargetEntityClasses);
     }
 
     /**
@@ -429,7 +454,7 @@ public final class Configuration {
      * @return  true if the property is an entity type, otherwise false.
      */
     public boolean isEntityType(final Class<?> entityClass, final String propertyName) {
-    	return (this.propertyTargetEntityClassMap.get(entityClass).get(propertyName) != null) ? true : false;
+    	return this.propertyTargetEntityClassMap.get(entityClass).containsKey(propertyName);
     }
 
     /**
@@ -461,6 +486,10 @@ public final class Configuration {
         logger = (Logger)LoggerFactory.getLogger(Directory.class);
         logger.setLevel(level);
 
+        // Set the ContextPool class logging level.
+        logger = (Logger)LoggerFactory.getLogger(ContextPool.class);
+        logger.setLevel(level);
+
         // Set the EntityFactory class logging level.
         logger = (Logger)LoggerFactory.getLogger(EntityFactory.class);
         logger.setLevel(level);
@@ -474,4 +503,19 @@ public final class Configuration {
             EntityFactoryException.setLogState(true);
         }
     }
+
+    /**
+     * Set the property in the directory environment if the value exists.
+     * 
+     * @param  environment  the directory environment.
+     * @param  name         the property name.
+     * @param  value        the property value.
+     */
+    private static void setProperty(final Properties environment, final String name, final Object value) {
+
+        // Check if the value exists.
+        if (value != null) {
+            environment.setProperty(name, value.toString());
+        }
+    }
 }
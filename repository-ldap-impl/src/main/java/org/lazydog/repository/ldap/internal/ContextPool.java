@@ -0,0 +1,357 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.ldap.internal;
+
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.naming.InterruptedNamingException;
+import javax.naming.NameAlreadyBoundException;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingException;
+import javax.naming.directory.AttributeInUseException;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Context pool.  The pool is bounded by the maximum size, so at most that many
+ * contexts are borrowed at the same time.  Idle contexts are kept most recently
+ * used first, so the least recently used contexts are the ones evicted once they
+ * have been idle for longer than the maximum idle time.
+ * 
+ * @author  Ron Rickard
+ */
+final class ContextPool {
+
+    private static final Timer EVICTION_TIMER = new Timer("lazydog-repository-context-pool-eviction", true);
+    private volatile boolean closed;
+    private Properties contextEnvironment;
+    private TimerTask evictionTask;
+    private LinkedBlockingDeque<IdleContext> idleContexts;
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+    private long maxIdleTime;
+    private long maxWait;
+    private int minSize;
+    private Semaphore permits;
+    private boolean validateOnBorrow;
+
+    /**
+     * Idle context.
+     */
+    private static final class IdleContext {
+
+        private LdapContext context;
+        private long idleSince;
+
+        /**
+         * Constructor.
+         * 
+         * @param  context  the context.
+         */
+        IdleContext(final LdapContext context) {
+            this.context = context;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Package constructor.  The pool is filled with the minimum number of contexts.
+     * 
+     * @param  contextEnvironment  the context environment.
+     * @param  minSize             the minimum number of idle contexts.
+     * @param  maxSize             the maximum number of contexts.
+     * @param  maxIdleTime         the maximum idle time in milliseconds, or 0 to never evict idle contexts.
+     * @param  maxWait             the maximum time in milliseconds to wait for a context.
+     * @param  validateOnBorrow    true if idle contexts are validated before they are borrowed, otherwise false.
+     * 
+     * @throws  NamingException  if unable to create the minimum number of contexts.
+     */
+    ContextPool(final Properties contextEnvironment, final int minSize, final int maxSize, final long maxIdleTime, final long maxWait, final boolean validateOnBorrow) throws NamingException {
+
+        this.contextEnvironment = contextEnvironment;
+        this.idleContexts = new LinkedBlockingDeque<IdleContext>();
+        this.maxIdleTime = maxIdleTime;
+        this.maxWait = maxWait;
+        this.minSize = minSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.validateOnBorrow = validateOnBorrow;
+
+        try {
+
+            // Fill the pool with the minimum number of contexts.
+            for (int count = 0; count < minSize; count++) {
+                this.idleContexts.offerFirst(new IdleContext(this.createContext()));
+            }
+        } catch (NamingException e) {
+            this.close();
+            throw e;
+        }
+
+        // Check if idle contexts are evicted.
+        if (maxIdleTime > 0) {
+
+            // Schedule the eviction of idle contexts.
+            this.evictionTask = new TimerTask() {
+                @Override
+                public void run() {
+                    ContextPool.this.evict();
+                }
+            };
+            EVICTION_TIMER.schedule(this.evictionTask, maxIdleTime, maxIdleTime);
+        }
+    }
+
+    /**
+     * Borrow a context from the pool.  An idle context is reused if available,
+     * otherwise a new context is created.  The context must be released back to
+     * the pool once it is no longer needed.
+     * 
+     * @return  the context.
+     * 
+     * @throws  NamingException  if unable to borrow a context.
+     */
+    LdapContext borrow() throws NamingException {
+
+        try {
+
+            // Wait for a context to be available.
+            if (!this.permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS)) {
+                throw new NamingException("Unable to borrow a context within " + this.maxWait + "ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedNamingException("Interrupted while waiting to borrow a context.");
+        }
+
+        // Initialize.
+        LdapContext context = null;
+
+        try {
+
+            // Loop until a context is found.
+            while (context == null) {
+
+                // Get the most recently used idle context.
+                IdleContext idleContext = this.idleContexts.pollFirst();
+
+                // Check if there is no idle context.
+                if (idleContext == null) {
+                    context = this.createContext();
+
+                // Check if the idle context is valid.
+                } else if (!this.validateOnBorrow || isValid(idleContext.context)) {
+                    context = idleContext.context;
+
+                // Otherwise, discard the idle context.
+                } else {
+                    logger.debug("Discarding invalid directory context.");
+                    closeContext(idleContext.context);
+                }
+            }
+        } finally {
+
+            // Check if a context was not borrowed.
+            if (context == null) {
+                this.permits.release();
+            }
+        }
+
+        return context;
+    }
+
+    /**
+     * Close the pool.  The idle contexts are closed and borrowed contexts are
+     * closed once they are released.
+     */
+    void close() {
+
+        this.closed = true;
+
+        // Check if idle contexts are evicted.
+        if (this.evictionTask != null) {
+
+            // Cancel the eviction of idle contexts, and remove the cancelled task
+            // from the timer, so the timer no longer references the pool.
+            this.evictionTask.cancel();
+            EVICTION_TIMER.purge();
+        }
+
+        // Close the idle contexts.
+        for (IdleContext idleContext = this.idleContexts.pollFirst(); idleContext != null; idleContext = this.idleContexts.pollFirst()) {
+            closeContext(idleContext.context);
+        }
+    }
+
+    /**
+     * Close the context.
+     * 
+     * @param  context  the context.
+     */
+    private static void closeContext(final LdapContext context) {
+
+        try {
+            context.close();
+        } catch (NamingException e) {
+            // Ignore.
+        }
+    }
+
+    /**
+     * Create a context.
+     * 
+     * @return  the context.
+     * 
+     * @throws  NamingException  if unable to create the context.
+     */
+    private LdapContext createContext() throws NamingException {
+        logger.debug("Creating directory context.");
+        return new InitialLdapContext(this.contextEnvironment, null);
+    }
+
+    /**
+     * Evict the contexts that have been idle for longer than the maximum idle time,
+     * keeping at least the minimum number of idle contexts.
+     */
+    void evict() {
+
+        long now = System.currentTimeMillis();
+
+        // Loop through the least recently used idle contexts.
+        while (this.idleContexts.size() > this.minSize) {
+
+            // Get the least recently used idle context.
+            IdleContext idleContext = this.idleContexts.peekLast();
+
+            // Check if the idle context has not been idle long enough.
+            if (idleContext == null || now - idleContext.idleSince < this.maxIdleTime) {
+                break;
+            }
+
+            // Check if the idle context was not borrowed in the meantime.
+            if (this.idleContexts.removeLastOccurrence(idleContext)) {
+                logger.debug("Evicting idle directory context.");
+                closeContext(idleContext.context);
+            }
+        }
+    }
+
+    /**
+     * Get the number of idle contexts.
+     * 
+     * @return  the number of idle contexts.
+     */
+    int getIdleCount() {
+        return this.idleContexts.size();
+    }
+
+    /**
+     * Is the failure an expected result of the operation?  The directory server
+     * answered the operation, so the context is still usable.
+     * 
+     * @param  failure  the failure.
+     * 
+     * @return  true if the failure is an expected result of the operation, otherwise false.
+     */
+    private static boolean isExpected(final NamingException failure) {
+        return failure instanceof AttributeInUseException ||
+               failure instanceof NameAlreadyBoundException ||
+               failure instanceof NameNotFoundException;
+    }
+
+    /**
+     * Is the context valid?  The root DSE is read without requesting any attributes.
+     * 
+     * @param  context  the context.
+     * 
+     * @return  true if the context is valid, otherwise false.
+     */
+    private static boolean isValid(final LdapContext context) {
+
+        // Initialize.
+        boolean valid = true;
+
+        try {
+
+            // Read the root DSE.
+            context.getAttributes("", new String[]{"1.1"});
+        } catch (NamingException e) {
+            valid = false;
+        }
+
+        return valid;
+    }
+
+    /**
+     * Release the context back to the pool.
+     * 
+     * @param  context  the context.
+     */
+    void release(final LdapContext context) {
+        this.release(context, null);
+    }
+
+    /**
+     * Release the context back to the pool.  The context is discarded if the
+     * operation on it failed, unless the failure is an expected result of the
+     * operation, such as a missing or an existing entry.
+     * 
+     * @param  context  the context.
+     * @param  failure  the failure of the operation on the context, or null if the operation succeeded.
+     */
+    void release(final LdapContext context, final NamingException failure) {
+
+        try {
+
+            // Check if the operation on the context failed unexpectedly.
+            if (failure != null && !isExpected(failure)) {
+                logger.debug("Discarding failed directory context.");
+                closeContext(context);
+                return;
+            }
+
+            // Clear the request controls, so the next borrower starts with a clean context.
+            context.setRequestControls(null);
+
+            // Check if the pool is closed.
+            if (this.closed) {
+                closeContext(context);
+            } else {
+
+                // Add the context to the idle contexts.
+                IdleContext idleContext = new IdleContext(context);
+                this.idleContexts.offerFirst(idleContext);
+
+                // Check if the pool was closed while the context was added, since
+                // the idle contexts may have already been closed.
+                if (this.closed && this.idleContexts.removeFirstOccurrence(idleContext)) {
+                    closeContext(context);
+                }
+            }
+        } catch (NamingException e) {
+            closeContext(context);
+        } finally {
+            this.permits.release();
+        }
+    }
+}
@@ -20,11 +20,15 @@ package org.lazydog.repository.ldap.internal;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.lazydog.repository.Criteria;
 import org.lazydog.repository.criterion.Criterion;
+import org.lazydog.repository.criterion.Parameter;
 
 /**
  * Criteria implementation using the Java Naming and Directory Interface.
@@ -34,7 +38,12 @@ import org.lazydog.repository.criterion.Criterion;
 public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
 
     private static final long serialVersionUID = 1L;
+    static final char SLOT_DELIMITER = '\u0000';
+    static final char SLOT_SEPARATOR = '\u0001';
     private StringBuilder filterStringBuilder;
+    private int firstResult;
+    private int maxResults;
+    private List<String> projections;
     private Map<String,String> propertyAttributeMap;
     private List<Criterion> restrictions;
     private String searchBase;
@@ -87,7 +96,8 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
         // Set the property name-attribute name map.
         this.propertyAttributeMap = propertyAttributeMap;
         
-        // Initialize the restrictions.
+        // Initialize the projections and restrictions.
+        this.projections = new ArrayList<String>();
         this.restrictions = new ArrayList<Criterion>();
         
         // Initialize the search base and scope.
@@ -95,6 +105,24 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
         this.searchScope = searchScope;
     }
 
+    /**
+     * Constructor.
+     *
+     * @param  filter                the filter.
+     * @param  propertyAttributeMap  the property name-attribute name map.
+     * @param  restrictions          the restriction criterions of the filter.
+     * @param  searchBase            the search base.
+     * @param  searchScope           the search scope.
+     */
+    CriteriaImpl(final String filter, final Map<String,String> propertyAttributeMap, final List<Criterion> restrictions, final String searchBase, final SearchScope searchScope) {
+        this.filterStringBuilder = new StringBuilder(filter);
+        this.projections = new ArrayList<String>();
+        this.propertyAttributeMap = propertyAttributeMap;
+        this.restrictions = new ArrayList<Criterion>(restrictions);
+        this.searchBase = searchBase;
+        this.searchScope = searchScope;
+    }
+
     /**
      * Add a restriction criterion.
      *
@@ -135,7 +163,7 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
                         .append("(")
                         .append(attributeName)
                         .append("=")
-                        .append(criterion.getValue())
+                        .append(formatValue(criterion.getValue()))
                         .append("))");
                 break;
             case GREATER_THAN:
@@ -145,9 +173,14 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
                         .append("(")
                         .append(attributeName)
                         .append(">=")
-                        .append(criterion.getValue())
+                        .append(formatValue(criterion.getValue()))
                         .append("))");
                 break;
+            case IN:
+                this.filterStringBuilder.append("(|");
+                this.appendEqualityFilters(attributeName, (Collection<?>)criterion.getValue());
+                this.filterStringBuilder.append("))");
+                break;
             case IS_EMPTY:
             	throw new UnsupportedOperationException("Comparison isEmpty is not applicable to this repository implementation.");
             case IS_NOT_EMPTY:
@@ -163,7 +196,7 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
                         .append("(")
                         .append(attributeName)
                         .append(">=")
-                        .append(criterion.getValue())
+                        .append(formatValue(criterion.getValue()))
                         .append("))");
                 break;
             case LIKE:
@@ -175,9 +208,14 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
                         .append("(!")
                         .append(attributeName)
                         .append("=")
-                        .append(criterion.getValue())
+                        .append(formatValue(criterion.getValue()))
                         .append("))");
             	break;
+            case NOT_IN:
+                this.filterStringBuilder.append("(!(|");
+                this.appendEqualityFilters(attributeName, (Collection<?>)criterion.getValue());
+                this.filterStringBuilder.append(")))");
+                break;
             case NOT_LIKE:
             	throw new UnsupportedOperationException("Comparison notLike is not applicable to this repository implementation.");
             case NOT_MEMBER_OF:
@@ -234,6 +272,118 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
     	throw new UnsupportedOperationException("Order is not applicable to this repository implementation.");
     }
 
+    /**
+     * Add a projection.
+     *
+     * @param  propertyName  the property name.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if the property name is invalid.
+     */
+    @Override
+    public CriteriaImpl<T> addProjection(final String propertyName) {
+
+        // Check if the property name is invalid.
+        if (propertyName == null || (!"id".equals(propertyName) && !this.propertyAttributeMap.containsKey(propertyName))) {
+            throw new IllegalArgumentException("The property name is invalid.");
+        }
+
+        this.projections.add(propertyName);
+
+        return this;
+    }
+
+    /**
+     * Add projections.
+     *
+     * @param  propertyNames  the property names.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if a property name is invalid.
+     */
+    @Override
+    public CriteriaImpl<T> addProjections(final List<String> propertyNames) {
+
+        // Loop through the property names.
+        for (String propertyName : propertyNames) {
+
+            // Add the projection.
+            this.addProjection(propertyName);
+        }
+
+        return this;
+    }
+
+    /**
+     * Append an equality filter for each value to the filter string builder.
+     * The values are escaped, since the values of an in comparison are matched
+     * exactly, as they are when bound by a criteria template.
+     *
+     * @param  attributeName  the attribute name.
+     * @param  values         the values.
+     */
+    private void appendEqualityFilters(final String attributeName, final Collection<?> values) {
+
+        // Loop through the values.
+        for (Object value : values) {
+
+            // Check if the value is a parameter.
+            if (value instanceof Parameter) {
+
+                // Add the parameter slot, which is bound to the equality filters, to the filter string builder.
+                this.filterStringBuilder
+                        .append(SLOT_DELIMITER)
+                        .append(((Parameter)value).getName())
+                        .append(SLOT_SEPARATOR)
+                        .append(attributeName)
+                        .append(SLOT_DELIMITER);
+            } else {
+
+                // Add the equality filter to the filter string builder.
+                this.filterStringBuilder
+                        .append("(")
+                        .append(attributeName)
+                        .append("=")
+                        .append(Directory.escapeFilterValue(String.valueOf(value)))
+                        .append(")");
+            }
+        }
+    }
+
+    /**
+     * Format the value.  A parameter is formatted as a parameter slot that is
+     * bound to the value by a criteria template.
+     *
+     * @param  value  the value.
+     *
+     * @return  the formatted value.
+     */
+    private static String formatValue(final Object value) {
+        return (value instanceof Parameter)
+                ? new StringBuilder().append(SLOT_DELIMITER).append(((Parameter)value).getName()).append(SLOT_DELIMITER).toString()
+                : String.valueOf(value);
+    }
+
+    /**
+     * Get the cache key.  The cache key is made of the filter, projections,
+     * search base, search scope, position of the first result, and maximum
+     * number of results.
+     *
+     * @return  the cache key.
+     */
+    @Override
+    public Object getCacheKey() {
+        return Arrays.<Object>asList(
+                this.getFilter(),
+                new ArrayList<String>(this.projections),
+                this.searchBase,
+                this.searchScope,
+                this.firstResult,
+                this.maxResults);
+    }
+
     /**
      * Get the filter.
      * 
@@ -243,6 +393,33 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
         return this.filterStringBuilder.toString();
     }
 
+    /**
+     * Get the position of the first result.
+     *
+     * @return  the position of the first result.
+     */
+    public int getFirstResult() {
+        return this.firstResult;
+    }
+
+    /**
+     * Get the maximum number of results.
+     *
+     * @return  the maximum number of results, or 0 if the results are unbounded.
+     */
+    public int getMaxResults() {
+        return this.maxResults;
+    }
+
+    /**
+     * Get the projections.
+     *
+     * @return  the property names of the projections.
+     */
+    public List<String> getProjections() {
+        return Collections.unmodifiableList(this.projections);
+    }
+
     /**
      * Get the search base.
      * 
@@ -271,6 +448,16 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
     	return false;
     }
 
+    /**
+     * Check if a projection exists.
+     *
+     * @return  true if a projection exists, otherwise false.
+     */
+    @Override
+    public boolean projectionExists() {
+        return !this.projections.isEmpty();
+    }
+
     /**
      * Check if a restriction criterion exists.
      *
@@ -281,6 +468,62 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
         return !this.restrictions.isEmpty();
     }
 
+    /**
+     * Seek after the order values of the last seen entity.
+     *
+     * @param  orderValues  the order values of the last seen entity.
+     *
+     * @return  the criteria.
+     */
+    @Override
+    public CriteriaImpl<T> seekAfter(final Object... orderValues) {
+    	throw new UnsupportedOperationException("Seek is not applicable to this repository implementation.");
+    }
+
+    /**
+     * Set the position of the first result.
+     *
+     * @param  firstResult  the position of the first result, numbered from 0.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if the position of the first result is invalid.
+     */
+    @Override
+    public CriteriaImpl<T> setFirstResult(final int firstResult) {
+
+        // Check if the position of the first result is negative.
+        if (firstResult < 0) {
+            throw new IllegalArgumentException("The first result is invalid.");
+        }
+
+        this.firstResult = firstResult;
+
+        return this;
+    }
+
+    /**
+     * Set the maximum number of results.
+     *
+     * @param  maxResults  the maximum number of results.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if the maximum number of results is invalid.
+     */
+    @Override
+    public CriteriaImpl<T> setMaxResults(final int maxResults) {
+
+        // Check if the maximum number of results is not positive.
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("The max results is invalid.");
+        }
+
+        this.maxResults = maxResults;
+
+        return this;
+    }
+
     /**
      * Get this object as a String.
      *
@@ -293,6 +536,8 @@ public final class CriteriaImpl<T> implements Criteria<T>, Serializable {
                 .append("filter = ").append(this.getFilter())
                 .append(", searchBase = ").append(this.getSearchBase())
                 .append(", searchScope = ").append(this.getSearchScope())
+                .append(", firstResult = ").append(this.getFirstResult())
+                .append(", maxResults = ").append(this.getMaxResults())
                 .append("]")
                 .toString();
     }
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.ldap.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.criterion.Criterion;
+import org.lazydog.repository.criterion.Parameter;
+
+/**
+ * Criteria template implementation using the Java Naming and Directory Interface.
+ * The filter is compiled once into a skeleton of literal filter fragments and
+ * parameter slots.  Binding fills the parameter slots with the escaped values.
+ * 
+ * @author  Ron Rickard
+ */
+public final class CriteriaTemplateImpl<T> implements CriteriaTemplate<T> {
+
+    private List<String> fragments;
+    private Set<String> parameterNames;
+    private Map<String,String> propertyAttributeMap;
+    private List<Criterion> restrictions;
+    private String searchBase;
+    private SearchScope searchScope;
+
+    /**
+     * Constructor.
+     *
+     * @param  objectClassValues     the object class values.
+     * @param  propertyAttributeMap  the property name-attribute name map.
+     * @param  searchBase            the search base.
+     * @param  searchScope           the search scope.
+     * @param  restrictions          the restriction criterions.
+     * @param  orders                the order criterions.
+     *
+     * @throws  IllegalArgumentException       if the object class values, the property name-attribute
+     *                                         name map, search base, search scope, or restrictions are invalid.
+     * @throws  UnsupportedOperationException  if there are order criterions.
+     */
+    public CriteriaTemplateImpl(final Set<String> objectClassValues, final Map<String,String> propertyAttributeMap, final String searchBase, final SearchScope searchScope, final List<Criterion> restrictions, final List<Criterion> orders) {
+
+        // Check if the restrictions are null.
+        if (restrictions == null) {
+            throw new IllegalArgumentException("The restrictions are invalid.");
+        }
+
+        // Compile the criterions to a criteria.
+        CriteriaImpl<T> criteriaImpl = new CriteriaImpl<T>(objectClassValues, propertyAttributeMap, searchBase, searchScope);
+        criteriaImpl.add(restrictions);
+        if (orders != null && !orders.isEmpty()) {
+            criteriaImpl.addOrders(orders);
+        }
+
+        // Split the filter into the literal filter fragments and parameter slots.
+        this.fragments = new ArrayList<String>();
+        String filter = criteriaImpl.getFilter();
+        int fragmentBeginIndex = 0;
+        for (int index = 0; index < filter.length(); index++) {
+            if (filter.charAt(index) == CriteriaImpl.SLOT_DELIMITER) {
+                this.fragments.add(filter.substring(fragmentBeginIndex, index));
+                fragmentBeginIndex = index + 1;
+            }
+        }
+        this.fragments.add(filter.substring(fragmentBeginIndex));
+
+        this.parameterNames = Parameter.getNames(restrictions);
+        this.propertyAttributeMap = propertyAttributeMap;
+        this.restrictions = Collections.unmodifiableList(new ArrayList<Criterion>(restrictions));
+        this.searchBase = searchBase;
+        this.searchScope = searchScope;
+    }
+
+    /**
+     * Bind the parameters to the values.
+     *
+     * @param  parameterValues  the parameter name-value map.
+     *
+     * @return  the criteria.
+     *
+     * @throws  IllegalArgumentException  if a parameter is not bound to a value.
+     */
+    @Override
+    public Criteria<T> bind(final Map<String, ?> parameterValues) {
+
+        // Initialize the filter string builder.
+        StringBuilder filterStringBuilder = new StringBuilder();
+
+        // Loop through the fragments, which alternate between literal filter fragments and parameter slots.
+        for (int index = 0; index < this.fragments.size(); index++) {
+
+            // Check if the fragment is a literal filter fragment.
+            if (index % 2 == 0) {
+                filterStringBuilder.append(this.fragments.get(index));
+            } else {
+                bindSlot(filterStringBuilder, this.fragments.get(index), parameterValues);
+            }
+        }
+
+        return new CriteriaImpl<T>(filterStringBuilder.toString(), this.propertyAttributeMap, this.restrictions, this.searchBase, this.searchScope);
+    }
+
+    /**
+     * Bind the parameter slot to the value.  A parameter slot with an attribute
+     * name is bound to an equality filter for each of the values.
+     *
+     * @param  filterStringBuilder  the filter string builder.
+     * @param  slot                 the parameter slot.
+     * @param  parameterValues      the parameter name-value map.
+     *
+     * @throws  IllegalArgumentException  if the parameter is not bound to a value.
+     */
+    private static void bindSlot(final StringBuilder filterStringBuilder, final String slot, final Map<String, ?> parameterValues) {
+
+        // Get the parameter name and attribute name.
+        int separatorIndex = slot.indexOf(CriteriaImpl.SLOT_SEPARATOR);
+        String parameterName = (separatorIndex < 0) ? slot : slot.substring(0, separatorIndex);
+        String attributeName = (separatorIndex < 0) ? null : slot.substring(separatorIndex + 1);
+
+        // Get the parameter value.
+        Object value = (parameterValues == null) ? null : parameterValues.get(parameterName);
+
+        // Check if the parameter value is null.
+        if (value == null) {
+            throw new IllegalArgumentException("The parameter '" + parameterName + "' is not bound to a value.");
+        }
+
+        // Check if the parameter slot does not have an attribute name.
+        if (attributeName == null) {
+            filterStringBuilder.append(Directory.escapeFilterValue(value.toString()));
+        } else {
+
+            // Get the values.
+            Collection<?> values = (value instanceof Collection) ? (Collection<?>)value : Collections.singletonList(value);
+
+            // Check if there are no values.
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("The values are invalid.");
+            }
+
+            // Loop through the values.
+            for (Object currentValue : values) {
+
+                // Add the equality filter to the filter string builder.
+                filterStringBuilder
+                        .append("(")
+                        .append(attributeName)
+                        .append("=")
+                        .append(Directory.escapeFilterValue(String.valueOf(currentValue)))
+                        .append(")");
+            }
+        }
+    }
+
+    /**
+     * Get the parameter names.
+     *
+     * @return  the parameter names.
+     */
+    @Override
+    public Set<String> getParameterNames() {
+        return this.parameterNames;
+    }
+}
@@ -19,28 +19,43 @@
 package org.lazydog.repository.ldap.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import javax.naming.Context;
+import javax.naming.InvalidNameException;
 import javax.naming.NameAlreadyBoundException;
 import javax.naming.NameNotFoundException;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
+import javax.naming.directory.AttributeInUseException;
 import javax.naming.directory.AttributeModificationException;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.BasicAttribute;
 import javax.naming.directory.BasicAttributes;
 import javax.naming.directory.DirContext;
-import javax.naming.directory.InitialDirContext;
 import javax.naming.directory.ModificationItem;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +67,12 @@ import org.slf4j.LoggerFactory;
 public final class Directory {
 
     public static final String INITIAL_CONTEXT_FACTORY = "initialContextFactory";
+    public static final String PAGE_SIZE = "pageSize";
+    public static final String POOL_MAX_IDLE_TIME = "poolMaxIdleTime";
+    public static final String POOL_MAX_SIZE = "poolMaxSize";
+    public static final String POOL_MAX_WAIT = "poolMaxWait";
+    public static final String POOL_MIN_SIZE = "poolMinSize";
+    public static final String POOL_VALIDATE_ON_BORROW = "poolValidateOnBorrow";
     public static final String PROVIDER_URL = "providerUrl";
     public static final String SECURITY_AUTHENTICATION = "securityAuthentication";
     public static final String SECURITY_CREDENTIALS = "securityCredentials";
@@ -62,8 +83,16 @@ public final class Directory {
             REMOVE,
             REPLACE;
     }
-    private DirContext directoryContext;
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int MAX_FILTER_DNS = 100;
+    private static final long DEFAULT_POOL_MAX_IDLE_TIME = 300000;
+    private static final int DEFAULT_POOL_MAX_SIZE = 8;
+    private static final long DEFAULT_POOL_MAX_WAIT = 30000;
+    private static final int DEFAULT_POOL_MIN_SIZE = 1;
+    private ContextPool contextPool;
+    private ExecutorService executorService;
     private Logger logger = LoggerFactory.getLogger(this.getClass());
+    private int pageSize;
 	
     /**
      * Private constructor.
@@ -85,21 +114,85 @@ public final class Directory {
                     "Unable to get the directory context due to a missing environment setting.", null);
         }
 		    
+        // Get the page size and pool settings.
+        this.pageSize = (int)getNumberProperty(environment, PAGE_SIZE, DEFAULT_PAGE_SIZE);
+        int poolMinSize = (int)getNumberProperty(environment, POOL_MIN_SIZE, DEFAULT_POOL_MIN_SIZE);
+        int poolMaxSize = (int)getNumberProperty(environment, POOL_MAX_SIZE, DEFAULT_POOL_MAX_SIZE);
+        long poolMaxIdleTime = getNumberProperty(environment, POOL_MAX_IDLE_TIME, DEFAULT_POOL_MAX_IDLE_TIME);
+        long poolMaxWait = getNumberProperty(environment, POOL_MAX_WAIT, DEFAULT_POOL_MAX_WAIT);
+        boolean poolValidateOnBorrow = (environment.getProperty(POOL_VALIDATE_ON_BORROW) != null) ?
+                Boolean.parseBoolean(environment.getProperty(POOL_VALIDATE_ON_BORROW)) : false;
+
+        // Check if the pool sizes are invalid.
+        if (poolMaxSize < 1 || poolMinSize > poolMaxSize) {
+            throw new DirectoryException(
+                    "Unable to get the directory context due to an invalid pool size.", null);
+        }
+
         try {
 
-            // Get the directory context.
-            this.directoryContext = getDirectoryContext(
-                    environment.getProperty(INITIAL_CONTEXT_FACTORY),
-                    environment.getProperty(PROVIDER_URL),
-                    environment.getProperty(SECURITY_AUTHENTICATION),
-                    environment.getProperty(SECURITY_CREDENTIALS),
-                    environment.getProperty(SECURITY_PRINCIPAL));
+            // Get the context pool.
+            this.contextPool = new ContextPool(
+                    getContextEnvironment(
+                        environment.getProperty(INITIAL_CONTEXT_FACTORY),
+                        environment.getProperty(PROVIDER_URL),
+                        environment.getProperty(SECURITY_AUTHENTICATION),
+                        environment.getProperty(SECURITY_CREDENTIALS),
+                        environment.getProperty(SECURITY_PRINCIPAL)),
+                    poolMinSize, poolMaxSize, poolMaxIdleTime, poolMaxWait, poolValidateOnBorrow);
         } catch (NamingException e) {
             throw new DirectoryException(
                     "Unable to get the directory context.", e, null);
         }
+
+        // Get the executor service for the parallel modifications, bounded by the maximum pool size.
+        this.executorService = Executors.newFixedThreadPool(poolMaxSize, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "lazydog-repository-directory");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 	
+    /**
+     * Add the attribute value to the entry specified by the DN.  The attribute
+     * is created if it does not exist, and a value that already exists is ignored.
+     * 
+     * @param  dn              the distinguished name.
+     * @param  attributeName   the attribute name.
+     * @param  attributeValue  the attribute value.
+     * 
+     * @throws  DirectoryException  if unable to add the attribute value.
+     */
+    private void addAttributeValue(final String dn, final String attributeName, final String attributeValue) throws DirectoryException {
+
+        logger.debug("Adding value '" + attributeValue + "' to attribute '" + attributeName + "' of LDAP entry '" + dn + "'.");
+
+        try {
+
+            // Add the attribute value.
+            LdapContext context = this.contextPool.borrow();
+            NamingException failure = null;
+            try {
+                context.modifyAttributes(dn, new ModificationItem[] {
+                    new ModificationItem(DirContext.ADD_ATTRIBUTE, new BasicAttribute(attributeName, attributeValue))
+                });
+            } catch (NamingException e) {
+                failure = e;
+                throw e;
+            } finally {
+                this.contextPool.release(context, failure);
+            }
+        } catch (AttributeInUseException e) {
+            logger.debug("The value '" + attributeValue + "' of attribute '" + attributeName + "' of LDAP entry '" + dn + "' already exists.");
+        } catch (NamingException e) {
+            throw new DirectoryException(
+                    "Unable to add the value '" + attributeValue + "' to attribute '" + attributeName + "' of LDAP entry '" + dn + "'.", e, dn);
+        }
+    }
+
     /**
      * Add the entry to the directory specified by the DN.
      * 
@@ -122,6 +215,28 @@ public final class Directory {
      * @throws DirectoryException  if unable to add the entry.
      */
     public void addEntry(final String dn, final Map<String,Set<String>> attributeMap, final Map<String,String> attributeReferentialIntegrityMap) throws DirectoryException {
+
+        // Check if the entry already exists.
+        if (!this.addEntryIfAbsent(dn, attributeMap, attributeReferentialIntegrityMap)) {
+            throw new DirectoryException(
+                    "Unable to add the LDAP entry '" + dn + "' since it already exists.", dn);
+        }
+    }
+
+    /**
+     * Add the entry to the directory specified by the DN and enforce referential
+     * integrity, unless the entry already exists.  The add is attempted directly,
+     * so a new entry is added with a single request and no prior read.
+     * 
+     * @param  dn                                the distinguished name.
+     * @param  attributeMap                      the attribute name-attribute value map.
+     * @param  attributeReferentialIntegrityMap  the referential integrity attribute map.
+     * 
+     * @return  true if the entry was added, or false if the entry already exists.
+     * 
+     * @throws DirectoryException  if unable to add the entry.
+     */
+    public boolean addEntryIfAbsent(final String dn, final Map<String,Set<String>> attributeMap, final Map<String,String> attributeReferentialIntegrityMap) throws DirectoryException {
 		
         Date startTime = new Date();
         logger.info("Adding the new LDAP entry '" + dn + "'.");
@@ -132,20 +247,30 @@ public final class Directory {
             Attributes attributes = getAttributes(attributeMap);
 
             // Add the entry.
-            this.directoryContext.createSubcontext(dn, attributes);
+            LdapContext context = this.contextPool.borrow();
+            NamingException failure = null;
+            try {
+                context.createSubcontext(dn, attributes).close();
+            } catch (NamingException e) {
+                failure = e;
+                throw e;
+            } finally {
+                this.contextPool.release(context, failure);
+            }
 
             // Enforce referential integrity.
             this.enforceReferentialIntegrity(dn, attributeMap, attributeReferentialIntegrityMap);
         } catch (NameAlreadyBoundException e) {
-            throw new DirectoryException(
-                    "Unable to add the LDAP entry '" + dn + "' since it already exists.", e, dn);
-
+            logger.debug("The LDAP entry '" + dn + "' already exists.");
+            return false;
         } catch (NamingException e) {
             throw new DirectoryException(
                     "Unable to add the LDAP entry '" + dn + "'.", e, dn);
         }
 
         logger.trace("Added new LDAP entry in " + duration(startTime, new Date()) + "s.");
+
+        return true;
     }
 
     /**
@@ -172,10 +297,14 @@ public final class Directory {
     }
 
     /**
-     * Enforce referential integrity.
+     * Enforce referential integrity.  The entries referenced by the attributes
+     * that require referential integrity are read with as few searches as
+     * possible, and this DN is added as a value of the corresponding attribute
+     * of each entry that does not already reference it.  The values are added,
+     * rather than the attributes replaced, in parallel on the pooled contexts.
      * 
-     * @param  dn            			 the distinguished name.
-     * @param  attributeMap  			 the attribute name-attribute value map.
+     * @param  dn                                the distinguished name.
+     * @param  attributeMap                      the attribute name-attribute value map.
      * @param  attributeReferentialIntegrityMap  the referential integrity attribute map.
      * 
      * @throws DirectoryException  if unable to enforce referential integrity.
@@ -184,54 +313,61 @@ public final class Directory {
 		
         Date startTime = new Date();
         logger.info("Enforcing referencial integrity for entry '" + dn + "'.");
-		
-        // Get the attribute names.
-    	Set<String> attributeNames = attributeMap.keySet();
-    	
-    	// Loop through the attribute names.
-    	for (String attributeName : attributeNames) {
-    		
-            // Check if the attribute requires referential integrity.
-            if (isReferentialIntegrityNeeded(attributeName, attributeReferentialIntegrityMap)) {
-    			
-                // Get the corresponding attribute name.
+
+        // Initialize the corresponding attribute name-referenced DNs map.
+        Map<String,Set<String>> referencedDnsMap = new LinkedHashMap<String,Set<String>>();
+
+        // Loop through the attribute names.
+        for (String attributeName : attributeMap.keySet()) {
+
+            // Check if the attribute requires referential integrity and has values.
+            if (isReferentialIntegrityNeeded(attributeName, attributeReferentialIntegrityMap) && attributeMap.get(attributeName) != null) {
+
+                // Add the attribute values to the referenced DNs for the corresponding attribute name.
                 String correspondingAttributeName = getCorrespondingAttributeName(attributeName, attributeReferentialIntegrityMap);
+                if (!referencedDnsMap.containsKey(correspondingAttributeName)) {
+                    referencedDnsMap.put(correspondingAttributeName, new LinkedHashSet<String>());
+                }
+                referencedDnsMap.get(correspondingAttributeName).addAll(attributeMap.get(attributeName));
+            }
+        }
 
-                // Get the attribute values.
-                Set<String> attributeValues = attributeMap.get(attributeName);
+        // Initialize the tasks that add this DN to the referenced entries.
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
 
-                // Loop through the attribute values.
-                for (String attributeValue : attributeValues) {
-    				
-                    // Get the corresponding attribute name-attribute value map for the attribute value.
-                    Set<String> correspondingAttributeNames = new HashSet<String>();
-                    correspondingAttributeNames.add(correspondingAttributeName);
-                    Map<String,Set<String>> correspondingAttributeMap = this.getAttributeMap(attributeValue, correspondingAttributeNames);
+        // Loop through the corresponding attribute names.
+        for (Map.Entry<String,Set<String>> referencedDns : referencedDnsMap.entrySet()) {
 
-                    // Check if referential integrity is not in place.
-                    if (correspondingAttributeMap.isEmpty()) {
-						
-                        // Get the corresponding attribute value.
-                        Set<String> correspondingAttributeValues = new HashSet<String>();
-                        correspondingAttributeValues.add(dn);
-                        correspondingAttributeMap.put(correspondingAttributeName, correspondingAttributeValues);
+            final String correspondingAttributeName = referencedDns.getKey();
 
-                        // Update the corresponding entry.
-                        this.updateEntry(attributeValue, correspondingAttributeMap);
+            // Get the corresponding attribute name-attribute value maps of the referenced entries.
+            Map<String,Map<String,Set<String>>> correspondingAttributeMaps = this.getAttributeMaps(
+                    referencedDns.getValue(), Collections.singleton(correspondingAttributeName));
 
-                    // Check if the DN is not a corresponding attribute value.
-                    } else if (!correspondingAttributeMap.get(correspondingAttributeName).contains(dn)) {
+            // Loop through the referenced DNs.
+            for (final String referencedDn : referencedDns.getValue()) {
 
-                        // Add this DN as a corresponding attribute value.
-                        correspondingAttributeMap.get(correspondingAttributeName).add(dn);
+                // Get the corresponding attribute values.
+                Set<String> correspondingAttributeValues = (correspondingAttributeMaps.containsKey(referencedDn))
+                        ? correspondingAttributeMaps.get(referencedDn).get(correspondingAttributeName)
+                        : null;
 
-                        // Update the corresponding entry.
-                        this.updateEntry(attributeValue, correspondingAttributeMap);
-                    }
+                // Check if this DN is not a corresponding attribute value.
+                if (correspondingAttributeValues == null || !correspondingAttributeValues.contains(dn)) {
+                    tasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() throws DirectoryException {
+                            Directory.this.addAttributeValue(referencedDn, correspondingAttributeName, dn);
+                            return null;
+                        }
+                    });
                 }
             }
-    	}
-    	
+        }
+
+        // Add this DN to the referenced entries.
+        this.invokeAll(tasks);
+
     	logger.trace("Referential integrity enforced in " + duration(startTime, new Date()) + "s.");
     }
 	
@@ -358,7 +494,7 @@ public final class Directory {
      * 
      * @throws  NamingException  if unable to get the attribute name-attribute value map.
      */
-    private Map<String,Set<String>> getAttributeMap(final Attributes attributes) throws NamingException {
+    Map<String,Set<String>> getAttributeMap(final Attributes attributes) throws NamingException {
 
         // Initialize.
         Map<String, Set<String>> attributeMap = new HashMap<String, Set<String>>();
@@ -407,7 +543,17 @@ public final class Directory {
         try {
 
             // Get the attributes for the DN.
-            Attributes attributes = this.directoryContext.getAttributes(dn, convertSetToArray(attributeNames));
+            Attributes attributes;
+            LdapContext context = this.contextPool.borrow();
+            NamingException failure = null;
+            try {
+                attributes = context.getAttributes(dn, convertSetToArray(attributeNames));
+            } catch (NamingException e) {
+                failure = e;
+                throw e;
+            } finally {
+                this.contextPool.release(context, failure);
+            }
 
             // Get the attribute name-attribute value map.
             attributeMap = this.getAttributeMap(attributes);
@@ -423,6 +569,149 @@ public final class Directory {
         return attributeMap;
     }
 
+    /**
+     * Get the attribute name-attribute value maps for the DNs from the directory.
+     * The DNs are grouped by their parent and each group is retrieved with one-level
+     * searches whose filter matches the RDNs of the group, so a large number of DNs
+     * are retrieved with a small number of searches.
+     * 
+     * @param  dns             the distinguished names.
+     * @param  attributeNames  the attribute names.
+     * 
+     * @return  the distinguished name-attribute name-attribute value maps.  DNs of 
+     *          entries that do not exist are not in the maps.
+     * 
+     * @throws  DirectoryException  if unable to get the attribute name-attribute value maps.
+     */
+    public Map<String,Map<String,Set<String>>> getAttributeMaps(final Collection<String> dns, final Set<String> attributeNames) throws DirectoryException {
+        return this.getAttributeMaps(dns, attributeNames, null);
+    }
+
+    /**
+     * Get the attribute name-attribute value maps for the DNs from the directory.
+     * The DNs are grouped by their parent and each group is retrieved with one-level
+     * searches whose filter matches the RDNs of the group, so a large number of DNs
+     * are retrieved with a small number of searches.  If the cursor is open, the
+     * searches are sent on the connection of the cursor, so a caller consuming the
+     * cursor does not wait for a second context from the context pool.
+     * 
+     * @param  dns             the distinguished names.
+     * @param  attributeNames  the attribute names.
+     * @param  cursor          the cursor whose connection is used, or null to use a pooled context.
+     * 
+     * @return  the distinguished name-attribute name-attribute value maps.  DNs of 
+     *          entries that do not exist are not in the maps.
+     * 
+     * @throws  DirectoryException  if unable to get the attribute name-attribute value maps.
+     */
+    public Map<String,Map<String,Set<String>>> getAttributeMaps(final Collection<String> dns, final Set<String> attributeNames, final DirectoryCursor cursor) throws DirectoryException {
+
+    	Date startTime = new Date();
+        logger.info("Getting values of attributes '" + attributeNames + "' for " + dns.size() + " LDAP entries.");
+
+    	// Initialize the attribute name-attribute value maps.
+        Map<String,Map<String,Set<String>>> attributeMaps = new HashMap<String,Map<String,Set<String>>>();
+
+        // Initialize the parent-name-DN maps and the DNs without a parent.
+        Map<LdapName,Map<LdapName,String>> parentNameMaps = new LinkedHashMap<LdapName,Map<LdapName,String>>();
+        List<String> rootDns = new ArrayList<String>();
+
+        // Loop through the DNs.
+        for (String dn : dns) {
+
+            // Get the name.
+            LdapName name;
+            try {
+                name = new LdapName(dn);
+            } catch (InvalidNameException e) {
+                throw new DirectoryException(
+                        "Unable to get the attributes '" + attributeNames + "' for LDAP entry '" + dn + "'.", e, dn);
+            }
+
+            // Check if the name has no parent.
+            if (name.isEmpty()) {
+                rootDns.add(dn);
+            } else {
+
+                // Add the name to the name-DN map for the parent name.
+                LdapName parentName = (LdapName)name.getPrefix(name.size() - 1);
+                if (!parentNameMaps.containsKey(parentName)) {
+                    parentNameMaps.put(parentName, new LinkedHashMap<LdapName,String>());
+                }
+                parentNameMaps.get(parentName).put(name, dn);
+            }
+        }
+
+        try {
+
+            // Get a context sharing the connection of the cursor, otherwise borrow a context.
+            LdapContext context = (cursor != null) ? cursor.newContext() : null;
+            boolean pooled = context == null;
+            if (pooled) {
+                context = this.contextPool.borrow();
+            }
+            NamingException failure = null;
+
+            try {
+
+                // Loop through the DNs without a parent.
+                for (String dn : rootDns) {
+
+                    try {
+
+                        // Get the attribute name-attribute value map for the DN.
+                        Map<String,Set<String>> attributeMap = this.getAttributeMap(context.getAttributes(dn, convertSetToArray(attributeNames)));
+                        if (!attributeMap.isEmpty()) {
+                            attributeMaps.put(dn, attributeMap);
+                        }
+                    } catch (NameNotFoundException e) {
+                        // Ignore.
+                    }
+                }
+
+                // Loop through the parent names.
+                for (Map.Entry<LdapName,Map<LdapName,String>> parentNameMap : parentNameMaps.entrySet()) {
+
+                    List<LdapName> names = new ArrayList<LdapName>(parentNameMap.getValue().keySet());
+
+                    // Loop through the names in chunks to bound the size of the filter.
+                    for (int fromIndex = 0; fromIndex < names.size(); fromIndex += MAX_FILTER_DNS) {
+
+                        // Get the filter matching the RDNs of the names.
+                        StringBuilder filterStringBuilder = new StringBuilder().append("(|");
+                        for (LdapName name : names.subList(fromIndex, Math.min(fromIndex + MAX_FILTER_DNS, names.size()))) {
+                            filterStringBuilder.append(getFilter(name.getRdn(name.size() - 1)));
+                        }
+                        filterStringBuilder.append(")");
+
+                        // Search for the entries.  The entries are bounded by the
+                        // chunk, so they are retrieved with a single unpaged search.
+                        this.putAttributeMaps(attributeMaps, context, filterStringBuilder.toString(), 
+                                parentNameMap.getKey().toString(), attributeNames, parentNameMap.getValue());
+                    }
+                }
+            } catch (NamingException e) {
+                failure = e;
+                throw e;
+            } finally {
+
+                // Release the borrowed context, otherwise close the shared context.
+                if (pooled) {
+                    this.contextPool.release(context, failure);
+                } else {
+                    context.close();
+                }
+            }
+        } catch (NamingException e) {
+            throw new DirectoryException(
+                    "Unable to get the attributes '" + attributeNames + "' for " + dns.size() + " LDAP entries.", e, null);
+        }
+
+    	logger.trace(attributeMaps.size() + " LDAP entries retrieved in " + duration(startTime, new Date()) + "s.");
+
+        return attributeMaps;
+    }
+
     /**
      * Get the attribute name-attribute value maps from the directory.
      * 
@@ -438,40 +727,85 @@ public final class Directory {
     public Map<String,Map<String,Set<String>>> getAttributeMaps(final String filter, final String searchBase, final SearchScope searchScope, final Set<String> attributeNames) throws DirectoryException {
     	
     	Date startTime = new Date();
-    	logger.info("Getting LDAP entries for filter '" + filter + "', searchBase '" + searchBase + "', searchScope '" + searchScope + ", and attributes '" + attributeNames + "'.");
     	
     	// Initialize the attribute name-attribute value maps.
         Map<String,Map<String,Set<String>>> attributeMaps = new HashMap<String,Map<String,Set<String>>>();
 
+        // Get the cursor for the entries.
+        DirectoryCursor cursor = this.getCursor(filter, searchBase, searchScope, attributeNames);
+
+        try {
+
+            // Loop through the entries.
+            while (cursor.hasNext()) {
+
+                // Add the entry to the attribute name-attribute value maps.
+                Map.Entry<String,Map<String,Set<String>>> entry = cursor.next();
+                attributeMaps.put(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            cursor.close();
+        }
+    	
+    	logger.trace(attributeMaps.size() + " LDAP entries retrieved in " + duration(startTime, new Date()) + "s.");
+    	
+    	return attributeMaps;
+    }
+
+    /**
+     * Get the cursor for the entries from the directory.  The entries are retrieved
+     * from the directory as the cursor is consumed.
+     * 
+     * @param  filter          the filter.
+     * @param  searchBase      the search base.
+     * @param  searchScope     the search scope.
+     * @param  attributeNames  the attribute names.
+     * 
+     * @return  the cursor for the entries.
+     * 
+     * @throws  DirectoryException  if unable to get the cursor for the entries.
+     */
+    public DirectoryCursor getCursor(final String filter, final String searchBase, final SearchScope searchScope, final Set<String> attributeNames) throws DirectoryException {
+        return this.getCursor(filter, searchBase, searchScope, attributeNames, 0);
+    }
+
+    /**
+     * Get the cursor for the entries from the directory.  The entries are retrieved
+     * from the directory as the cursor is consumed.  If the page size is positive,
+     * the entries are requested a page at a time using simple paged results (RFC 2696),
+     * so the directory server never builds the entire result at once.
+     * 
+     * @param  filter          the filter.
+     * @param  searchBase      the search base.
+     * @param  searchScope     the search scope.
+     * @param  attributeNames  the attribute names.
+     * @param  countLimit      the maximum number of entries, or 0 for an unlimited number of entries.
+     * 
+     * @return  the cursor for the entries.
+     * 
+     * @throws  DirectoryException  if unable to get the cursor for the entries.
+     */
+    public DirectoryCursor getCursor(final String filter, final String searchBase, final SearchScope searchScope, final Set<String> attributeNames, final long countLimit) throws DirectoryException {
+    	
+    	logger.info("Getting LDAP entries for filter '" + filter + "', searchBase '" + searchBase + "', searchScope '" + searchScope + ", and attributes '" + attributeNames + "'.");
+    	
+        // Initialize the cursor.
+        DirectoryCursor cursor;
+
     	try {
     		
-            // Set the search controls to return an unlimited number of entries, to return the requested attributes,
+            // Set the search controls to return the requested number of entries, to return the requested attributes,
             // to only search at the requested scope, and to take as long as needed.
             SearchControls searchControls = new SearchControls();
-            searchControls.setCountLimit(0);
+            searchControls.setCountLimit(countLimit);
             searchControls.setReturningAttributes(convertSetToArray(attributeNames));
             searchControls.setSearchScope((searchScope == SearchScope.ONE) ? SearchControls.ONELEVEL_SCOPE : SearchControls.SUBTREE_SCOPE);
             searchControls.setTimeLimit(0);
 	    	
-            // Search for entries.
-            NamingEnumeration<SearchResult> searchResults = this.directoryContext.search(searchBase, filter, searchControls);
-	    	
-            // Loop through the search results.
-            while (searchResults.hasMore()) {
-	    		
-                // Get a search result.
-                SearchResult searchResult = searchResults.next();
-	    		
-                // Get the attributes and ID value for the search result.
-                Attributes attributes = searchResult.getAttributes();
-                String idValue = searchResult.getNameInNamespace();
-
-                // Get the attribute name-attribute value map.
-                Map<String,Set<String>> attributeMap = this.getAttributeMap(attributes);
-	    		
-                // Add the map to the attribute name-attribute value maps.
-                attributeMaps.put(idValue, attributeMap);
-            }
+            // Search for entries on a context borrowed for the lifetime of the cursor, so
+            // the paged results controls are not disturbed by other operations.
+            cursor = new DirectoryCursor(this, this.contextPool.borrow(), 
+                    filter, searchBase, searchControls, this.pageSize);
     	} catch (NamingException e) {
             throw new DirectoryException(
                     "Unable to get the LDAP entries for filter '" + filter + "', searchBase '" + searchBase + 
@@ -479,11 +813,44 @@ public final class Directory {
                     e, null);
     	}
     	
-    	logger.trace(attributeMaps.size() + " LDAP entries retrieved in " + duration(startTime, new Date()) + "s.");
-    	
-    	return attributeMaps;
+    	return cursor;
     }
     
+    /**
+     * Get the number of entries from the directory.  The entries are searched
+     * without returning any attributes.
+     * 
+     * @param  filter       the filter.
+     * @param  searchBase   the search base.
+     * @param  searchScope  the search scope.
+     * @param  countLimit   the maximum number of entries to count, or 0 for no limit.
+     * 
+     * @return  the number of entries.
+     * 
+     * @throws  DirectoryException  if unable to get the number of entries.
+     */
+    public long getEntryCount(final String filter, final String searchBase, final SearchScope searchScope, final long countLimit) throws DirectoryException {
+
+        // Initialize.
+        long entryCount = 0;
+
+        // Get the cursor for the entries without any attributes.
+        DirectoryCursor cursor = this.getCursor(filter, searchBase, searchScope, Collections.<String>emptySet(), countLimit);
+
+        try {
+
+            // Loop through the entries.
+            while (cursor.hasNext()) {
+                cursor.next();
+                entryCount++;
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return entryCount;
+    }
+
     /**
      * Get the attribute values from the attribute.
      * 
@@ -547,7 +914,7 @@ public final class Directory {
     }
     
     /**
-     * Get the directory context.
+     * Get the context environment.
      * 
      * @param  initialContextFactory   the initial context factory.
      * @param  providerUrl             the provider URL.
@@ -555,11 +922,9 @@ public final class Directory {
      * @param  securityCredentials     the security credentials.
      * @param  securityPrincipal       the security principal.
      * 
-     * @return  the directory context.
-     * 
-     * @throws  NamingException  if unable to get the directory context.
+     * @return  the context environment.
      */
-    private DirContext getDirectoryContext(final String initialContextFactory, final String providerUrl, final String securityAuthentication, final String securityCredentials, final String securityPrincipal) throws NamingException {
+    private Properties getContextEnvironment(final String initialContextFactory, final String providerUrl, final String securityAuthentication, final String securityCredentials, final String securityPrincipal) {
 
         logger.info("Directory initialized with initial context factory '" + initialContextFactory + "'.");
         logger.info("Directory initialized with provider URL '" + providerUrl + "'.");
@@ -575,8 +940,120 @@ public final class Directory {
         environment.put(Context.SECURITY_CREDENTIALS, securityCredentials);
         environment.put(Context.SECURITY_PRINCIPAL, securityPrincipal);
 
-        // Create and return the directory context.
-        return new InitialDirContext(environment);
+        return environment;
+    }
+
+    /**
+     * Escape the filter value as specified by RFC 4515.
+     * 
+     * @param  value  the filter value.
+     * 
+     * @return  the escaped filter value.
+     */
+    public static String escapeFilterValue(final String value) {
+
+        // Initialize the escaped value string builder.
+        StringBuilder escapedValueStringBuilder = new StringBuilder();
+
+        // Loop through the characters of the value.
+        for (char character : value.toCharArray()) {
+
+            switch (character) {
+
+                case '\\':
+                    escapedValueStringBuilder.append("\\5c");
+                    break;
+                case '*':
+                    escapedValueStringBuilder.append("\\2a");
+                    break;
+                case '(':
+                    escapedValueStringBuilder.append("\\28");
+                    break;
+                case ')':
+                    escapedValueStringBuilder.append("\\29");
+                    break;
+                case '\0':
+                    escapedValueStringBuilder.append("\\00");
+                    break;
+                default:
+                    escapedValueStringBuilder.append(character);
+                    break;
+            }
+        }
+
+        return escapedValueStringBuilder.toString();
+    }
+
+    /**
+     * Get the filter matching the RDN.
+     * 
+     * @param  rdn  the relative distinguished name.
+     * 
+     * @return  the filter matching the RDN.
+     * 
+     * @throws  DirectoryException  if unable to get the filter.
+     */
+    private static String getFilter(final Rdn rdn) throws DirectoryException {
+
+        // Initialize the filter string builder.
+        StringBuilder filterStringBuilder = new StringBuilder();
+
+        try {
+
+            // Loop through the attributes of the RDN.
+            for (NamingEnumeration<? extends Attribute> attributes = rdn.toAttributes().getAll(); attributes.hasMore(); ) {
+
+                // Add the attribute value assertion to the filter string builder.
+                Attribute attribute = attributes.next();
+                filterStringBuilder
+                        .append("(")
+                        .append(attribute.getID())
+                        .append("=")
+                        .append(escapeFilterValue(attribute.get().toString()))
+                        .append(")");
+            }
+        } catch (NamingException e) {
+            throw new DirectoryException(
+                    "Unable to get the filter for RDN '" + rdn + "'.", e, null);
+        }
+
+        return (rdn.size() > 1) ? "(&" + filterStringBuilder + ")" : filterStringBuilder.toString();
+    }
+
+    /**
+     * Get the number property from the directory environment.
+     * 
+     * @param  environment   the directory environment.
+     * @param  name          the property name.
+     * @param  defaultValue  the default value.
+     * 
+     * @return  the number property, or the default value if the property does not exist.
+     * 
+     * @throws  DirectoryException  if the number property is invalid.
+     */
+    private static long getNumberProperty(final Properties environment, final String name, final long defaultValue) throws DirectoryException {
+
+        // Initialize.
+        long value = defaultValue;
+
+        // Check if the property exists.
+        if (environment.getProperty(name) != null) {
+
+            try {
+                value = Long.parseLong(environment.getProperty(name));
+            } catch (NumberFormatException e) {
+                throw new DirectoryException(
+                        "Unable to get the directory context due to an invalid " + name + ".", e, null);
+            }
+        }
+
+        // Check if the property is negative.
+        if (value < 0) {
+            throw new DirectoryException(
+                    "Unable to get the directory context due to an invalid " + name + ".", null);
+        }
+
+        return value;
     }
 
     /**
@@ -615,6 +1092,43 @@ public final class Directory {
         return attributeValuesMismatch;
     }
     
+    /**
+     * Invoke the tasks.  A single task is invoked on the calling thread, while
+     * more tasks are invoked in parallel, bounded by the maximum pool size.
+     * 
+     * @param  tasks  the tasks.
+     * 
+     * @throws  DirectoryException  if a task failed.
+     */
+    private void invokeAll(final List<Callable<Void>> tasks) throws DirectoryException {
+
+        try {
+
+            // Check if there is a single task.
+            if (tasks.size() == 1) {
+                tasks.get(0).call();
+            } else if (tasks.size() > 1) {
+
+                // Loop through the completed tasks.
+                for (Future<Void> future : this.executorService.invokeAll(tasks)) {
+                    future.get();
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DirectoryException) {
+                throw (DirectoryException)e.getCause();
+            }
+            throw new DirectoryException("Unable to enforce referential integrity.", e.getCause(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DirectoryException("Interrupted while enforcing referential integrity.", e, null);
+        } catch (DirectoryException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DirectoryException("Unable to enforce referential integrity.", e, null);
+        }
+    }
+
     /**
      * Is referential integrity needed?
      * 
@@ -627,6 +1141,14 @@ public final class Directory {
     	return (getCorrespondingAttributeName(attributeName, attributeReferentialIntegrityMap) != null) ? true : false;
     }
 
+    /**
+     * Close the directory.  The pooled contexts are closed.
+     */
+    public void close() {
+        this.executorService.shutdown();
+        this.contextPool.close();
+    }
+
     /**
      * Create a new instance of this class.
      *
@@ -640,6 +1162,66 @@ public final class Directory {
         return new Directory(environment);
     }
 
+    /**
+     * Put the attribute name-attribute value maps of the entries one level below
+     * the search base that match the filter on the attribute name-attribute value maps.
+     * 
+     * @param  attributeMaps   the distinguished name-attribute name-attribute value maps.
+     * @param  context         the context.
+     * @param  filter          the filter.
+     * @param  searchBase      the search base.
+     * @param  attributeNames  the attribute names.
+     * @param  nameMap         the name-requested DN map of the entries.
+     * 
+     * @throws  NamingException  if unable to search for the entries.
+     */
+    private void putAttributeMaps(final Map<String,Map<String,Set<String>>> attributeMaps, final LdapContext context, final String filter, final String searchBase, final Set<String> attributeNames, final Map<LdapName,String> nameMap) throws NamingException {
+
+        // Set the search controls to return the requested attributes one level below the search base.
+        SearchControls searchControls = new SearchControls();
+        searchControls.setReturningAttributes(convertSetToArray(attributeNames));
+        searchControls.setSearchScope(SearchControls.ONELEVEL_SCOPE);
+
+        NamingEnumeration<SearchResult> searchResults;
+
+        try {
+
+            // Search for the entries.
+            searchResults = context.search(searchBase, filter, searchControls);
+        } catch (NameNotFoundException e) {
+
+            // None of the entries exist since the search base does not exist.
+            return;
+        }
+
+        try {
+
+            // Loop through the search results.
+            while (searchResults.hasMore()) {
+
+                SearchResult searchResult = searchResults.next();
+
+                // Check if the DN was requested.
+                String dn = nameMap.get(new LdapName(searchResult.getNameInNamespace()));
+                if (dn != null) {
+                    attributeMaps.put(dn, this.getAttributeMap(searchResult.getAttributes()));
+                }
+            }
+        } finally {
+            searchResults.close();
+        }
+    }
+
+    /**
+     * Release the context borrowed for a cursor back to the context pool.
+     * 
+     * @param  context  the context.
+     * @param  failure  the failure of the cursor on the context, or null if the cursor did not fail.
+     */
+    void releaseContext(final LdapContext context, final NamingException failure) {
+        this.contextPool.release(context, failure);
+    }
+
     /**
      * Remove the entry from the directory specified by the DN.
      * 
@@ -655,7 +1237,16 @@ public final class Directory {
     	try {
 			
             // Remove the entry.
-            this.directoryContext.destroySubcontext(dn);
+            LdapContext context = this.contextPool.borrow();
+            NamingException failure = null;
+            try {
+                context.destroySubcontext(dn);
+            } catch (NamingException e) {
+                failure = e;
+                throw e;
+            } finally {
+                this.contextPool.release(context, failure);
+            }
         } catch (NamingException e) {
             throw new DirectoryException(
                     "Unable to remove LDAP entry '" + dn + "'.", e, dn);
@@ -686,6 +1277,23 @@ public final class Directory {
      * @throws DirectoryException  if unable to update the entry.
      */
     public void updateEntry(final String dn, final Map<String,Set<String>> attributeMap, final Map<String,String> attributeReferentialIntegrityMap) throws DirectoryException {
+        this.updateEntry(dn, attributeMap, this.getAttributeMap(dn, attributeMap.keySet()), attributeReferentialIntegrityMap);
+    }
+
+    /**
+     * Update the entry specified by the DN and enforce referential integrity.
+     * The modifications are computed against the existing attribute name-attribute
+     * value map, such as a snapshot of the entry, rather than against the entry
+     * read from the directory, so the entry is updated with a single request.
+     * 
+     * @param  dn                                the distinguished name.
+     * @param  attributeMap                      the attribute name-attribute value map.
+     * @param  existingAttributeMap              the existing attribute name-attribute value map.
+     * @param  attributeReferentialIntegrityMap  the referential integrity attribute map.
+     * 
+     * @throws DirectoryException  if unable to update the entry.
+     */
+    public void updateEntry(final String dn, final Map<String,Set<String>> attributeMap, final Map<String,Set<String>> existingAttributeMap, final Map<String,String> attributeReferentialIntegrityMap) throws DirectoryException {
 		
         Date startTime = new Date();
         logger.info("Updating the existing LDAP entry '" + dn + "'.");
@@ -696,7 +1304,7 @@ public final class Directory {
             Attributes attributes = getAttributes(attributeMap);
 
             // Get the existing attributes.
-            Attributes existingAttributes = getAttributes(this.getAttributeMap(dn, attributeMap.keySet()));
+            Attributes existingAttributes = getAttributes(existingAttributeMap);
 
             // Initialize the modification items.
             ArrayList<ModificationItem> modificationItems = new ArrayList<ModificationItem>();
@@ -727,8 +1335,21 @@ public final class Directory {
                 }
             }
 
-            // Update the entry.						
-            this.directoryContext.modifyAttributes(dn, modificationItems.toArray(new ModificationItem[]{}));
+            // Check if there are modification items.
+            if (!modificationItems.isEmpty()) {
+
+                // Update the entry.
+                LdapContext context = this.contextPool.borrow();
+                NamingException failure = null;
+                try {
+                    context.modifyAttributes(dn, modificationItems.toArray(new ModificationItem[]{}));
+                } catch (NamingException e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    this.contextPool.release(context, failure);
+                }
+            }
 	        
             // Enforce referential integrity.
             this.enforceReferentialIntegrity(dn, attributeMap, attributeReferentialIntegrityMap);
@@ -0,0 +1,296 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.ldap.internal;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.SizeLimitExceededException;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+
+/**
+ * Directory cursor.  The search results are lazily consumed from the directory,
+ * so only the current entry is held in memory.  If the page size is positive, the
+ * search results are requested a page at a time using simple paged results (RFC 2696)
+ * and the next page is only requested once the current page is consumed.
+ *
+ * @author  Ron Rickard
+ */
+public final class DirectoryCursor {
+
+    private boolean closed;
+    private LdapContext context;
+    private byte[] cookie;
+    private Directory directory;
+    private long entryCount;
+    private String filter;
+    private int pageSize;
+    private String searchBase;
+    private SearchControls searchControls;
+    private NamingEnumeration<SearchResult> searchResults;
+
+    /**
+     * Package constructor.  The context is borrowed for the lifetime of the cursor
+     * and released once the cursor is closed.
+     *
+     * @param  directory       the directory.
+     * @param  context         the context.
+     * @param  filter          the filter.
+     * @param  searchBase      the search base.
+     * @param  searchControls  the search controls.
+     * @param  pageSize        the page size, or 0 to disable paged results.
+     *
+     * @throws  NamingException  if unable to search for the first page of entries.
+     */
+    DirectoryCursor(final Directory directory, final LdapContext context, final String filter, final String searchBase, final SearchControls searchControls, final int pageSize) throws NamingException {
+        this.context = context;
+        this.directory = directory;
+        this.filter = filter;
+        this.pageSize = pageSize;
+        this.searchBase = searchBase;
+        this.searchControls = searchControls;
+
+        try {
+
+            // Search for the first page of entries.
+            this.search();
+        } catch (NamingException e) {
+            this.close(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Close the cursor.
+     */
+    public void close() {
+        this.close(null);
+    }
+
+    /**
+     * Close the cursor.  The context is discarded if the cursor failed on it.
+     *
+     * @param  failure  the failure of the cursor on the context, or null if the cursor did not fail.
+     */
+    private void close(final NamingException failure) {
+
+        // Check if the cursor is not already closed.
+        if (!this.closed) {
+
+            this.closed = true;
+
+            try {
+
+                // Close the search results.
+                if (this.searchResults != null) {
+                    this.searchResults.close();
+                }
+            } catch (NamingException e) {
+                // Ignore.
+            }
+
+            // Release the context.
+            this.directory.releaseContext(this.context, failure);
+        }
+    }
+
+    /**
+     * Check if there is a next entry.
+     *
+     * @return  true if there is a next entry, otherwise false.
+     *
+     * @throws  DirectoryException  if unable to check if there is a next entry.
+     */
+    public boolean hasNext() throws DirectoryException {
+
+        // Initialize.
+        boolean hasNext = false;
+
+        // Check if the cursor is not closed and the count limit is not reached.
+        if (!this.closed && !this.isCountLimitReached()) {
+
+            try {
+
+                // Check if there is a next search result, moving to the next page if needed.
+                hasNext = this.searchResults.hasMore();
+                while (!hasNext && this.nextPage()) {
+                    hasNext = this.searchResults.hasMore();
+                }
+            } catch (SizeLimitExceededException e) {
+
+                // Check if the size limit is not the requested count limit, but one enforced by the directory server.
+                if (!this.isCountLimitReached()) {
+                    this.close(e);
+                    throw new DirectoryException(
+                            "Unable to get the next LDAP entry for filter '" + this.filter + "' since the size limit of the directory server was exceeded.", e, null);
+                }
+            } catch (NamingException e) {
+                this.close(e);
+                throw new DirectoryException(
+                        "Unable to get the next LDAP entry for filter '" + this.filter + "'.", e, null);
+            }
+        }
+
+        // Release the search results once they are exhausted.
+        if (!hasNext) {
+            this.close();
+        }
+
+        return hasNext;
+    }
+
+    /**
+     * Check if the count limit is reached.
+     *
+     * @return  true if the count limit is reached, otherwise false.
+     */
+    private boolean isCountLimitReached() {
+        return this.searchControls.getCountLimit() > 0 && this.entryCount >= this.searchControls.getCountLimit();
+    }
+
+    /**
+     * Get the next entry.
+     *
+     * @return  the distinguished name-attribute name-attribute value map entry.
+     *
+     * @throws  DirectoryException      if unable to get the next entry.
+     * @throws  NoSuchElementException  if there is no next entry.
+     */
+    public Map.Entry<String,Map<String,Set<String>>> next() throws DirectoryException {
+
+        // Check if there is no next entry.
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+
+            // Get the next search result.
+            SearchResult searchResult = this.searchResults.next();
+            this.entryCount++;
+
+            return new AbstractMap.SimpleImmutableEntry<String,Map<String,Set<String>>>(
+                    searchResult.getNameInNamespace(),
+                    this.directory.getAttributeMap(searchResult.getAttributes()));
+        } catch (NamingException e) {
+            this.close(e);
+            throw new DirectoryException(
+                    "Unable to get the next LDAP entry for filter '" + this.filter + "'.", e, null);
+        }
+    }
+
+    /**
+     * Get a new context sharing the connection of the cursor.  The new context
+     * has no request controls, so operations on it do not disturb the paged
+     * results of the cursor.  The new context must be closed once it is no longer needed.
+     *
+     * @return  the new context, or null if the cursor is closed.
+     *
+     * @throws  NamingException  if unable to get the new context.
+     */
+    LdapContext newContext() throws NamingException {
+        return (this.closed) ? null : this.context.newInstance(null);
+    }
+
+    /**
+     * Search for the next page of entries.  The cookie returned by the directory
+     * server for the current page identifies the next page.
+     *
+     * @return  true if there is a next page, otherwise false.
+     *
+     * @throws  NamingException  if unable to search for the next page of entries.
+     */
+    private boolean nextPage() throws NamingException {
+
+        // Initialize.
+        this.cookie = null;
+
+        // Check if paged results are requested.
+        if (this.pageSize > 0) {
+
+            // Get the response controls.
+            Control[] responseControls = this.context.getResponseControls();
+
+            // Check if there are response controls.
+            if (responseControls != null) {
+
+                // Loop through the response controls.
+                for (Control responseControl : responseControls) {
+
+                    // Check if the response control is the paged results response control.
+                    if (responseControl instanceof PagedResultsResponseControl) {
+
+                        // Get the cookie.
+                        this.cookie = ((PagedResultsResponseControl)responseControl).getCookie();
+                    }
+                }
+            }
+        }
+
+        // An empty cookie indicates the last page.
+        boolean nextPage = this.cookie != null && this.cookie.length > 0;
+
+        // Check if there is a next page.
+        if (nextPage) {
+
+            // Search for the next page of entries.
+            this.searchResults.close();
+            this.search();
+        }
+
+        return nextPage;
+    }
+
+    /**
+     * Search for the entries.  The paged results control is set on the context
+     * before the search if paged results are requested.
+     *
+     * @throws  NamingException  if unable to search for the entries.
+     */
+    private void search() throws NamingException {
+
+        // Check if paged results are requested.
+        if (this.pageSize > 0) {
+
+            try {
+
+                // Request the page identified by the cookie.  The control is not critical,
+                // so directory servers that do not support paged results return all the entries.
+                this.context.setRequestControls(new Control[]{
+                        new PagedResultsControl(this.pageSize, this.cookie, Control.NONCRITICAL)});
+            } catch (IOException e) {
+                NamingException namingException = new NamingException("Unable to create the paged results control.");
+                namingException.setRootCause(e);
+                throw namingException;
+            }
+        }
+
+        // Search for the entries.
+        this.searchResults = this.context.search(this.searchBase, this.filter, this.searchControls);
+    }
+}
@@ -18,26 +18,42 @@
  */
 package org.lazydog.repository.ldap.internal;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Entity factory.
  * 
+ * The accessor and mutator methods of the entity class are resolved once,
+ * when the entity factory is created, into a property table of method handles.
+ * 
  * @author  Ron Rickard
  */
 public final class EntityFactory<T> {
 
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType MUTATOR_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
     private Class<T> entityClass;
     private Logger logger = LoggerFactory.getLogger(this.getClass());
-    private List<Class<?>> supportedTypes;
+    private Map<String,Property> properties;
+    private Class<?>[] supportedTypes;
+    private ConcurrentMap<Class<?>,Boolean> supportedTypeCache;
 
     /**
      * Private constructor.
@@ -47,9 +63,12 @@ public final class EntityFactory<T> {
      */
     private EntityFactory(final Class<T> entityClass, final List<Class<?>> supportedTypes) {
         this.entityClass = entityClass;
-        this.supportedTypes = supportedTypes;
+        this.supportedTypes = supportedTypes.toArray(new Class<?>[supportedTypes.size()]);
+        this.supportedTypeCache = new ConcurrentHashMap<Class<?>,Boolean>();
+        this.properties = createProperties(entityClass);
         logger.info("Entity factory initialized with entity " + entityClass + ".");
         logger.info("Entity factory initialized with supported types '" + supportedTypes + "'.");
+        logger.info("Entity factory initialized with properties '" + this.properties.keySet() + "'.");
     }
 	
     /**
@@ -98,6 +117,57 @@ public final class EntityFactory<T> {
         return entity;
     }
 
+    /**
+     * Create the property table for the entity class.
+     * 
+     * @param  entityClass  the entity class.
+     * 
+     * @return  the property name-property map.
+     */
+    private static Map<String,Property> createProperties(final Class<?> entityClass) {
+
+        // Initialize the accessor and mutator method maps.
+        Map<String,Method> accessorMethods = new HashMap<String,Method>();
+        Map<String,Method> mutatorMethods = new HashMap<String,Method>();
+
+        // Loop through the methods of the entity class.
+        for (Method method : entityClass.getMethods()) {
+
+            // Skip static and bridge methods.
+            if (Modifier.isStatic(method.getModifiers()) || method.isBridge()) {
+                continue;
+            }
+
+            // Get the method name.
+            String methodName = method.getName();
+
+            // Check if the method is an accessor method.
+            if (methodName.length() > 3 && methodName.startsWith("get") && 
+                    method.getParameterTypes().length == 0 && method.getReturnType() != Void.TYPE) {
+
+                putIfAbsent(accessorMethods, getPropertyName(methodName), method);
+
+            // Check if the method is a mutator method.
+            } else if (methodName.length() > 3 && methodName.startsWith("set") && 
+                    method.getParameterTypes().length == 1 && method.getReturnType() == Void.TYPE) {
+
+                putIfAbsent(mutatorMethods, getPropertyName(methodName), method);
+            }
+        }
+
+        // Initialize the property name-property map.
+        Map<String,Property> properties = new HashMap<String,Property>();
+
+        // Loop through the accessor and mutator property names.
+        Set<String> propertyNames = new HashSet<String>(accessorMethods.keySet());
+        propertyNames.addAll(mutatorMethods.keySet());
+        for (String propertyName : propertyNames) {
+            properties.put(propertyName, new Property(accessorMethods.get(propertyName), mutatorMethods.get(propertyName)));
+        }
+
+        return Collections.unmodifiableMap(properties);
+    }
+
     /**
      * Get the duration in seconds.
      * 
@@ -131,35 +201,32 @@ public final class EntityFactory<T> {
      * @throws  EntityFactoryException  if unable to get the acessor method's return type.
      */
     public Class<?> getAccessorReturnType(final String propertyName) throws EntityFactoryException {
-        return this.getMethod(getAccessorMethodName(propertyName)).getReturnType();
+        return this.getAccessor(propertyName).getReturnType();
     }
-	
+
     /**
-     * Get the method identified by the method name in the entity class.
+     * Get the accessor for the specified property.
      * 
-     * @param  methodName  the method name.
+     * @param  propertyName  the property name.
      * 
-     * @return  the method.
+     * @return  the accessor.
      * 
-     * @throws  EntityFactoryException  if unable to get the method.
+     * @throws  EntityFactoryException  if the entity class does not have an accessor for the property.
      */
-    private Method getMethod(final String methodName) throws EntityFactoryException {
-
-        // Get the methods of the entity class.
-        Method[] methods = this.entityClass.getMethods();
+    private Accessor getAccessor(final String propertyName) throws EntityFactoryException {
 
-        // Loop through the methods.
-        for (Method method : methods) {
+        // Get the property.
+        Property property = (propertyName != null) ? this.properties.get(propertyName) : null;
 
-            // Check if the entity class' method name is equal to the desired method name.
-            if (method.getName().equals(methodName)) {
-                return method;
-            }
+        // Check if the property does not have an accessor.
+        if (property == null || property.getAccessor() == null) {
+            String methodName = (propertyName != null) ? getAccessorMethodName(propertyName) : null;
+            throw new EntityFactoryException(
+                    "Method '" + methodName + "' not found in entity " + this.entityClass + ".", 
+                    this.entityClass, methodName);
         }
 
-        throw new EntityFactoryException(
-                "Method '" + methodName + "' not found in entity " + this.entityClass + ".", 
-                this.entityClass, methodName);
+        return property.getAccessor();
     }
 
     /**
@@ -183,11 +250,36 @@ public final class EntityFactory<T> {
      * @throws  EntityFactoryException  if unable to get the mutator method's parameter type.
      */
     public Class<?> getMutatorParameterType(final String propertyName) throws EntityFactoryException {
-        return this.getMethod(getMutatorMethodName(propertyName)).getParameterTypes()[0];
+        return this.getMutator(propertyName).getParameterType();
     }
 
     /**
-     * Get the property name-property value map for the entity.
+     * Get the mutator for the specified property.
+     * 
+     * @param  propertyName  the property name.
+     * 
+     * @return  the mutator.
+     * 
+     * @throws  EntityFactoryException  if the entity class does not have a mutator for the property.
+     */
+    private Mutator getMutator(final String propertyName) throws EntityFactoryException {
+
+        // Get the property.
+        Property property = (propertyName != null) ? this.properties.get(propertyName) : null;
+
+        // Check if the property does not have a mutator.
+        if (property == null || property.getMutator() == null) {
+            String methodName = (propertyName != null) ? getMutatorMethodName(propertyName) : null;
+            throw new EntityFactoryException(
+                    "Method '" + methodName + "' not found in entity " + this.entityClass + ".", 
+                    this.entityClass, methodName);
+        }
+
+        return property.getMutator();
+    }
+
+    /**
+     * Get the property map for the entity.
      *  
      * @param  entity         the entity.
      * @param  propertyNames  the property names.
@@ -220,6 +312,17 @@ public final class EntityFactory<T> {
 
         return propertyMap;
     }
+
+    /**
+     * Get the property name for the accessor or mutator method name.
+     * 
+     * @param  methodName  the accessor or mutator method name.
+     * 
+     * @return  the property name.
+     */
+    private static String getPropertyName(final String methodName) {
+        return methodName.substring(3, 4).toLowerCase() + methodName.substring(4);
+    }
 	
     /**
      * Get the value of the property from the entity.
@@ -233,95 +336,20 @@ public final class EntityFactory<T> {
      */
     public Object getPropertyValue(final T entity, final String propertyName) throws EntityFactoryException {
 
-        // Get the property value by invoking the accessor method for the property.
-        String methodName = getAccessorMethodName(propertyName);
-        Method method = this.getMethod(methodName);
-        Object propertyValue = this.invokeMethod(entity, method, null);
+        // Get the property value by invoking the accessor for the property.
+        Accessor accessor = this.getAccessor(propertyName);
+        Object propertyValue = accessor.invoke(entity);
 
         // Check if the property value is not an expected type.
-        if (!this.isExpectedType(propertyValue, method.getReturnType())) {
+        if (!this.isExpectedType(propertyValue, accessor.getReturnType())) {
             throw new EntityFactoryException(
                     "Actual return type for property '" + propertyName + 
-                    "' does not match the expected return type '" +  method.getReturnType() + "'.", 
-                    this.entityClass, methodName);
+                    "' does not match the expected return type '" +  accessor.getReturnType() + "'.", 
+                    this.entityClass, accessor.getMethodName());
         }
 
         return propertyValue;
     }
-
-    /**
-     * Invoke the method.  The method will be either a mutator or accessor method.
-     * 
-     * @param  entity          the entity.
-     * @param  method          the method.
-     * @param  parameterValue  the value of the parameter for a mutator method or null for an accessor method.
-     * 
-     * @return  null for a mutator method or the return value for an accessor method.
-     * 
-     * @throws  EntityFactoryException  if unable to invoke the method.
-     */
-    private Object invokeMethod(final T entity, final Method method, final Object parameterValue) throws EntityFactoryException {
-
-        // Initialize.
-        Object returnValue = null;
-
-        // Get the method name.
-        String methodName = method.getName();
-
-        try {
-
-            // Check if this is a mutator method.
-            if (parameterValue != null) {
-
-                // Check if the method's return type is not void.
-                if (method.getReturnType() != Void.TYPE) {
-                    throw new EntityFactoryException(
-                            "Expecting VOID for method '" + methodName + "' return type.", 
-                            this.entityClass, methodName);
-                }
-
-                // Check if the method does not have exactly 1 argument.
-                if (method.getParameterTypes().length != 1) {
-                    throw new EntityFactoryException(
-                            "Method '" + methodName + "' should only have one argument.", 
-                            this.entityClass, methodName);
-                }
-
-                // Invoke the method.
-                method.invoke(entity, parameterValue);
-	
-            // Otherwise, this is an accessor method.
-            } else {
-
-                // Check if the method's return type is void.
-                if (method.getReturnType() == Void.TYPE) {
-                    throw new EntityFactoryException(
-                            "Not expecting VOID for method '" + methodName + "' return type.", 
-                            this.entityClass, methodName);
-                }
-				
-                // Check if the method has any arguments.
-                if (method.getParameterTypes().length != 0) {
-                    throw new EntityFactoryException(
-                            "Method '" + methodName + "' should not have any arguments.", 
-                            this.entityClass, methodName);
-                }
-				
-                // Invoke the method.
-                returnValue = method.invoke(entity);
-            }
-        } catch (IllegalAccessException e) {
-            throw new EntityFactoryException(
-                    "Unable to invoke method '" + methodName + "' on entity " + this.entityClass + ".", 
-                    e, this.entityClass, methodName);
-        } catch (InvocationTargetException e) {
-            throw new EntityFactoryException(
-                    "Unable to invoke method '" + methodName + "' on entity " + this.entityClass + ".", 
-                    e, this.entityClass, methodName);
-        }
-
-        return returnValue;
-    }
 	
     /**
      * Is the value an expected type?
@@ -357,35 +385,61 @@ public final class EntityFactory<T> {
      * 
      * @return  true if the value is a supported type, otherwise false.
      */
-    @SuppressWarnings("unchecked")
     private boolean isSupportedType(final Object value) {
 
         // Initialize.
-        boolean isSupportedType = false;
+        boolean isSupportedType;
 
-        // Loop through the supported types.
-        for (Class<?> supportedType : this.supportedTypes) {
+        // Check if the value is a Set.
+        if (value instanceof Set) {
 
-            // Check if the value is a supported type.
-            if (supportedType.isInstance(value)) {
-                isSupportedType = true;
-	
-            // Check if the value is a Set.
-            } else if (Set.class.isInstance(value)) {
+            // Get the set iterator.
+            Iterator<?> iterator = ((Set<?>)value).iterator();
+
+            // Check if an element of the set, if any, is a supported type.
+            isSupportedType = !iterator.hasNext() || this.isSupportedType(iterator.next());
+
+        } else {
+
+            // Check if the value class is a supported type.
+            isSupportedType = this.isSupportedType(value.getClass());
+        }
+
+        return isSupportedType;
+    }
+
+    /**
+     * Is the value class a supported type?
+     * 
+     * @param  valueClass  the value class.
+     * 
+     * @return  true if the value class is a supported type, otherwise false.
+     */
+    private boolean isSupportedType(final Class<?> valueClass) {
+
+        // Get the cached result for the value class.
+        Boolean isSupportedType = this.supportedTypeCache.get(valueClass);
 
-                // Check if the set has values.
-                if (((Set)value).size() > 0) {
+        // Check if the value class has not been checked yet.
+        if (isSupportedType == null) {
 
-                    // Check if an element of the set is a supported type.
-                    isSupportedType = isSupportedType(((Set)value).toArray()[0]);
+            // Initialize.
+            isSupportedType = Boolean.FALSE;
 
-                } else {
-                    isSupportedType = true;
+            // Loop through the supported types.
+            for (Class<?> supportedType : this.supportedTypes) {
+
+                // Check if the value class is a supported type.
+                if (supportedType.isAssignableFrom(valueClass)) {
+                    isSupportedType = Boolean.TRUE;
+                    break;
                 }
             }
+
+            this.supportedTypeCache.putIfAbsent(valueClass, isSupportedType);
         }
 
-        return isSupportedType;
+        return isSupportedType.booleanValue();
     }
 	
     /**
@@ -400,6 +454,19 @@ public final class EntityFactory<T> {
         return new EntityFactory<T>(entityClass, supportedTypes);
     }
 
+    /**
+     * Put the method in the map if the property name is not already mapped.
+     * 
+     * @param  methods       the property name-method map.
+     * @param  propertyName  the property name.
+     * @param  method        the method.
+     */
+    private static void putIfAbsent(final Map<String,Method> methods, final String propertyName, final Method method) {
+        if (!methods.containsKey(propertyName)) {
+            methods.put(propertyName, method);
+        }
+    }
+
     /**
      * Set the value of the property for the entity.
      * 
@@ -411,19 +478,222 @@ public final class EntityFactory<T> {
      */
     private void setPropertyValue(final T entity, final String propertyName, final Object propertyValue) throws EntityFactoryException {
 
-        // Get the mutator method for the property.
-        String methodName = getMutatorMethodName(propertyName);
-        Method method = this.getMethod(methodName);
+        // Get the mutator for the property.
+        Mutator mutator = this.getMutator(propertyName);
 
         // Check if the property value is an expected type.
-        if (!this.isExpectedType(propertyValue, method.getParameterTypes()[0])) {
+        if (!this.isExpectedType(propertyValue, mutator.getParameterType())) {
             throw new EntityFactoryException(
                     "Actual parameter type for property '" + propertyName + 
-                    "' does not match the expected parameter type '" +  method.getParameterTypes()[0] + "'.", 
-                    this.entityClass, methodName);
+                    "' does not match the expected parameter type '" +  mutator.getParameterType() + "'.", 
+                    this.entityClass, mutator.getMethodName());
         }
 
-        // Invoke the mutator method.
-        this.invokeMethod(entity, method, propertyValue);
+        // Invoke the mutator.
+        mutator.invoke(entity, propertyValue);
+    }
+
+    /**
+     * Get the method handle for the method.
+     * 
+     * @param  method  the method.
+     * @param  type    the method type to adapt the method handle to.
+     * 
+     * @return  the method handle, or null if the method is not accessible.
+     */
+    private static MethodHandle unreflect(final Method method, final MethodType type) {
+
+        // Initialize.
+        MethodHandle methodHandle = null;
+
+        try {
+
+            // Make the method accessible for a public method declared by a non-public class.
+            if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                method.setAccessible(true);
+            }
+
+            // Get the method handle adapted to the method type.
+            methodHandle = MethodHandles.publicLookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            // Leave the method handle null, the invocation will fail.
+        } catch (SecurityException e) {
+            // Leave the method handle null, the invocation will fail.
+        }
+
+        return methodHandle;
+    }
+
+    /**
+     * Property accessor.
+     */
+    private static final class Accessor {
+
+        private final Class<?> entityClass;
+        private final String methodName;
+        private final MethodHandle methodHandle;
+        private final Class<?> returnType;
+
+        /**
+         * Constructor.
+         * 
+         * @param  method  the accessor method.
+         */
+        Accessor(final Method method) {
+            this.entityClass = method.getDeclaringClass();
+            this.methodName = method.getName();
+            this.methodHandle = unreflect(method, ACCESSOR_TYPE);
+            this.returnType = method.getReturnType();
+        }
+
+        /**
+         * Get the method name.
+         * 
+         * @return  the method name.
+         */
+        String getMethodName() {
+            return this.methodName;
+        }
+
+        /**
+         * Get the return type.
+         * 
+         * @return  the return type.
+         */
+        Class<?> getReturnType() {
+            return this.returnType;
+        }
+
+        /**
+         * Invoke the accessor.
+         * 
+         * @param  entity  the entity.
+         * 
+         * @return  the return value.
+         * 
+         * @throws  EntityFactoryException  if unable to invoke the accessor.
+         */
+        Object invoke(final Object entity) throws EntityFactoryException {
+
+            // Check if the method handle is not available.
+            if (this.methodHandle == null) {
+                throw new EntityFactoryException(
+                        "Unable to invoke method '" + this.methodName + "' on entity " + this.entityClass + ".", 
+                        this.entityClass, this.methodName);
+            }
+
+            try {
+                return (Object)this.methodHandle.invokeExact(entity);
+            } catch (Throwable t) {
+                throw new EntityFactoryException(
+                        "Unable to invoke method '" + this.methodName + "' on entity " + this.entityClass + ".", 
+                        t, this.entityClass, this.methodName);
+            }
+        }
+    }
+
+    /**
+     * Property mutator.
+     */
+    private static final class Mutator {
+
+        private final Class<?> entityClass;
+        private final String methodName;
+        private final MethodHandle methodHandle;
+        private final Class<?> parameterType;
+
+        /**
+         * Constructor.
+         * 
+         * @param  method  the mutator method.
+         */
+        Mutator(final Method method) {
+            this.entityClass = method.getDeclaringClass();
+            this.methodName = method.getName();
+            this.methodHandle = unreflect(method, MUTATOR_TYPE);
+            this.parameterType = method.getParameterTypes()[0];
+        }
+
+        /**
+         * Get the method name.
+         * 
+         * @return  the method name.
+         */
+        String getMethodName() {
+            return this.methodName;
+        }
+
+        /**
+         * Get the parameter type.
+         * 
+         * @return  the parameter type.
+         */
+        Class<?> getParameterType() {
+            return this.parameterType;
+        }
+
+        /**
+         * Invoke the mutator.
+         * 
+         * @param  entity          the entity.
+         * @param  parameterValue  the parameter value.
+         * 
+         * @throws  EntityFactoryException  if unable to invoke the mutator.
+         */
+        void invoke(final Object entity, final Object parameterValue) throws EntityFactoryException {
+
+            // Check if the method handle is not available.
+            if (this.methodHandle == null) {
+                throw new EntityFactoryException(
+                        "Unable to invoke method '" + this.methodName + "' on entity " + this.entityClass + ".", 
+                        this.entityClass, this.methodName);
+            }
+
+            try {
+                this.methodHandle.invokeExact(entity, parameterValue);
+            } catch (Throwable t) {
+                throw new EntityFactoryException(
+                        "Unable to invoke method '" + this.methodName + "' on entity " + this.entityClass + ".", 
+                        t, this.entityClass, this.methodName);
+            }
+        }
+    }
+
+    /**
+     * Entity class property.
+     */
+    private static final class Property {
+
+        private final Accessor accessor;
+        private final Mutator mutator;
+
+        /**
+         * Constructor.
+         * 
+         * @param  accessorMethod  the accessor method, or null if there is none.
+         * @param  mutatorMethod   the mutator method, or null if there is none.
+         */
+        Property(final Method accessorMethod, final Method mutatorMethod) {
+            this.accessor = (accessorMethod != null) ? new Accessor(accessorMethod) : null;
+            this.mutator = (mutatorMethod != null) ? new Mutator(mutatorMethod) : null;
+        }
+
+        /**
+         * Get the accessor.
+         * 
+         * @return  the accessor, or null if there is none.
+         */
+        Accessor getAccessor() {
+            return this.accessor;
+        }
+
+        /**
+         * Get the mutator.
+         * 
+         * @return  the mutator, or null if there is none.
+         */
+        Mutator getMutator() {
+            return this.mutator;
+        }
     }
 }
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.ldap.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Entity snapshots.  A snapshot is the attribute name-attribute value map of
+ * an entry as it was last read from or written to the directory, and belongs
+ * to the entity instance created from or persisted with that map.  Snapshots
+ * are weakly referenced by the entity, so they are discarded once the entity
+ * is no longer used, and a snapshot is only returned for the same entity
+ * instance, never for another instance with the same distinguished name.
+ * Snapshots are kept in a concurrent map, so threads do not contend for a lock.
+ *
+ * @author  Ron Rickard
+ */
+public final class EntitySnapshots {
+
+    private ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    private ConcurrentMap<String,Snapshot> snapshots = new ConcurrentHashMap<String,Snapshot>();
+
+    /**
+     * Snapshot.
+     */
+    private static final class Snapshot extends WeakReference<Object> {
+
+        private Map<String,Set<String>> attributeMap;
+        private String dn;
+
+        /**
+         * Constructor.
+         *
+         * @param  dn            the distinguished name.
+         * @param  entity        the entity.
+         * @param  attributeMap  the attribute name-attribute value map.
+         * @param  queue         the reference queue.
+         */
+        Snapshot(final String dn, final Object entity, final Map<String,Set<String>> attributeMap, final ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            this.attributeMap = attributeMap;
+            this.dn = dn;
+        }
+    }
+
+    /**
+     * Hide the constructor.
+     */
+    private EntitySnapshots() {
+    }
+
+    /**
+     * Copy the attribute name-attribute value map.  Attributes without values
+     * are left out, since they do not exist in the directory.
+     *
+     * @param  attributeMap  the attribute name-attribute value map.
+     *
+     * @return  the copy of the attribute name-attribute value map.
+     */
+    private static Map<String,Set<String>> copy(final Map<String,Set<String>> attributeMap) {
+
+        // Initialize the copy.
+        Map<String,Set<String>> copy = new HashMap<String,Set<String>>();
+
+        // Loop through the attributes.
+        for (Map.Entry<String,Set<String>> attribute : attributeMap.entrySet()) {
+
+            // Check if the attribute has values.
+            if (attribute.getValue() != null && !attribute.getValue().isEmpty()) {
+                copy.put(attribute.getKey(), new HashSet<String>(attribute.getValue()));
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * Remove the snapshots of the entities that are no longer used.
+     */
+    private void expunge() {
+
+        // Loop through the cleared snapshots.
+        for (Reference<?> reference = this.queue.poll(); reference != null; reference = this.queue.poll()) {
+
+            Snapshot snapshot = (Snapshot)reference;
+
+            // Remove the snapshot unless it has been replaced.
+            this.snapshots.remove(snapshot.dn, snapshot);
+        }
+    }
+
+    /**
+     * Get the snapshot of the entity.
+     *
+     * @param  dn      the distinguished name.
+     * @param  entity  the entity.
+     *
+     * @return  a copy of the attribute name-attribute value map, or null if there is no snapshot of the entity.
+     */
+    public Map<String,Set<String>> get(final String dn, final Object entity) {
+
+        this.expunge();
+
+        // Get the snapshot.
+        Snapshot snapshot = this.snapshots.get(dn);
+
+        return (snapshot != null && snapshot.get() == entity) ? copy(snapshot.attributeMap) : null;
+    }
+
+    /**
+     * Create a new instance of the entity snapshots.
+     *
+     * @return  a new instance of the entity snapshots.
+     */
+    public static EntitySnapshots newInstance() {
+        return new EntitySnapshots();
+    }
+
+    /**
+     * Put the snapshot of the entity.  The snapshot replaces the snapshot of
+     * any other entity with the same distinguished name.
+     *
+     * @param  dn            the distinguished name.
+     * @param  entity        the entity.
+     * @param  attributeMap  the attribute name-attribute value map.
+     */
+    public void put(final String dn, final Object entity, final Map<String,Set<String>> attributeMap) {
+        this.expunge();
+        this.snapshots.put(dn, new Snapshot(dn, entity, copy(attributeMap), this.queue));
+    }
+
+    /**
+     * Remove the snapshot.
+     *
+     * @param  dn  the distinguished name.
+     */
+    public void remove(final String dn) {
+        this.expunge();
+        this.snapshots.remove(dn);
+    }
+
+    /**
+     * Remove the snapshots.
+     *
+     * @param  dns  the distinguished names.
+     */
+    public void removeAll(final Collection<String> dns) {
+        this.expunge();
+        this.snapshots.keySet().removeAll(dns);
+    }
+
+    /**
+     * Get the number of snapshots.
+     *
+     * @return  the number of snapshots.
+     */
+    public int size() {
+        this.expunge();
+        return this.snapshots.size();
+    }
+}
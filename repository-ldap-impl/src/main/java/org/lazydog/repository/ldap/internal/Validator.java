@@ -18,6 +18,7 @@
  */
 package org.lazydog.repository.ldap.internal;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import org.lazydog.repository.Criteria;
@@ -151,6 +152,26 @@ public final class Validator {
         }
     }
 	
+    /**
+     * Check for valid IDs.
+     * 
+     * @param  ids  the IDs.
+     * 
+     * @throws  IllegalArgumentException  if the IDs are null or invalid.
+     */
+    public static <T> void validIds(final Collection<T> ids) {
+
+        // Check if the IDs are null.
+        if (ids == null) {
+            throw new IllegalArgumentException("The IDs are null.");
+        }
+
+        // Loop through the IDs.
+        for (T id : ids) {
+            validId(id);
+        }
+    }
+	
     /**
      * Check for a valid list.
      * 
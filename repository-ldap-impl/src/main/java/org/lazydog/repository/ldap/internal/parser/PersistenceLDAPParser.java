@@ -42,21 +42,35 @@ public final class PersistenceLDAPParser extends XMLConfigurationFileParser {
         LDAP,
         LOGGING,
         MAPPING_FILE,
-        PERSISTENCE_LDAP;
+        PAGING,
+        PERSISTENCE_LDAP,
+        POOL;
     };
     private static enum ATTRIBUTE_NAME {
     	INITIAL_CONTEXT_FACTORY,
     	LEVEL,
+        MAX_IDLE_TIME,
+        MAX_SIZE,
+        MAX_WAIT,
+        MIN_SIZE,
         NAME,
+        PAGE_SIZE,
         PROVIDER_URL,
         SECURITY_AUTHENTICATION,
         SECURITY_CREDENTIALS,
-        SECURITY_PRINCIPAL;
+        SECURITY_PRINCIPAL,
+        VALIDATE_ON_BORROW;
     };
     private String initialContextFactory;
     private String jndiName;
     private LoggingLevel loggingLevel;
     private Set<String> mappingFileNames;
+    private Integer pageSize;
+    private Long poolMaxIdleTime;
+    private Integer poolMaxSize;
+    private Long poolMaxWait;
+    private Integer poolMinSize;
+    private Boolean poolValidateOnBorrow;
     private String providerUrl;
     private String securityAuthentication;
     private String securityCredentials;
@@ -110,6 +124,60 @@ public final class PersistenceLDAPParser extends XMLConfigurationFileParser {
     	return this.mappingFileNames;
     }
 
+    /**
+     * Get the page size.
+     * 
+     * @return  the page size, or null if paging is not configured.
+     */
+    public Integer getPageSize() {
+    	return this.pageSize;
+    }
+
+    /**
+     * Get the pool maximum idle time.
+     * 
+     * @return  the pool maximum idle time in milliseconds, or null if not configured.
+     */
+    public Long getPoolMaxIdleTime() {
+    	return this.poolMaxIdleTime;
+    }
+
+    /**
+     * Get the pool maximum size.
+     * 
+     * @return  the pool maximum size, or null if not configured.
+     */
+    public Integer getPoolMaxSize() {
+    	return this.poolMaxSize;
+    }
+
+    /**
+     * Get the pool maximum wait.
+     * 
+     * @return  the pool maximum wait in milliseconds, or null if not configured.
+     */
+    public Long getPoolMaxWait() {
+    	return this.poolMaxWait;
+    }
+
+    /**
+     * Get the pool minimum size.
+     * 
+     * @return  the pool minimum size, or null if not configured.
+     */
+    public Integer getPoolMinSize() {
+    	return this.poolMinSize;
+    }
+
+    /**
+     * Get the pool validate on borrow.
+     * 
+     * @return  the pool validate on borrow, or null if not configured.
+     */
+    public Boolean getPoolValidateOnBorrow() {
+    	return this.poolValidateOnBorrow;
+    }
+
     /**
      * Get the provider URL.
      * 
@@ -242,6 +310,28 @@ public final class PersistenceLDAPParser extends XMLConfigurationFileParser {
                             // Add the mapping file name to the mapping file names.
                             this.mappingFileNames.add(mappingFileName);
                             break;
+
+                        case PAGING:
+
+                            // Get the page size.
+                            this.pageSize = Integer.valueOf(getAttributeData(event, ATTRIBUTE_NAME.PAGE_SIZE));
+                            break;
+
+                        case POOL:
+
+                            // Get the pool minimum size, maximum size, maximum idle time,
+                            // maximum wait, and validate on borrow.
+                            String minSize = getAttributeData(event, ATTRIBUTE_NAME.MIN_SIZE);
+                            String maxSize = getAttributeData(event, ATTRIBUTE_NAME.MAX_SIZE);
+                            String maxIdleTime = getAttributeData(event, ATTRIBUTE_NAME.MAX_IDLE_TIME);
+                            String maxWait = getAttributeData(event, ATTRIBUTE_NAME.MAX_WAIT);
+                            String validateOnBorrow = getAttributeData(event, ATTRIBUTE_NAME.VALIDATE_ON_BORROW);
+                            this.poolMinSize = (minSize != null) ? Integer.valueOf(minSize) : null;
+                            this.poolMaxSize = (maxSize != null) ? Integer.valueOf(maxSize) : null;
+                            this.poolMaxIdleTime = (maxIdleTime != null) ? Long.valueOf(maxIdleTime) : null;
+                            this.poolMaxWait = (maxWait != null) ? Long.valueOf(maxWait) : null;
+                            this.poolValidateOnBorrow = (validateOnBorrow != null) ? Boolean.valueOf(validateOnBorrow) : null;
+                            break;
                     }
                 }
             }
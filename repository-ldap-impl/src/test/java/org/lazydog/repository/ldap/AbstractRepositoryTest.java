@@ -20,22 +20,38 @@ package org.lazydog.repository.ldap;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.directory.server.core.integ.annotations.ApplyLdifs;
 import org.apache.directory.server.core.integ.annotations.CleanupLevel;
 import org.apache.directory.server.integ.SiRunner;
 import org.apache.directory.server.ldap.LdapServer;
 import org.junit.After;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.lazydog.repository.AsyncRepository;
 import org.lazydog.repository.Criteria;
+import org.lazydog.repository.CriteriaTemplate;
+import org.lazydog.repository.Cursor;
 import org.lazydog.repository.criterion.Comparison;
+import org.lazydog.repository.criterion.Criterion;
 import org.lazydog.repository.criterion.Logical;
+import org.lazydog.repository.criterion.Parameter;
+import org.lazydog.repository.ldap.internal.Directory;
 import org.lazydog.test.GroupRepository;
 import org.lazydog.test.model.Account;
 import org.lazydog.test.model.Group;
@@ -173,6 +189,25 @@ public class AbstractRepositoryTest {
     	if (fetchedAccount2 != null) {
             repository.remove(Account.class, fetchedAccount2.getId());
     	}
+    	repository.close();
+    }
+
+    @Test
+    public void testCount() {
+    	repository.persist(group2);
+    	Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	criteria.add(Comparison.eq("name", "testgroup*"));
+    	assertEquals(2, repository.count(Group.class, criteria));
+    }
+
+    @Test
+    public void testExists() {
+    	Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	criteria.add(Comparison.eq("name", "testgroup1"));
+    	assertEquals(true, repository.exists(Group.class, criteria));
+    	criteria = repository.getCriteria(Group.class);
+    	criteria.add(Comparison.eq("name", "nogroup"));
+    	assertEquals(false, repository.exists(Group.class, criteria));
     }
 
     @Test
@@ -189,6 +224,42 @@ public class AbstractRepositoryTest {
     	assertEquals(group1, fetchedGroup);
     }
 
+    @Test
+    public void testFindByIds() {
+    	repository.persist(group2);
+    	Map<String,Group> fetchedGroups = repository.findByIds(Group.class,
+    	        Arrays.asList(group2.getId(), "cn=nogroup,ou=groups,o=test,ou=system", group1.getId()));
+    	assertEquals(Arrays.asList(group2.getId(), group1.getId()), new ArrayList<String>(fetchedGroups.keySet()));
+    	assertEquals(group1, fetchedGroups.get(group1.getId()));
+    	assertEquals(group2, fetchedGroups.get(group2.getId()));
+    }
+
+    @Test
+    public void testFindCursor() {
+    	Group persistedGroup = repository.persist(group2);
+    	assertEquals(group2, persistedGroup);
+    	List<Group> fetchedGroups = new ArrayList<Group>();
+    	try (Cursor<Group> cursor = repository.findCursor(Group.class)) {
+    	    while (cursor.hasNext()) {
+    	        fetchedGroups.add(cursor.next());
+    	    }
+    	}
+    	assertReflectionEquals(groups, fetchedGroups, ReflectionComparatorMode.LENIENT_ORDER);
+    }
+
+    @Test
+    public void testFindCursorPersist() {
+    	Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	criteria.add(Comparison.eq("name", group1.getName()));
+    	Group fetchedGroup;
+    	try (Cursor<Group> cursor = repository.findCursor(Group.class, criteria)) {
+    	    fetchedGroup = cursor.next();
+    	}
+    	fetchedGroup.setDescription("Updated Group1");
+    	repository.persist(fetchedGroup);
+    	assertEquals("Updated Group1", repository.find(Group.class, group1.getId()).getDescription());
+    }
+
     @Test
     public void testFindList() {
     	Group persistedGroup = repository.persist(group2);
@@ -208,6 +279,148 @@ public class AbstractRepositoryTest {
     	assertReflectionEquals(groups, fetchedGroups, ReflectionComparatorMode.LENIENT_ORDER);
     }
 
+    @Test
+    public void testFindListEagerReferences() {
+    	List<String> ids = new ArrayList<String>();
+    	try {
+    	    for (int count = 0; count < 101; count++) {
+    	        Group group = new Group();
+    	        group.setAccounts(new HashSet<Account>(accounts));
+    	        group.setDescription("Eager Group" + count);
+    	        group.setId("cn=eagergroup" + count + ",ou=groups,o=test,ou=system");
+    	        group.setName("eagergroup" + count);
+    	        ids.add(repository.persist(group).getId());
+    	    }
+    	    Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	    criteria.add(Comparison.eq("name", "eagergroup*"));
+    	    List<Group> fetchedGroups = repository.findList(Group.class, criteria);
+    	    assertEquals(101, fetchedGroups.size());
+    	    for (Group fetchedGroup : fetchedGroups) {
+    	        assertEquals(new HashSet<Account>(accounts), fetchedGroup.getAccounts());
+    	    }
+    	} finally {
+    	    repository.removeList(Group.class, ids);
+    	}
+    }
+
+    private static Account getAccount(final Group group, final String id) {
+    	for (Account account : group.getAccounts()) {
+    	    if (account.getId().equals(id)) {
+    	        return account;
+    	    }
+    	}
+    	return null;
+    }
+
+    @Test
+    public void testFindListEagerReferencesBatched() {
+    	repository.persist(group2);
+    	Logger logger = (Logger)LoggerFactory.getLogger(Directory.class);
+    	ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+    	appender.start();
+    	logger.addAppender(appender);
+    	logger.setLevel(Level.INFO);
+    	try {
+    	    Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	    criteria.add(Comparison.eq("name", "testgroup*"));
+    	    List<Group> fetchedGroups = repository.findList(Group.class, criteria);
+    	    assertReflectionEquals(groups, fetchedGroups, ReflectionComparatorMode.LENIENT_ORDER);
+    	    assertSame(getAccount(fetchedGroups.get(0), account1.getId()), getAccount(fetchedGroups.get(1), account1.getId()));
+    	} finally {
+    	    logger.detachAppender(appender);
+    	    logger.setLevel(null);
+    	}
+    	List<String> messages = new ArrayList<String>();
+    	for (ILoggingEvent event : appender.list) {
+    	    messages.add(event.getFormattedMessage());
+    	}
+    	assertEquals(messages.toString(), 2, messages.size());
+    	assertTrue(messages.get(0).startsWith("Getting LDAP entries for filter"));
+    	assertTrue(messages.get(1).endsWith("for 2 LDAP entries."));
+    }
+
+    @Test
+    public void testFindListFirstResult() {
+    	repository.persist(group2);
+    	Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	criteria.setFirstResult(1).setMaxResults(1);
+    	List<Group> fetchedGroups = repository.findList(Group.class, criteria);
+    	assertEquals(1, fetchedGroups.size());
+    }
+
+    @Test
+    public void testFindListPersist() {
+    	Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	criteria.add(Comparison.eq("name", group1.getName()));
+    	Group fetchedGroup = repository.findList(Group.class, criteria).get(0);
+    	fetchedGroup.setDescription("Updated Group1");
+    	Logger logger = (Logger)LoggerFactory.getLogger(Directory.class);
+    	ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+    	appender.start();
+    	logger.addAppender(appender);
+    	logger.setLevel(Level.INFO);
+    	try {
+    	    repository.persist(fetchedGroup);
+    	} finally {
+    	    logger.detachAppender(appender);
+    	    logger.setLevel(null);
+    	}
+    	List<String> messages = new ArrayList<String>();
+    	for (ILoggingEvent event : appender.list) {
+    	    messages.add(event.getFormattedMessage());
+    	}
+    	assertTrue(messages.toString(), messages.get(0).startsWith("Updating the existing LDAP entry"));
+    	assertEquals("Updated Group1", repository.find(Group.class, group1.getId()).getDescription());
+    }
+
+    @Test
+    public void testFindProjectionList() {
+    	Criteria<Group> criteria = repository.getCriteria(Group.class);
+    	criteria.add(Comparison.eq("name", "testgroup1"));
+    	criteria.addProjections(Arrays.asList("id", "name", "accounts"));
+    	List<Map<String,Object>> fetchedProjections = repository.findProjectionList(Group.class, criteria);
+    	assertEquals(1, fetchedProjections.size());
+    	assertEquals(Arrays.asList("id", "name", "accounts"), new ArrayList<String>(fetchedProjections.get(0).keySet()));
+    	assertEquals(group1.getId(), fetchedProjections.get(0).get("id"));
+    	assertEquals(group1.getName(), fetchedProjections.get(0).get("name"));
+    	assertEquals(new HashSet<String>(Arrays.asList(account1.getId(), account2.getId())), fetchedProjections.get(0).get("accounts"));
+    }
+
+    @Test
+    public void testGetAsyncRepository() throws Exception {
+    	repository.persist(group2);
+    	ExecutorService executorService = Executors.newFixedThreadPool(2);
+    	try {
+    	    AsyncRepository asyncRepository = repository.getAsyncRepository(executorService);
+    	    Future<Group> fetchedGroup1 = asyncRepository.find(Group.class, group1.getId());
+    	    Future<Group> fetchedGroup2 = asyncRepository.find(Group.class, group2.getId());
+    	    assertEquals(group1, fetchedGroup1.get());
+    	    assertEquals(group2, fetchedGroup2.get());
+    	}
+    	finally {
+    	    executorService.shutdown();
+    	}
+    }
+
+    @Test
+    public void testGetCriteriaTemplate() {
+    	repository.persist(group2);
+    	CriteriaTemplate<Group> criteriaTemplate = repository.getCriteriaTemplate(Group.class,
+    	        Arrays.asList(Comparison.eq("name", Parameter.named("name"))), Collections.<Criterion>emptyList());
+    	assertEquals(group1, repository.find(Group.class, criteriaTemplate.bind(Collections.singletonMap("name", "testgroup1"))));
+    	assertEquals(group2, repository.find(Group.class, criteriaTemplate.bind(Collections.singletonMap("name", "testgroup2"))));
+    	assertEquals(false, repository.exists(Group.class, criteriaTemplate.bind(Collections.singletonMap("name", "testgroup*"))));
+    }
+
+    @Test
+    public void testGetCriteriaTemplateIn() {
+    	repository.persist(group2);
+    	CriteriaTemplate<Group> criteriaTemplate = repository.getCriteriaTemplate(Group.class,
+    	        Arrays.asList(Comparison.in("name", Parameter.named("names"))), Collections.<Criterion>emptyList());
+    	Criteria<Group> criteria = criteriaTemplate.bind(Collections.singletonMap("names", Arrays.asList("testgroup1", "testgroup2")));
+    	assertReflectionEquals(groups, repository.findList(Group.class, criteria), ReflectionComparatorMode.LENIENT_ORDER);
+    }
+
     @Test
     public void testPersist() {
     	Group persistedGroup = repository.persist(group2);
@@ -217,6 +430,38 @@ public class AbstractRepositoryTest {
     	
     }
 
+    @Test
+    public void testPersistBatch() {
+    	List<String> ids = repository.persistBatch(Arrays.asList(group2));
+    	assertEquals(Arrays.asList(group2.getId()), ids);
+    	assertEquals(group2, repository.find(Group.class, group2.getId()));
+    }
+
+    @Test
+    public void testPersistFound() {
+    	Group fetchedGroup = repository.find(Group.class, group1.getId());
+    	fetchedGroup.setDescription("Updated Group1");
+    	fetchedGroup.setAccounts(new HashSet<Account>(Arrays.asList(account1)));
+    	repository.persist(fetchedGroup);
+    	Group updatedGroup = repository.find(Group.class, group1.getId());
+    	assertEquals("Updated Group1", updatedGroup.getDescription());
+    	assertEquals(1, updatedGroup.getAccounts().size());
+    	updatedGroup.setDescription(group1.getDescription());
+    	repository.persist(updatedGroup);
+    	assertEquals(group1.getDescription(), repository.find(Group.class, group1.getId()).getDescription());
+    }
+
+    @Test
+    public void testPersistExisting() {
+    	Group existingGroup = new Group();
+    	existingGroup.setAccounts(new HashSet<Account>(accounts));
+    	existingGroup.setDescription("Existing Group1");
+    	existingGroup.setId(group1.getId());
+    	existingGroup.setName(group1.getName());
+    	repository.persist(existingGroup);
+    	assertEquals("Existing Group1", repository.find(Group.class, group1.getId()).getDescription());
+    }
+
     @Test
     public void testRemove() {
     	repository.remove(Group.class, group1.getId());
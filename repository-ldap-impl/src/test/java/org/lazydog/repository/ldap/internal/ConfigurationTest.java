@@ -28,6 +28,7 @@ import org.apache.directory.server.core.integ.annotations.CleanupLevel;
 import org.apache.directory.server.integ.SiRunner;
 import org.apache.directory.server.ldap.LdapServer;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -118,6 +119,13 @@ public class ConfigurationTest {
     	assertEquals(expected, actual);
     }
     
+    @Test
+    public void testGetPropertyNameUnmapped() throws Exception {
+    	Configuration configuration = Configuration.newInstance();
+    	String actual = configuration.getPropertyName(Group.class, "objectClass");
+    	assertNull(actual);
+    }
+    
     @Test
     public void testGetPropertyNames() throws Exception {
     	Set<String> expected = new HashSet<String>();
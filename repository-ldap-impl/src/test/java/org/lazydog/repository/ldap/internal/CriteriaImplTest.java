@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -74,6 +76,29 @@ public class CriteriaImplTest {
         assertEquals("(&(&(objectclass=groupOfUniqueNames)(objectclass=top))(cn=testgroup*))", fetchedFilter);
     }
 	
+    @Test
+    public void testAddComparisonIn() throws Exception {
+        criteria.add(Comparison.in("name", "testgroup1", "testgroup2", "testgroup3"));
+        String fetchedFilter = criteria.getFilter();
+        assertTrue(fetchedFilter.startsWith("(&(&"));
+        assertTrue(fetchedFilter.endsWith("))(|(cn=testgroup1)(cn=testgroup2)(cn=testgroup3)))"));
+    }
+	
+    @Test
+    public void testAddComparisonInEscaped() throws Exception {
+        criteria.add(Comparison.in("name", "test*", "test(1)"));
+        String fetchedFilter = criteria.getFilter();
+        assertTrue(fetchedFilter.endsWith("))(|(cn=test\\2a)(cn=test\\281\\29)))"));
+    }
+	
+    @Test
+    public void testAddComparisonNotIn() throws Exception {
+        criteria.add(Comparison.notIn("name", "testgroup1", "testgroup2"));
+        String fetchedFilter = criteria.getFilter();
+        assertTrue(fetchedFilter.startsWith("(&(&"));
+        assertTrue(fetchedFilter.endsWith("))(!(|(cn=testgroup1)(cn=testgroup2))))"));
+    }
+	
     @Test
     public void testAddLogicalAnd() throws Exception {
         criteria.add(Comparison.eq("name", "testgroup*"));
@@ -95,6 +120,22 @@ public class CriteriaImplTest {
         criteria.addOrders(orders);
     }
 	
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddProjectionInvalid() throws Exception {
+        criteria.addProjection("unknown");
+    }
+	
+    @Test
+    public void testGetCacheKey() throws Exception {
+        criteria.add(Comparison.eq("name", "testgroup1"));
+        CriteriaImpl<Group> sameCriteria = new CriteriaImpl<Group>(objectClassValues, propertyAttributeMap, searchBase, searchScope);
+        sameCriteria.add(Comparison.eq("name", "testgroup1"));
+        CriteriaImpl<Group> otherCriteria = new CriteriaImpl<Group>(objectClassValues, propertyAttributeMap, searchBase, SearchScope.ONE);
+        otherCriteria.add(Comparison.eq("name", "testgroup1"));
+        assertEquals(criteria.getCacheKey(), sameCriteria.getCacheKey());
+        assertFalse(criteria.getCacheKey().equals(otherCriteria.getCacheKey()));
+    }
+	
     @Test
     public void testGetFilter() throws Exception {
     	String fetchedFilter = criteria.getFilter();
@@ -20,16 +20,26 @@ package org.lazydog.repository.ldap.internal;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.directory.server.core.integ.annotations.ApplyLdifs;
 import org.apache.directory.server.core.integ.annotations.CleanupLevel;
 import org.apache.directory.server.integ.SiRunner;
 import org.apache.directory.server.ldap.LdapServer;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -177,6 +187,51 @@ public class DirectoryTest {
     	assertEquals(groupMap1, actual);
     }
 
+    @Test
+    public void testAddEntryIfAbsent() throws Exception {
+    	Directory directory = Directory.newInstance(environment);
+    	assertTrue(directory.addEntryIfAbsent(groupDn1, groupMap1, new HashMap<String,String>()));
+    	assertFalse(directory.addEntryIfAbsent(groupDn1, groupMap2, new HashMap<String,String>()));
+    	assertEquals(groupMap1, directory.getAttributeMap(groupDn1, attributeNames));
+    }
+
+    @Test
+    public void testAddEntryReferentialIntegrity() throws Exception {
+    	Directory directory = Directory.newInstance(environment);
+    	Map<String,String> attributeReferentialIntegrityMap = new HashMap<String,String>();
+    	attributeReferentialIntegrityMap.put("uniqueMember", "description");
+    	directory.addEntry(groupDn1, groupMap1, attributeReferentialIntegrityMap);
+    	directory.addEntry(groupDn2, groupMap2, attributeReferentialIntegrityMap);
+    	directory.updateEntry(groupDn2, groupMap2, attributeReferentialIntegrityMap);
+    	Set<String> expected = new HashSet<String>(Arrays.asList(groupDn1, groupDn2));
+    	assertEquals(expected, directory.getAttributeMap("uid=testaccount1,ou=accounts,o=test,ou=system", Collections.singleton("description")).get("description"));
+    	assertEquals(expected, directory.getAttributeMap("uid=testaccount2,ou=accounts,o=test,ou=system", Collections.singleton("description")).get("description"));
+    }
+
+    @Test
+    public void testConcurrentGetAttributeMap() throws Exception {
+    	final Directory directory = Directory.newInstance(environment);
+    	directory.addEntry(groupDn1, groupMap1);
+    	ExecutorService executorService = Executors.newFixedThreadPool(4);
+    	try {
+    	    List<Future<Map<String,Set<String>>>> futures = new ArrayList<Future<Map<String,Set<String>>>>();
+    	    for (int count = 0; count < 20; count++) {
+    	        futures.add(executorService.submit(new Callable<Map<String,Set<String>>>() {
+    	            @Override
+    	            public Map<String,Set<String>> call() throws Exception {
+    	                return directory.getAttributeMap(groupDn1, attributeNames);
+    	            }
+    	        }));
+    	    }
+    	    for (Future<Map<String,Set<String>>> future : futures) {
+    	        assertEquals(groupMap1, future.get());
+    	    }
+    	} finally {
+    	    executorService.shutdown();
+    	    directory.close();
+    	}
+    }
+
     @Test
     public void testEntryExists() throws Exception {
     	Directory directory = Directory.newInstance(environment);
@@ -185,6 +240,11 @@ public class DirectoryTest {
     	assertEquals(true, actual);
     }
     
+    @Test
+    public void testEscapeFilterValue() {
+    	assertEquals("a\\2ab\\28c\\29d\\5ce", Directory.escapeFilterValue("a*b(c)d\\e"));
+    }
+
     @Test
     public void testGetAttributeMap() throws Exception {
     	Directory directory = Directory.newInstance(environment);
@@ -202,6 +262,28 @@ public class DirectoryTest {
     	assertEquals(groupMaps, actual);
     }
 
+    @Test
+    public void testGetAttributeMapsPaged() throws Exception {
+    	Properties pagedEnvironment = new Properties();
+    	pagedEnvironment.putAll(environment);
+    	pagedEnvironment.setProperty(Directory.PAGE_SIZE, "1");
+    	Directory directory = Directory.newInstance(pagedEnvironment);
+    	directory.addEntry(groupDn1, groupMap1);
+    	directory.addEntry(groupDn2, groupMap2);
+    	Map<String,Map<String,Set<String>>> actual = directory.getAttributeMaps("(&(objectClass=groupOfUniqueNames)(objectClass=top))", "o=test,ou=system", SearchScope.SUBTREE, attributeNames);
+    	assertEquals(groupMaps, actual);
+    }
+
+    @Test
+    public void testGetAttributeMapsByDns() throws Exception {
+    	Directory directory = Directory.newInstance(environment);
+    	directory.addEntry(groupDn1, groupMap1);
+    	directory.addEntry(groupDn2, groupMap2);
+    	Map<String,Map<String,Set<String>>> actual = directory.getAttributeMaps(
+    	        Arrays.asList(groupDn1, groupDn2, "cn=testgroup3,ou=groups,o=test,ou=system"), attributeNames);
+    	assertEquals(groupMaps, actual);
+    }
+
     @Test
     public void testNewInstance() throws Exception {
     	Directory.newInstance(environment);
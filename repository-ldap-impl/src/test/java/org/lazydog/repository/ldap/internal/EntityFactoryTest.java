@@ -104,6 +104,12 @@ public class EntityFactoryTest {
     	assertEquals(Set.class, returnType);
     }
     
+    @Test(expected=EntityFactoryException.class)
+    public void testGetAccessorReturnTypeInvalid() throws Exception {
+    	EntityFactory<Group> entityFactory = EntityFactory.newInstance(Group.class, supportedTypes);
+    	entityFactory.getAccessorReturnType("members");
+    }
+    
     @Test
     public void testGetMutatorParameterType() throws Exception {
     	EntityFactory<Group> entityFactory = EntityFactory.newInstance(Group.class, supportedTypes);
@@ -123,6 +129,13 @@ public class EntityFactoryTest {
     	assertEquals(propertyMap, fetchedPropertyMap);
     }
 
+    @Test
+    public void testGetPropertyValue() throws Exception {
+    	EntityFactory<Group> entityFactory = EntityFactory.newInstance(Group.class, supportedTypes);
+    	assertEquals(accounts, entityFactory.getPropertyValue(group, "accounts"));
+    	assertEquals("testgroup1", entityFactory.getPropertyValue(group, "name"));
+    }
+
     @Test
     public void testNewInstance() {
         EntityFactory.newInstance(Group.class, supportedTypes);
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2010-2013 lazydog.org.
+ *
+ * This file is part of repository.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lazydog.repository.ldap.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.lazydog.test.model.Group;
+
+/**
+ * Entity snapshots test.
+ *
+ * @author  Ron Rickard
+ */
+public class EntitySnapshotsTest {
+
+    private static final String DN = "cn=testgroup1,ou=groups,o=test,ou=system";
+    private Map<String,Set<String>> attributeMap;
+    private Group group;
+    private EntitySnapshots snapshots;
+
+    @Before
+    public void beforeTest() throws Exception {
+        attributeMap = new HashMap<String,Set<String>>();
+        attributeMap.put("cn", new HashSet<String>(Arrays.asList("testgroup1")));
+        attributeMap.put("description", new HashSet<String>());
+        group = new Group();
+        group.setId(DN);
+        snapshots = EntitySnapshots.newInstance();
+        snapshots.put(DN, group, attributeMap);
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        Map<String,Set<String>> snapshot = snapshots.get(DN, group);
+        assertEquals(Collections.singletonMap("cn", Collections.singleton("testgroup1")), snapshot);
+        snapshot.get("cn").add("testgroup2");
+        attributeMap.get("cn").add("testgroup3");
+        assertEquals(Collections.singletonMap("cn", Collections.singleton("testgroup1")), snapshots.get(DN, group));
+    }
+
+    @Test
+    public void testGetOtherEntity() throws Exception {
+        Group otherGroup = new Group();
+        otherGroup.setId(DN);
+        assertNull(snapshots.get(DN, otherGroup));
+    }
+
+    @Test
+    public void testPutOtherEntity() throws Exception {
+        Group otherGroup = new Group();
+        otherGroup.setId(DN);
+        snapshots.put(DN, otherGroup, attributeMap);
+        assertNull(snapshots.get(DN, group));
+        assertFalse(snapshots.get(DN, otherGroup) == null);
+        assertEquals(1, snapshots.size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        snapshots.remove(DN);
+        assertNull(snapshots.get(DN, group));
+        assertEquals(0, snapshots.size());
+    }
+
+    @Test
+    public void testRemoveAll() throws Exception {
+        snapshots.removeAll(Arrays.asList(DN, "cn=testgroup2,ou=groups,o=test,ou=system"));
+        assertNull(snapshots.get(DN, group));
+    }
+}
@@ -19,6 +19,7 @@
 package org.lazydog.repository.ldap.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,7 @@ import static org.lazydog.repository.ldap.internal.Validator.validCriteria;
 import static org.lazydog.repository.ldap.internal.Validator.validEntity;
 import static org.lazydog.repository.ldap.internal.Validator.validEntityClass;
 import static org.lazydog.repository.ldap.internal.Validator.validId;
+import static org.lazydog.repository.ldap.internal.Validator.validIds;
 import static org.lazydog.repository.ldap.internal.Validator.validList;
 import org.lazydog.test.model.Account;
 import org.lazydog.test.model.Group;
@@ -90,6 +92,16 @@ public class ValidatorTest {
     	validId("uid=testaccount1,ou=accounts,o=test,ou=system");
     }
     
+    @Test
+    public void testValidIds() throws Exception {
+        validIds(Arrays.asList("uid=testaccount1,ou=accounts,o=test,ou=system"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testValidIdsNotString() throws Exception {
+        validIds(Arrays.asList(1));
+    }
+    
     @Test
     public void testValidList() throws Exception {
     	List<String> ids = new ArrayList<String>();
@@ -67,6 +67,22 @@ public class PersistenceLDAPParserTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testGetPageSize() throws Exception {
+        Integer expected = 1;
+        PersistenceLDAPParser parser = PersistenceLDAPParser.newInstance();
+        Integer actual = parser.getPageSize();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testGetPoolMaxSize() throws Exception {
+        Integer expected = 1;
+        PersistenceLDAPParser parser = PersistenceLDAPParser.newInstance();
+        Integer actual = parser.getPoolMaxSize();
+        assertEquals(expected, actual);
+    }
+
     @Test
     public void testGetProviderUrl() throws Exception {
         String expected = "ldap://localhost:1024";